@@ -1,33 +1,97 @@
 package com.studytracker;
 
+import com.studytracker.database.BackupService;
 import com.studytracker.database.DatabaseManager;
+import com.studytracker.database.MaintenanceService;
+import com.studytracker.monitoring.Diagnostics;
+import com.studytracker.monitoring.StartupTimings;
+import com.studytracker.server.AdminReportCommand;
+import com.studytracker.server.BackupCommand;
+import com.studytracker.server.ApiServer;
+import com.studytracker.server.DataTransferCommand;
+import com.studytracker.server.MaintenanceCommand;
+import com.studytracker.service.ExamReminderScheduler;
 import com.studytracker.ui.LoginWindow;
 import javafx.application.Application;
 import javafx.stage.Stage;
 
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Main application class for the Gamified Study Tracker.
- * Initializes the database and launches the JavaFX application.
+ * Initializes the database and launches the JavaFX application,
+ * or the headless HTTP API (--server) / admin report (--report) /
+ * data export and import (--export, --import) / backups (--backup, --restore=...) /
+ * maintenance (--maintain).
  */
 public class Main extends Application {
+    private final Diagnostics diagnostics = new Diagnostics();
+    private final BackupService backupService = BackupService.fromSystemProperties();
+    private final MaintenanceService maintenanceService = MaintenanceService.fromSystemProperties();
 
     @Override
     public void start(Stage primaryStage) {
-        // Initialize database
-        DatabaseManager.getInstance();
+        // Open the database in the background: loading the SQLite driver takes most of a second
+        StartupTimings.Phase databasePhase = StartupTimings.begin("database");
+        CompletableFuture<DatabaseManager> database = DatabaseManager.openAsync();
+        database.thenRun(() -> {
+            databasePhase.end();
+
+            // Query metrics and slow query log
+            StartupTimings.Phase phase = StartupTimings.begin("diagnostics");
+            diagnostics.start();
+
+            // Scheduled online backups, idle ANALYZE / checkpoint / vacuum
+            backupService.start();
+            maintenanceService.start();
+            phase.end();
+            StartupTimings.report("Database ready (" + StartupTimings.millisSinceJvmStart() + " ms after JVM start)");
+        }).exceptionally(error -> {
+            error.printStackTrace();
+            return null;
+        });
 
         // Show login window
-        LoginWindow loginWindow = new LoginWindow();
+        StartupTimings.Phase phase = StartupTimings.begin("login window");
+        LoginWindow loginWindow = new LoginWindow(database);
         loginWindow.show(primaryStage);
+        phase.end();
+        StartupTimings.report("Login window ready (" + StartupTimings.millisSinceJvmStart() + " ms after JVM start)");
     }
 
     @Override
     public void stop() {
+        diagnostics.stop();
+        backupService.stop();
+        ExamReminderScheduler.getInstance().stop();
+        maintenanceService.stop();
+
         // Close database connection when application exits
         DatabaseManager.getInstance().close();
     }
 
     public static void main(String[] args) {
+        if (Arrays.asList(args).contains("--server")) {
+            ApiServer.runFromCommandLine(args);
+            return;
+        }
+        if (Arrays.asList(args).contains("--report")) {
+            AdminReportCommand.runFromCommandLine(args);
+            return;
+        }
+        if (Arrays.asList(args).contains("--export") || Arrays.asList(args).contains("--import")) {
+            DataTransferCommand.runFromCommandLine(args);
+            return;
+        }
+        if (Arrays.stream(args).anyMatch(arg -> arg.equals("--backup") || arg.startsWith("--restore="))) {
+            BackupCommand.runFromCommandLine(args);
+            return;
+        }
+        if (Arrays.asList(args).contains("--maintain")) {
+            MaintenanceCommand.runFromCommandLine(args);
+            return;
+        }
         launch(args);
     }
 }
@@ -0,0 +1,260 @@
+package com.studytracker.dao;
+
+import com.studytracker.database.DatabaseManager;
+import com.studytracker.model.Chapter;
+import com.studytracker.util.EpochTime;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Data Access Object for admin reports spanning every user.
+ * Runs the same query on each shard and merges the results
+ * (a single pass when sharding is off).
+ */
+public class AdminReportDAO {
+    private final Connection directoryConnection;
+    private final List<Connection> shardConnections;
+
+    public AdminReportDAO() {
+        DatabaseManager databaseManager = DatabaseManager.getInstance();
+        this.directoryConnection = databaseManager.getConnection();
+        this.shardConnections = new ArrayList<>();
+        for (int shard = 0; shard < databaseManager.getShardCount(); shard++) {
+            shardConnections.add(databaseManager.getShardConnection(shard));
+        }
+    }
+
+    public AdminReportDAO(Connection directoryConnection, List<Connection> shardConnections) {
+        this.directoryConnection = directoryConnection;
+        this.shardConnections = shardConnections;
+    }
+
+    /**
+     * Row counts and study hours of each shard
+     */
+    public List<ShardSummary> getShardSummaries() throws SQLException {
+        String sql = """
+            SELECT (SELECT COUNT(DISTINCT user_id) FROM subjects) AS active_users,
+                   (SELECT COUNT(*) FROM subjects) AS subjects,
+                   (SELECT COUNT(*) FROM chapters) AS chapters,
+                   (SELECT COUNT(*) FROM chapters WHERE status = %d) AS completed_chapters,
+                   (SELECT COUNT(*) FROM exams) AS exams,
+                   (SELECT COUNT(*) FROM study_sessions) AS sessions,
+                   (SELECT COALESCE(SUM(hours_studied), 0) FROM study_sessions) AS hours
+        """.formatted(Chapter.ChapterStatus.COMPLETED.getCode());
+
+        List<ShardSummary> summaries = new ArrayList<>();
+        for (int shard = 0; shard < shardConnections.size(); shard++) {
+            try (Statement stmt = shardConnections.get(shard).createStatement();
+                 ResultSet rs = stmt.executeQuery(sql)) {
+                if (rs.next()) {
+                    summaries.add(new ShardSummary(shard, rs.getInt("active_users"), rs.getInt("subjects"),
+                        rs.getInt("chapters"), rs.getInt("completed_chapters"), rs.getInt("exams"),
+                        rs.getInt("sessions"), rs.getDouble("hours")));
+                }
+            }
+        }
+        return summaries;
+    }
+
+    /**
+     * Users with the most study hours over the last days: top-N per shard, merged, then
+     * usernames/XP looked up in the directory
+     */
+    public List<StudentActivity> getTopStudents(int limit, int days) throws SQLException {
+        long since = EpochTime.toSeconds(LocalDate.now().minusDays(days));
+        String sql = """
+            SELECT user_id, SUM(hours_studied) AS hours, COUNT(*) AS sessions
+            FROM study_sessions
+            WHERE session_date >= ?
+            GROUP BY user_id
+            ORDER BY hours DESC
+            LIMIT ?
+        """;
+
+        List<StudentActivity> merged = new ArrayList<>();
+        for (Connection shardConnection : shardConnections) {
+            try (PreparedStatement stmt = shardConnection.prepareStatement(sql)) {
+                stmt.setLong(1, since);
+                stmt.setInt(2, limit);
+                ResultSet rs = stmt.executeQuery();
+                while (rs.next()) {
+                    merged.add(new StudentActivity(rs.getInt("user_id"), rs.getDouble("hours"), rs.getInt("sessions")));
+                }
+            }
+        }
+        merged.sort(Comparator.comparingDouble(StudentActivity::getHours).reversed());
+        List<StudentActivity> top = new ArrayList<>(merged.subList(0, Math.min(limit, merged.size())));
+        fillUserDetails(top);
+        return top;
+    }
+
+    /**
+     * Study hours per day over the last days, summed over all shards
+     */
+    public Map<LocalDate, Double> getHoursByDay(int days) throws SQLException {
+        long since = EpochTime.toSeconds(LocalDate.now().minusDays(days - 1L));
+        String sql = """
+            SELECT session_date / 86400 AS day, SUM(hours_studied) AS hours
+            FROM study_sessions
+            WHERE session_date >= ?
+            GROUP BY day
+        """;
+
+        Map<LocalDate, Double> hoursByDay = new TreeMap<>();
+        for (Connection shardConnection : shardConnections) {
+            try (PreparedStatement stmt = shardConnection.prepareStatement(sql)) {
+                stmt.setLong(1, since);
+                ResultSet rs = stmt.executeQuery();
+                while (rs.next()) {
+                    hoursByDay.merge(EpochTime.fromDay(rs.getLong("day")), rs.getDouble("hours"), Double::sum);
+                }
+            }
+        }
+        return hoursByDay;
+    }
+
+    /**
+     * Total number of registered users (directory)
+     */
+    public int countUsers() throws SQLException {
+        try (Statement stmt = directoryConnection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM users")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private void fillUserDetails(List<StudentActivity> activities) throws SQLException {
+        if (activities.isEmpty()) {
+            return;
+        }
+        Map<Integer, StudentActivity> byId = new HashMap<>();
+        StringBuilder placeholders = new StringBuilder();
+        for (StudentActivity activity : activities) {
+            byId.put(activity.getUserId(), activity);
+            placeholders.append(placeholders.isEmpty() ? "?" : ", ?");
+        }
+        String sql = "SELECT id, username, xp, level FROM users WHERE id IN (" + placeholders + ")";
+
+        try (PreparedStatement stmt = directoryConnection.prepareStatement(sql)) {
+            int index = 1;
+            for (StudentActivity activity : activities) {
+                stmt.setInt(index++, activity.getUserId());
+            }
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                StudentActivity activity = byId.get(rs.getInt("id"));
+                activity.username = rs.getString("username");
+                activity.xp = rs.getInt("xp");
+                activity.level = rs.getInt("level");
+            }
+        }
+    }
+
+    /**
+     * Inner class for the content of one shard
+     */
+    public static class ShardSummary {
+        private final int shard;
+        private final int activeUsers;
+        private final int subjects;
+        private final int chapters;
+        private final int completedChapters;
+        private final int exams;
+        private final int sessions;
+        private final double hours;
+
+        public ShardSummary(int shard, int activeUsers, int subjects, int chapters, int completedChapters,
+                            int exams, int sessions, double hours) {
+            this.shard = shard;
+            this.activeUsers = activeUsers;
+            this.subjects = subjects;
+            this.chapters = chapters;
+            this.completedChapters = completedChapters;
+            this.exams = exams;
+            this.sessions = sessions;
+            this.hours = hours;
+        }
+
+        public int getShard() {
+            return shard;
+        }
+
+        public int getActiveUsers() {
+            return activeUsers;
+        }
+
+        public int getSubjects() {
+            return subjects;
+        }
+
+        public int getChapters() {
+            return chapters;
+        }
+
+        public int getCompletedChapters() {
+            return completedChapters;
+        }
+
+        public int getExams() {
+            return exams;
+        }
+
+        public int getSessions() {
+            return sessions;
+        }
+
+        public double getHours() {
+            return hours;
+        }
+    }
+
+    /**
+     * Inner class for one user's recent study activity
+     */
+    public static class StudentActivity {
+        private final int userId;
+        private final double hours;
+        private final int sessions;
+        private String username = "?";
+        private int xp;
+        private int level;
+
+        public StudentActivity(int userId, double hours, int sessions) {
+            this.userId = userId;
+            this.hours = hours;
+            this.sessions = sessions;
+        }
+
+        public int getUserId() {
+            return userId;
+        }
+
+        public double getHours() {
+            return hours;
+        }
+
+        public int getSessions() {
+            return sessions;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public int getXp() {
+            return xp;
+        }
+
+        public int getLevel() {
+            return level;
+        }
+    }
+}
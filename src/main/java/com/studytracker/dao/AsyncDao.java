@@ -0,0 +1,115 @@
+package com.studytracker.dao;
+
+import com.studytracker.database.DatabaseExecutor;
+import com.studytracker.database.DatabaseManager;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous facade over a DAO (or a service built on one): any of its methods is
+ * called through call() or run() and executes on a database thread, returning a
+ * CompletableFuture. The DAO is created there, on the first call, over the executor's own
+ * connection.
+ *
+ * <pre>
+ * AsyncDao.forUser(userId, ChapterDAO::new)
+ *     .call(dao -&gt; dao.findBySubjectId(subjectId))
+ *     .whenCompleteAsync((chapters, error) -&gt; ..., Platform::runLater);
+ * </pre>
+ *
+ * Several calls chained in one lambda run back to back, with no other task in between.
+ */
+public final class AsyncDao<D> {
+
+    /**
+     * A DAO method returning a value
+     */
+    @FunctionalInterface
+    public interface DaoCall<D, T> {
+        T call(D dao) throws SQLException;
+    }
+
+    /**
+     * A DAO method returning nothing
+     */
+    @FunctionalInterface
+    public interface DaoAction<D> {
+        void run(D dao) throws SQLException;
+    }
+
+    /**
+     * Creates the DAO on the database thread
+     */
+    @FunctionalInterface
+    public interface DaoFactory<D> {
+        D create() throws SQLException;
+    }
+
+    /**
+     * Creates a DAO over a connection, e.g. ChapterDAO::new
+     */
+    @FunctionalInterface
+    public interface ConnectionDaoFactory<D> {
+        D create(Connection connection) throws SQLException;
+    }
+
+    private final DatabaseExecutor executor;
+    private final DaoFactory<D> factory;
+    // Created and used on the database thread only
+    private D dao;
+
+    /**
+     * Facade over a DAO the factory creates on the executor's thread, over its connections
+     */
+    public AsyncDao(DatabaseExecutor executor, DaoFactory<D> factory) {
+        this.executor = executor;
+        this.factory = factory;
+    }
+
+    /**
+     * Facade over a DAO of a user's data, e.g. forUser(userId, ExamDAO::new)
+     */
+    public static <D> AsyncDao<D> forUser(int userId, ConnectionDaoFactory<D> factory) {
+        DatabaseExecutor executor = DatabaseManager.getInstance().getExecutorForUser(userId);
+        return new AsyncDao<>(executor, () -> factory.create(executor.getConnectionForUser(userId)));
+    }
+
+    /**
+     * Facade over a UserDAO on the users database thread
+     */
+    public static AsyncDao<UserDAO> users() {
+        DatabaseExecutor executor = DatabaseManager.getInstance().getExecutor();
+        return new AsyncDao<>(executor, () -> new UserDAO(executor.getConnection(), executor::getConnectionForUser));
+    }
+
+    public <T> CompletableFuture<T> call(DaoCall<D, T> call) {
+        return executor.submit(() -> call.call(dao()));
+    }
+
+    public CompletableFuture<Void> run(DaoAction<D> action) {
+        return executor.submit(() -> {
+            action.run(dao());
+            return null;
+        });
+    }
+
+    /**
+     * The wrapped DAO, for callers already on the database thread
+     */
+    public D getDao() throws SQLException {
+        if (!executor.isDatabaseThread()) {
+            throw new IllegalStateException("The DAO is only used on its database thread");
+        }
+        return dao();
+    }
+
+    // Run by the executor's tasks (on its thread, or on close()'s caller once it has ended)
+    private D dao() throws SQLException {
+        if (dao == null) {
+            dao = factory.create();
+        }
+        return dao;
+    }
+}
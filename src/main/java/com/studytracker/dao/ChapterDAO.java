@@ -1,5 +1,6 @@
 package com.studytracker.dao;
 
+import com.studytracker.database.ChunkedDelete;
 import com.studytracker.database.DatabaseManager;
 import com.studytracker.model.Chapter;
 import com.studytracker.model.Chapter.ChapterStatus;
@@ -7,37 +8,55 @@ import com.studytracker.model.Chapter.ChapterStatus;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Data Access Object for Chapter entity.
  */
 public class ChapterDAO {
+    private static final Map<Connection, ChapterDAO> SHARED = new ConcurrentHashMap<>();
+    private static final List<ChapterListener> CHAPTER_LISTENERS = new CopyOnWriteArrayList<>();
     private final Connection connection;
 
     public ChapterDAO() {
-        this.connection = DatabaseManager.getInstance().getConnection();
+        this(DatabaseManager.getInstance().getConnection());
+    }
+
+    /**
+     * Use a specific connection (e.g. one borrowed from a ConnectionPool)
+     */
+    public ChapterDAO(Connection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * DAO on the database holding this user's data (their shard when sharding is on),
+     * shared by all callers: DAOs keep no state besides their connection
+     */
+    public static ChapterDAO forUser(int userId) {
+        return SHARED.computeIfAbsent(DatabaseManager.getInstance().getConnectionForUser(userId), ChapterDAO::new);
     }
 
     /**
      * Create a new chapter
      */
     public Chapter create(Chapter chapter) throws SQLException {
-        String sql = "INSERT INTO chapters (subject_id, name, description, status, estimated_hours) VALUES (?, ?, ?, ?, ?)";
+        String sql = "INSERT INTO chapters (subject_id, name, description, status, estimated_hours) VALUES (?, ?, ?, ?, ?) RETURNING id";
 
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setInt(1, chapter.getSubjectId());
             stmt.setString(2, chapter.getName());
             stmt.setString(3, chapter.getDescription());
-            stmt.setString(4, chapter.getStatus().name());
+            stmt.setInt(4, chapter.getStatus().getCode());
             stmt.setInt(5, chapter.getEstimatedHours());
 
-            stmt.executeUpdate();
-
-            // Get the last inserted ID using SQLite's last_insert_rowid()
-            try (Statement idStmt = connection.createStatement();
-                 ResultSet rs = idStmt.executeQuery("SELECT last_insert_rowid()")) {
+            // RETURNING gives the new ID in the same statement
+            try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
                     chapter.setId(rs.getInt(1));
+                    notifyIfCommitted(chapter);
                     return chapter;
                 }
             }
@@ -80,6 +99,29 @@ public class ChapterDAO {
         return chapters;
     }
 
+    /**
+     * Find all chapters of a user's subjects in one query, grouped by subject (by name)
+     */
+    public List<Chapter> findByUserId(int userId) throws SQLException {
+        List<Chapter> chapters = new ArrayList<>();
+        String sql = """
+            SELECT c.* FROM chapters c
+            JOIN subjects s ON c.subject_id = s.id
+            WHERE s.user_id = ?
+            ORDER BY s.name, s.id, c.name
+        """;
+
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setInt(1, userId);
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                chapters.add(mapResultSetToChapter(rs));
+            }
+        }
+        return chapters;
+    }
+
     /**
      * Get all chapters
      */
@@ -105,24 +147,48 @@ public class ChapterDAO {
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, chapter.getName());
             stmt.setString(2, chapter.getDescription());
-            stmt.setString(3, chapter.getStatus().name());
+            stmt.setInt(3, chapter.getStatus().getCode());
             stmt.setInt(4, chapter.getEstimatedHours());
             stmt.setInt(5, chapter.getId());
 
             stmt.executeUpdate();
         }
+        notifyIfCommitted(chapter);
     }
 
     /**
-     * Delete chapter
+     * Delete chapter with its study sessions (in batches, see ChunkedDelete)
      */
     public void delete(int id) throws SQLException {
-        String sql = "DELETE FROM chapters WHERE id = ?";
+        Integer userId = findUserId(id);
+        if (userId == null) {
+            return;
+        }
+
+        int sessions = ChunkedDelete.deleteChapter(connection, id);
+        if (connection.getAutoCommit()) {
+            notifyChapterDeleted(connection, id);
+            if (sessions > 0) {
+                StudySessionDAO.notifySessionsChanged(userId);
+            }
+        }
+    }
+
+    /**
+     * Owner of a chapter (through its subject), or null if the chapter doesn't exist
+     */
+    private Integer findUserId(int chapterId) throws SQLException {
+        String sql = "SELECT s.user_id FROM chapters c JOIN subjects s ON c.subject_id = s.id WHERE c.id = ?";
 
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setInt(1, id);
-            stmt.executeUpdate();
+            stmt.setInt(1, chapterId);
+            ResultSet rs = stmt.executeQuery();
+
+            if (rs.next()) {
+                return rs.getInt(1);
+            }
         }
+        return null;
     }
 
     /**
@@ -132,11 +198,12 @@ public class ChapterDAO {
         String sql = """
             SELECT
                 COUNT(*) as total,
-                SUM(CASE WHEN status = 'COMPLETED' THEN 1 ELSE 0 END) as completed,
-                SUM(CASE WHEN status = 'IN_PROGRESS' THEN 1 ELSE 0 END) as in_progress,
-                SUM(CASE WHEN status = 'NOT_STARTED' THEN 1 ELSE 0 END) as not_started
+                SUM(CASE WHEN status = %d THEN 1 ELSE 0 END) as completed,
+                SUM(CASE WHEN status = %d THEN 1 ELSE 0 END) as in_progress,
+                SUM(CASE WHEN status = %d THEN 1 ELSE 0 END) as not_started
             FROM chapters WHERE subject_id = ?
-        """;
+        """.formatted(ChapterStatus.COMPLETED.getCode(), ChapterStatus.IN_PROGRESS.getCode(),
+            ChapterStatus.NOT_STARTED.getCode());
 
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setInt(1, subjectId);
@@ -154,6 +221,38 @@ public class ChapterDAO {
         return new ChapterStats(0, 0, 0, 0);
     }
 
+    /**
+     * Get completion statistics for all of a user's chapters in one query
+     */
+    public ChapterStats getStatsByUserId(int userId) throws SQLException {
+        String sql = """
+            SELECT
+                COUNT(*) as total,
+                SUM(CASE WHEN c.status = %d THEN 1 ELSE 0 END) as completed,
+                SUM(CASE WHEN c.status = %d THEN 1 ELSE 0 END) as in_progress,
+                SUM(CASE WHEN c.status = %d THEN 1 ELSE 0 END) as not_started
+            FROM chapters c
+            JOIN subjects s ON c.subject_id = s.id
+            WHERE s.user_id = ?
+        """.formatted(ChapterStatus.COMPLETED.getCode(), ChapterStatus.IN_PROGRESS.getCode(),
+            ChapterStatus.NOT_STARTED.getCode());
+
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setInt(1, userId);
+            ResultSet rs = stmt.executeQuery();
+
+            if (rs.next()) {
+                return new ChapterStats(
+                    rs.getInt("total"),
+                    rs.getInt("completed"),
+                    rs.getInt("in_progress"),
+                    rs.getInt("not_started")
+                );
+            }
+        }
+        return new ChapterStats(0, 0, 0, 0);
+    }
+
     /**
      * Get total completed chapters for a user (across all subjects)
      */
@@ -161,8 +260,8 @@ public class ChapterDAO {
         String sql = """
             SELECT COUNT(*) FROM chapters c
             JOIN subjects s ON c.subject_id = s.id
-            WHERE s.user_id = ? AND c.status = 'COMPLETED'
-        """;
+            WHERE s.user_id = ? AND c.status = %d
+        """.formatted(ChapterStatus.COMPLETED.getCode());
 
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setInt(1, userId);
@@ -175,6 +274,44 @@ public class ChapterDAO {
         return 0;
     }
 
+    /**
+     * Register a listener told about every committed chapter write (in-memory chapter
+     * indexes such as ChapterSearchIndex)
+     */
+    public static void addChapterListener(ChapterListener listener) {
+        CHAPTER_LISTENERS.add(listener);
+    }
+
+    public static void removeChapterListener(ChapterListener listener) {
+        CHAPTER_LISTENERS.remove(listener);
+    }
+
+    /**
+     * Tell the listeners about a chapter written in a transaction, once it is committed
+     * (the DAO itself only tells them about writes outside a transaction, which a rollback
+     * can't undo)
+     */
+    public static void notifyChapterSaved(Connection connection, Chapter chapter) {
+        for (ChapterListener listener : CHAPTER_LISTENERS) {
+            listener.chapterSaved(connection, chapter);
+        }
+    }
+
+    /**
+     * Tell the listeners about a chapter deleted in a transaction, once it is committed
+     */
+    public static void notifyChapterDeleted(Connection connection, int chapterId) {
+        for (ChapterListener listener : CHAPTER_LISTENERS) {
+            listener.chapterDeleted(connection, chapterId);
+        }
+    }
+
+    private void notifyIfCommitted(Chapter chapter) throws SQLException {
+        if (connection.getAutoCommit()) {
+            notifyChapterSaved(connection, chapter);
+        }
+    }
+
     /**
      * Map ResultSet to Chapter object
      */
@@ -184,7 +321,7 @@ public class ChapterDAO {
         chapter.setSubjectId(rs.getInt("subject_id"));
         chapter.setName(rs.getString("name"));
         chapter.setDescription(rs.getString("description"));
-        chapter.setStatus(ChapterStatus.valueOf(rs.getString("status")));
+        chapter.setStatus(ChapterStatus.fromCode(rs.getInt("status")));
         chapter.setEstimatedHours(rs.getInt("estimated_hours"));
         return chapter;
     }
@@ -225,4 +362,17 @@ public class ChapterDAO {
             return total > 0 ? (completed / (double) total) * 100 : 0;
         }
     }
+
+    /**
+     * Listener for chapter writes. Ids are only unique within one database (one shard),
+     * so each event comes with the connection it was written on.
+     */
+    public interface ChapterListener {
+        /**
+         * A chapter was created or updated
+         */
+        void chapterSaved(Connection connection, Chapter chapter);
+
+        void chapterDeleted(Connection connection, int chapterId);
+    }
 }
@@ -2,42 +2,61 @@ package com.studytracker.dao;
 
 import com.studytracker.database.DatabaseManager;
 import com.studytracker.model.Exam;
+import com.studytracker.util.EpochTime;
 
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Data Access Object for Exam entity.
  */
 public class ExamDAO {
+    private static final Map<Connection, ExamDAO> SHARED = new ConcurrentHashMap<>();
+    private static final List<ExamListener> EXAM_LISTENERS = new CopyOnWriteArrayList<>();
     private final Connection connection;
 
     public ExamDAO() {
-        this.connection = DatabaseManager.getInstance().getConnection();
+        this(DatabaseManager.getInstance().getConnection());
+    }
+
+    /**
+     * Use a specific connection (e.g. one borrowed from a ConnectionPool)
+     */
+    public ExamDAO(Connection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * DAO on the database holding this user's data (their shard when sharding is on),
+     * shared by all callers: DAOs keep no state besides their connection
+     */
+    public static ExamDAO forUser(int userId) {
+        return SHARED.computeIfAbsent(DatabaseManager.getInstance().getConnectionForUser(userId), ExamDAO::new);
     }
 
     /**
      * Create a new exam
      */
     public Exam create(Exam exam) throws SQLException {
-        String sql = "INSERT INTO exams (subject_id, name, description, exam_date, is_completed) VALUES (?, ?, ?, ?, ?)";
+        String sql = "INSERT INTO exams (subject_id, name, description, exam_date, is_completed) VALUES (?, ?, ?, ?, ?) RETURNING id";
 
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setInt(1, exam.getSubjectId());
             stmt.setString(2, exam.getName());
             stmt.setString(3, exam.getDescription());
-            stmt.setString(4, exam.getExamDate().toString());
+            stmt.setLong(4, EpochTime.toDay(exam.getExamDate()));
             stmt.setInt(5, exam.isCompleted() ? 1 : 0);
 
-            stmt.executeUpdate();
-
-            // Get the last inserted ID using SQLite's last_insert_rowid()
-            try (Statement idStmt = connection.createStatement();
-                 ResultSet rs = idStmt.executeQuery("SELECT last_insert_rowid()")) {
+            // RETURNING gives the new ID in the same statement
+            try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
                     exam.setId(rs.getInt(1));
+                    notifyIfCommitted(exam);
                     return exam;
                 }
             }
@@ -112,12 +131,39 @@ public class ExamDAO {
             SELECT e.* FROM exams e
             JOIN subjects s ON e.subject_id = s.id
             WHERE s.user_id = ? AND e.is_completed = 0
-            AND e.exam_date BETWEEN date('now') AND date('now', '+7 days')
+            AND e.exam_date BETWEEN ? AND ?
+            ORDER BY e.exam_date
+        """;
+
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            LocalDate today = LocalDate.now();
+            stmt.setInt(1, userId);
+            stmt.setLong(2, EpochTime.toDay(today));
+            stmt.setLong(3, EpochTime.toDay(today.plusDays(7)));
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                exams.add(mapResultSetToExam(rs));
+            }
+        }
+        return exams;
+    }
+
+    /**
+     * Find a user's exams not completed yet, from today on
+     */
+    public List<Exam> findPendingByUserId(int userId) throws SQLException {
+        List<Exam> exams = new ArrayList<>();
+        String sql = """
+            SELECT e.* FROM exams e
+            JOIN subjects s ON e.subject_id = s.id
+            WHERE s.user_id = ? AND e.is_completed = 0 AND e.exam_date >= ?
             ORDER BY e.exam_date
         """;
 
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setInt(1, userId);
+            stmt.setLong(2, EpochTime.toDay(LocalDate.now()));
             ResultSet rs = stmt.executeQuery();
 
             while (rs.next()) {
@@ -127,6 +173,29 @@ public class ExamDAO {
         return exams;
     }
 
+    /**
+     * Find the pending exams (not completed, from today on) of every user of this
+     * database, with their owner, for server-wide reminders
+     */
+    public List<PendingExam> findAllPending() throws SQLException {
+        List<PendingExam> pending = new ArrayList<>();
+        String sql = """
+            SELECT e.*, s.user_id AS owner_id FROM exams e
+            JOIN subjects s ON e.subject_id = s.id
+            WHERE e.is_completed = 0 AND e.exam_date >= ?
+        """;
+
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setLong(1, EpochTime.toDay(LocalDate.now()));
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                pending.add(new PendingExam(rs.getInt("owner_id"), mapResultSetToExam(rs)));
+            }
+        }
+        return pending;
+    }
+
     /**
      * Get all exams
      */
@@ -152,12 +221,13 @@ public class ExamDAO {
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, exam.getName());
             stmt.setString(2, exam.getDescription());
-            stmt.setString(3, exam.getExamDate().toString());
+            stmt.setLong(3, EpochTime.toDay(exam.getExamDate()));
             stmt.setInt(4, exam.isCompleted() ? 1 : 0);
             stmt.setInt(5, exam.getId());
 
             stmt.executeUpdate();
         }
+        notifyIfCommitted(exam);
     }
 
     /**
@@ -170,6 +240,45 @@ public class ExamDAO {
             stmt.setInt(1, id);
             stmt.executeUpdate();
         }
+        if (connection.getAutoCommit()) {
+            notifyExamDeleted(connection, id);
+        }
+    }
+
+    /**
+     * Register a listener told about every committed exam write (the exam reminder scheduler)
+     */
+    public static void addExamListener(ExamListener listener) {
+        EXAM_LISTENERS.add(listener);
+    }
+
+    public static void removeExamListener(ExamListener listener) {
+        EXAM_LISTENERS.remove(listener);
+    }
+
+    /**
+     * Tell the listeners about an exam written in a transaction, once it is committed
+     * (the DAO itself only tells them about writes outside a transaction, like ChapterDAO)
+     */
+    public static void notifyExamSaved(Connection connection, Exam exam) {
+        for (ExamListener listener : EXAM_LISTENERS) {
+            listener.examSaved(connection, exam);
+        }
+    }
+
+    /**
+     * Tell the listeners about an exam deleted in a transaction, once it is committed
+     */
+    public static void notifyExamDeleted(Connection connection, int examId) {
+        for (ExamListener listener : EXAM_LISTENERS) {
+            listener.examDeleted(connection, examId);
+        }
+    }
+
+    private void notifyIfCommitted(Exam exam) throws SQLException {
+        if (connection.getAutoCommit()) {
+            notifyExamSaved(connection, exam);
+        }
     }
 
     /**
@@ -181,8 +290,42 @@ public class ExamDAO {
         exam.setSubjectId(rs.getInt("subject_id"));
         exam.setName(rs.getString("name"));
         exam.setDescription(rs.getString("description"));
-        exam.setExamDate(LocalDate.parse(rs.getString("exam_date")));
+        exam.setExamDate(EpochTime.fromDay(rs.getLong("exam_date")));
         exam.setCompleted(rs.getInt("is_completed") == 1);
         return exam;
     }
+
+    /**
+     * Inner class for a pending exam and the user it belongs to
+     */
+    public static class PendingExam {
+        private final int userId;
+        private final Exam exam;
+
+        public PendingExam(int userId, Exam exam) {
+            this.userId = userId;
+            this.exam = exam;
+        }
+
+        public int getUserId() {
+            return userId;
+        }
+
+        public Exam getExam() {
+            return exam;
+        }
+    }
+
+    /**
+     * Listener for exam writes. Ids are only unique within one database (one shard), so
+     * each event comes with the connection it was written on.
+     */
+    public interface ExamListener {
+        /**
+         * An exam was created or updated (including marked completed)
+         */
+        void examSaved(Connection connection, Exam exam);
+
+        void examDeleted(Connection connection, int examId);
+    }
 }
@@ -0,0 +1,231 @@
+package com.studytracker.dao;
+
+import com.studytracker.database.DatabaseManager;
+import com.studytracker.util.EpochTime;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Data Access Object for full-text search over a user's subjects, chapters,
+ * exams and session notes (the FTS5 search_index table kept in sync by triggers).
+ */
+public class SearchDAO {
+    private static final Map<Connection, SearchDAO> SHARED = new ConcurrentHashMap<>();
+    // Title matches weigh more than matches in descriptions/notes; the owner token doesn't count
+    private static final String RANK = "bm25(search_index, 10.0, 1.0, 0.0)";
+
+    private final Connection connection;
+
+    public SearchDAO() {
+        this(DatabaseManager.getInstance().getConnection());
+    }
+
+    /**
+     * Use a specific connection (e.g. one borrowed from a ConnectionPool)
+     */
+    public SearchDAO(Connection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * DAO on the database holding this user's data (their shard when sharding is on),
+     * shared by all callers: DAOs keep no state besides their connection
+     */
+    public static SearchDAO forUser(int userId) {
+        return SHARED.computeIfAbsent(DatabaseManager.getInstance().getConnectionForUser(userId), SearchDAO::new);
+    }
+
+    /**
+     * One page of a user's results, best first. Every word of the input is matched as a
+     * prefix ("alg lin" finds "Algèbre linéaire"), so this works while the user is typing.
+     */
+    public SearchPage search(int userId, String input, int offset, int limit) throws SQLException {
+        String matchQuery = toMatchQuery(input);
+        List<SearchResult> results = new ArrayList<>();
+        if (matchQuery == null) {
+            return new SearchPage(results, offset, false);
+        }
+
+        // Rank and paginate inside the index, then look up context for the page only
+        String sql = """
+            WITH hits AS (
+                SELECT rowid AS doc, title,
+                       snippet(search_index, -1, '[', ']', '…', 12) AS excerpt,
+                       %s AS score
+                FROM search_index
+                WHERE search_index MATCH ?
+                ORDER BY score
+                LIMIT ? OFFSET ?
+            )
+            SELECT hits.doc, hits.title, hits.excerpt, hits.score,
+                   COALESCE(cs.name, es.name, sc.name) AS context,
+                   COALESCE(e.exam_date, ss.session_date / 86400) AS day
+            FROM hits
+            LEFT JOIN chapters c ON hits.doc %% 4 = 1 AND c.id = hits.doc / 4
+            LEFT JOIN subjects cs ON cs.id = c.subject_id
+            LEFT JOIN exams e ON hits.doc %% 4 = 2 AND e.id = hits.doc / 4
+            LEFT JOIN subjects es ON es.id = e.subject_id
+            LEFT JOIN study_sessions ss ON hits.doc %% 4 = 3 AND ss.id = hits.doc / 4
+            LEFT JOIN chapters sc ON sc.id = ss.chapter_id
+            ORDER BY hits.score
+        """.formatted(RANK);
+
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            // The owner token narrows the match to this user's rows inside the index; the
+            // words only match titles and bodies (a word like "u12" mustn't match owners)
+            stmt.setString(1, "owner:u" + userId + " AND {title body}: (" + matchQuery + ")");
+            stmt.setInt(2, limit + 1); // one extra row tells whether there is a next page
+            stmt.setInt(3, offset);
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                long doc = rs.getLong("doc");
+                long day = rs.getLong("day");
+                String date = rs.wasNull() ? null : EpochTime.fromDay(day).toString();
+                results.add(new SearchResult(
+                    Kind.values()[(int) (doc % 4)],
+                    (int) (doc / 4),
+                    rs.getString("title"),
+                    rs.getString("excerpt"),
+                    rs.getString("context"),
+                    date,
+                    rs.getDouble("score")
+                ));
+            }
+        }
+
+        boolean hasMore = results.size() > limit;
+        if (hasMore) {
+            results.remove(results.size() - 1);
+        }
+        return new SearchPage(results, offset, hasMore);
+    }
+
+    /**
+     * Turn free text into an FTS5 query: each word quoted (so user input can't be
+     * parsed as FTS syntax) and matched as a prefix. Null if there is no word.
+     */
+    static String toMatchQuery(String input) {
+        if (input == null) {
+            return null;
+        }
+        StringBuilder query = new StringBuilder();
+        for (String word : input.split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                query.append(query.isEmpty() ? "" : " ").append('"').append(word).append("\"*");
+            }
+        }
+        return query.isEmpty() ? null : query.toString();
+    }
+
+    /**
+     * Source table of a result; the ordinal is the low two bits of the index rowid
+     */
+    public enum Kind {
+        SUBJECT, CHAPTER, EXAM, SESSION
+    }
+
+    /**
+     * Inner class for one search hit
+     */
+    public static class SearchResult {
+        private final Kind kind;
+        private final int id;
+        private final String title;
+        private final String excerpt;
+        private final String context;
+        private final String date;
+        private final double score;
+
+        public SearchResult(Kind kind, int id, String title, String excerpt, String context, String date,
+                            double score) {
+            this.kind = kind;
+            this.id = id;
+            this.title = title;
+            this.excerpt = excerpt;
+            this.context = context;
+            this.date = date;
+            this.score = score;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        /**
+         * Subject/chapter/exam name (null for sessions)
+         */
+        public String getTitle() {
+            return title;
+        }
+
+        /**
+         * Matching text with the matched words in [brackets]
+         */
+        public String getExcerpt() {
+            return excerpt;
+        }
+
+        /**
+         * Subject of a chapter/exam, chapter of a session
+         */
+        public String getContext() {
+            return context;
+        }
+
+        /**
+         * Exam or session date (yyyy-MM-dd)
+         */
+        public String getDate() {
+            return date;
+        }
+
+        /**
+         * BM25 score, lower is better
+         */
+        public double getScore() {
+            return score;
+        }
+    }
+
+    /**
+     * Inner class for one page of results
+     */
+    public static class SearchPage {
+        private final List<SearchResult> results;
+        private final int offset;
+        private final boolean hasMore;
+
+        public SearchPage(List<SearchResult> results, int offset, boolean hasMore) {
+            this.results = results;
+            this.offset = offset;
+            this.hasMore = hasMore;
+        }
+
+        public List<SearchResult> getResults() {
+            return results;
+        }
+
+        public int getOffset() {
+            return offset;
+        }
+
+        public boolean hasMore() {
+            return hasMore;
+        }
+
+        /**
+         * Offset of the next page
+         */
+        public int getNextOffset() {
+            return offset + results.size();
+        }
+    }
+}
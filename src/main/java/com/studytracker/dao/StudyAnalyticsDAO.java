@@ -0,0 +1,141 @@
+package com.studytracker.dao;
+
+import com.studytracker.database.DatabaseManager;
+import com.studytracker.util.EpochTime;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Data Access Object for study statistics over time: hours, XP and session counts
+ * grouped into day/week/month/hour-of-day buckets by SQLite in one query.
+ */
+public class StudyAnalyticsDAO {
+    private static final Map<Connection, StudyAnalyticsDAO> SHARED = new ConcurrentHashMap<>();
+    private final Connection connection;
+
+    public StudyAnalyticsDAO() {
+        this(DatabaseManager.getInstance().getConnection());
+    }
+
+    /**
+     * Use a specific connection (e.g. one borrowed from a ConnectionPool)
+     */
+    public StudyAnalyticsDAO(Connection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * DAO on the database holding this user's data (their shard when sharding is on),
+     * shared by all callers: DAOs keep no state besides their connection
+     */
+    public static StudyAnalyticsDAO forUser(int userId) {
+        return SHARED.computeIfAbsent(DatabaseManager.getInstance().getConnectionForUser(userId), StudyAnalyticsDAO::new);
+    }
+
+    /**
+     * Bucket size. session_date is stored as epoch seconds (see EpochTime), so each key
+     * is integer arithmetic on it: the bucket's first day as an epoch day, or the hour (0-23)
+     */
+    public enum Granularity {
+        DAY("session_date / 86400"),
+        // Monday of the session's week (epoch day 0 was a Thursday)
+        WEEK("session_date / 86400 - (session_date / 86400 + 3) % 7"),
+        MONTH("unixepoch(session_date, 'unixepoch', 'start of month') / 86400"),
+        HOUR_OF_DAY("session_date % 86400 / 3600");
+
+        private final String keyExpression;
+
+        Granularity(String keyExpression) {
+            this.keyExpression = keyExpression;
+        }
+    }
+
+    /**
+     * A user's sessions between from (inclusive) and to (exclusive), grouped by bucket
+     * in ascending order; empty buckets are left out. subjectId null means all subjects.
+     */
+    public List<Bucket> getBuckets(int userId, Granularity granularity, LocalDate from, LocalDate to,
+                                   Integer subjectId) throws SQLException {
+        String subjectFilter = subjectId != null
+            ? " AND chapter_id IN (SELECT id FROM chapters WHERE subject_id = ?)"
+            : "";
+        String sql = """
+            SELECT %s AS bucket, SUM(hours_studied) AS hours, SUM(xp_earned) AS xp, COUNT(*) AS sessions
+            FROM study_sessions
+            WHERE user_id = ? AND session_date >= ? AND session_date < ?%s
+            GROUP BY bucket
+            ORDER BY bucket
+        """.formatted(granularity.keyExpression, subjectFilter);
+
+        List<Bucket> buckets = new ArrayList<>();
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setInt(1, userId);
+            stmt.setLong(2, EpochTime.toSeconds(from));
+            stmt.setLong(3, EpochTime.toSeconds(to));
+            if (subjectId != null) {
+                stmt.setInt(4, subjectId);
+            }
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                if (granularity == Granularity.HOUR_OF_DAY) {
+                    buckets.add(new Bucket(null, rs.getInt("bucket"),
+                        rs.getDouble("hours"), rs.getInt("xp"), rs.getInt("sessions")));
+                } else {
+                    buckets.add(new Bucket(EpochTime.fromDay(rs.getLong("bucket")), -1,
+                        rs.getDouble("hours"), rs.getInt("xp"), rs.getInt("sessions")));
+                }
+            }
+        }
+        return buckets;
+    }
+
+    /**
+     * Inner class for the totals of one time bucket
+     */
+    public static class Bucket {
+        private final LocalDate start;
+        private final int hourOfDay;
+        private final double hours;
+        private final int xp;
+        private final int sessions;
+
+        public Bucket(LocalDate start, int hourOfDay, double hours, int xp, int sessions) {
+            this.start = start;
+            this.hourOfDay = hourOfDay;
+            this.hours = hours;
+            this.xp = xp;
+            this.sessions = sessions;
+        }
+
+        /**
+         * First day of the bucket (the day, the week's Monday, the month's 1st); null for HOUR_OF_DAY
+         */
+        public LocalDate getStart() {
+            return start;
+        }
+
+        /**
+         * Hour 0-23 for HOUR_OF_DAY buckets, -1 otherwise
+         */
+        public int getHourOfDay() {
+            return hourOfDay;
+        }
+
+        public double getHours() {
+            return hours;
+        }
+
+        public int getXp() {
+            return xp;
+        }
+
+        public int getSessions() {
+            return sessions;
+        }
+    }
+}
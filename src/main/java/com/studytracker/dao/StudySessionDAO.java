@@ -2,43 +2,65 @@ package com.studytracker.dao;
 
 import com.studytracker.database.DatabaseManager;
 import com.studytracker.model.StudySession;
+import com.studytracker.util.EpochTime;
 
 import java.sql.*;
-import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Data Access Object for StudySession entity.
  */
 public class StudySessionDAO {
+    private static final Map<Connection, StudySessionDAO> SHARED = new ConcurrentHashMap<>();
+    private static final List<SessionListener> SESSION_LISTENERS = new CopyOnWriteArrayList<>();
+
     private final Connection connection;
 
     public StudySessionDAO() {
-        this.connection = DatabaseManager.getInstance().getConnection();
+        this(DatabaseManager.getInstance().getConnection());
+    }
+
+    /**
+     * Use a specific connection (e.g. one borrowed from a ConnectionPool)
+     */
+    public StudySessionDAO(Connection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * DAO on the database holding this user's data (their shard when sharding is on),
+     * shared by all callers: DAOs keep no state besides their connection
+     */
+    public static StudySessionDAO forUser(int userId) {
+        return SHARED.computeIfAbsent(DatabaseManager.getInstance().getConnectionForUser(userId), StudySessionDAO::new);
     }
 
     /**
      * Create a new study session
      */
     public StudySession create(StudySession session) throws SQLException {
-        String sql = "INSERT INTO study_sessions (chapter_id, user_id, hours_studied, session_date, notes, xp_earned) VALUES (?, ?, ?, ?, ?, ?)";
+        String sql = "INSERT INTO study_sessions (chapter_id, user_id, hours_studied, session_date, notes, xp_earned) VALUES (?, ?, ?, ?, ?, ?) RETURNING id";
 
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setInt(1, session.getChapterId());
             stmt.setInt(2, session.getUserId());
             stmt.setDouble(3, session.getHoursStudied());
-            stmt.setString(4, session.getSessionDate().toString());
+            stmt.setLong(4, EpochTime.toSeconds(session.getSessionDate()));
             stmt.setString(5, session.getNotes());
             stmt.setInt(6, session.getXpEarned());
 
-            stmt.executeUpdate();
-
-            // Get the last inserted ID using SQLite's last_insert_rowid()
-            try (Statement idStmt = connection.createStatement();
-                 ResultSet rs = idStmt.executeQuery("SELECT last_insert_rowid()")) {
+            // RETURNING gives the new ID in the same statement
+            try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
                     session.setId(rs.getInt(1));
+                    // Inside a transaction the caller notifies after its commit instead
+                    if (connection.getAutoCommit()) {
+                        notifySessionCreated(session);
+                    }
                     return session;
                 }
             }
@@ -129,17 +151,27 @@ public class StudySessionDAO {
 
             stmt.executeUpdate();
         }
+        if (connection.getAutoCommit()) {
+            notifySessionsChanged(session.getUserId());
+        }
     }
 
     /**
      * Delete study session
      */
     public void delete(int id) throws SQLException {
-        String sql = "DELETE FROM study_sessions WHERE id = ?";
+        String sql = "DELETE FROM study_sessions WHERE id = ? RETURNING user_id";
 
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setInt(1, id);
-            stmt.executeUpdate();
+            ResultSet rs = stmt.executeQuery();
+            if (rs.next()) {
+                int userId = rs.getInt(1);
+                rs.close();
+                if (connection.getAutoCommit()) {
+                    notifySessionsChanged(userId);
+                }
+            }
         }
     }
 
@@ -177,6 +209,38 @@ public class StudySessionDAO {
         return 0.0;
     }
 
+    /**
+     * Register a listener told about every committed session write (caches of per-user
+     * session aggregates, the study planner, ...)
+     */
+    public static void addSessionListener(SessionListener listener) {
+        SESSION_LISTENERS.add(listener);
+    }
+
+    public static void removeSessionListener(SessionListener listener) {
+        SESSION_LISTENERS.remove(listener);
+    }
+
+    /**
+     * Tell the listeners a session was saved (by callers that wrote it in a transaction,
+     * once it is committed)
+     */
+    public static void notifySessionCreated(StudySession session) {
+        for (SessionListener listener : SESSION_LISTENERS) {
+            listener.sessionCreated(session);
+        }
+    }
+
+    /**
+     * Tell the listeners a user's sessions changed in some other way (also used by bulk
+     * writers that insert sessions without this DAO, such as the importer)
+     */
+    public static void notifySessionsChanged(int userId) {
+        for (SessionListener listener : SESSION_LISTENERS) {
+            listener.sessionsChanged(userId);
+        }
+    }
+
     /**
      * Map ResultSet to StudySession object
      */
@@ -186,9 +250,23 @@ public class StudySessionDAO {
         session.setChapterId(rs.getInt("chapter_id"));
         session.setUserId(rs.getInt("user_id"));
         session.setHoursStudied(rs.getDouble("hours_studied"));
-        session.setSessionDate(LocalDateTime.parse(rs.getString("session_date")));
+        session.setSessionDate(EpochTime.fromSeconds(rs.getLong("session_date")));
         session.setNotes(rs.getString("notes"));
         session.setXpEarned(rs.getInt("xp_earned"));
         return session;
     }
+
+    /**
+     * Listener for committed session writes
+     */
+    public interface SessionListener {
+        void sessionsChanged(int userId);
+
+        /**
+         * One new session; listeners that can't apply it incrementally treat it as any change
+         */
+        default void sessionCreated(StudySession session) {
+            sessionsChanged(session.getUserId());
+        }
+    }
 }
@@ -1,27 +1,48 @@
 package com.studytracker.dao;
 
+import com.studytracker.database.ChunkedDelete;
 import com.studytracker.database.DatabaseManager;
 import com.studytracker.model.Subject;
 
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Data Access Object for Subject entity.
  */
 public class SubjectDAO {
+    private static final Map<Connection, SubjectDAO> SHARED = new ConcurrentHashMap<>();
+    private static final List<SubjectListener> SUBJECT_LISTENERS = new CopyOnWriteArrayList<>();
     private final Connection connection;
 
     public SubjectDAO() {
-        this.connection = DatabaseManager.getInstance().getConnection();
+        this(DatabaseManager.getInstance().getConnection());
+    }
+
+    /**
+     * Use a specific connection (e.g. one borrowed from a ConnectionPool)
+     */
+    public SubjectDAO(Connection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * DAO on the database holding this user's data (their shard when sharding is on),
+     * shared by all callers: DAOs keep no state besides their connection
+     */
+    public static SubjectDAO forUser(int userId) {
+        return SHARED.computeIfAbsent(DatabaseManager.getInstance().getConnectionForUser(userId), SubjectDAO::new);
     }
 
     /**
      * Create a new subject
      */
     public Subject create(Subject subject) throws SQLException {
-        String sql = "INSERT INTO subjects (user_id, name, description, color) VALUES (?, ?, ?, ?)";
+        String sql = "INSERT INTO subjects (user_id, name, description, color) VALUES (?, ?, ?, ?) RETURNING id";
 
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setInt(1, subject.getUserId());
@@ -29,13 +50,11 @@ public class SubjectDAO {
             stmt.setString(3, subject.getDescription());
             stmt.setString(4, subject.getColor());
 
-            stmt.executeUpdate();
-
-            // Get the last inserted ID using SQLite's last_insert_rowid()
-            try (Statement idStmt = connection.createStatement();
-                 ResultSet rs = idStmt.executeQuery("SELECT last_insert_rowid()")) {
+            // RETURNING gives the new ID in the same statement
+            try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
                     subject.setId(rs.getInt(1));
+                    notifyIfCommitted(subject);
                     return subject;
                 }
             }
@@ -108,17 +127,25 @@ public class SubjectDAO {
 
             stmt.executeUpdate();
         }
+        notifyIfCommitted(subject);
     }
 
     /**
-     * Delete subject (will cascade to chapters and exams)
+     * Delete subject with its chapters, exams and study sessions, in batches
+     * (see ChunkedDelete) so a large subject doesn't hold the write lock throughout
      */
     public void delete(int id) throws SQLException {
-        String sql = "DELETE FROM subjects WHERE id = ?";
+        Subject subject = findById(id);
+        if (subject == null) {
+            return;
+        }
 
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setInt(1, id);
-            stmt.executeUpdate();
+        int sessions = ChunkedDelete.deleteSubject(connection, id);
+        if (connection.getAutoCommit()) {
+            notifySubjectDeleted(connection, id);
+            if (sessions > 0) {
+                StudySessionDAO.notifySessionsChanged(subject.getUserId());
+            }
         }
     }
 
@@ -139,6 +166,53 @@ public class SubjectDAO {
         return 0;
     }
 
+    /**
+     * Register a listener told about every committed subject write (in-memory chapter
+     * indexes such as ChapterSearchIndex, which also show subject names)
+     */
+    public static void addSubjectListener(SubjectListener listener) {
+        SUBJECT_LISTENERS.add(listener);
+    }
+
+    public static void removeSubjectListener(SubjectListener listener) {
+        SUBJECT_LISTENERS.remove(listener);
+    }
+
+    /**
+     * Tell the listeners about a subject written in a transaction, once it is committed
+     * (the DAO itself only tells them about writes outside a transaction, like ChapterDAO)
+     */
+    public static void notifySubjectSaved(Connection connection, Subject subject) {
+        for (SubjectListener listener : SUBJECT_LISTENERS) {
+            listener.subjectSaved(connection, subject);
+        }
+    }
+
+    /**
+     * Tell the listeners about a subject deleted in a transaction, once it is committed
+     */
+    public static void notifySubjectDeleted(Connection connection, int subjectId) {
+        for (SubjectListener listener : SUBJECT_LISTENERS) {
+            listener.subjectDeleted(connection, subjectId);
+        }
+    }
+
+    private void notifyIfCommitted(Subject subject) throws SQLException {
+        if (connection.getAutoCommit()) {
+            notifySubjectSaved(connection, subject);
+        }
+    }
+
+    /**
+     * Tell the listeners a user's subjects or chapters changed without this DAO (bulk
+     * writers such as the importer), through the writer's connection to the user's data
+     */
+    public static void notifySubjectsChanged(Connection connection, int userId) {
+        for (SubjectListener listener : SUBJECT_LISTENERS) {
+            listener.subjectsChanged(connection, userId);
+        }
+    }
+
     /**
      * Map ResultSet to Subject object
      */
@@ -151,4 +225,27 @@ public class SubjectDAO {
         subject.setColor(rs.getString("color"));
         return subject;
     }
+
+    /**
+     * Listener for subject writes, each event with the connection it was written on (like
+     * ChapterListener)
+     */
+    public interface SubjectListener {
+        /**
+         * A subject was created or updated
+         */
+        void subjectSaved(Connection connection, Subject subject);
+
+        /**
+         * A subject was deleted, with its chapters and exams (ids are only unique within
+         * the database of the connection)
+         */
+        void subjectDeleted(Connection connection, int subjectId);
+
+        /**
+         * Anything of a user's subjects and chapters may have changed (the connection is
+         * the writer's, to the user's data)
+         */
+        void subjectsChanged(Connection connection, int userId);
+    }
 }
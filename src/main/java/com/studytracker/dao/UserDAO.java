@@ -1,50 +1,118 @@
 package com.studytracker.dao;
 
+import com.studytracker.database.ChunkedDelete;
 import com.studytracker.database.DatabaseManager;
 import com.studytracker.model.User;
+import com.studytracker.model.XpEntry;
+import com.studytracker.util.EpochTime;
 import org.mindrot.jbcrypt.BCrypt;
 
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Data Access Object for User entity.
  * Handles all database operations related to users.
  */
 public class UserDAO {
+    private static final List<XpListener> XP_LISTENERS = new CopyOnWriteArrayList<>();
+    private static UserDAO instance;
     private final Connection connection;
+    private final DataConnections dataConnections;
+
+    /**
+     * Finds the connection to the database holding a user's data (their shard)
+     */
+    @FunctionalInterface
+    public interface DataConnections {
+        Connection forUser(int userId) throws SQLException;
+    }
 
     public UserDAO() {
-        this.connection = DatabaseManager.getInstance().getConnection();
+        this(DatabaseManager.getInstance().getConnection(), DatabaseManager.getInstance()::getConnectionForUser);
+    }
+
+    /**
+     * Use a specific connection (e.g. one borrowed from a ConnectionPool). When sharding is on,
+     * creating or deleting a user also needs their shard: use the two-connection constructor.
+     */
+    public UserDAO(Connection connection) {
+        this(connection, null);
+    }
+
+    /**
+     * Users directory behind the connection, each user's data behind dataConnections
+     * (e.g. ApiRequest::getConnectionForUser)
+     */
+    public UserDAO(Connection connection, DataConnections dataConnections) {
+        this.connection = connection;
+        this.dataConnections = dataConnections;
+    }
+
+    /**
+     * Shared DAO on the directory database (DAOs keep no state besides their connection)
+     */
+    public static synchronized UserDAO getInstance() {
+        if (instance == null) {
+            instance = new UserDAO();
+        }
+        return instance;
     }
 
     /**
      * Create a new user with hashed password
      */
     public User create(String username, String password) throws SQLException {
+        return create(username, password, null);
+    }
+
+    /**
+     * Create a new user in a class (null or blank for none). When sharding is on and the
+     * shard's stub row can't be written, the directory row is removed again (and should that
+     * fail too, authenticate writes the missing stub at the next login).
+     */
+    public User create(String username, String password, String className) throws SQLException {
         String passwordHash = BCrypt.hashpw(password, BCrypt.gensalt());
-        String sql = "INSERT INTO users (username, password_hash, created_at) VALUES (?, ?, ?)";
+        String sql = "INSERT INTO users (username, password_hash, created_at, class_name) VALUES (?, ?, ?, ?) RETURNING id";
 
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, username);
             stmt.setString(2, passwordHash);
-            stmt.setString(3, LocalDateTime.now().toString());
+            stmt.setLong(3, EpochTime.toSeconds(LocalDateTime.now()));
+            stmt.setString(4, className == null || className.isBlank() ? null : className.trim());
 
-            stmt.executeUpdate();
-
-            // Get the last inserted ID using SQLite's last_insert_rowid()
-            try (Statement idStmt = connection.createStatement();
-                ResultSet rs = idStmt.executeQuery("SELECT last_insert_rowid()")) {
+            // RETURNING gives the new ID in the same statement
+            try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    return findById(rs.getInt(1));
+                    User user = findById(rs.getInt(1));
+                    // The directory insert is committed first: writers lock the shard before the
+                    // directory (see StudySessionService), so holding both here could deadlock
+                    try {
+                        mirrorToShard(user);
+                    } catch (SQLException e) {
+                        removeUnmirrored(user.getId(), e);
+                        throw e;
+                    }
+                    notifyXpChanged(user);
+                    return user;
                 }
             }
         }
         return null;
     }
 
+    private void removeUnmirrored(int userId, SQLException cause) {
+        try (PreparedStatement stmt = connection.prepareStatement("DELETE FROM users WHERE id = ?")) {
+            stmt.setInt(1, userId);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
     /**
      * Authenticate user with username and password
      */
@@ -58,7 +126,9 @@ public class UserDAO {
             if (rs.next()) {
                 String storedHash = rs.getString("password_hash");
                 if (BCrypt.checkpw(password, storedHash)) {
-                    return mapResultSetToUser(rs);
+                    User user = mapResultSetToUser(rs);
+                    repairShardStub(user);
+                    return user;
                 }
             }
         }
@@ -116,42 +186,144 @@ public class UserDAO {
     }
 
     /**
-     * Update user information
+     * Update the user's study streak and last study date. XP and level are left alone: addXp
+     * is their only writer, so a User read before a concurrent addXp can't put back its XP.
      */
     public void update(User user) throws SQLException {
-        String sql = "UPDATE users SET xp = ?, level = ?, study_streak = ?, last_study_date = ? WHERE id = ?";
+        String sql = "UPDATE users SET study_streak = ?, last_study_date = ? WHERE id = ?";
+
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setInt(1, user.getStudyStreak());
+            EpochTime.setSeconds(stmt, 2, user.getLastStudyDate());
+            stmt.setInt(3, user.getId());
+
+            stmt.executeUpdate();
+        }
+    }
+
+    // XP and its level, written by addXp (and reconcileXp, which resets them to the ledger)
+    private void updateXp(User user) throws SQLException {
+        String sql = "UPDATE users SET xp = ?, level = ? WHERE id = ?";
 
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setInt(1, user.getXp());
             stmt.setInt(2, user.getLevel());
-            stmt.setInt(3, user.getStudyStreak());
-            stmt.setString(4, user.getLastStudyDate() != null ? user.getLastStudyDate().toString() : null);
-            stmt.setInt(5, user.getId());
+            stmt.setInt(3, user.getId());
 
             stmt.executeUpdate();
         }
     }
 
     /**
-     * Delete user
+     * Set the hours per day the study planner may plan for this user
      */
-    public void delete(int id) throws SQLException {
-        String sql = "DELETE FROM users WHERE id = ?";
+    public void updateDailyStudyHours(int userId, double hours) throws SQLException {
+        String sql = "UPDATE users SET daily_study_hours = ? WHERE id = ?";
 
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setInt(1, id);
+            stmt.setDouble(1, hours);
+            stmt.setInt(2, userId);
             stmt.executeUpdate();
         }
     }
 
     /**
-     * Add XP to user and update level
+     * Delete user with all their data, in batches (see ChunkedDelete) so an account with
+     * years of sessions doesn't hold the write lock throughout
      */
-    public void addXp(int userId, int xp) throws SQLException {
-        User user = findById(userId);
+    public void delete(int id) throws SQLException {
+        new XpLedgerDAO(connection).deleteByUserId(id);
+        Connection dataConnection = connection;
+        if (DatabaseManager.getInstance().isSharded()) {
+            // The data and the stub users row are on the shard, the directory only has the user
+            dataConnection = shardConnection(id);
+            ChunkedDelete.deleteUser(dataConnection, id);
+            ChunkedDelete.delete(connection, "users", "id = ?", id);
+        } else {
+            ChunkedDelete.deleteUser(connection, id);
+        }
+
+        for (XpListener listener : XP_LISTENERS) {
+            listener.userDeleted(id);
+        }
+        StudySessionDAO.notifySessionsChanged(id);
+        SubjectDAO.notifySubjectsChanged(dataConnection, id);
+    }
+
+    /**
+     * Add XP to user (negative to take it back) and update level, recording the change in the
+     * XP ledger in the same transaction (its own one unless the caller has a transaction open)
+     *
+     * @param sourceId id of the row that caused the change (the study session), or null
+     */
+    public void addXp(int userId, int xp, XpEntry.Source source, Integer sourceId) throws SQLException {
+        boolean ownTransaction = connection.getAutoCommit();
+        if (ownTransaction) {
+            connection.setAutoCommit(false);
+        }
+        User user;
+        try {
+            user = findById(userId);
+            if (user != null) {
+                user.setXp(user.getXp() + xp);
+                updateXp(user);
+                new XpLedgerDAO(connection).append(userId, xp, source, sourceId);
+            }
+            if (ownTransaction) {
+                connection.commit();
+            }
+        } catch (SQLException e) {
+            if (ownTransaction) {
+                connection.rollback();
+            }
+            throw e;
+        } finally {
+            if (ownTransaction) {
+                connection.setAutoCommit(true);
+            }
+        }
         if (user != null) {
-            user.setXp(user.getXp() + xp);
-            update(user);
+            notifyXpChanged(user);
+        }
+    }
+
+    /**
+     * Reset a user's cached XP (and level) to their XP ledger balance, after a drift was found
+     * (see XpLedgerDAO.findDrift). Returns the XP added to the cache, 0 if it was right.
+     */
+    public int reconcileXp(int userId) throws SQLException {
+        User user = findById(userId);
+        if (user == null) {
+            return 0;
+        }
+        int balance = new XpLedgerDAO(connection).getBalance(userId);
+        int drift = balance - user.getXp();
+        if (drift != 0) {
+            user.setXp(balance);
+            updateXp(user);
+            notifyXpChanged(user);
+        }
+        return drift;
+    }
+
+    /**
+     * Register a listener told about every XP change (leaderboards, ...)
+     */
+    public static void addXpListener(XpListener listener) {
+        XP_LISTENERS.add(listener);
+    }
+
+    public static void removeXpListener(XpListener listener) {
+        XP_LISTENERS.remove(listener);
+    }
+
+    /**
+     * Tell the listeners a user's stored XP is now user.getXp()
+     * (also used to resync them after a rolled back transaction)
+     */
+    public static void notifyXpChanged(User user) {
+        for (XpListener listener : XP_LISTENERS) {
+            listener.xpChanged(user);
         }
     }
 
@@ -184,6 +356,53 @@ public class UserDAO {
         }
     }
 
+    /**
+     * In sharding mode the user's shard gets a stub users row (id and username only)
+     * so its foreign keys have something to point to; the real row stays in the directory
+     */
+    private void mirrorToShard(User user) throws SQLException {
+        if (user == null || !DatabaseManager.getInstance().isSharded()) {
+            return;
+        }
+        // An id given back by a rolled back directory insert may have left a stub: take it over
+        // (an upsert, as REPLACE would delete it and cascade to its rows)
+        String sql = """
+            INSERT INTO users (id, username, password_hash, created_at) VALUES (?, ?, '', ?)
+            ON CONFLICT (id) DO UPDATE SET username = excluded.username, created_at = excluded.created_at
+        """;
+
+        try (PreparedStatement stmt = shardConnection(user.getId()).prepareStatement(sql)) {
+            stmt.setInt(1, user.getId());
+            stmt.setString(2, user.getUsername());
+            EpochTime.setSeconds(stmt, 3, user.getCreatedAt());
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Write the shard's stub row if a failed registration left it missing (without it,
+     * every insert of the user's data fails its foreign key)
+     */
+    private void repairShardStub(User user) throws SQLException {
+        if (dataConnections == null || !DatabaseManager.getInstance().isSharded()) {
+            return;
+        }
+        try (PreparedStatement stmt = shardConnection(user.getId()).prepareStatement("SELECT 1 FROM users WHERE id = ?")) {
+            stmt.setInt(1, user.getId());
+            if (stmt.executeQuery().next()) {
+                return;
+            }
+        }
+        mirrorToShard(user);
+    }
+
+    private Connection shardConnection(int userId) throws SQLException {
+        if (dataConnections == null) {
+            throw new SQLException("Creating or deleting a user with sharding on needs their shard connection");
+        }
+        return dataConnections.forUser(userId);
+    }
+
     /**
      * Map ResultSet to User object
      */
@@ -196,16 +415,22 @@ public class UserDAO {
         user.setLevel(rs.getInt("level"));
         user.setStudyStreak(rs.getInt("study_streak"));
 
-        String lastStudyDateStr = rs.getString("last_study_date");
-        if (lastStudyDateStr != null) {
-            user.setLastStudyDate(LocalDateTime.parse(lastStudyDateStr));
-        }
+        user.setLastStudyDate(EpochTime.getSeconds(rs, "last_study_date"));
+        user.setCreatedAt(EpochTime.getSeconds(rs, "created_at"));
 
-        String createdAtStr = rs.getString("created_at");
-        if (createdAtStr != null) {
-            user.setCreatedAt(LocalDateTime.parse(createdAtStr));
-        }
+        user.setClassName(rs.getString("class_name"));
+        user.setDailyStudyHours(rs.getDouble("daily_study_hours"));
 
         return user;
     }
+
+    /**
+     * Listener for XP changes made through this DAO
+     */
+    public interface XpListener {
+        void xpChanged(User user);
+
+        default void userDeleted(int userId) {
+        }
+    }
 }
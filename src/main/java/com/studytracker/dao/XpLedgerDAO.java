@@ -0,0 +1,262 @@
+package com.studytracker.dao;
+
+import com.studytracker.database.ChunkedDelete;
+import com.studytracker.database.DatabaseManager;
+import com.studytracker.model.XpEntry;
+import com.studytracker.util.EpochTime;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Access Object for the append-only XP ledger (on the users database: each entry is
+ * written in the same transaction as the users.xp it changes).
+ *
+ * Every SNAPSHOT_EVERY entries of a user, a snapshot records their XP up to that entry,
+ * summed from the ledger itself. A balance, current or at any past time, is the snapshot
+ * before it plus the entries after that snapshot, so it reads at most SNAPSHOT_EVERY
+ * entries however long the ledger grows.
+ */
+public class XpLedgerDAO {
+    // Entries per user between snapshots, overridable with -Dstudytracker.xpLedger.snapshotEvery=<n>
+    private static final int SNAPSHOT_EVERY = Integer.getInteger("studytracker.xpLedger.snapshotEvery", 100);
+    private final Connection connection;
+
+    public XpLedgerDAO() {
+        this(DatabaseManager.getInstance().getConnection());
+    }
+
+    /**
+     * Use a specific connection to the users database (e.g. one borrowed from a ConnectionPool)
+     */
+    public XpLedgerDAO(Connection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * Append an entry, and a snapshot when the user has SNAPSHOT_EVERY entries since the last one.
+     * Callers write it in the transaction updating users.xp (see UserDAO.addXp).
+     */
+    public XpEntry append(int userId, int delta, XpEntry.Source source, Integer sourceId) throws SQLException {
+        String sql = "INSERT INTO xp_ledger (user_id, delta, source_type, source_id, created_at) VALUES (?, ?, ?, ?, ?) RETURNING id";
+        XpEntry entry = new XpEntry(0, userId, delta, source, sourceId, LocalDateTime.now());
+
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setInt(1, userId);
+            stmt.setInt(2, delta);
+            stmt.setInt(3, source.getCode());
+            if (sourceId != null) {
+                stmt.setInt(4, sourceId);
+            } else {
+                stmt.setNull(4, Types.INTEGER);
+            }
+            stmt.setLong(5, EpochTime.toSeconds(entry.getCreatedAt()));
+            // RETURNING gives the new ID in the same statement
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    entry.setId(rs.getLong(1));
+                }
+            }
+        }
+
+        snapshotIfDue(userId);
+        return entry;
+    }
+
+    private void snapshotIfDue(int userId) throws SQLException {
+        Snapshot last = findSnapshot(userId, null);
+        String sql = """
+            SELECT COUNT(*), COALESCE(SUM(delta), 0), MAX(id), MAX(created_at) FROM xp_ledger
+            WHERE user_id = ? AND id > ?
+        """;
+
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setInt(1, userId);
+            stmt.setLong(2, last.ledgerId());
+            ResultSet rs = stmt.executeQuery();
+
+            if (rs.next() && rs.getInt(1) >= SNAPSHOT_EVERY) {
+                long xp = last.xp() + rs.getLong(2);
+                long ledgerId = rs.getLong(3);
+                long takenAt = rs.getLong(4);
+                rs.close();
+
+                try (PreparedStatement insert = connection.prepareStatement(
+                        "INSERT INTO xp_snapshots (user_id, ledger_id, xp, taken_at) VALUES (?, ?, ?, ?)")) {
+                    insert.setInt(1, userId);
+                    insert.setLong(2, ledgerId);
+                    insert.setLong(3, xp);
+                    insert.setLong(4, takenAt);
+                    insert.executeUpdate();
+                }
+            }
+        }
+    }
+
+    /**
+     * A user's XP according to the ledger (what users.xp should hold)
+     */
+    public int getBalance(int userId) throws SQLException {
+        return getBalanceAt(userId, null);
+    }
+
+    /**
+     * A user's XP at a past time: the sum of their entries created until then
+     *
+     * @param at time to read the balance at, null for now
+     */
+    public int getBalanceAt(int userId, LocalDateTime at) throws SQLException {
+        Snapshot snapshot = findSnapshot(userId, at);
+
+        // Replay the entries after the snapshot, up to the next one (its total is then known)
+        String sql = """
+            SELECT COALESCE(SUM(delta), 0) FROM xp_ledger
+            WHERE user_id = ? AND id > ? AND id <= COALESCE(
+                (SELECT MIN(ledger_id) FROM xp_snapshots WHERE user_id = ? AND ledger_id > ?), 9223372036854775807)
+            AND created_at <= ?
+        """;
+
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setInt(1, userId);
+            stmt.setLong(2, snapshot.ledgerId());
+            stmt.setInt(3, userId);
+            stmt.setLong(4, snapshot.ledgerId());
+            stmt.setLong(5, at != null ? EpochTime.toSeconds(at) : Long.MAX_VALUE);
+            ResultSet rs = stmt.executeQuery();
+
+            if (rs.next()) {
+                return (int) (snapshot.xp() + rs.getLong(1));
+            }
+        }
+        return (int) snapshot.xp();
+    }
+
+    // Latest snapshot taken at or before the time (null for the latest), or an empty one
+    private Snapshot findSnapshot(int userId, LocalDateTime at) throws SQLException {
+        String sql = """
+            SELECT ledger_id, xp FROM xp_snapshots
+            WHERE user_id = ? AND taken_at <= ?
+            ORDER BY ledger_id DESC LIMIT 1
+        """;
+
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setInt(1, userId);
+            stmt.setLong(2, at != null ? EpochTime.toSeconds(at) : Long.MAX_VALUE);
+            ResultSet rs = stmt.executeQuery();
+
+            if (rs.next()) {
+                return new Snapshot(rs.getLong("ledger_id"), rs.getLong("xp"));
+            }
+        }
+        return new Snapshot(0, 0);
+    }
+
+    /**
+     * A user's entries, newest first
+     */
+    public List<XpEntry> findByUserId(int userId, int limit) throws SQLException {
+        List<XpEntry> entries = new ArrayList<>();
+        String sql = "SELECT * FROM xp_ledger WHERE user_id = ? ORDER BY id DESC LIMIT ?";
+
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setInt(1, userId);
+            stmt.setInt(2, limit);
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                entries.add(mapResultSetToEntry(rs));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Users whose cached users.xp differs from their ledger balance, in one pass over the
+     * users with each balance read from its latest snapshot
+     */
+    public List<XpDrift> findDrift() throws SQLException {
+        List<XpDrift> drift = new ArrayList<>();
+        String sql = """
+            SELECT id, username, xp, ledger_xp FROM (
+                SELECT u.id, u.username, u.xp,
+                    COALESCE(s.xp, 0) + COALESCE((SELECT SUM(l.delta) FROM xp_ledger l
+                        WHERE l.user_id = u.id AND l.id > COALESCE(s.ledger_id, 0)), 0) AS ledger_xp
+                FROM users u
+                LEFT JOIN xp_snapshots s ON s.user_id = u.id
+                    AND s.ledger_id = (SELECT MAX(ledger_id) FROM xp_snapshots WHERE user_id = u.id)
+            )
+            WHERE xp != ledger_xp
+            ORDER BY id
+        """;
+
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                drift.add(new XpDrift(rs.getInt("id"), rs.getString("username"), rs.getInt("xp"), rs.getInt("ledger_xp")));
+            }
+        }
+        return drift;
+    }
+
+    /**
+     * Delete a user's entries and snapshots in batches (before deleting the user, whose
+     * ON DELETE CASCADE would otherwise remove them in one statement)
+     */
+    public void deleteByUserId(int userId) throws SQLException {
+        ChunkedDelete.delete(connection, "xp_snapshots", "user_id = ?", userId);
+        ChunkedDelete.delete(connection, "xp_ledger", "user_id = ?", userId);
+    }
+
+    /**
+     * Map ResultSet to XpEntry object
+     */
+    private XpEntry mapResultSetToEntry(ResultSet rs) throws SQLException {
+        XpEntry entry = new XpEntry();
+        entry.setId(rs.getLong("id"));
+        entry.setUserId(rs.getInt("user_id"));
+        entry.setDelta(rs.getInt("delta"));
+        entry.setSource(XpEntry.Source.fromCode(rs.getInt("source_type")));
+        int sourceId = rs.getInt("source_id");
+        entry.setSourceId(rs.wasNull() ? null : sourceId);
+        entry.setCreatedAt(EpochTime.fromSeconds(rs.getLong("created_at")));
+        return entry;
+    }
+
+    private record Snapshot(long ledgerId, long xp) {
+    }
+
+    /**
+     * Inner class for a user whose cached XP doesn't match their ledger
+     */
+    public static class XpDrift {
+        private final int userId;
+        private final String username;
+        private final int cachedXp;
+        private final int ledgerXp;
+
+        public XpDrift(int userId, String username, int cachedXp, int ledgerXp) {
+            this.userId = userId;
+            this.username = username;
+            this.cachedXp = cachedXp;
+            this.ledgerXp = ledgerXp;
+        }
+
+        public int getUserId() {
+            return userId;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public int getCachedXp() {
+            return cachedXp;
+        }
+
+        public int getLedgerXp() {
+            return ledgerXp;
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package com.studytracker.database;
+
+import org.sqlite.SQLiteConnection;
+import org.sqlite.core.DB;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Online backups of the live databases with SQLite's backup API.
+ *
+ * Each backup is a timestamped directory (backups/20261019-101500/) holding a copy of
+ * every database file (the directory and each shard when sharding is on). Pages are
+ * copied a few at a time on a dedicated connection, pausing between steps, so the app
+ * keeps reading and writing while a backup runs; the copy is checked with
+ * PRAGMA quick_check before the directory gets its final name.
+ *
+ * Configured with system properties:
+ * studytracker.backup.dir (default backups), studytracker.backup.intervalMinutes
+ * (default 60, 0 disables scheduled backups) and studytracker.backup.keep (default 10).
+ */
+public class BackupService {
+    private static final String DEFAULT_DIR = "backups";
+    private static final int DEFAULT_INTERVAL_MINUTES = 60;
+    private static final int DEFAULT_KEEP = 10;
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final String PARTIAL_SUFFIX = ".partial";
+
+    // 64 pages (256 KB with 4 KB pages) per step, then let the app run for a moment
+    private static final int PAGES_PER_STEP = 64;
+    private static final long PAUSE_BETWEEN_STEPS_MS = 5;
+    // When the source is locked, retry a step every 50 ms for up to 10 s
+    private static final int BUSY_RETRY_MS = 50;
+    private static final int BUSY_RETRIES = 200;
+
+    private final Path backupDir;
+    private final int intervalMinutes;
+    private final int keep;
+    private ScheduledExecutorService scheduler;
+
+    public BackupService(Path backupDir, int intervalMinutes, int keep) {
+        this.backupDir = backupDir;
+        this.intervalMinutes = intervalMinutes;
+        this.keep = keep;
+    }
+
+    public static BackupService fromSystemProperties() {
+        return new BackupService(
+            Paths.get(System.getProperty("studytracker.backup.dir", DEFAULT_DIR)),
+            Integer.getInteger("studytracker.backup.intervalMinutes", DEFAULT_INTERVAL_MINUTES),
+            Integer.getInteger("studytracker.backup.keep", DEFAULT_KEEP));
+    }
+
+    /**
+     * Start scheduled backups on a low-priority background thread
+     */
+    public synchronized void start() {
+        if (scheduler != null || intervalMinutes <= 0) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "db-backup");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::backupQuietly, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Stop scheduling backups (a backup in progress stops pausing and is discarded)
+     */
+    public synchronized void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        scheduler = null;
+    }
+
+    private void backupQuietly() {
+        try {
+            backupNow();
+        } catch (SQLException | IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Back up every database file now, then delete the oldest backups beyond the limit.
+     * Returns the new backup directory.
+     */
+    public synchronized Path backupNow() throws SQLException, IOException {
+        DatabaseManager databaseManager = DatabaseManager.getInstance();
+        String name = LocalDateTime.now().format(NAME_FORMAT);
+        Path partial = backupDir.resolve(name + PARTIAL_SUFFIX);
+        Path target = backupDir.resolve(name);
+        Files.createDirectories(partial);
+
+        try {
+            try (Connection source = databaseManager.openConnection()) {
+                copyDatabase(source, partial.resolve(fileName(DatabaseManager.getDatabasePath())));
+            }
+            if (databaseManager.isSharded()) {
+                for (int shard = 0; shard < databaseManager.getShardCount(); shard++) {
+                    try (Connection source = databaseManager.openShardConnection(shard)) {
+                        copyDatabase(source, partial.resolve(fileName(DatabaseManager.getShardPath(shard))));
+                    }
+                }
+            }
+            Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (SQLException | IOException | RuntimeException e) {
+            deleteDirectory(partial);
+            throw e;
+        }
+
+        rotate();
+        return target;
+    }
+
+    /**
+     * Copy one live database to a file with the paced backup API and verify the copy.
+     *
+     * A write from another connection between two steps would restart the copy from the
+     * first page, so with a busy app it might never finish. The source connection keeps
+     * one read transaction open for the whole copy instead: every step reads the same WAL
+     * snapshot, and in WAL mode that reader doesn't block the app's writers.
+     */
+    private static void copyDatabase(Connection source, Path destination) throws SQLException {
+        DB db = source.unwrap(SQLiteConnection.class).getDatabase();
+        int result;
+        try (Statement stmt = source.createStatement()) {
+            // DEFERRED: a plain read snapshot (the connection's default IMMEDIATE mode would take the write lock)
+            stmt.execute("BEGIN DEFERRED");
+            try {
+                stmt.executeQuery("SELECT COUNT(*) FROM sqlite_master").close();
+                result = db.backup("main", destination.toString(), new PacedProgress(),
+                    BUSY_RETRY_MS, BUSY_RETRIES, PAGES_PER_STEP);
+            } finally {
+                stmt.execute("COMMIT");
+            }
+        }
+        if (result != 0) {
+            throw new SQLException("Backup of " + destination.getFileName() + " failed (SQLite error " + result + ")");
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            throw new SQLException("Backup interrupted");
+        }
+        quickCheck(destination);
+    }
+
+    /**
+     * Replace the live databases with the content of a backup directory, through the
+     * restore API (so open connections see the restored data instead of a swapped file).
+     * Meant for the restore command, with the app stopped: in-memory state such as the
+     * leaderboard is not reloaded.
+     */
+    public static void restore(Path backup) throws SQLException, IOException {
+        DatabaseManager databaseManager = DatabaseManager.getInstance();
+
+        // Check the whole backup before touching anything
+        for (String sourcePath : databaseFiles(databaseManager)) {
+            Path file = backup.resolve(fileName(sourcePath));
+            if (!Files.isRegularFile(file)) {
+                throw new IOException("Backup " + backup + " has no " + file.getFileName()
+                    + " (taken with a different database/shard configuration?)");
+            }
+            quickCheck(file);
+        }
+
+        try (Connection target = databaseManager.openConnection()) {
+            restoreDatabase(target, backup.resolve(fileName(DatabaseManager.getDatabasePath())));
+        }
+        if (databaseManager.isSharded()) {
+            for (int shard = 0; shard < databaseManager.getShardCount(); shard++) {
+                try (Connection target = databaseManager.openShardConnection(shard)) {
+                    restoreDatabase(target, backup.resolve(fileName(DatabaseManager.getShardPath(shard))));
+                }
+            }
+        }
+    }
+
+    private static void restoreDatabase(Connection target, Path file) throws SQLException {
+        DB db = target.unwrap(SQLiteConnection.class).getDatabase();
+        int result = db.restore("main", file.toString(), (remaining, pageCount) -> { }, BUSY_RETRY_MS, BUSY_RETRIES, -1);
+        if (result != 0) {
+            throw new SQLException("Restore from " + file + " failed (SQLite error " + result + ")");
+        }
+    }
+
+    /**
+     * Completed backups, newest first
+     */
+    public List<Path> listBackups() throws IOException {
+        if (!Files.isDirectory(backupDir)) {
+            return List.of();
+        }
+        try (Stream<Path> entries = Files.list(backupDir)) {
+            return entries
+                .filter(Files::isDirectory)
+                .filter(p -> !p.getFileName().toString().endsWith(PARTIAL_SUFFIX))
+                .sorted(Comparator.comparing((Path p) -> p.getFileName().toString()).reversed())
+                .toList();
+        }
+    }
+
+    public Path getBackupDir() {
+        return backupDir;
+    }
+
+    /**
+     * Keep the newest backups, delete the others
+     */
+    private void rotate() throws IOException {
+        List<Path> backups = listBackups();
+        for (int i = keep; i < backups.size(); i++) {
+            deleteDirectory(backups.get(i));
+        }
+    }
+
+    private static Set<String> databaseFiles(DatabaseManager databaseManager) {
+        Set<String> files = new LinkedHashSet<>();
+        files.add(DatabaseManager.getDatabasePath());
+        for (int shard = 0; shard < databaseManager.getShardCount(); shard++) {
+            files.add(DatabaseManager.getShardPath(shard));
+        }
+        return files;
+    }
+
+    private static String fileName(String path) {
+        return Paths.get(path).getFileName().toString();
+    }
+
+    private static void quickCheck(Path file) throws SQLException {
+        try (Connection check = DriverManager.getConnection("jdbc:sqlite:" + file);
+             Statement stmt = check.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA quick_check")) {
+            String result = rs.next() ? rs.getString(1) : "no result";
+            if (!"ok".equals(result)) {
+                throw new SQLException("Backup file " + file + " failed quick_check: " + result);
+            }
+        }
+    }
+
+    private static void deleteDirectory(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    /**
+     * Called by SQLite after each step: pauses so the backup thread leaves CPU and disk
+     * to the app (an interrupted backup finishes without pausing and is discarded)
+     */
+    private static final class PacedProgress implements DB.ProgressObserver {
+        @Override
+        public void progress(int remaining, int pageCount) {
+            if (remaining == 0 || Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            try {
+                Thread.sleep(PAUSE_BETWEEN_STEPS_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.studytracker.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Deletes of many rows done in bounded batches. Each batch is its own short transaction
+ * (when the connection is in auto-commit), so deleting a large subject or user releases
+ * the write lock between batches instead of holding it for the whole cascade, and the
+ * other connections' writers get their turn.
+ *
+ * Children are deleted before their parent, so the ON DELETE CASCADE of the final parent
+ * delete finds nothing left to do.
+ */
+public final class ChunkedDelete {
+    // Rows per batch, overridable with -Dstudytracker.deleteBatchSize=<n>
+    private static final int BATCH_SIZE = Integer.getInteger("studytracker.deleteBatchSize", 5000);
+
+    private ChunkedDelete() {
+    }
+
+    /**
+     * Delete the rows of a table matching a condition, BATCH_SIZE rows at a time
+     *
+     * @param where condition on the table's columns, with ? placeholders for params
+     * @return number of rows deleted
+     */
+    public static int delete(Connection connection, String table, String where, Object... params) throws SQLException {
+        String sql = "DELETE FROM " + table + " WHERE rowid IN (SELECT rowid FROM " + table
+            + " WHERE " + where + " LIMIT ?)";
+        int total = 0;
+
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                stmt.setObject(i + 1, params[i]);
+            }
+            stmt.setInt(params.length + 1, BATCH_SIZE);
+
+            int deleted;
+            do {
+                deleted = stmt.executeUpdate();
+                total += deleted;
+            } while (deleted == BATCH_SIZE);
+        }
+        return total;
+    }
+
+    /**
+     * Delete a subject's sessions, chapters and exams in batches, then the subject
+     *
+     * @return number of study sessions deleted
+     */
+    public static int deleteSubject(Connection connection, int subjectId) throws SQLException {
+        int sessions = delete(connection, "study_sessions",
+            "chapter_id IN (SELECT id FROM chapters WHERE subject_id = ?)", subjectId);
+        delete(connection, "chapters", "subject_id = ?", subjectId);
+        delete(connection, "exams", "subject_id = ?", subjectId);
+        delete(connection, "subjects", "id = ?", subjectId);
+        return sessions;
+    }
+
+    /**
+     * Delete a chapter's sessions in batches, then the chapter
+     *
+     * @return number of study sessions deleted
+     */
+    public static int deleteChapter(Connection connection, int chapterId) throws SQLException {
+        int sessions = delete(connection, "study_sessions", "chapter_id = ?", chapterId);
+        delete(connection, "chapters", "id = ?", chapterId);
+        return sessions;
+    }
+
+    /**
+     * Delete all of a user's data in batches, then their users row (the shard stub in a
+     * sharded deployment)
+     */
+    public static void deleteUser(Connection connection, int userId) throws SQLException {
+        String ownSubject = "subject_id IN (SELECT id FROM subjects WHERE user_id = ?)";
+        delete(connection, "study_sessions", "user_id = ?", userId);
+        delete(connection, "user_badges", "user_id = ?", userId);
+        delete(connection, "chapters", ownSubject, userId);
+        delete(connection, "exams", ownSubject, userId);
+        delete(connection, "subjects", "user_id = ?", userId);
+        delete(connection, "users", "id = ?", userId);
+    }
+}
@@ -0,0 +1,139 @@
+package com.studytracker.database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fixed-size pool of SQLite connections for concurrent callers (the HTTP API server).
+ * Connections are opened up front and handed out as {@link Lease}s:
+ *
+ * <pre>
+ * try (ConnectionPool.Lease lease = pool.acquire()) {
+ *     new UserDAO(lease.getConnection()).findById(id);
+ * }
+ * </pre>
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    /**
+     * Opens one pooled connection
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection open() throws SQLException;
+    }
+
+    private final BlockingQueue<Connection> idle;
+    private final List<Connection> connections = new ArrayList<>();
+    private final long timeoutMillis;
+    private volatile boolean closed;
+
+    public ConnectionPool(int size, ConnectionFactory factory, long timeoutMillis) throws SQLException {
+        if (size < 1) {
+            throw new IllegalArgumentException("Pool size must be at least 1");
+        }
+        this.idle = new ArrayBlockingQueue<>(size);
+        this.timeoutMillis = timeoutMillis;
+        try {
+            for (int i = 0; i < size; i++) {
+                Connection connection = factory.open();
+                connections.add(connection);
+                idle.add(connection);
+            }
+        } catch (SQLException e) {
+            closeConnections();
+            throw e;
+        }
+    }
+
+    /**
+     * Borrow a connection, waiting up to the pool timeout for one to be returned
+     */
+    public Lease acquire() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        try {
+            Connection connection = idle.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+            if (connection == null) {
+                throw new SQLTransientConnectionException(
+                    "No database connection available after " + timeoutMillis + " ms");
+            }
+            return new Lease(connection);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a connection", e);
+        }
+    }
+
+    public int getSize() {
+        return connections.size();
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    @Override
+    public void close() {
+        closeConnections();
+    }
+
+    private void closeConnections() {
+        closed = true;
+        for (Connection connection : connections) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+        connections.clear();
+        idle.clear();
+    }
+
+    /**
+     * A borrowed connection; closing the lease returns it to the pool
+     */
+    public final class Lease implements AutoCloseable {
+        private Connection connection;
+
+        private Lease(Connection connection) {
+            this.connection = connection;
+        }
+
+        public Connection getConnection() {
+            if (connection == null) {
+                throw new IllegalStateException("Lease already returned");
+            }
+            return connection;
+        }
+
+        @Override
+        public void close() {
+            if (connection == null) {
+                return;
+            }
+            Connection returned = connection;
+            connection = null;
+            try {
+                // Never hand out a connection with a transaction left open
+                if (!returned.getAutoCommit()) {
+                    returned.rollback();
+                    returned.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+            if (!closed) {
+                idle.offer(returned);
+            }
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.studytracker.database;
+
+import com.studytracker.monitoring.UserActionContext;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single thread running database work submitted from any thread (the FX thread, background
+ * jobs) one task at a time, on connections of its own: getConnection() to its database and
+ * getConnectionForUser() to the database holding a user's data, opened on first use and
+ * closed with the executor. DatabaseManager's shared connections belong to their direct
+ * callers and are never used here, so a task's statements and transaction never interleave
+ * with anyone else's on a connection.
+ *
+ * The queue is bounded: when it is full, submit() waits up to the timeout for room and
+ * then fails the future with SQLTransientConnectionException, like ConnectionPool.acquire.
+ * A task submitted from the database thread itself runs inline instead of queueing
+ * behind itself.
+ */
+public class DatabaseExecutor implements AutoCloseable {
+
+    /**
+     * Work to run on the database thread
+     */
+    @FunctionalInterface
+    public interface SqlTask<T> {
+        T run() throws SQLException;
+    }
+
+    private final String name;
+    // Database the executor serves: a shard index, or -1 for the users database of a sharded deployment
+    private final int shard;
+    private final BlockingQueue<Runnable> queue;
+    private final long timeoutMillis;
+    private final Thread thread;
+    private volatile boolean closed;
+
+    // Opened and used on the database thread only (or by close() once it has ended)
+    private Connection connection;
+    private final Map<Integer, Connection> shardConnections = new HashMap<>();
+
+    /**
+     * @param shard the shard whose database this executor serves, or -1 for the users
+     *              database when sharding is on
+     */
+    public DatabaseExecutor(String name, int shard, int capacity, long timeoutMillis) {
+        this.name = name;
+        this.shard = shard;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.timeoutMillis = timeoutMillis;
+        this.thread = new Thread(this::runTasks, name);
+        // Daemon so a forgotten executor doesn't keep the command line tools alive
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Run a task on the database thread; the future completes with its result or exception
+     * (a CompletionException wrapping it when joined)
+     */
+    public <T> CompletableFuture<T> submit(SqlTask<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        // The action that triggered the work is reported by the statements' diagnostics
+        String action = UserActionContext.current();
+        Runnable run = () -> {
+            if (future.isDone()) {
+                return;
+            }
+            UserActionContext.set(action);
+            try {
+                future.complete(task.run());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            } finally {
+                UserActionContext.clear();
+            }
+        };
+
+        if (Thread.currentThread() == thread) {
+            String outer = UserActionContext.current();
+            run.run();
+            UserActionContext.set(outer);
+            return future;
+        }
+        try {
+            if (closed) {
+                throw new SQLException("Database executor " + name + " is closed");
+            }
+            if (!queue.offer(run, timeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException(
+                    "Database queue " + name + " still full after " + timeoutMillis + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.completeExceptionally(new SQLTransientConnectionException("Interrupted while queueing", e));
+        } catch (SQLException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * True on the thread running this executor's tasks
+     */
+    public boolean isDatabaseThread() {
+        return Thread.currentThread() == thread;
+    }
+
+    /**
+     * This executor's connection to its database, for tasks running on it
+     */
+    public Connection getConnection() throws SQLException {
+        checkDatabaseThread();
+        if (connection == null) {
+            DatabaseManager databaseManager = DatabaseManager.getInstance();
+            connection = shard < 0 ? databaseManager.openConnection() : databaseManager.openShardConnection(shard);
+        }
+        return connection;
+    }
+
+    /**
+     * This executor's connection to the database holding a user's data, for tasks running
+     * on it (its own database's connection when the user's data is there)
+     */
+    public Connection getConnectionForUser(int userId) throws SQLException {
+        checkDatabaseThread();
+        DatabaseManager databaseManager = DatabaseManager.getInstance();
+        int userShard = databaseManager.shardFor(userId);
+        if (!databaseManager.isSharded() || userShard == shard) {
+            return getConnection();
+        }
+        Connection shardConnection = shardConnections.get(userShard);
+        if (shardConnection == null) {
+            shardConnection = databaseManager.openShardConnection(userShard);
+            shardConnections.put(userShard, shardConnection);
+        }
+        return shardConnection;
+    }
+
+    private void checkDatabaseThread() {
+        // Once the thread has ended, close() runs the leftover tasks on its caller
+        if (Thread.currentThread() != thread && thread.isAlive()) {
+            throw new IllegalStateException("Connections of " + name + " are only used by its tasks");
+        }
+    }
+
+    /**
+     * Tasks waiting to run
+     */
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    public int getCapacity() {
+        return queue.size() + queue.remainingCapacity();
+    }
+
+    private void runTasks() {
+        while (!closed || !queue.isEmpty()) {
+            try {
+                Runnable task = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (task != null) {
+                    task.run();
+                }
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+        closeConnections();
+    }
+
+    private void closeConnections() {
+        List<Connection> opened = new ArrayList<>(shardConnections.values());
+        if (connection != null) {
+            opened.add(connection);
+        }
+        for (Connection target : opened) {
+            try {
+                target.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+        connection = null;
+        shardConnections.clear();
+    }
+
+    /**
+     * Stop taking tasks, wait (up to the timeout) for the queued ones to finish and close
+     * the executor's connections
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (Thread.currentThread() == thread) {
+            return;
+        }
+        try {
+            thread.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Tasks queued while closing: the database thread is gone, so running them here is still one at a time
+        if (!thread.isAlive()) {
+            Runnable task;
+            while ((task = queue.poll()) != null) {
+                task.run();
+            }
+            closeConnections();
+        }
+    }
+}
@@ -1,137 +1,617 @@
 package com.studytracker.database;
 
+import com.studytracker.model.XpEntry;
+import com.studytracker.util.EpochTime;
+import org.sqlite.SQLiteConfig;
+
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Manages database connections and initialization.
  * Uses SQLite for lightweight, file-based database storage.
+ *
+ * With -Dstudytracker.shards=N (N > 0) the data is split over several files:
+ * a directory database holding users and authentication, and N shard databases
+ * holding everything else. A user's data lives in shard (userId % N), so writers
+ * of different users mostly contend on different SQLite file locks.
  */
 public class DatabaseManager {
-    private static final String DB_URL = "jdbc:sqlite:studytracker.db";
+    // Database file, overridable with -Dstudytracker.db=<path>
+    private static final String DB_PATH = System.getProperty("studytracker.db", "studytracker.db");
+    // Number of shard files; 0 keeps everything in DB_PATH
+    private static final int SHARD_COUNT = Integer.getInteger("studytracker.shards", 0);
+    private static final int BUSY_TIMEOUT_MS = 5000;
+    // Tasks each database thread queues before submit() waits, overridable with -Dstudytracker.dbQueue=<n>
+    private static final int EXECUTOR_QUEUE_SIZE = Integer.getInteger("studytracker.dbQueue", 256);
     private static DatabaseManager instance;
+
+    /**
+     * Columns of each table in the v2 format, in creation order. Date-times are INTEGER
+     * seconds and dates INTEGER days since 1970-01-01 (see EpochTime); chapters.status and
+     * user_badges.badge_type are the enums' codes. Tables are STRICT, so a value of the
+     * wrong type is an error instead of being stored as text.
+     */
+    static final Map<String, String> TABLES = new LinkedHashMap<>();
+
+    static {
+        TABLES.put("users", """
+            id INTEGER PRIMARY KEY AUTOINCREMENT,
+            username TEXT UNIQUE NOT NULL,
+            password_hash TEXT NOT NULL,
+            xp INTEGER DEFAULT 0,
+            level INTEGER DEFAULT 1,
+            study_streak INTEGER DEFAULT 0,
+            last_study_date INTEGER,
+            created_at INTEGER NOT NULL,
+            class_name TEXT,
+            daily_study_hours REAL NOT NULL DEFAULT 2
+        """);
+        TABLES.put("subjects", """
+            id INTEGER PRIMARY KEY AUTOINCREMENT,
+            user_id INTEGER NOT NULL,
+            name TEXT NOT NULL,
+            description TEXT,
+            color TEXT,
+            FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+        """);
+        TABLES.put("chapters", """
+            id INTEGER PRIMARY KEY AUTOINCREMENT,
+            subject_id INTEGER NOT NULL,
+            name TEXT NOT NULL,
+            description TEXT,
+            status INTEGER NOT NULL DEFAULT 0,
+            estimated_hours INTEGER DEFAULT 0,
+            FOREIGN KEY (subject_id) REFERENCES subjects(id) ON DELETE CASCADE
+        """);
+        TABLES.put("exams", """
+            id INTEGER PRIMARY KEY AUTOINCREMENT,
+            subject_id INTEGER NOT NULL,
+            name TEXT NOT NULL,
+            description TEXT,
+            exam_date INTEGER NOT NULL,
+            is_completed INTEGER DEFAULT 0,
+            FOREIGN KEY (subject_id) REFERENCES subjects(id) ON DELETE CASCADE
+        """);
+        TABLES.put("study_sessions", """
+            id INTEGER PRIMARY KEY AUTOINCREMENT,
+            chapter_id INTEGER NOT NULL,
+            user_id INTEGER NOT NULL,
+            hours_studied REAL NOT NULL,
+            session_date INTEGER NOT NULL,
+            notes TEXT,
+            xp_earned INTEGER DEFAULT 0,
+            FOREIGN KEY (chapter_id) REFERENCES chapters(id) ON DELETE CASCADE,
+            FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+        """);
+        TABLES.put("user_badges", """
+            id INTEGER PRIMARY KEY AUTOINCREMENT,
+            user_id INTEGER NOT NULL,
+            badge_type INTEGER NOT NULL,
+            earned_date INTEGER NOT NULL,
+            FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+            UNIQUE(user_id, badge_type)
+        """);
+        TABLES.put("xp_ledger", """
+            id INTEGER PRIMARY KEY AUTOINCREMENT,
+            user_id INTEGER NOT NULL,
+            delta INTEGER NOT NULL,
+            source_type INTEGER NOT NULL,
+            source_id INTEGER,
+            created_at INTEGER NOT NULL,
+            FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+        """);
+        TABLES.put("xp_snapshots", """
+            user_id INTEGER NOT NULL,
+            ledger_id INTEGER NOT NULL,
+            xp INTEGER NOT NULL,
+            taken_at INTEGER NOT NULL,
+            PRIMARY KEY (user_id, ledger_id),
+            FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+        """);
+    }
+    private final List<StatementListener> statementListeners = new CopyOnWriteArrayList<>();
+    private final List<Connection> shardConnections = new ArrayList<>();
+    // Database threads by name, started on first use
+    private final Map<String, DatabaseExecutor> executors = new HashMap<>();
     private Connection connection;
 
     private DatabaseManager() {
         try {
             // Load SQLite JDBC driver
             Class.forName("org.sqlite.JDBC");
-            connection = DriverManager.getConnection(DB_URL);
-            initializeTables();
+            connection = DriverManager.getConnection(url(getDatabasePath()), connectionConfig().toProperties());
+
+            if (isSharded()) {
+                // Directory: users only; shards: user stubs (for foreign keys) + all user data
+                initializeTables(connection, false);
+                checkShardCount();
+                for (int shard = 0; shard < SHARD_COUNT; shard++) {
+                    Connection shardConnection = DriverManager.getConnection(
+                        url(getShardPath(shard)), connectionConfig().toProperties());
+                    initializeTables(shardConnection, true);
+                    shardConnections.add(InstrumentedConnection.wrap(shardConnection, statementListeners));
+                }
+            } else {
+                initializeTables(connection, true);
+            }
+
+            // Every statement issued through the shared connection is reported to the listeners
+            connection = InstrumentedConnection.wrap(connection, statementListeners);
+            if (!isSharded()) {
+                shardConnections.add(connection);
+            }
         } catch (ClassNotFoundException | SQLException e) {
             e.printStackTrace();
             throw new RuntimeException("Failed to initialize database", e);
         }
     }
 
-    public static DatabaseManager getInstance() {
+    /**
+     * The shared manager, opening the databases on first call (other threads calling
+     * meanwhile wait for it)
+     */
+    public static synchronized DatabaseManager getInstance() {
         if (instance == null) {
             instance = new DatabaseManager();
         }
         return instance;
     }
 
+    /**
+     * Open the databases on a background thread (loading the SQLite driver takes most of a second)
+     */
+    public static CompletableFuture<DatabaseManager> openAsync() {
+        CompletableFuture<DatabaseManager> opened = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            try {
+                opened.complete(getInstance());
+            } catch (RuntimeException e) {
+                opened.completeExceptionally(e);
+            }
+        }, "db-open");
+        thread.setDaemon(true);
+        thread.start();
+        return opened;
+    }
+
+    /**
+     * Shared connection to the users/authentication database (the only database when
+     * sharding is off). Like the other shared connections it is used directly by one thread
+     * at a time: the FX thread in the app, the main thread of the command line tools. Other
+     * threads use a DatabaseExecutor, a ConnectionPool or a connection they open.
+     */
     public Connection getConnection() {
         return connection;
     }
 
     /**
-     * Create all database tables if they don't exist
+     * Shared connection to the database holding this user's subjects, chapters, exams, sessions and badges
+     */
+    public Connection getConnectionForUser(int userId) {
+        return shardConnections.get(shardFor(userId));
+    }
+
+    /**
+     * Shared connection to one shard (index 0 is the single database when sharding is off)
+     */
+    public Connection getShardConnection(int shard) {
+        return shardConnections.get(shard);
+    }
+
+    /**
+     * Database thread running work on the users database, on connections of its own
+     */
+    public DatabaseExecutor getExecutor() {
+        return executorFor(isSharded() ? -1 : 0);
+    }
+
+    /**
+     * Database thread running work on this user's data, on connections of its own
+     */
+    public DatabaseExecutor getExecutorForUser(int userId) {
+        return getShardExecutor(shardFor(userId));
+    }
+
+    /**
+     * Database thread running work on one shard (the users database when sharding is off)
      */
-    private void initializeTables() throws SQLException {
-        Statement stmt = connection.createStatement();
+    public DatabaseExecutor getShardExecutor(int shard) {
+        return executorFor(shard);
+    }
+
+    private synchronized DatabaseExecutor executorFor(int shard) {
+        String name = shard < 0 || !isSharded() ? "db-users" : "db-shard-" + shard;
+        return executors.computeIfAbsent(name,
+            n -> new DatabaseExecutor(n, shard, EXECUTOR_QUEUE_SIZE, BUSY_TIMEOUT_MS));
+    }
+
+    public boolean isSharded() {
+        return SHARD_COUNT > 0;
+    }
+
+    /**
+     * Number of databases holding user data (1 when sharding is off)
+     */
+    public int getShardCount() {
+        return isSharded() ? SHARD_COUNT : 1;
+    }
+
+    /**
+     * Shard index holding a user's data
+     */
+    public int shardFor(int userId) {
+        return Math.floorMod(userId, getShardCount());
+    }
+
+    /**
+     * Path of the users database (the single database when sharding is off)
+     */
+    public static String getDatabasePath() {
+        return SHARD_COUNT > 0 ? basePath() + "-directory.db" : DB_PATH;
+    }
+
+    public static String getShardPath(int shard) {
+        return SHARD_COUNT > 0 ? basePath() + "-shard-" + shard + ".db" : DB_PATH;
+    }
+
+    /**
+     * Which database file a connection is on (its JDBC URL), the same for every connection
+     * to that file; null if it can't be read
+     */
+    public static String databaseOf(Connection connection) {
+        try {
+            return connection.getMetaData().getURL();
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private static String basePath() {
+        return DB_PATH.endsWith(".db") ? DB_PATH.substring(0, DB_PATH.length() - 3) : DB_PATH;
+    }
+
+    private static String url(String path) {
+        return "jdbc:sqlite:" + path;
+    }
+
+    /**
+     * Open an additional connection to the users database, configured and instrumented
+     * like the shared one. The caller owns it and must close it.
+     */
+    public Connection openConnection() throws SQLException {
+        Connection extra = DriverManager.getConnection(url(getDatabasePath()), connectionConfig().toProperties());
+        return InstrumentedConnection.wrap(extra, statementListeners);
+    }
+
+    /**
+     * Open an additional connection to one shard. The caller owns it and must close it.
+     */
+    public Connection openShardConnection(int shard) throws SQLException {
+        Connection extra = DriverManager.getConnection(url(getShardPath(shard)), connectionConfig().toProperties());
+        return InstrumentedConnection.wrap(extra, statementListeners);
+    }
+
+    /**
+     * Create a pool of extra connections to the users database for concurrent callers
+     */
+    public ConnectionPool createPool(int size) throws SQLException {
+        return new ConnectionPool(size, this::openConnection, BUSY_TIMEOUT_MS);
+    }
+
+    /**
+     * Create a pool of extra connections to one shard
+     */
+    public ConnectionPool createShardPool(int shard, int size) throws SQLException {
+        return new ConnectionPool(size, () -> openShardConnection(shard), BUSY_TIMEOUT_MS);
+    }
+
+    /**
+     * WAL lets readers run alongside a writer; IMMEDIATE transactions take the write
+     * lock up front so concurrent read-modify-write transactions queue on busy_timeout
+     * instead of failing with SQLITE_BUSY when upgrading their lock. Foreign keys are off
+     * by default in SQLite, so they are turned on for the ON DELETE CASCADE clauses to apply.
+     */
+    private static SQLiteConfig connectionConfig() {
+        SQLiteConfig config = new SQLiteConfig();
+        config.enforceForeignKeys(true);
+        config.setJournalMode(SQLiteConfig.JournalMode.WAL);
+        config.setSynchronous(SQLiteConfig.SynchronousMode.NORMAL);
+        config.setBusyTimeout(BUSY_TIMEOUT_MS);
+        config.setTransactionMode(SQLiteConfig.TransactionMode.IMMEDIATE);
+        return config;
+    }
+
+    /**
+     * Register a listener notified after each DAO statement (metrics, tracing, ...)
+     */
+    public void addStatementListener(StatementListener listener) {
+        statementListeners.add(listener);
+    }
+
+    public void removeStatementListener(StatementListener listener) {
+        statementListeners.remove(listener);
+    }
+
+    /**
+     * Routing is userId % N, so the shard count can't change once users exist
+     */
+    private void checkShardCount() throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS directory_info (key TEXT PRIMARY KEY, value TEXT NOT NULL)");
+            stmt.execute("INSERT OR IGNORE INTO directory_info (key, value) VALUES ('shard_count', '" + SHARD_COUNT + "')");
+            try (ResultSet rs = stmt.executeQuery("SELECT value FROM directory_info WHERE key = 'shard_count'")) {
+                if (rs.next() && Integer.parseInt(rs.getString(1)) != SHARD_COUNT) {
+                    throw new SQLException("Directory " + getDatabasePath() + " was created with " + rs.getString(1)
+                        + " shards but studytracker.shards=" + SHARD_COUNT);
+                }
+            }
+        }
+    }
+
+    /**
+     * Create all database tables if they don't exist, migrating a v1 database first
+     * (only the users table in the directory database of a sharded deployment)
+     */
+    private void initializeTables(Connection target, boolean includeData) throws SQLException {
+        // Lets MaintenanceService give free pages back a few at a time. Takes effect at the
+        // next VACUUM (such as the v2 migration's), done right away on a new, empty file
+        try (Statement stmt = target.createStatement()) {
+            stmt.execute("PRAGMA auto_vacuum = INCREMENTAL");
+            try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM sqlite_master")) {
+                if (rs.next() && rs.getInt(1) == 0) {
+                    stmt.execute("VACUUM");
+                }
+            }
+        }
+
+        if (SchemaMigration.needsV2Migration(target)) {
+            // Columns added to v1 over time, read by the migration
+            addColumnIfMissing(target, "users", "class_name", "TEXT");
+            addColumnIfMissing(target, "users", "daily_study_hours", "REAL NOT NULL DEFAULT 2");
+            SchemaMigration.migrateToV2(target, includeData ? TABLES.keySet() : List.of("users"));
+        }
+
+        Statement stmt = target.createStatement();
 
         // Users table
-        stmt.execute("""
-            CREATE TABLE IF NOT EXISTS users (
-                id INTEGER PRIMARY KEY AUTOINCREMENT,
-                username TEXT UNIQUE NOT NULL,
-                password_hash TEXT NOT NULL,
-                xp INTEGER DEFAULT 0,
-                level INTEGER DEFAULT 1,
-                study_streak INTEGER DEFAULT 0,
-                last_study_date TEXT,
-                created_at TEXT NOT NULL
-            )
-        """);
+        createTable(stmt, "users");
 
-        // Subjects table
-        stmt.execute("""
-            CREATE TABLE IF NOT EXISTS subjects (
-                id INTEGER PRIMARY KEY AUTOINCREMENT,
-                user_id INTEGER NOT NULL,
-                name TEXT NOT NULL,
-                description TEXT,
-                color TEXT,
-                FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
-            )
-        """);
+        // Leaderboard queries rank by XP, globally and within a class
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_users_xp ON users(xp DESC)");
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_users_class_xp ON users(class_name, xp DESC)");
 
-        // Chapters table
-        stmt.execute("""
-            CREATE TABLE IF NOT EXISTS chapters (
-                id INTEGER PRIMARY KEY AUTOINCREMENT,
-                subject_id INTEGER NOT NULL,
-                name TEXT NOT NULL,
-                description TEXT,
-                status TEXT NOT NULL DEFAULT 'NOT_STARTED',
-                estimated_hours INTEGER DEFAULT 0,
-                FOREIGN KEY (subject_id) REFERENCES subjects(id) ON DELETE CASCADE
-            )
-        """);
+        // The XP ledger lives next to the real users rows (the directory when sharding is on)
+        if (!includeData || !isSharded()) {
+            initializeXpLedger(target);
+        }
 
-        // Exams table
-        stmt.execute("""
-            CREATE TABLE IF NOT EXISTS exams (
-                id INTEGER PRIMARY KEY AUTOINCREMENT,
-                subject_id INTEGER NOT NULL,
-                name TEXT NOT NULL,
-                description TEXT,
-                exam_date TEXT NOT NULL,
-                is_completed INTEGER DEFAULT 0,
-                FOREIGN KEY (subject_id) REFERENCES subjects(id) ON DELETE CASCADE
-            )
-        """);
+        if (!includeData) {
+            stmt.execute("PRAGMA user_version = " + SchemaMigration.CURRENT_VERSION);
+            stmt.close();
+            return;
+        }
 
-        // Study sessions table
-        stmt.execute("""
-            CREATE TABLE IF NOT EXISTS study_sessions (
-                id INTEGER PRIMARY KEY AUTOINCREMENT,
-                chapter_id INTEGER NOT NULL,
-                user_id INTEGER NOT NULL,
-                hours_studied REAL NOT NULL,
-                session_date TEXT NOT NULL,
-                notes TEXT,
-                xp_earned INTEGER DEFAULT 0,
-                FOREIGN KEY (chapter_id) REFERENCES chapters(id) ON DELETE CASCADE,
-                FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
-            )
-        """);
+        createTable(stmt, "subjects");
+        createTable(stmt, "chapters");
+        createTable(stmt, "exams");
+        createTable(stmt, "study_sessions");
+
+        // A user's chapters are listed with one join from their subjects
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_subjects_user ON subjects(user_id, name)");
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_chapters_subject ON chapters(subject_id, name)");
 
-        // User badges table (many-to-many relationship)
+        // Deleting a chapter or subject looks up its children by these keys (foreign key
+        // checks and cascades included); without them each parent row scans the child table
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_exams_subject ON exams(subject_id, exam_date)");
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_sessions_chapter ON study_sessions(chapter_id)");
+
+        // Session history and analytics read a user's sessions by date; the extra columns
+        // let the aggregations run on the index alone
         stmt.execute("""
-            CREATE TABLE IF NOT EXISTS user_badges (
-                id INTEGER PRIMARY KEY AUTOINCREMENT,
-                user_id INTEGER NOT NULL,
-                badge_type TEXT NOT NULL,
-                earned_date TEXT NOT NULL,
-                FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
-                UNIQUE(user_id, badge_type)
-            )
+            CREATE INDEX IF NOT EXISTS idx_sessions_user_date
+            ON study_sessions(user_id, session_date, hours_studied, xp_earned, chapter_id)
         """);
 
+        // User badges (many-to-many relationship)
+        createTable(stmt, "user_badges");
+
+        if (SchemaMigration.needsOrphanCleanup(target)) {
+            SchemaMigration.removeOrphans(target);
+        }
+        stmt.execute("PRAGMA user_version = " + SchemaMigration.CURRENT_VERSION);
         stmt.close();
+
+        initializeSearchIndex(target);
+    }
+
+    /**
+     * Append-only XP ledger and its snapshots (see XpLedgerDAO). When the ledger is first
+     * created, each user's current XP becomes an opening balance entry.
+     */
+    private void initializeXpLedger(Connection target) throws SQLException {
+        try (Statement stmt = target.createStatement()) {
+            boolean exists;
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'xp_ledger'")) {
+                exists = rs.next();
+            }
+
+            createTable(stmt, "xp_ledger");
+            createTable(stmt, "xp_snapshots");
+            // Entries of a user in id order (the index's implicit rowid), for replays from a snapshot
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_xp_ledger_user ON xp_ledger(user_id)");
+
+            if (!exists) {
+                stmt.execute("INSERT INTO xp_ledger (user_id, delta, source_type, created_at) SELECT id, xp, "
+                    + XpEntry.Source.OPENING_BALANCE.getCode() + ", "
+                    + EpochTime.toSeconds(LocalDateTime.now()) + " FROM users WHERE xp != 0");
+            }
+        }
+    }
+
+    private static void createTable(Statement stmt, String table) throws SQLException {
+        stmt.execute("CREATE TABLE IF NOT EXISTS " + table + " (" + TABLES.get(table) + ") STRICT");
+    }
+
+    /**
+     * Full-text index over subject/chapter/exam descriptions and session notes.
+     * The rowid encodes the source row (id * 4 + kind, see SearchDAO.Kind) so the
+     * triggers keeping it in sync touch one index row by rowid. The owning user is the
+     * indexed token "u<id>" in the owner column, so a search only visits that user's
+     * rows. Filled from the existing rows the first time it is created, and rebuilt
+     * (in one transaction) when it still has the older user_id layout.
+     */
+    private void initializeSearchIndex(Connection target) throws SQLException {
+        try (Statement stmt = target.createStatement()) {
+            boolean exists;
+            boolean hasOwner;
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT name FROM pragma_table_info('search_index') WHERE name IN ('owner', 'user_id')")) {
+                exists = rs.next();
+                hasOwner = exists && rs.getString(1).equals("owner");
+            }
+
+            target.setAutoCommit(false);
+            try {
+                if (exists && !hasOwner) {
+                    // The old triggers write user_id; they are recreated below with the table
+                    for (String table : List.of("subjects", "chapters", "exams", "study_sessions")) {
+                        for (String event : List.of("insert", "update", "delete")) {
+                            stmt.execute("DROP TRIGGER IF EXISTS " + table + "_search_" + event);
+                        }
+                    }
+                    stmt.execute("DROP TABLE search_index");
+                    exists = false;
+                }
+
+                stmt.execute("""
+                    CREATE VIRTUAL TABLE IF NOT EXISTS search_index USING fts5(
+                        title,
+                        body,
+                        owner,
+                        tokenize = 'unicode61 remove_diacritics 2',
+                        prefix = '2 3'
+                    )
+                """);
+
+                // Subjects (kind 0)
+                String subjectRow = "(NEW.id * 4 + 0, NEW.name, NEW.description, 'u' || NEW.user_id)";
+                createSearchTriggers(stmt, "subjects", "name, description", subjectRow, "OLD.id * 4 + 0");
+
+                // Chapters (kind 1) and exams (kind 2) belong to a user through their subject
+                String chapterRow = "(NEW.id * 4 + 1, NEW.name, NEW.description, "
+                    + "'u' || (SELECT user_id FROM subjects WHERE id = NEW.subject_id))";
+                createSearchTriggers(stmt, "chapters", "subject_id, name, description", chapterRow, "OLD.id * 4 + 1");
+                String examRow = "(NEW.id * 4 + 2, NEW.name, NEW.description, "
+                    + "'u' || (SELECT user_id FROM subjects WHERE id = NEW.subject_id))";
+                createSearchTriggers(stmt, "exams", "subject_id, name, description", examRow, "OLD.id * 4 + 2");
+
+                // Study sessions (kind 3): only the notes are searchable
+                String sessionRow = "(NEW.id * 4 + 3, NULL, NEW.notes, 'u' || NEW.user_id)";
+                createSearchTriggers(stmt, "study_sessions", "notes", sessionRow, "OLD.id * 4 + 3");
+
+                if (!exists) {
+                    stmt.execute("""
+                        INSERT INTO search_index (rowid, title, body, owner)
+                        SELECT id * 4 + 0, name, description, 'u' || user_id FROM subjects
+                        UNION ALL
+                        SELECT c.id * 4 + 1, c.name, c.description, 'u' || s.user_id
+                        FROM chapters c JOIN subjects s ON c.subject_id = s.id
+                        UNION ALL
+                        SELECT e.id * 4 + 2, e.name, e.description, 'u' || s.user_id
+                        FROM exams e JOIN subjects s ON e.subject_id = s.id
+                        UNION ALL
+                        SELECT id * 4 + 3, NULL, notes, 'u' || user_id FROM study_sessions
+                    """);
+                }
+                target.commit();
+            } catch (SQLException | RuntimeException e) {
+                target.rollback();
+                throw e;
+            } finally {
+                target.setAutoCommit(true);
+            }
+        }
     }
 
     /**
-     * Close database connection
+     * Insert/update/delete triggers for one source table; updates only reindex when
+     * an indexed column changes (not on status or XP updates)
+     */
+    private void createSearchTriggers(Statement stmt, String table, String indexedColumns, String newRow,
+                                      String oldRowid) throws SQLException {
+        String insert = "INSERT INTO search_index (rowid, title, body, owner) VALUES " + newRow + ";";
+        String delete = "DELETE FROM search_index WHERE rowid = " + oldRowid + ";";
+        stmt.execute("CREATE TRIGGER IF NOT EXISTS " + table + "_search_insert AFTER INSERT ON " + table
+            + " BEGIN " + insert + " END");
+        stmt.execute("CREATE TRIGGER IF NOT EXISTS " + table + "_search_update AFTER UPDATE OF " + indexedColumns
+            + " ON " + table + " BEGIN " + delete + " " + insert + " END");
+        stmt.execute("CREATE TRIGGER IF NOT EXISTS " + table + "_search_delete AFTER DELETE ON " + table
+            + " BEGIN " + delete + " END");
+    }
+
+    /**
+     * Add a column to a table created by an older version of the app
+     */
+    private void addColumnIfMissing(Connection target, String table, String column, String type) throws SQLException {
+        try (Statement stmt = target.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+                while (rs.next()) {
+                    if (rs.getString("name").equalsIgnoreCase(column)) {
+                        return;
+                    }
+                }
+            }
+            stmt.execute("ALTER TABLE " + table + " ADD COLUMN " + column + " " + type);
+        }
+    }
+
+    private List<Connection> allConnections() {
+        List<Connection> all = new ArrayList<>();
+        if (connection != null) {
+            all.add(connection);
+        }
+        for (Connection shardConnection : shardConnections) {
+            if (shardConnection != connection) {
+                all.add(shardConnection);
+            }
+        }
+        return all;
+    }
+
+    /**
+     * Close database connections
      */
     public void close() {
+        // Let queued work finish; each executor closes its own connections
+        List<DatabaseExecutor> running;
+        synchronized (this) {
+            running = new ArrayList<>(executors.values());
+            executors.clear();
+        }
+        running.forEach(DatabaseExecutor::close);
         try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
+            for (Connection target : allConnections()) {
+                if (!target.isClosed()) {
+                    // Refresh the statistics of the tables this connection's queries found stale
+                    try (Statement stmt = target.createStatement()) {
+                        stmt.execute("PRAGMA optimize");
+                    }
+                    target.close();
+                }
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -0,0 +1,302 @@
+package com.studytracker.database;
+
+import com.studytracker.monitoring.DaoStatementEvent;
+import com.studytracker.monitoring.UserActionContext;
+import jdk.jfr.EventType;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Wraps a JDBC connection so every statement created through it reports its
+ * SQL, row count and duration to the registered {@link StatementListener}s,
+ * and emits a {@link DaoStatementEvent} when a flight recording is running.
+ *
+ * A statement's duration is the time spent in its execute call plus in each next() of its
+ * result set, because SQLite does most of the work while rows are being stepped; what the
+ * caller does between rows (e.g. writing an export) isn't counted. Each execution is one
+ * call of its operation.
+ *
+ * The operation (the DAO method) is found by walking the stack the first time a SQL string
+ * is seen, then cached by SQL: a SQL string shared by several methods is reported under the
+ * first one that ran it.
+ */
+public final class InstrumentedConnection {
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+    private static final String APP_PACKAGE = "com.studytracker.";
+    private static final String[] NO_PARAMETERS = new String[0];
+    // SQL -> operation; generated SQL could grow it without bound, so it stops caching at this size
+    private static final int MAX_CACHED_OPERATIONS = 4096;
+    private static final ConcurrentMap<String, String> OPERATIONS = new ConcurrentHashMap<>();
+    // Checked on every proxied call, so looked up once rather than through a new event each time
+    private static final EventType STATEMENT_EVENT_TYPE = EventType.getEventType(DaoStatementEvent.class);
+
+    private InstrumentedConnection() {
+    }
+
+    /**
+     * Wrap a connection; statements are only instrumented while listeners are registered
+     * or the JFR statement event is enabled
+     */
+    public static Connection wrap(Connection connection, List<StatementListener> listeners) {
+        return (Connection) Proxy.newProxyInstance(
+            Connection.class.getClassLoader(),
+            new Class<?>[]{Connection.class},
+            new ConnectionHandler(connection, listeners));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Operation that runs a SQL string, from the cache or else the stack
+     */
+    private static String operationFor(String sql) {
+        if (sql == null) {
+            return findCaller();
+        }
+        String operation = OPERATIONS.get(sql);
+        if (operation == null) {
+            operation = findCaller();
+            if (OPERATIONS.size() < MAX_CACHED_OPERATIONS) {
+                OPERATIONS.putIfAbsent(sql, operation);
+            }
+        }
+        return operation;
+    }
+
+    /**
+     * Find the application method (DAO or service) that created or ran the statement
+     */
+    private static String findCaller() {
+        return STACK_WALKER.walk(frames -> frames
+            .filter(f -> f.getClassName().startsWith(APP_PACKAGE)
+                && !f.getClassName().startsWith(InstrumentedConnection.class.getName()))
+            .findFirst()
+            .map(f -> {
+                String className = f.getClassName();
+                return className.substring(className.lastIndexOf('.') + 1) + "." + f.getMethodName();
+            })
+            .orElse("unknown"));
+    }
+
+    private static final class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+        private final List<StatementListener> listeners;
+
+        ConnectionHandler(Connection target, List<StatementListener> listeners) {
+            this.target = target;
+            this.listeners = listeners;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+
+            if (name.equals("unwrap") && args[0] == Connection.class) {
+                return target;
+            }
+
+            Object result = InstrumentedConnection.invoke(target, method, args);
+
+            if (listeners.isEmpty() && !STATEMENT_EVENT_TYPE.isEnabled()) {
+                return result;
+            }
+            if (name.equals("prepareStatement") && result instanceof PreparedStatement) {
+                return wrapStatement(result, PreparedStatement.class, (String) args[0]);
+            }
+            if (name.equals("createStatement") && result instanceof Statement) {
+                return wrapStatement(result, Statement.class, null);
+            }
+            return result;
+        }
+
+        private Object wrapStatement(Object statement, Class<?> type, String sql) {
+            // A plain statement gets its SQL (and so its operation) at each execute
+            String operation = sql != null ? operationFor(sql) : null;
+            StatementHandler handler = new StatementHandler(statement, sql, operation, target, listeners);
+            return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+        }
+    }
+
+    /**
+     * Tracks the execution currently in flight for one statement
+     */
+    private static final class StatementHandler implements InvocationHandler, InstrumentedResultSet.StepListener {
+        private final Object target;
+        private final String preparedSql;
+        private final String preparedOperation;
+        private final Connection connection;
+        private final List<StatementListener> listeners;
+
+        private String currentSql;
+        private String operation;
+        private int parameterCount;
+        private String[] parameterTypes = NO_PARAMETERS;
+        private long durationNanos;
+        private long rows;
+        private boolean active;
+        private DaoStatementEvent event;
+
+        StatementHandler(Object target, String preparedSql, String preparedOperation, Connection connection,
+                         List<StatementListener> listeners) {
+            this.target = target;
+            this.preparedSql = preparedSql;
+            this.preparedOperation = preparedOperation;
+            this.connection = connection;
+            this.listeners = listeners;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "executeQuery", "executeUpdate", "execute", "executeLargeUpdate", "executeBatch" -> {
+                    return execute(method, args);
+                }
+                case "getResultSet" -> {
+                    ResultSet rs = (ResultSet) InstrumentedConnection.invoke(target, method, args);
+                    return rs == null ? null : wrapResultSet(rs);
+                }
+                case "close" -> {
+                    finish(false);
+                    return InstrumentedConnection.invoke(target, method, args);
+                }
+                case "clearParameters" -> {
+                    parameterCount = 0;
+                    return InstrumentedConnection.invoke(target, method, args);
+                }
+                default -> {
+                    // Parameter setters all look like setXxx(int index, value...)
+                    if (args != null && args.length >= 2 && args[0] instanceof Integer index
+                            && method.getName().startsWith("set")) {
+                        recordParameter(index, method.getName(), args[1]);
+                    }
+                    return InstrumentedConnection.invoke(target, method, args);
+                }
+            }
+        }
+
+        private void recordParameter(int index, String setter, Object value) {
+            if (index < 1) {
+                return;
+            }
+            parameterCount = Math.max(parameterCount, index);
+            if (parameterTypes.length < index) {
+                parameterTypes = Arrays.copyOf(parameterTypes, Math.max(index, parameterTypes.length * 2));
+            }
+            parameterTypes[index - 1] = setter.equals("setObject") && value != null
+                ? value.getClass().getSimpleName()
+                : setter.substring(3);
+        }
+
+        private Object execute(Method method, Object[] args) throws Throwable {
+            finish(false);
+
+            currentSql = args != null && args.length > 0 && args[0] instanceof String s ? s : preparedSql;
+            operation = preparedOperation != null ? preparedOperation : operationFor(currentSql);
+            rows = 0;
+            active = true;
+            event = new DaoStatementEvent();
+            event.begin();
+            long start = System.nanoTime();
+
+            Object result;
+            try {
+                result = InstrumentedConnection.invoke(target, method, args);
+            } catch (Throwable t) {
+                durationNanos = System.nanoTime() - start;
+                finish(true);
+                throw t;
+            }
+            durationNanos = System.nanoTime() - start;
+
+            if (result instanceof ResultSet rs) {
+                return wrapResultSet(rs);
+            }
+            if (result instanceof Integer count) {
+                rows = Math.max(count, 0);
+            } else if (result instanceof Long count) {
+                rows = Math.max(count, 0);
+            } else if (result instanceof int[] counts) {
+                for (int count : counts) {
+                    rows += Math.max(count, 0);
+                }
+            }
+            // execute() returning true means a result set is pending; wait for getResultSet()
+            if (!Boolean.TRUE.equals(result)) {
+                finish(false);
+            }
+            return result;
+        }
+
+        private ResultSet wrapResultSet(ResultSet rs) {
+            return new InstrumentedResultSet(rs, this);
+        }
+
+        @Override
+        public void stepped(boolean hasRow, long nanos) {
+            if (!active) {
+                return;
+            }
+            durationNanos += nanos;
+            if (hasRow) {
+                rows++;
+            } else {
+                finish(false);
+            }
+        }
+
+        @Override
+        public void closed() {
+            finish(false);
+        }
+
+        private void finish(boolean failed) {
+            if (!active) {
+                return;
+            }
+            active = false;
+
+            if (event.shouldCommit()) {
+                event.databaseTime = durationNanos;
+                event.operation = operation;
+                event.sql = currentSql;
+                event.parameterCount = parameterCount;
+                event.rows = rows;
+                event.failed = failed;
+                event.userAction = UserActionContext.current();
+                event.commit();
+            }
+
+            if (listeners.isEmpty()) {
+                return;
+            }
+            StatementExecution execution = new StatementExecution(
+                operation, currentSql, Arrays.copyOf(parameterTypes, parameterCount),
+                rows, durationNanos, failed, connection);
+            for (StatementListener listener : listeners) {
+                try {
+                    listener.statementCompleted(execution);
+                } catch (RuntimeException e) {
+                    // Monitoring must never fail the statement it watched
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+}
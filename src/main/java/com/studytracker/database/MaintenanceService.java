@@ -0,0 +1,340 @@
+package com.studytracker.database;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Keeps long-lived database files fast and compact without anyone running anything by hand:
+ * - ANALYZE once enough rows were written since the last one (or the file has no statistics
+ *   yet), so the query planner's statistics follow the data. SQLite connections only read
+ *   the statistics when they see the schema change, so the same transaction creates and
+ *   drops a view: every connection to the file reloads them at its next statement.
+ * - WAL checkpoint (TRUNCATE) once the -wal file grew past a size, giving its space back.
+ * - Incremental vacuum once the free pages pass a size, a few pages per step so the write
+ *   lock is held briefly. A file created before auto_vacuum was turned on needs one full
+ *   VACUUM to convert, which holds the write lock throughout: only runNow(true) does it,
+ *   called by MaintenanceCommand and by the API server before it starts serving.
+ *
+ * Runs on a low-priority thread when the databases have been idle for a while (no statement
+ * through DatabaseManager's connections), at most once per interval, and once more when
+ * stopped at shutdown; neither converts. Each step done is logged with its time.
+ *
+ * Configured with system properties (studytracker.maintenance.*): intervalMinutes (default 30,
+ * 0 disables scheduled runs), idleSeconds (default 60), analyzeChanges (rows, default 10000),
+ * walMegabytes (default 16) and freeMegabytes (default 8).
+ */
+public class MaintenanceService {
+    private static final Logger LOGGER = Logger.getLogger("com.studytracker.database");
+
+    private static final int DEFAULT_INTERVAL_MINUTES = 30;
+    private static final int DEFAULT_IDLE_SECONDS = 60;
+    private static final int DEFAULT_ANALYZE_CHANGES = 10_000;
+    private static final int DEFAULT_WAL_MEGABYTES = 16;
+    private static final int DEFAULT_FREE_MEGABYTES = 8;
+
+    // ANALYZE samples this many rows per index, bounding its cost on large tables
+    private static final int ANALYSIS_LIMIT = 1000;
+    // Pages freed per incremental vacuum step (4 MB with 4 KB pages), then let the app run
+    private static final int PAGES_PER_STEP = 1024;
+    private static final long PAUSE_BETWEEN_STEPS_MS = 5;
+
+    private final int intervalMinutes;
+    private final int idleSeconds;
+    private final long analyzeChanges;
+    private final long walBytes;
+    private final long freeBytes;
+
+    // Rows written since the last ANALYZE, by database URL
+    private final Map<String, AtomicLong> changes = new ConcurrentHashMap<>();
+    private final StatementListener activityListener = this::statementCompleted;
+    private volatile long lastActivityNanos = System.nanoTime();
+    private long lastRunNanos = System.nanoTime();
+    private boolean started;
+    private ScheduledExecutorService scheduler;
+
+    public MaintenanceService(int intervalMinutes, int idleSeconds, long analyzeChanges, long walBytes, long freeBytes) {
+        this.intervalMinutes = intervalMinutes;
+        this.idleSeconds = idleSeconds;
+        this.analyzeChanges = analyzeChanges;
+        this.walBytes = walBytes;
+        this.freeBytes = freeBytes;
+    }
+
+    public static MaintenanceService fromSystemProperties() {
+        return new MaintenanceService(
+            Integer.getInteger("studytracker.maintenance.intervalMinutes", DEFAULT_INTERVAL_MINUTES),
+            Integer.getInteger("studytracker.maintenance.idleSeconds", DEFAULT_IDLE_SECONDS),
+            Integer.getInteger("studytracker.maintenance.analyzeChanges", DEFAULT_ANALYZE_CHANGES),
+            Integer.getInteger("studytracker.maintenance.walMegabytes", DEFAULT_WAL_MEGABYTES) * 1024L * 1024,
+            Integer.getInteger("studytracker.maintenance.freeMegabytes", DEFAULT_FREE_MEGABYTES) * 1024L * 1024);
+    }
+
+    /**
+     * Start counting writes and schedule idle maintenance on a low-priority background thread
+     */
+    public synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        DatabaseManager.getInstance().addStatementListener(activityListener);
+        if (intervalMinutes <= 0) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "db-maintenance");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        // Check for idleness often; run at most once per interval
+        long checkSeconds = Math.max(5, idleSeconds);
+        scheduler.scheduleWithFixedDelay(this::runIfIdle, checkSeconds, checkSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stop the idle runs and do a last pass (without converting files to auto_vacuum) before
+     * the databases are closed
+     */
+    public void stop() {
+        synchronized (this) {
+            if (!started) {
+                return;
+            }
+            started = false;
+            if (scheduler != null) {
+                scheduler.shutdownNow();
+                scheduler = null;
+            }
+        }
+        try {
+            runNow(false);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        DatabaseManager.getInstance().removeStatementListener(activityListener);
+    }
+
+    private void runIfIdle() {
+        long now = System.nanoTime();
+        if (now - lastRunNanos < TimeUnit.MINUTES.toNanos(intervalMinutes)
+                || now - lastActivityNanos < TimeUnit.SECONDS.toNanos(idleSeconds)) {
+            return;
+        }
+        try {
+            // Never the VACUUM conversion: idle for a minute doesn't mean no request is coming
+            runNow(false);
+        } catch (SQLException | RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Run the steps due on every database file now and return what was done
+     *
+     * @param allowVacuum whether a file without auto_vacuum may be converted with a full VACUUM
+     *                    (only when nothing else uses the databases: it blocks every writer,
+     *                    and readers at its end, for as long as it takes)
+     */
+    public synchronized List<Step> runNow(boolean allowVacuum) throws SQLException {
+        lastRunNanos = System.nanoTime();
+        DatabaseManager databaseManager = DatabaseManager.getInstance();
+        List<Step> steps = new ArrayList<>();
+
+        maintain(DatabaseManager.getDatabasePath(), databaseManager::openConnection, allowVacuum, steps);
+        if (databaseManager.isSharded()) {
+            for (int shard = 0; shard < databaseManager.getShardCount(); shard++) {
+                int target = shard;
+                maintain(DatabaseManager.getShardPath(shard), () -> databaseManager.openShardConnection(target),
+                    allowVacuum, steps);
+            }
+        }
+
+        for (Step step : steps) {
+            LOGGER.info("Maintenance of " + step.getDatabase() + ": " + step.getName() + " ("
+                + step.getDetail() + ") in " + step.getMillis() + " ms");
+        }
+        return steps;
+    }
+
+    private void maintain(String path, ConnectionPool.ConnectionFactory opener, boolean allowVacuum,
+                          List<Step> steps) throws SQLException {
+        // On a connection of its own, leaving the shared ones to their threads; the checkpoint
+        // comes last to also give back the WAL space the vacuum used
+        try (Connection connection = opener.open();
+             Statement stmt = connection.createStatement()) {
+            analyzeIfStale(path, connection, stmt, steps);
+            vacuumIfFree(path, stmt, allowVacuum, steps);
+            checkpointIfLarge(path, stmt, steps);
+        }
+    }
+
+    private void analyzeIfStale(String path, Connection connection, Statement stmt,
+                                List<Step> steps) throws SQLException {
+        AtomicLong counter = changes.computeIfAbsent(DatabaseManager.databaseOf(connection), url -> new AtomicLong());
+        long changed = counter.get();
+        boolean analyzed;
+        try (ResultSet rs = stmt.executeQuery(
+                "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'sqlite_stat1'")) {
+            analyzed = rs.next();
+        }
+        if (analyzed && changed < analyzeChanges) {
+            return;
+        }
+        long start = System.nanoTime();
+        stmt.execute("PRAGMA analysis_limit = " + ANALYSIS_LIMIT);
+        connection.setAutoCommit(false);
+        try {
+            stmt.execute("ANALYZE");
+            stmt.execute("CREATE VIEW statistics_reload AS SELECT 1");
+            stmt.execute("DROP VIEW statistics_reload");
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+        counter.addAndGet(-changed);
+        steps.add(new Step(path, "ANALYZE", analyzed ? changed + " rows written since the last one"
+            : "no statistics yet", start));
+    }
+
+    private void checkpointIfLarge(String path, Statement stmt, List<Step> steps) throws SQLException {
+        long walSize = fileSize(Paths.get(path + "-wal"));
+        if (walSize < walBytes) {
+            return;
+        }
+        long start = System.nanoTime();
+        try (ResultSet rs = stmt.executeQuery("PRAGMA wal_checkpoint(TRUNCATE)")) {
+            // busy = 1 when readers or a writer kept it from finishing; the next run retries
+            boolean busy = rs.next() && rs.getInt(1) == 1;
+            steps.add(new Step(path, "WAL checkpoint", (walSize >> 20) + " MB WAL"
+                + (busy ? ", not truncated: database busy" : " truncated"), start));
+        }
+    }
+
+    private void vacuumIfFree(String path, Statement stmt, boolean allowVacuum, List<Step> steps) throws SQLException {
+        long pageSize = pragma(stmt, "page_size");
+        long freePages = pragma(stmt, "freelist_count");
+        if (freePages * pageSize < freeBytes) {
+            return;
+        }
+        long start = System.nanoTime();
+
+        // 2 = INCREMENTAL; DatabaseManager sets it on new files, older ones need a VACUUM to switch
+        if (pragma(stmt, "auto_vacuum") != 2) {
+            if (allowVacuum) {
+                stmt.execute("PRAGMA auto_vacuum = INCREMENTAL");
+                stmt.execute("VACUUM");
+                steps.add(new Step(path, "VACUUM", "freed " + freePages + " pages, converted to incremental auto_vacuum",
+                    start));
+            }
+            return;
+        }
+
+        long remaining = freePages;
+        while (remaining > 0) {
+            // execute() would step the pragma once, freeing a single page; executeUpdate() runs it to the end
+            stmt.executeUpdate("PRAGMA incremental_vacuum(" + PAGES_PER_STEP + ")");
+            long left = pragma(stmt, "freelist_count");
+            if (left >= remaining) {
+                break;
+            }
+            remaining = left;
+            try {
+                Thread.sleep(PAUSE_BETWEEN_STEPS_MS);
+            } catch (InterruptedException e) {
+                // Shutting down: stop between steps, each one is already committed
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        steps.add(new Step(path, "incremental vacuum", "freed " + (freePages - remaining) + " of " + freePages
+            + " free pages", start));
+    }
+
+    private static long pragma(Statement stmt, String name) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("PRAGMA " + name)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private static long fileSize(Path path) {
+        try {
+            return Files.exists(path) ? Files.size(path) : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    // Called on the thread of every DAO statement, so only a clock read and, for writes, a counter
+    private void statementCompleted(StatementExecution execution) {
+        lastActivityNanos = System.nanoTime();
+        if (!execution.isFailed() && execution.getRows() > 0 && isWrite(execution.getSql())) {
+            String database = DatabaseManager.databaseOf(execution.getConnection());
+            if (database != null) {
+                changes.computeIfAbsent(database, url -> new AtomicLong()).addAndGet(execution.getRows());
+            }
+        }
+    }
+
+    private static boolean isWrite(String sql) {
+        if (sql == null) {
+            return false;
+        }
+        String statement = sql.stripLeading();
+        return statement.regionMatches(true, 0, "INSERT", 0, 6)
+            || statement.regionMatches(true, 0, "UPDATE", 0, 6)
+            || statement.regionMatches(true, 0, "DELETE", 0, 6)
+            || statement.regionMatches(true, 0, "REPLACE", 0, 7);
+    }
+
+    /**
+     * Inner class for one maintenance step done on a database file
+     */
+    public static class Step {
+        private final String database;
+        private final String name;
+        private final String detail;
+        private final long millis;
+
+        public Step(String database, String name, String detail, long startNanos) {
+            this.database = database;
+            this.name = name;
+            this.detail = detail;
+            this.millis = (System.nanoTime() - startNanos) / 1_000_000;
+        }
+
+        public String getDatabase() {
+            return database;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getDetail() {
+            return detail;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+    }
+}
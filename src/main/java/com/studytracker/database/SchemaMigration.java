@@ -0,0 +1,242 @@
+package com.studytracker.database;
+
+import com.studytracker.model.Badge;
+import com.studytracker.model.Chapter;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Upgrade of a database file from the v1 format (ISO text dates, enum names, loosely typed
+ * tables) to v2 (integer dates and enum codes, STRICT tables, see DatabaseManager.TABLES).
+ *
+ * Runs in place when the app opens a v1 file: each table is rebuilt with SQLite's
+ * create-copy-drop-rename procedure, converting the values in the INSERT ... SELECT, all in
+ * one transaction, so a failure leaves the v1 file as it was. This happens while the app
+ * starts, before anything else uses the file: the DAOs only read the v2 encoding, so there
+ * is no point at which both formats could be served. v1 stored any text, so values
+ * with no v2 encoding are repaired and logged as warnings: a required date SQLite
+ * can't parse becomes 0 (1970-01-01), an unknown chapter status NOT_STARTED, and a badge
+ * of an unknown type (which v1 could not load either) is dropped.
+ * The file is vacuumed afterwards to give the freed pages back.
+ */
+final class SchemaMigration {
+    private static final Logger LOGGER = Logger.getLogger("com.studytracker.database");
+
+    // Version of the table layout, kept in PRAGMA user_version (0 for v1 files)
+    static final int CURRENT_VERSION = 3;
+    // First version with integer dates and STRICT tables
+    private static final int V2_VERSION = 2;
+
+    // Per table: columns of the v2 table, the v1 expressions that fill them and the rows kept
+    private static final Map<String, String[]> V1_TO_V2 = Map.of(
+        "users", new String[] {
+            "id, username, password_hash, xp, level, study_streak, last_study_date, created_at, class_name, daily_study_hours",
+            "id, username, password_hash, xp, level, study_streak, unixepoch(last_study_date), "
+                + "COALESCE(unixepoch(created_at), 0), class_name, daily_study_hours", "1"},
+        "subjects", new String[] {
+            "id, user_id, name, description, color",
+            "id, user_id, name, description, color", "1"},
+        "chapters", new String[] {
+            "id, subject_id, name, description, status, estimated_hours",
+            "id, subject_id, name, description, COALESCE(" + chapterStatusCodes() + ", 0), estimated_hours", "1"},
+        "exams", new String[] {
+            "id, subject_id, name, description, exam_date, is_completed",
+            "id, subject_id, name, description, COALESCE(unixepoch(exam_date) / 86400, 0), is_completed", "1"},
+        "study_sessions", new String[] {
+            "id, chapter_id, user_id, hours_studied, session_date, notes, xp_earned",
+            "id, chapter_id, user_id, hours_studied, COALESCE(unixepoch(session_date), 0), notes, xp_earned", "1"},
+        "user_badges", new String[] {
+            "id, user_id, badge_type, earned_date",
+            "id, user_id, " + badgeCodes() + ", COALESCE(unixepoch(earned_date), 0)",
+            badgeCodes() + " IS NOT NULL"}
+    );
+
+    // Per table: condition matching the v1 values the conversion repairs or drops
+    private static final Map<String, String> UNREADABLE = Map.of(
+        "users", "unixepoch(created_at) IS NULL",
+        "chapters", chapterStatusCodes() + " IS NULL",
+        "exams", "unixepoch(exam_date) IS NULL",
+        "study_sessions", "unixepoch(session_date) IS NULL",
+        "user_badges", "unixepoch(earned_date) IS NULL OR " + badgeCodes() + " IS NULL"
+    );
+
+    private SchemaMigration() {
+    }
+
+    /**
+     * True for a file written by v1: it has tables but no schema version yet
+     */
+    static boolean needsV2Migration(Connection target) throws SQLException {
+        try (Statement stmt = target.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+                if (rs.next() && rs.getInt(1) >= V2_VERSION) {
+                    return false;
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'users'")) {
+                return rs.next();
+            }
+        }
+    }
+
+    /**
+     * Rebuild the given tables (those that exist) in the v2 format
+     */
+    static void migrateToV2(Connection target, Collection<String> tables) throws SQLException {
+        long start = System.nanoTime();
+        try (Statement stmt = target.createStatement()) {
+            // With foreign keys enforced, dropping a v1 parent table would cascade into its children
+            boolean foreignKeys;
+            try (ResultSet rs = stmt.executeQuery("PRAGMA foreign_keys")) {
+                foreignKeys = rs.next() && rs.getInt(1) == 1;
+            }
+            stmt.execute("PRAGMA foreign_keys = OFF");
+            target.setAutoCommit(false);
+            try {
+                // The search triggers refer to the tables being swapped; DatabaseManager recreates them
+                for (String trigger : names(stmt, "SELECT name FROM sqlite_master WHERE type = 'trigger'")) {
+                    stmt.execute("DROP TRIGGER " + trigger);
+                }
+                List<String> existing = names(stmt, "SELECT name FROM sqlite_master WHERE type = 'table'");
+                for (String table : tables) {
+                    if (existing.contains(table)) {
+                        rebuildTable(target, stmt, table);
+                    }
+                }
+                stmt.execute("PRAGMA user_version = " + V2_VERSION);
+                target.commit();
+            } catch (SQLException | RuntimeException e) {
+                target.rollback();
+                throw new SQLException("Migration to storage format v2 failed, the database was left unchanged", e);
+            } finally {
+                target.setAutoCommit(true);
+                if (foreignKeys) {
+                    stmt.execute("PRAGMA foreign_keys = ON");
+                }
+            }
+            stmt.execute("VACUUM");
+        }
+        LOGGER.info("Migrated database to storage format v2 in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    /**
+     * True for a file written before foreign keys were enforced (version 3), which may hold
+     * rows whose subject, chapter or user was deleted
+     */
+    static boolean needsOrphanCleanup(Connection target) throws SQLException {
+        try (Statement stmt = target.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+            return rs.next() && rs.getInt(1) < CURRENT_VERSION;
+        }
+    }
+
+    /**
+     * Delete the rows ON DELETE CASCADE should have removed while foreign keys were off,
+     * parents first so their children become orphans in turn. Batched like any large
+     * delete, so the write lock is released between batches.
+     */
+    static void removeOrphans(Connection target) throws SQLException {
+        long start = System.nanoTime();
+        String[][] orphans = {
+            {"subjects", "NOT EXISTS (SELECT 1 FROM users u WHERE u.id = subjects.user_id)"},
+            {"chapters", "NOT EXISTS (SELECT 1 FROM subjects s WHERE s.id = chapters.subject_id)"},
+            {"exams", "NOT EXISTS (SELECT 1 FROM subjects s WHERE s.id = exams.subject_id)"},
+            {"study_sessions", "NOT EXISTS (SELECT 1 FROM chapters c WHERE c.id = study_sessions.chapter_id)"
+                + " OR NOT EXISTS (SELECT 1 FROM users u WHERE u.id = study_sessions.user_id)"},
+            {"user_badges", "NOT EXISTS (SELECT 1 FROM users u WHERE u.id = user_badges.user_id)"}
+        };
+
+        int total = 0;
+        for (String[] orphan : orphans) {
+            int deleted = ChunkedDelete.delete(target, orphan[0], orphan[1]);
+            if (deleted > 0) {
+                LOGGER.warning("Removed " + deleted + " orphaned " + orphan[0] + " rows");
+            }
+            total += deleted;
+        }
+        if (total > 0) {
+            LOGGER.info("Orphan cleanup took " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        }
+    }
+
+    private static void rebuildTable(Connection target, Statement stmt, String table) throws SQLException {
+        String[] columns = V1_TO_V2.get(table);
+        String newTable = table + "_v2";
+        String unreadable = UNREADABLE.get(table);
+        if (unreadable != null) {
+            try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + table + " WHERE " + unreadable)) {
+                if (rs.next() && rs.getInt(1) > 0) {
+                    LOGGER.warning("Storage format v2: repaired " + rs.getInt(1) + " " + table
+                        + " rows with unreadable values");
+                }
+            }
+        }
+        stmt.execute("CREATE TABLE " + newTable + " (" + DatabaseManager.TABLES.get(table) + ") STRICT");
+        stmt.execute("INSERT INTO " + newTable + " (" + columns[0] + ") SELECT " + columns[1]
+            + " FROM " + table + " WHERE " + columns[2]);
+
+        // Keep AUTOINCREMENT from handing out the ids of rows deleted at the end of the table
+        long sequence = 0;
+        try (ResultSet rs = stmt.executeQuery("SELECT seq FROM sqlite_sequence WHERE name = '" + table + "'")) {
+            if (rs.next()) {
+                sequence = rs.getLong(1);
+            }
+        }
+
+        stmt.execute("DROP TABLE " + table);
+        stmt.execute("ALTER TABLE " + newTable + " RENAME TO " + table);
+
+        try (PreparedStatement update = target.prepareStatement(
+                "UPDATE sqlite_sequence SET seq = MAX(seq, ?) WHERE name = ?")) {
+            update.setLong(1, sequence);
+            update.setString(2, table);
+            if (update.executeUpdate() == 0 && sequence > 0) {
+                try (PreparedStatement insert = target.prepareStatement(
+                        "INSERT INTO sqlite_sequence (name, seq) VALUES (?, ?)")) {
+                    insert.setString(1, table);
+                    insert.setLong(2, sequence);
+                    insert.executeUpdate();
+                }
+            }
+        }
+    }
+
+    private static List<String> names(Statement stmt, String sql) throws SQLException {
+        List<String> names = new ArrayList<>();
+        try (ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                names.add(rs.getString(1));
+            }
+        }
+        return names;
+    }
+
+    // Unknown names map to NULL: V1_TO_V2 turns an unknown chapter status into NOT_STARTED (0)
+    // and drops badges of an unknown type; UNREADABLE counts both for the "repaired" message
+
+    private static String chapterStatusCodes() {
+        StringBuilder sql = new StringBuilder("CASE status");
+        for (Chapter.ChapterStatus status : Chapter.ChapterStatus.values()) {
+            sql.append(" WHEN '").append(status.name()).append("' THEN ").append(status.getCode());
+        }
+        return sql.append(" END").toString();
+    }
+
+    private static String badgeCodes() {
+        StringBuilder sql = new StringBuilder("CASE badge_type");
+        for (Badge.BadgeType type : Badge.BadgeType.values()) {
+            sql.append(" WHEN '").append(type.name()).append("' THEN ").append(type.getCode());
+        }
+        return sql.append(" END").toString();
+    }
+}
@@ -0,0 +1,71 @@
+package com.studytracker.database;
+
+import java.sql.Connection;
+
+/**
+ * Describes one finished statement execution: which DAO method ran it,
+ * the SQL, how many rows it returned or changed, and how long it took.
+ */
+public class StatementExecution {
+    private final String operation;
+    private final String sql;
+    private final String[] parameterTypes;
+    private final long rows;
+    private final long durationNanos;
+    private final boolean failed;
+    private final Connection connection;
+
+    public StatementExecution(String operation, String sql, String[] parameterTypes, long rows,
+                              long durationNanos, boolean failed, Connection connection) {
+        this.operation = operation;
+        this.sql = sql;
+        this.parameterTypes = parameterTypes;
+        this.rows = rows;
+        this.durationNanos = durationNanos;
+        this.failed = failed;
+        this.connection = connection;
+    }
+
+    /**
+     * Caller that issued the statement, e.g. "UserDAO.findById"
+     */
+    public String getOperation() {
+        return operation;
+    }
+
+    /**
+     * SQL that ran, or null for the executeBatch() of a plain Statement (no single SQL)
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * Type of each bound parameter, by position (e.g. "Int", "String", "Null")
+     */
+    public String[] getParameterTypes() {
+        return parameterTypes;
+    }
+
+    /**
+     * Rows read for queries, rows changed for updates
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public boolean isFailed() {
+        return failed;
+    }
+
+    /**
+     * Uninstrumented connection the statement ran on; only valid on the calling thread
+     */
+    public Connection getConnection() {
+        return connection;
+    }
+}
@@ -0,0 +1,11 @@
+package com.studytracker.database;
+
+/**
+ * Receives a callback every time an instrumented JDBC statement finishes.
+ * Implementations are called on the thread that ran the statement, so they must be cheap;
+ * an exception they throw is printed and never fails the statement.
+ */
+public interface StatementListener {
+
+    void statementCompleted(StatementExecution execution);
+}
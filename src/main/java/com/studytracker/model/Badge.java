@@ -11,26 +11,44 @@ public class Badge {
     private BadgeType type;
 
     public enum BadgeType {
-        FIRST_STUDY("First Study", "Complete your first study session", "🎯"),
-        STUDY_STREAK_3("3-Day Streak", "Study for 3 days in a row", "🔥"),
-        STUDY_STREAK_7("7-Day Streak", "Study for 7 days in a row", "⚡"),
-        COMPLETED_5_CHAPTERS("Chapter Master", "Complete 5 chapters", "📚"),
-        COMPLETED_10_CHAPTERS("Knowledge Seeker", "Complete 10 chapters", "🏆"),
-        LEVEL_5("Level 5", "Reach level 5", "⭐"),
-        LEVEL_10("Level 10", "Reach level 10", "💎"),
-        LEVEL_15("Level 15", "Reach level 15", "x"),
-        EARLY_BIRD("Early Bird", "Complete an exam before the deadline", "🦅");
-
+        FIRST_STUDY(0, "First Study", "Complete your first study session", "🎯"),
+        STUDY_STREAK_3(1, "3-Day Streak", "Study for 3 days in a row", "🔥"),
+        STUDY_STREAK_7(2, "7-Day Streak", "Study for 7 days in a row", "⚡"),
+        COMPLETED_5_CHAPTERS(3, "Chapter Master", "Complete 5 chapters", "📚"),
+        COMPLETED_10_CHAPTERS(4, "Knowledge Seeker", "Complete 10 chapters", "🏆"),
+        LEVEL_5(5, "Level 5", "Reach level 5", "⭐"),
+        LEVEL_10(6, "Level 10", "Reach level 10", "💎"),
+        LEVEL_15(7, "Level 15", "Reach level 15", "x"),
+        EARLY_BIRD(8, "Early Bird", "Complete an exam before the deadline", "🦅");
+
+        private final int code;
         private final String name;
         private final String description;
         private final String icon;
 
-        BadgeType(String name, String description, String icon) {
+        BadgeType(int code, String name, String description, String icon) {
+            this.code = code;
             this.name = name;
             this.description = description;
             this.icon = icon;
         }
 
+        /**
+         * Value stored in user_badges.badge_type (never reuse or renumber a code)
+         */
+        public int getCode() {
+            return code;
+        }
+
+        public static BadgeType fromCode(int code) {
+            for (BadgeType type : values()) {
+                if (type.code == code) {
+                    return type;
+                }
+            }
+            throw new IllegalArgumentException("Unknown badge code " + code);
+        }
+
         public String getName() {
             return name;
         }
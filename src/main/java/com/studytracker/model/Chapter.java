@@ -13,18 +13,36 @@ public class Chapter {
     private int estimatedHours;
 
     public enum ChapterStatus {
-        NOT_STARTED("Not Started", "#E74C3C"), // Red
-        IN_PROGRESS("In Progress", "#F39C12"), // Orange
-        COMPLETED("Completed", "#27AE60");     // Green
+        NOT_STARTED(0, "Not Started", "#E74C3C"), // Red
+        IN_PROGRESS(1, "In Progress", "#F39C12"), // Orange
+        COMPLETED(2, "Completed", "#27AE60");     // Green
 
+        private final int code;
         private final String displayName;
         private final String color;
 
-        ChapterStatus(String displayName, String color) {
+        ChapterStatus(int code, String displayName, String color) {
+            this.code = code;
             this.displayName = displayName;
             this.color = color;
         }
 
+        /**
+         * Value stored in chapters.status (never reuse or renumber a code)
+         */
+        public int getCode() {
+            return code;
+        }
+
+        public static ChapterStatus fromCode(int code) {
+            for (ChapterStatus status : values()) {
+                if (status.code == code) {
+                    return status;
+                }
+            }
+            throw new IllegalArgumentException("Unknown chapter status code " + code);
+        }
+
         public String getDisplayName() {
             return displayName;
         }
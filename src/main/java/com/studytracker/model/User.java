@@ -15,11 +15,14 @@ public class User {
     private int studyStreak;
     private LocalDateTime lastStudyDate;
     private LocalDateTime createdAt;
+    private String className;
+    private double dailyStudyHours;
 
     public User() {
         this.xp = 0;
         this.level = 1;
         this.studyStreak = 0;
+        this.dailyStudyHours = 2;
         this.createdAt = LocalDateTime.now();
     }
 
@@ -97,6 +100,28 @@ public class User {
         this.createdAt = createdAt;
     }
 
+    /**
+     * Class/group the student belongs to (null if none), used for class leaderboards
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    public void setClassName(String className) {
+        this.className = className;
+    }
+
+    /**
+     * Hours the student can study per day, used by the study planner
+     */
+    public double getDailyStudyHours() {
+        return dailyStudyHours;
+    }
+
+    public void setDailyStudyHours(double dailyStudyHours) {
+        this.dailyStudyHours = dailyStudyHours;
+    }
+
     /**
      * Calculate XP needed for next level
      */
@@ -0,0 +1,121 @@
+package com.studytracker.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * One change of a user's XP in the append-only XP ledger: an award, a reversal or a
+ * correction. A user's XP is the sum of their entries; users.xp caches it.
+ */
+public class XpEntry {
+    private long id;
+    private int userId;
+    private int delta;
+    private Source source;
+    private Integer sourceId;
+    private LocalDateTime createdAt;
+
+    public enum Source {
+        OPENING_BALANCE(0, "Opening balance"),
+        SESSION(1, "Study session"),
+        SESSION_DELETED(2, "Deleted study session"),
+        IMPORT(3, "Data import"),
+        CORRECTION(4, "Correction");
+
+        private final int code;
+        private final String displayName;
+
+        Source(int code, String displayName) {
+            this.code = code;
+            this.displayName = displayName;
+        }
+
+        /**
+         * Value stored in xp_ledger.source_type (never reuse or renumber a code)
+         */
+        public int getCode() {
+            return code;
+        }
+
+        public static Source fromCode(int code) {
+            for (Source source : values()) {
+                if (source.code == code) {
+                    return source;
+                }
+            }
+            throw new IllegalArgumentException("Unknown XP source code " + code);
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+    }
+
+    public XpEntry() {
+    }
+
+    public XpEntry(long id, int userId, int delta, Source source, Integer sourceId, LocalDateTime createdAt) {
+        this.id = id;
+        this.userId = userId;
+        this.delta = delta;
+        this.source = source;
+        this.sourceId = sourceId;
+        this.createdAt = createdAt;
+    }
+
+    // Getters and setters
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+
+    public int getDelta() {
+        return delta;
+    }
+
+    public void setDelta(int delta) {
+        this.delta = delta;
+    }
+
+    public Source getSource() {
+        return source;
+    }
+
+    public void setSource(Source source) {
+        this.source = source;
+    }
+
+    /**
+     * Id of the row that caused the change (the study session), or null
+     */
+    public Integer getSourceId() {
+        return sourceId;
+    }
+
+    public void setSourceId(Integer sourceId) {
+        this.sourceId = sourceId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    @Override
+    public String toString() {
+        return (delta >= 0 ? "+" : "") + delta + " XP (" + source.getDisplayName() + ")";
+    }
+}
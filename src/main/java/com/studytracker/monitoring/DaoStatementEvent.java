@@ -0,0 +1,47 @@
+package com.studytracker.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Java Flight Recorder event emitted for each DAO statement.
+ * Costs next to nothing unless a recording has the event enabled.
+ */
+@Name("com.studytracker.DaoStatement")
+@Label("DAO Statement")
+@Description("SQL statement executed by a DAO, from the execute call until its results were consumed")
+@Category({"Study Tracker", "Database"})
+@StackTrace(false)
+public class DaoStatementEvent extends Event {
+
+    @Label("Operation")
+    @Description("DAO or service method that issued the statement")
+    public String operation;
+
+    @Label("SQL")
+    public String sql;
+
+    @Label("Parameter Count")
+    public int parameterCount;
+
+    @Label("Rows")
+    @Description("Rows read for queries, rows changed for updates")
+    public long rows;
+
+    @Label("Database Time")
+    @Description("Time spent in the execute call and in stepping the rows, without the caller's work between rows")
+    @Timespan
+    public long databaseTime;
+
+    @Label("Failed")
+    public boolean failed;
+
+    @Label("User Action")
+    @Description("User action that triggered the statement")
+    public String userAction;
+}
@@ -0,0 +1,45 @@
+package com.studytracker.monitoring;
+
+import com.studytracker.database.DatabaseManager;
+
+import java.io.IOException;
+
+/**
+ * Installs the always-on database diagnostics (query metrics, OpenMetrics export,
+ * slow query log) for both the desktop app and the headless API server.
+ */
+public class Diagnostics {
+    private OpenMetricsExporter metricsExporter;
+    private SlowQueryLog slowQueryLog;
+
+    public void start() {
+        DatabaseManager databaseManager = DatabaseManager.getInstance();
+
+        // Always-on query metrics (JMX + OpenMetrics file)
+        databaseManager.addStatementListener(QueryMetrics.getInstance());
+        metricsExporter = new OpenMetricsExporter(QueryMetrics.getInstance());
+        metricsExporter.start();
+
+        // Slow statements go to logs/slow-queries.*.log with their query plan
+        try {
+            slowQueryLog = SlowQueryLog.fromSystemProperties();
+            if (slowQueryLog != null) {
+                databaseManager.addStatementListener(slowQueryLog);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public void stop() {
+        if (metricsExporter != null) {
+            metricsExporter.stop();
+            metricsExporter = null;
+        }
+        if (slowQueryLog != null) {
+            DatabaseManager.getInstance().removeStatementListener(slowQueryLog);
+            slowQueryLog.close();
+            slowQueryLog = null;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.studytracker.monitoring;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically writes the query metrics to a local file in OpenMetrics text format,
+ * so they can be scraped (e.g. by a node_exporter textfile collector) or just read.
+ *
+ * Configured with system properties:
+ * studytracker.metrics.file (default metrics/studytracker.prom) and
+ * studytracker.metrics.interval in seconds (default 15, 0 disables the export).
+ */
+public class OpenMetricsExporter {
+    private static final String DEFAULT_FILE = "metrics/studytracker.prom";
+    private static final int DEFAULT_INTERVAL_SECONDS = 15;
+
+    private final QueryMetrics metrics;
+    private final Path file;
+    private final int intervalSeconds;
+    private ScheduledExecutorService scheduler;
+
+    public OpenMetricsExporter(QueryMetrics metrics) {
+        this(metrics,
+            Paths.get(System.getProperty("studytracker.metrics.file", DEFAULT_FILE)),
+            Integer.getInteger("studytracker.metrics.interval", DEFAULT_INTERVAL_SECONDS));
+    }
+
+    public OpenMetricsExporter(QueryMetrics metrics, Path file, int intervalSeconds) {
+        this.metrics = metrics;
+        this.file = file;
+        this.intervalSeconds = intervalSeconds;
+    }
+
+    /**
+     * Start the background export thread
+     */
+    public synchronized void start() {
+        if (scheduler != null || intervalSeconds <= 0) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "metrics-exporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::exportQuietly, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stop the export thread and write one last snapshot
+     */
+    public synchronized void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        scheduler = null;
+        exportQuietly();
+    }
+
+    private void exportQuietly() {
+        try {
+            export();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Write the current snapshot, replacing the file atomically so readers never see half a file
+     */
+    public void export() throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.writeString(tmp, render(metrics.getOperations()), StandardCharsets.UTF_8);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Render metrics in OpenMetrics text exposition format
+     */
+    static String render(List<OperationStats> operations) {
+        StringBuilder out = new StringBuilder();
+
+        out.append("# TYPE studytracker_dao_calls counter\n");
+        out.append("# HELP studytracker_dao_calls Statements executed per DAO operation.\n");
+        for (OperationStats stats : operations) {
+            sample(out, "studytracker_dao_calls_total", stats.getOperation(), null, stats.getCalls());
+        }
+
+        out.append("# TYPE studytracker_dao_errors counter\n");
+        out.append("# HELP studytracker_dao_errors Statements that threw an exception.\n");
+        for (OperationStats stats : operations) {
+            sample(out, "studytracker_dao_errors_total", stats.getOperation(), null, stats.getErrors());
+        }
+
+        out.append("# TYPE studytracker_dao_rows counter\n");
+        out.append("# HELP studytracker_dao_rows Rows returned or changed per DAO operation.\n");
+        for (OperationStats stats : operations) {
+            sample(out, "studytracker_dao_rows_total", stats.getOperation(), null, stats.getRows());
+        }
+
+        out.append("# TYPE studytracker_dao_latency_seconds histogram\n");
+        out.append("# UNIT studytracker_dao_latency_seconds seconds\n");
+        out.append("# HELP studytracker_dao_latency_seconds Statement latency per DAO operation.\n");
+        for (OperationStats stats : operations) {
+            long[] counts = stats.getBucketCounts();
+            long cumulative = 0;
+            for (int i = 0; i < counts.length; i++) {
+                cumulative += counts[i];
+                String le = i < OperationStats.BUCKET_BOUNDS_SECONDS.length
+                    ? formatDouble(OperationStats.BUCKET_BOUNDS_SECONDS[i]) : "+Inf";
+                sample(out, "studytracker_dao_latency_seconds_bucket", stats.getOperation(), le, cumulative);
+            }
+            sample(out, "studytracker_dao_latency_seconds_count", stats.getOperation(), null, cumulative);
+            out.append("studytracker_dao_latency_seconds_sum{operation=\"")
+                .append(escape(stats.getOperation())).append("\"} ")
+                .append(formatDouble(stats.getTotalTimeSeconds())).append('\n');
+        }
+
+        out.append("# EOF\n");
+        return out.toString();
+    }
+
+    private static void sample(StringBuilder out, String name, String operation, String le, long value) {
+        out.append(name).append("{operation=\"").append(escape(operation)).append('"');
+        if (le != null) {
+            out.append(",le=\"").append(le).append('"');
+        }
+        out.append("} ").append(value).append('\n');
+    }
+
+    private static String formatDouble(double value) {
+        return Double.toString(value);
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,150 @@
+package com.studytracker.monitoring;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Call count, row count and latency histogram for one DAO operation.
+ * Uses striped adders and fixed buckets so recording never locks or allocates.
+ */
+public class OperationStats implements OperationStatsMXBean {
+
+    /**
+     * Upper bounds of the latency buckets, in seconds (the last bucket is +Inf)
+     */
+    static final double[] BUCKET_BOUNDS_SECONDS = {
+        0.0001, 0.00025, 0.0005, 0.001, 0.0025, 0.005, 0.01,
+        0.025, 0.05, 0.1, 0.25, 0.5, 1.0, 2.5
+    };
+    private static final long[] BUCKET_BOUNDS_NANOS = new long[BUCKET_BOUNDS_SECONDS.length];
+
+    static {
+        for (int i = 0; i < BUCKET_BOUNDS_SECONDS.length; i++) {
+            BUCKET_BOUNDS_NANOS[i] = (long) (BUCKET_BOUNDS_SECONDS[i] * 1_000_000_000L);
+        }
+    }
+
+    private final String operation;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+    private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS_SECONDS.length + 1];
+
+    public OperationStats(String operation) {
+        this.operation = operation;
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Record one finished statement
+     */
+    public void record(long rowCount, long durationNanos, boolean failed) {
+        calls.increment();
+        if (failed) {
+            errors.increment();
+        }
+        rows.add(rowCount);
+        totalNanos.add(durationNanos);
+        maxNanos.accumulate(durationNanos);
+
+        int bucket = 0;
+        while (bucket < BUCKET_BOUNDS_NANOS.length && durationNanos > BUCKET_BOUNDS_NANOS[bucket]) {
+            bucket++;
+        }
+        buckets[bucket].increment();
+    }
+
+    /**
+     * Non-cumulative count per bucket, same order as BUCKET_BOUNDS_SECONDS plus +Inf
+     */
+    public long[] getBucketCounts() {
+        long[] counts = new long[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return counts;
+    }
+
+    public double getTotalTimeSeconds() {
+        return totalNanos.sum() / 1_000_000_000.0;
+    }
+
+    @Override
+    public String getOperation() {
+        return operation;
+    }
+
+    @Override
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public long getRows() {
+        return rows.sum();
+    }
+
+    @Override
+    public double getTotalTimeMillis() {
+        return totalNanos.sum() / 1_000_000.0;
+    }
+
+    @Override
+    public double getMeanMillis() {
+        long count = calls.sum();
+        return count > 0 ? getTotalTimeMillis() / count : 0;
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return maxNanos.get() / 1_000_000.0;
+    }
+
+    @Override
+    public double getP50Millis() {
+        return percentileMillis(0.50);
+    }
+
+    @Override
+    public double getP95Millis() {
+        return percentileMillis(0.95);
+    }
+
+    @Override
+    public double getP99Millis() {
+        return percentileMillis(0.99);
+    }
+
+    /**
+     * Estimate a percentile as the upper bound of the bucket that contains it
+     */
+    private double percentileMillis(double quantile) {
+        long[] counts = getBucketCounts();
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long target = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return i < BUCKET_BOUNDS_SECONDS.length ? BUCKET_BOUNDS_SECONDS[i] * 1000 : getMaxMillis();
+            }
+        }
+        return getMaxMillis();
+    }
+}
@@ -0,0 +1,28 @@
+package com.studytracker.monitoring;
+
+/**
+ * JMX view of the timing statistics collected for one DAO operation.
+ * Registered as com.studytracker:type=DaoOperation,name=&lt;Class.method&gt;
+ */
+public interface OperationStatsMXBean {
+
+    String getOperation();
+
+    long getCalls();
+
+    long getErrors();
+
+    long getRows();
+
+    double getTotalTimeMillis();
+
+    double getMeanMillis();
+
+    double getMaxMillis();
+
+    double getP50Millis();
+
+    double getP95Millis();
+
+    double getP99Millis();
+}
@@ -0,0 +1,65 @@
+package com.studytracker.monitoring;
+
+import com.studytracker.database.StatementExecution;
+import com.studytracker.database.StatementListener;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registry of per-operation query statistics.
+ * Each operation gets its own JMX MBean the first time it is seen.
+ */
+public class QueryMetrics implements StatementListener {
+    private static final QueryMetrics INSTANCE = new QueryMetrics();
+    private static final String JMX_DOMAIN = "com.studytracker";
+
+    private final ConcurrentMap<String, OperationStats> operations = new ConcurrentHashMap<>();
+
+    private QueryMetrics() {
+    }
+
+    public static QueryMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public void statementCompleted(StatementExecution execution) {
+        OperationStats stats = operations.get(execution.getOperation());
+        if (stats == null) {
+            stats = operations.computeIfAbsent(execution.getOperation(), this::register);
+        }
+        stats.record(execution.getRows(), execution.getDurationNanos(), execution.isFailed());
+    }
+
+    /**
+     * Snapshot of all operations, slowest total time first
+     */
+    public List<OperationStats> getOperations() {
+        List<OperationStats> list = new ArrayList<>(operations.values());
+        list.sort(Comparator.comparingDouble(OperationStats::getTotalTimeMillis).reversed());
+        return list;
+    }
+
+    private OperationStats register(String operation) {
+        OperationStats stats = new OperationStats(operation);
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(JMX_DOMAIN + ":type=DaoOperation,name=" + ObjectName.quote(operation));
+            if (!server.isRegistered(name)) {
+                server.registerMBean(stats, name);
+            }
+        } catch (JMException e) {
+            // Metrics still work without JMX, only the MBean view is lost
+            e.printStackTrace();
+        }
+        return stats;
+    }
+}
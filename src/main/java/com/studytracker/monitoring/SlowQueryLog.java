@@ -0,0 +1,151 @@
+package com.studytracker.monitoring;
+
+import com.studytracker.database.StatementExecution;
+import com.studytracker.database.StatementListener;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.FileHandler;
+import java.util.logging.Formatter;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Logs every statement slower than a threshold to a rotating file, together with
+ * its bound parameter types and the EXPLAIN QUERY PLAN output (captured once per SQL).
+ *
+ * Configured with system properties:
+ * studytracker.slowQuery.thresholdMs (default 50, negative disables the log),
+ * studytracker.slowQuery.file (default logs/slow-queries.%g.log),
+ * studytracker.slowQuery.maxBytes (default 5 MB per file) and
+ * studytracker.slowQuery.files (default 5 rotated files).
+ */
+public class SlowQueryLog implements StatementListener {
+    private static final Logger LOGGER = Logger.getLogger("com.studytracker.slowquery");
+
+    private final long thresholdNanos;
+    private final ConcurrentMap<String, String> plans = new ConcurrentHashMap<>();
+    private FileHandler handler;
+
+    public SlowQueryLog(long thresholdMillis) {
+        this.thresholdNanos = thresholdMillis * 1_000_000L;
+    }
+
+    /**
+     * Create the log from system properties, or return null when it is disabled
+     */
+    public static SlowQueryLog fromSystemProperties() throws IOException {
+        long threshold = Long.getLong("studytracker.slowQuery.thresholdMs", 50);
+        if (threshold < 0) {
+            return null;
+        }
+        SlowQueryLog log = new SlowQueryLog(threshold);
+        log.open(
+            System.getProperty("studytracker.slowQuery.file", "logs/slow-queries.%g.log"),
+            Integer.getInteger("studytracker.slowQuery.maxBytes", 5 * 1024 * 1024),
+            Integer.getInteger("studytracker.slowQuery.files", 5));
+        return log;
+    }
+
+    /**
+     * Start writing to a rotating set of files (FileHandler pattern syntax, %g = generation)
+     */
+    public void open(String pattern, int maxBytes, int fileCount) throws IOException {
+        var parent = Paths.get(pattern).toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        handler = new FileHandler(pattern, maxBytes, fileCount, true);
+        handler.setFormatter(new Formatter() {
+            @Override
+            public String format(LogRecord record) {
+                return record.getMessage();
+            }
+        });
+        LOGGER.setUseParentHandlers(false);
+        LOGGER.addHandler(handler);
+    }
+
+    public void close() {
+        if (handler != null) {
+            LOGGER.removeHandler(handler);
+            handler.close();
+            handler = null;
+        }
+    }
+
+    @Override
+    public void statementCompleted(StatementExecution execution) {
+        if (execution.getDurationNanos() < thresholdNanos || !LOGGER.isLoggable(Level.WARNING)) {
+            return;
+        }
+        // A plain Statement's executeBatch() has no single SQL to explain
+        String plan = execution.getSql() != null
+            ? plans.computeIfAbsent(execution.getSql(), sql -> explain(execution.getConnection(), sql))
+            : "    (no plan for a statement batch)";
+        LOGGER.warning(formatEntry(execution, plan));
+    }
+
+    private String formatEntry(StatementExecution execution, String plan) {
+        StringBuilder entry = new StringBuilder();
+        entry.append(LocalDateTime.now())
+            .append(String.format(Locale.ROOT, " SLOW %.1f ms", execution.getDurationNanos() / 1_000_000.0))
+            .append(" rows=").append(execution.getRows())
+            .append(" op=").append(execution.getOperation());
+        if (execution.isFailed()) {
+            entry.append(" FAILED");
+        }
+        String action = UserActionContext.current();
+        if (action != null) {
+            entry.append(" action=\"").append(action).append('"');
+        }
+        entry.append(System.lineSeparator())
+            .append("  sql: ").append(execution.getSql() != null
+                ? execution.getSql().strip().replaceAll("\\s+", " ")
+                : "(statement batch)").append(System.lineSeparator())
+            .append("  params: ").append(Arrays.toString(execution.getParameterTypes())).append(System.lineSeparator())
+            .append("  plan:").append(System.lineSeparator())
+            .append(plan)
+            .append(System.lineSeparator());
+        return entry.toString();
+    }
+
+    /**
+     * Run EXPLAIN QUERY PLAN on the raw connection (unbound parameters count as NULL)
+     */
+    private static String explain(Connection connection, String sql) {
+        String trimmed = sql.strip();
+        String keyword = trimmed.split("\\s+", 2)[0].toUpperCase(Locale.ROOT);
+        if (!keyword.equals("SELECT") && !keyword.equals("WITH") && !keyword.equals("INSERT")
+                && !keyword.equals("UPDATE") && !keyword.equals("DELETE")) {
+            return "    (no plan for " + keyword + " statements)";
+        }
+
+        StringBuilder plan = new StringBuilder();
+        Map<Integer, Integer> depths = new HashMap<>();
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("EXPLAIN QUERY PLAN " + trimmed)) {
+            while (rs.next()) {
+                int depth = depths.getOrDefault(rs.getInt("parent"), 0) + 1;
+                depths.put(rs.getInt("id"), depth);
+                plan.append("  ".repeat(depth + 1)).append(rs.getString("detail")).append(System.lineSeparator());
+            }
+        } catch (SQLException e) {
+            return "    (plan unavailable: " + e.getMessage() + ")";
+        }
+        return plan.isEmpty() ? "    (no plan steps)" : plan.toString().stripTrailing();
+    }
+}
@@ -0,0 +1,23 @@
+package com.studytracker.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event covering one startup phase (see StartupTimings).
+ */
+@Name("com.studytracker.StartupPhase")
+@Label("Startup Phase")
+@Description("One phase between JVM start and an interactive dashboard")
+@Category({"Study Tracker", "UI"})
+@StackTrace(false)
+public class StartupPhaseEvent extends Event {
+
+    @Label("Phase")
+    @Description("Startup phase, e.g. database or dashboard")
+    public String phase;
+}
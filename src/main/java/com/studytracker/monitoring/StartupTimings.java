@@ -0,0 +1,96 @@
+package com.studytracker.monitoring;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Durations of the desktop app's startup phases: opening the database, showing the login
+ * window, then after the login click authenticating, building the main window and loading
+ * the dashboard. Each phase is recorded as a StartupPhaseEvent too, and report() prints
+ * the phases since the previous report on the console.
+ */
+public final class StartupTimings {
+    private static final List<Phase> phases = new CopyOnWriteArrayList<>();
+    private static int reported;
+
+    private StartupTimings() {
+    }
+
+    /**
+     * Start timing a phase; end() it when done
+     */
+    public static Phase begin(String name) {
+        return new Phase(name);
+    }
+
+    /**
+     * Phases ended so far, in order
+     */
+    public static List<Phase> getPhases() {
+        return new ArrayList<>(phases);
+    }
+
+    /**
+     * Time from JVM start to now (class loading and JavaFX startup included)
+     */
+    public static long millisSinceJvmStart() {
+        return System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+    }
+
+    /**
+     * Print the phases ended since the last report, e.g. "Dashboard ready in 412 ms: ..."
+     */
+    public static synchronized void report(String milestone) {
+        List<Phase> recent = phases.subList(Math.min(reported, phases.size()), phases.size());
+        StringBuilder line = new StringBuilder(milestone).append(" in ")
+            .append(recent.stream().mapToLong(Phase::getMillis).sum()).append(" ms:");
+        for (Phase phase : recent) {
+            line.append(' ').append(phase.getName()).append(' ').append(phase.getMillis()).append(" ms,");
+        }
+        line.setLength(line.length() - 1);
+        System.out.println(line);
+        reported = phases.size();
+    }
+
+    /**
+     * Inner class for one timed phase
+     */
+    public static class Phase {
+        private final String name;
+        private final long start = System.nanoTime();
+        private final StartupPhaseEvent event = new StartupPhaseEvent();
+        private long millis = -1;
+
+        private Phase(String name) {
+            this.name = name;
+            if (event.isEnabled()) {
+                event.phase = name;
+            }
+            event.begin();
+        }
+
+        public void end() {
+            if (millis >= 0) {
+                return;
+            }
+            millis = (System.nanoTime() - start) / 1_000_000;
+            if (event.shouldCommit()) {
+                event.commit();
+            }
+            phases.add(this);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Duration in milliseconds, -1 until the phase ended
+         */
+        public long getMillis() {
+            return millis;
+        }
+    }
+}
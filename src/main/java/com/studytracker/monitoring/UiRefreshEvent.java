@@ -0,0 +1,50 @@
+package com.studytracker.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event covering one UI refresh (a tab reloading its data).
+ * DAO statement events recorded on the same thread during the refresh nest inside it.
+ */
+@Name("com.studytracker.UiRefresh")
+@Label("UI Refresh")
+@Description("A window or tab reloading its data")
+@Category({"Study Tracker", "UI"})
+@StackTrace(false)
+public class UiRefreshEvent extends Event {
+
+    @Label("Component")
+    @Description("Refreshed component, e.g. DashboardTab.refresh")
+    public String component;
+
+    @Label("User Action")
+    @Description("User action that triggered the refresh")
+    public String userAction;
+
+    /**
+     * Start timing a refresh of the given component
+     */
+    public static UiRefreshEvent start(String component) {
+        UiRefreshEvent event = new UiRefreshEvent();
+        if (event.isEnabled()) {
+            event.component = component;
+            event.userAction = UserActionContext.current();
+        }
+        event.begin();
+        return event;
+    }
+
+    /**
+     * End the refresh and commit the event if a recording wants it
+     */
+    public void finish() {
+        if (shouldCommit()) {
+            commit();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.studytracker.monitoring;
+
+/**
+ * Remembers the last user action (button click, tab switch, login...) on the current thread,
+ * so diagnostic events can say which action triggered the work they describe.
+ */
+public final class UserActionContext {
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private UserActionContext() {
+    }
+
+    public static void set(String action) {
+        CURRENT.set(action);
+    }
+
+    /**
+     * Current action, or null when the work was not triggered by a user
+     */
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+}
@@ -0,0 +1,130 @@
+package com.studytracker.server;
+
+import com.studytracker.dao.AdminReportDAO;
+import com.studytracker.dao.UserDAO;
+import com.studytracker.dao.XpLedgerDAO;
+import com.studytracker.database.DatabaseManager;
+
+import java.io.PrintStream;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Prints the cross-shard admin report:
+ * "java -cp ... com.studytracker.server.AdminReportCommand [--days=30] [--top=10]"
+ * (also reachable as "com.studytracker.Main --report ..."), or with --xp-audit the users whose
+ * cached XP differs from their XP ledger (--fix resets it to the ledger balance).
+ */
+public final class AdminReportCommand {
+
+    private AdminReportCommand() {
+    }
+
+    public static void main(String[] args) {
+        runFromCommandLine(args);
+    }
+
+    public static void runFromCommandLine(String[] args) {
+        int days = 30;
+        int top = 10;
+        boolean xpAudit = false;
+        boolean fix = false;
+        for (String arg : args) {
+            if (arg.startsWith("--days=")) {
+                days = Integer.parseInt(arg.substring("--days=".length()));
+            } else if (arg.startsWith("--top=")) {
+                top = Integer.parseInt(arg.substring("--top=".length()));
+            } else if (arg.equals("--xp-audit")) {
+                xpAudit = true;
+            } else if (arg.equals("--fix")) {
+                fix = true;
+            }
+        }
+        try {
+            if (xpAudit) {
+                auditXp(fix, System.out);
+            } else {
+                print(new AdminReportDAO(), days, top, System.out);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            System.exit(1);
+        } finally {
+            DatabaseManager.getInstance().close();
+        }
+    }
+
+    public static void print(AdminReportDAO reportDAO, int days, int top, PrintStream out) throws SQLException {
+        DatabaseManager databaseManager = DatabaseManager.getInstance();
+        out.println("Study Tracker report - " + LocalDate.now());
+        out.println("Directory: " + DatabaseManager.getDatabasePath() + " (" + reportDAO.countUsers() + " users)");
+        out.println();
+
+        out.printf(Locale.ROOT, "%-6s %8s %9s %9s %10s %6s %9s %10s%n",
+            "Shard", "Users", "Subjects", "Chapters", "Completed", "Exams", "Sessions", "Hours");
+        int subjects = 0;
+        int chapters = 0;
+        int completed = 0;
+        int exams = 0;
+        int sessions = 0;
+        double hours = 0;
+        for (AdminReportDAO.ShardSummary summary : reportDAO.getShardSummaries()) {
+            out.printf(Locale.ROOT, "%-6d %8d %9d %9d %10d %6d %9d %10.1f   %s%n",
+                summary.getShard(), summary.getActiveUsers(), summary.getSubjects(), summary.getChapters(),
+                summary.getCompletedChapters(), summary.getExams(), summary.getSessions(), summary.getHours(),
+                DatabaseManager.getShardPath(summary.getShard()));
+            subjects += summary.getSubjects();
+            chapters += summary.getChapters();
+            completed += summary.getCompletedChapters();
+            exams += summary.getExams();
+            sessions += summary.getSessions();
+            hours += summary.getHours();
+        }
+        if (databaseManager.isSharded()) {
+            out.printf(Locale.ROOT, "%-6s %8s %9d %9d %10d %6d %9d %10.1f%n",
+                "Total", "", subjects, chapters, completed, exams, sessions, hours);
+        }
+        out.println();
+
+        out.println("Top " + top + " students, last " + days + " days:");
+        List<AdminReportDAO.StudentActivity> students = reportDAO.getTopStudents(top, days);
+        for (int i = 0; i < students.size(); i++) {
+            AdminReportDAO.StudentActivity student = students.get(i);
+            out.printf(Locale.ROOT, "%3d. %-20s %7.1f h %5d sessions   level %d (%d XP)%n",
+                i + 1, student.getUsername(), student.getHours(), student.getSessions(),
+                student.getLevel(), student.getXp());
+        }
+        out.println();
+
+        out.println("Hours per day, last " + Math.min(days, 14) + " days:");
+        for (Map.Entry<LocalDate, Double> day : reportDAO.getHoursByDay(Math.min(days, 14)).entrySet()) {
+            out.printf(Locale.ROOT, "  %s %7.1f%n", day.getKey(), day.getValue());
+        }
+    }
+
+    /**
+     * List the users whose users.xp doesn't match their XP ledger, and reset it to the ledger
+     * balance when fixing
+     */
+    public static void auditXp(boolean fix, PrintStream out) throws SQLException {
+        long start = System.nanoTime();
+        List<XpLedgerDAO.XpDrift> drift = new XpLedgerDAO().findDrift();
+        out.println("XP audit: " + drift.size() + " user(s) whose XP differs from their ledger ("
+            + (System.nanoTime() - start) / 1_000_000 + " ms)");
+        for (XpLedgerDAO.XpDrift user : drift) {
+            out.printf(Locale.ROOT, "  %-20s cached %7d XP, ledger %7d XP (%+d)%n",
+                user.getUsername(), user.getCachedXp(), user.getLedgerXp(), user.getLedgerXp() - user.getCachedXp());
+        }
+
+        if (fix && !drift.isEmpty()) {
+            UserDAO userDAO = new UserDAO();
+            for (XpLedgerDAO.XpDrift user : drift) {
+                userDAO.reconcileXp(user.getUserId());
+            }
+            out.println("Reset the cached XP of " + drift.size() + " user(s) to their ledger balance");
+        }
+    }
+}
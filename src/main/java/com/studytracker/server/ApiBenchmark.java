@@ -0,0 +1,212 @@
+package com.studytracker.server;
+
+import com.studytracker.database.DatabaseManager;
+import com.studytracker.util.Json;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Load generator for the API server: registers users, seeds a subject and chapters for
+ * each, then runs a read-heavy mix (stats, sessions, subjects, upcoming exams) with 20%
+ * session writes from many virtual-thread clients and prints throughput and latency.
+ *
+ * Usage: java -cp ... com.studytracker.server.ApiBenchmark
+ *        [--url=http://127.0.0.1:8080] [--users=20] [--clients=64] [--seconds=15] [--pool=8]
+ * Without --url an embedded server is started on a throwaway database (or on
+ * -Dstudytracker.db, which combined with -Dstudytracker.shards=N benchmarks sharding).
+ */
+public class ApiBenchmark {
+    private static final String[] READ_PATHS = {"/api/stats", "/api/sessions", "/api/subjects", "/api/exams/upcoming"};
+
+    private final HttpClient client;
+    private final String baseUrl;
+
+    private record Account(String token, long chapterId) {
+    }
+
+    private record Result(long requests, long errors, long[] latenciesNanos) {
+    }
+
+    ApiBenchmark(String baseUrl, ExecutorService executor) {
+        this.baseUrl = baseUrl;
+        this.client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(executor)
+            .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        String url = null;
+        int users = 20;
+        int clients = 64;
+        int seconds = 15;
+        int poolSize = 8;
+        for (String arg : args) {
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (arg.startsWith("--url=")) {
+                url = value;
+            } else if (arg.startsWith("--users=")) {
+                users = Integer.parseInt(value);
+            } else if (arg.startsWith("--clients=")) {
+                clients = Integer.parseInt(value);
+            } else if (arg.startsWith("--seconds=")) {
+                seconds = Integer.parseInt(value);
+            } else if (arg.startsWith("--pool=")) {
+                poolSize = Integer.parseInt(value);
+            }
+        }
+
+        ApiServer embedded = null;
+        if (url == null) {
+            // Must be set before DatabaseManager is first loaded
+            if (System.getProperty("studytracker.db") == null) {
+                Path dbFile = Files.createTempFile("studytracker-bench", ".db");
+                System.setProperty("studytracker.db", dbFile.toString());
+            }
+            embedded = new ApiServer("127.0.0.1", 0, poolSize);
+            embedded.start();
+            url = "http://127.0.0.1:" + embedded.getPort();
+            System.out.println("Embedded server on " + url + " (database " + DatabaseManager.getDatabasePath()
+                + ", " + DatabaseManager.getInstance().getShardCount() + " data shard(s), pool " + poolSize + ")");
+        }
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            ApiBenchmark benchmark = new ApiBenchmark(url, executor);
+            List<Account> accounts = benchmark.seed(users);
+            System.out.println("Seeded " + accounts.size() + " users; running " + clients
+                + " clients for " + seconds + " s...");
+            benchmark.run(executor, accounts, clients, seconds * 1000L);
+        } finally {
+            if (embedded != null) {
+                embedded.stop();
+            }
+        }
+    }
+
+    /**
+     * Register users and give each one subject with a few chapters
+     */
+    private List<Account> seed(int users) throws IOException, InterruptedException {
+        String prefix = "bench" + Long.toString(System.nanoTime(), 36);
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            String username = prefix + "-" + i;
+            String credentials = Json.write(Map.of("username", username, "password", "benchmark"));
+            send("POST", "/api/register", null, credentials);
+            String token = (String) send("POST", "/api/login", null, credentials).get("token");
+
+            Map<String, Object> subject = send("POST", "/api/subjects", token,
+                Json.write(Map.of("name", "Subject " + i)));
+            long chapterId = 0;
+            for (int c = 0; c < 3; c++) {
+                Map<String, Object> chapter = send("POST", "/api/chapters", token,
+                    Json.write(Map.of("subjectId", subject.get("id"), "name", "Chapter " + c, "estimatedHours", 5)));
+                chapterId = (Long) chapter.get("id");
+            }
+            send("POST", "/api/exams", token, Json.write(Map.of("subjectId", subject.get("id"), "name", "Exam",
+                "examDate", LocalDate.now().plusDays(3).toString())));
+            accounts.add(new Account(token, chapterId));
+        }
+        return accounts;
+    }
+
+    private void run(ExecutorService executor, List<Account> accounts, int clients, long durationMillis)
+            throws Exception {
+        long deadline = System.nanoTime() + durationMillis * 1_000_000L;
+        long started = System.nanoTime();
+        List<Future<Result>> futures = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            Account account = accounts.get(i % accounts.size());
+            futures.add(executor.submit(() -> clientLoop(account, deadline)));
+        }
+
+        long requests = 0;
+        long errors = 0;
+        List<long[]> latencies = new ArrayList<>();
+        for (Future<Result> future : futures) {
+            Result result = future.get();
+            requests += result.requests();
+            errors += result.errors();
+            latencies.add(result.latenciesNanos());
+        }
+        double elapsedSeconds = (System.nanoTime() - started) / 1e9;
+
+        long[] all = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        System.out.printf(Locale.ROOT, "requests=%d errors=%d elapsed=%.1fs throughput=%.0f req/s%n",
+            requests, errors, elapsedSeconds, requests / elapsedSeconds);
+        System.out.printf(Locale.ROOT, "latency ms: p50=%.2f p95=%.2f p99=%.2f max=%.2f%n",
+            percentile(all, 0.50), percentile(all, 0.95), percentile(all, 0.99), percentile(all, 1.0));
+    }
+
+    private Result clientLoop(Account account, long deadline) {
+        long[] latencies = new long[1024];
+        int count = 0;
+        long errors = 0;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.nanoTime() < deadline) {
+            long start = System.nanoTime();
+            try {
+                if (random.nextInt(100) < 20) {
+                    send("POST", "/api/sessions", account.token(),
+                        Json.write(Map.of("chapterId", account.chapterId(), "hours", 0.5, "notes", "benchmark")));
+                } else {
+                    send("GET", READ_PATHS[random.nextInt(READ_PATHS.length)], account.token(), null);
+                }
+            } catch (IOException | RuntimeException e) {
+                errors++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = System.nanoTime() - start;
+        }
+        return new Result(count, errors, Arrays.copyOf(latencies, count));
+    }
+
+    /**
+     * Send a request and parse the JSON object answer; non-2xx answers throw
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> send(String method, String path, String token, String body)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body))
+            .header("Content-Type", "application/json");
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        HttpResponse<String> response = client.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() / 100 != 2) {
+            throw new IllegalStateException(method + " " + path + " -> " + response.statusCode() + " " + response.body());
+        }
+        Object json = response.body().isEmpty() ? null : Json.parse(response.body());
+        return json instanceof Map ? (Map<String, Object>) json : Map.of();
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1_000_000.0;
+    }
+}
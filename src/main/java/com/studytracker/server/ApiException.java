@@ -0,0 +1,35 @@
+package com.studytracker.server;
+
+/**
+ * Error returned to an API client as {"error": message} with the given HTTP status.
+ */
+public class ApiException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final int status;
+
+    public ApiException(int status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public static ApiException badRequest(String message) {
+        return new ApiException(400, message);
+    }
+
+    public static ApiException unauthorized() {
+        return new ApiException(401, "Missing or invalid bearer token");
+    }
+
+    public static ApiException notFound(String what) {
+        return new ApiException(404, what + " not found");
+    }
+
+    public static ApiException conflict(String message) {
+        return new ApiException(409, message);
+    }
+}
@@ -0,0 +1,274 @@
+package com.studytracker.server;
+
+import com.studytracker.database.ConnectionPool;
+import com.studytracker.database.DatabaseManager;
+import com.studytracker.util.Json;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * One API call: path parameters, JSON body, authenticated user and the database
+ * connections it needs, borrowed from the pools on first use and returned on close.
+ */
+public class ApiRequest implements AutoCloseable {
+    private static final int MAX_BODY_BYTES = 1024 * 1024;
+
+    private final HttpExchange exchange;
+    private final ConnectionPool directoryPool;
+    private final ConnectionPool[] shardPools;
+    private String[] pathParams = new String[0];
+    private Map<String, Object> body;
+    private Map<String, String> query;
+    private ConnectionPool.Lease directoryLease;
+    private ConnectionPool.Lease dataLease;
+    private ConnectionPool dataPool;
+    private int userId = -1;
+
+    ApiRequest(HttpExchange exchange, ConnectionPool directoryPool, ConnectionPool[] shardPools) {
+        this.exchange = exchange;
+        this.directoryPool = directoryPool;
+        this.shardPools = shardPools;
+    }
+
+    void setPathParams(String[] pathParams) {
+        this.pathParams = pathParams;
+    }
+
+    void setUserId(int userId) {
+        this.userId = userId;
+    }
+
+    /**
+     * Id of the user owning the bearer token
+     */
+    public int getUserId() {
+        return userId;
+    }
+
+    public String getHeader(String name) {
+        return exchange.getRequestHeaders().getFirst(name);
+    }
+
+    /**
+     * Pooled connection to the users database
+     */
+    public Connection getDirectoryConnection() throws SQLException {
+        if (directoryLease == null) {
+            directoryLease = directoryPool.acquire();
+        }
+        return directoryLease.getConnection();
+    }
+
+    /**
+     * Pooled connection to the database holding the authenticated user's data
+     * (the same connection as the directory one unless sharding is on)
+     */
+    public Connection getConnection() throws SQLException {
+        return getConnectionForUser(userId);
+    }
+
+    /**
+     * Pooled connection to the database holding a given user's data, e.g. the shard of a
+     * user being registered (one shard per request)
+     */
+    public Connection getConnectionForUser(int userId) throws SQLException {
+        ConnectionPool pool = shardPools[DatabaseManager.getInstance().shardFor(userId)];
+        if (pool == directoryPool) {
+            return getDirectoryConnection();
+        }
+        if (dataLease == null) {
+            dataLease = pool.acquire();
+            dataPool = pool;
+        } else if (dataPool != pool) {
+            throw new IllegalStateException("A request can only use one shard");
+        }
+        return dataLease.getConnection();
+    }
+
+    /**
+     * Numeric path parameter, e.g. the {id} in /api/subjects/{id}
+     */
+    public int pathInt(int index) {
+        try {
+            return Integer.parseInt(pathParams[index]);
+        } catch (NumberFormatException e) {
+            throw ApiException.badRequest("Invalid id: " + pathParams[index]);
+        }
+    }
+
+    public String queryParam(String name) {
+        if (query == null) {
+            query = new HashMap<>();
+            String raw = exchange.getRequestURI().getRawQuery();
+            if (raw != null) {
+                for (String pair : raw.split("&")) {
+                    int eq = pair.indexOf('=');
+                    String key = eq < 0 ? pair : pair.substring(0, eq);
+                    String value = eq < 0 ? "" : pair.substring(eq + 1);
+                    query.put(URLDecoder.decode(key, StandardCharsets.UTF_8),
+                        URLDecoder.decode(value, StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return query.get(name);
+    }
+
+    /**
+     * Integer query parameter clamped to [min, max], or the default when absent
+     */
+    public int queryInt(String name, int defaultValue, int min, int max) {
+        String value = queryParam(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Math.max(min, Math.min(max, Integer.parseInt(value)));
+        } catch (NumberFormatException e) {
+            throw ApiException.badRequest(name + " must be an integer");
+        }
+    }
+
+    // ----- JSON body -----
+
+    public Map<String, Object> getBody() {
+        if (body == null) {
+            try (InputStream in = exchange.getRequestBody()) {
+                byte[] bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+                if (bytes.length > MAX_BODY_BYTES) {
+                    throw new ApiException(413, "Request body too large");
+                }
+                String text = new String(bytes, StandardCharsets.UTF_8);
+                body = text.isBlank() ? new HashMap<>() : Json.parseObject(text);
+            } catch (IOException e) {
+                throw badRequestCause("Could not read request body", e);
+            } catch (IllegalArgumentException e) {
+                throw badRequestCause("Invalid JSON: " + e.getMessage(), e);
+            }
+        }
+        return body;
+    }
+
+    public boolean has(String field) {
+        return getBody().get(field) != null;
+    }
+
+    /**
+     * Non-blank string field
+     */
+    public String requireString(String field) {
+        String value = optString(field, null);
+        if (value == null || value.trim().isEmpty()) {
+            throw ApiException.badRequest(field + " is required");
+        }
+        return value.trim();
+    }
+
+    public String optString(String field, String defaultValue) {
+        Object value = getBody().get(field);
+        if (value == null) {
+            return defaultValue;
+        }
+        if (!(value instanceof String s)) {
+            throw ApiException.badRequest(field + " must be a string");
+        }
+        return s;
+    }
+
+    public int requireInt(String field) {
+        if (!has(field)) {
+            throw ApiException.badRequest(field + " is required");
+        }
+        return optInt(field, 0);
+    }
+
+    public int optInt(String field, int defaultValue) {
+        Object value = getBody().get(field);
+        if (value == null) {
+            return defaultValue;
+        }
+        if (!(value instanceof Long l) || l < Integer.MIN_VALUE || l > Integer.MAX_VALUE) {
+            throw ApiException.badRequest(field + " must be an integer");
+        }
+        return l.intValue();
+    }
+
+    public double requireDouble(String field) {
+        Object value = getBody().get(field);
+        if (!(value instanceof Number n)) {
+            throw ApiException.badRequest(field + " must be a number");
+        }
+        return n.doubleValue();
+    }
+
+    public boolean optBoolean(String field, boolean defaultValue) {
+        Object value = getBody().get(field);
+        if (value == null) {
+            return defaultValue;
+        }
+        if (!(value instanceof Boolean b)) {
+            throw ApiException.badRequest(field + " must be true or false");
+        }
+        return b;
+    }
+
+    /**
+     * ISO date field (yyyy-MM-dd)
+     */
+    public LocalDate requireDate(String field) {
+        String value = requireString(field);
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw ApiException.badRequest(field + " must be a date (yyyy-MM-dd)");
+        }
+    }
+
+    /**
+     * Enum field given by constant name (e.g. "IN_PROGRESS")
+     */
+    public <E extends Enum<E>> E requireEnum(String field, Class<E> type) {
+        String value = requireString(field);
+        try {
+            return Enum.valueOf(type, value);
+        } catch (IllegalArgumentException e) {
+            throw ApiException.badRequest(field + " must be one of " + Arrays.toString(type.getEnumConstants()));
+        }
+    }
+
+    private static ApiException badRequestCause(String message, Exception cause) {
+        ApiException e = ApiException.badRequest(message);
+        e.initCause(cause);
+        return e;
+    }
+
+    @Override
+    public void close() {
+        releaseConnections();
+    }
+
+    /**
+     * Return the borrowed connections, if any (a later getConnection() borrows again)
+     */
+    public void releaseConnections() {
+        if (dataLease != null) {
+            dataLease.close();
+            dataLease = null;
+            dataPool = null;
+        }
+        if (directoryLease != null) {
+            directoryLease.close();
+            directoryLease = null;
+        }
+    }
+}
@@ -0,0 +1,555 @@
+package com.studytracker.server;
+
+import com.studytracker.dao.ChapterDAO;
+import com.studytracker.dao.ExamDAO;
+import com.studytracker.dao.SearchDAO;
+import com.studytracker.dao.StudyAnalyticsDAO;
+import com.studytracker.dao.StudySessionDAO;
+import com.studytracker.dao.SubjectDAO;
+import com.studytracker.dao.UserDAO;
+import com.studytracker.dao.XpLedgerDAO;
+import com.studytracker.model.Chapter;
+import com.studytracker.model.Exam;
+import com.studytracker.model.StudySession;
+import com.studytracker.model.Subject;
+import com.studytracker.model.User;
+import com.studytracker.model.XpEntry;
+import com.studytracker.service.GamificationService;
+import com.studytracker.service.ExamReadinessService;
+import com.studytracker.service.LeaderboardService;
+import com.studytracker.service.StudySessionService;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Endpoints of the JSON API. Every resource is scoped to the authenticated user:
+ * ids belonging to someone else answer 404, like ids that don't exist.
+ */
+class ApiRoutes {
+    private static final int SQLITE_CONSTRAINT = 19;
+    private final ApiServer server;
+
+    ApiRoutes(ApiServer server) {
+        this.server = server;
+    }
+
+    void register() {
+        // Accounts
+        server.publicPost("/api/register", 201, this::register);
+        server.publicPost("/api/login", 200, this::login);
+        server.post("/api/logout", 204, this::logout);
+        server.get("/api/me", r -> userJson(new UserDAO(r.getDirectoryConnection()).findById(r.getUserId())));
+        server.get("/api/stats", this::stats);
+        server.get("/api/badges", this::badges);
+        server.get("/api/xp", this::xp);
+        server.get("/api/leaderboard", this::leaderboard);
+        server.get("/api/search", this::search);
+        server.get("/api/analytics", this::analytics);
+        server.get("/api/readiness", this::readiness);
+
+        // Subjects
+        server.get("/api/subjects", r -> list(new SubjectDAO(r.getConnection()).findByUserId(r.getUserId()),
+            ApiRoutes::subjectJson));
+        server.post("/api/subjects", 201, this::createSubject);
+        server.get("/api/subjects/{id}", r -> subjectJson(ownedSubject(r, r.pathInt(0))));
+        server.put("/api/subjects/{id}", this::updateSubject);
+        server.delete("/api/subjects/{id}", r -> {
+            new SubjectDAO(r.getConnection()).delete(ownedSubject(r, r.pathInt(0)).getId());
+            return null;
+        });
+        server.get("/api/subjects/{id}/chapters", r -> list(
+            new ChapterDAO(r.getConnection()).findBySubjectId(ownedSubject(r, r.pathInt(0)).getId()),
+            ApiRoutes::chapterJson));
+        server.get("/api/subjects/{id}/exams", r -> list(
+            new ExamDAO(r.getConnection()).findBySubjectId(ownedSubject(r, r.pathInt(0)).getId()),
+            ApiRoutes::examJson));
+
+        // Chapters
+        server.post("/api/chapters", 201, this::createChapter);
+        server.get("/api/chapters/{id}", r -> chapterJson(ownedChapter(r, r.pathInt(0))));
+        server.put("/api/chapters/{id}", this::updateChapter);
+        server.delete("/api/chapters/{id}", r -> {
+            new ChapterDAO(r.getConnection()).delete(ownedChapter(r, r.pathInt(0)).getId());
+            return null;
+        });
+
+        // Exams
+        server.get("/api/exams", r -> list(new ExamDAO(r.getConnection()).findByUserId(r.getUserId()),
+            ApiRoutes::examJson));
+        server.get("/api/exams/upcoming", r -> list(
+            new ExamDAO(r.getConnection()).findUpcomingByUserId(r.getUserId()), ApiRoutes::examJson));
+        server.post("/api/exams", 201, this::createExam);
+        server.get("/api/exams/{id}", r -> examJson(ownedExam(r, r.pathInt(0))));
+        server.put("/api/exams/{id}", this::updateExam);
+        server.delete("/api/exams/{id}", r -> {
+            new ExamDAO(r.getConnection()).delete(ownedExam(r, r.pathInt(0)).getId());
+            return null;
+        });
+
+        // Study sessions
+        server.get("/api/sessions", r -> list(new StudySessionDAO(r.getConnection()).findByUserId(r.getUserId()),
+            ApiRoutes::sessionJson));
+        server.post("/api/sessions", 201, this::logSession);
+        server.delete("/api/sessions/{id}", r -> {
+            new StudySessionService(r.getDirectoryConnection(), r.getConnection())
+                .deleteSession(ownedSession(r, r.pathInt(0)).getId());
+            return null;
+        });
+    }
+
+    // ----- Accounts -----
+
+    private Object register(ApiRequest r) throws SQLException {
+        String username = r.requireString("username");
+        String password = r.optString("password", "");
+        if (password.length() < 4) {
+            throw ApiException.badRequest("Password must be at least 4 characters");
+        }
+        UserDAO userDAO = new UserDAO(r.getDirectoryConnection(), r::getConnectionForUser);
+        if (userDAO.findByUsername(username) != null) {
+            throw ApiException.conflict("Username already exists");
+        }
+        try {
+            return userJson(userDAO.create(username, password, r.optString("className", null)));
+        } catch (SQLException e) {
+            // A concurrent registration took the name between the check and the insert
+            if (isConstraintViolation(e) && userDAO.findByUsername(username) != null) {
+                throw ApiException.conflict("Username already exists");
+            }
+            throw e;
+        }
+    }
+
+    // SQLITE_CONSTRAINT, or one of its extended codes (same low byte)
+    private static boolean isConstraintViolation(SQLException e) {
+        return (e.getErrorCode() & 0xff) == SQLITE_CONSTRAINT;
+    }
+
+    private Object login(ApiRequest r) throws SQLException {
+        User user = new UserDAO(r.getDirectoryConnection(), r::getConnectionForUser).authenticate(r.requireString("username"), r.optString("password", ""));
+        if (user == null) {
+            throw new ApiException(401, "Invalid username or password");
+        }
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("token", server.issueToken(user.getId()));
+        json.put("user", userJson(user));
+        return json;
+    }
+
+    private Object logout(ApiRequest r) {
+        server.revokeToken(ApiServer.bearerToken(r));
+        return null;
+    }
+
+    private Object stats(ApiRequest r) throws SQLException {
+        User user = new UserDAO(r.getDirectoryConnection()).findById(r.getUserId());
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("subjects", new SubjectDAO(r.getConnection()).countByUserId(r.getUserId()));
+        json.put("completedChapters", new ChapterDAO(r.getConnection()).countCompletedByUserId(r.getUserId()));
+        json.put("totalHours", new StudySessionDAO(r.getConnection()).getTotalHoursByUserId(r.getUserId()));
+        json.put("xp", user.getXp());
+        json.put("level", user.getLevel());
+        json.put("studyStreak", user.getStudyStreak());
+        return json;
+    }
+
+    private Object badges(ApiRequest r) throws SQLException {
+        List<Map<String, Object>> badges = new ArrayList<>();
+        for (GamificationService.BadgeInfo info : new GamificationService(r.getDirectoryConnection(), r.getConnection())
+                .getAllBadgesWithStatus(r.getUserId())) {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("type", info.getType().name());
+            json.put("name", info.getName());
+            json.put("description", info.getDescription());
+            json.put("icon", info.getType().getIcon());
+            json.put("unlocked", info.isUnlocked());
+            badges.add(json);
+        }
+        return badges;
+    }
+
+    /**
+     * ?at=yyyy-MM-ddTHH:mm&limit=20: XP from the ledger (at that time, default now) and the
+     * latest ledger entries
+     */
+    private Object xp(ApiRequest r) throws SQLException {
+        LocalDateTime at = null;
+        if (r.queryParam("at") != null) {
+            try {
+                at = LocalDateTime.parse(r.queryParam("at"));
+            } catch (DateTimeParseException e) {
+                throw ApiException.badRequest("at must be a date-time (yyyy-MM-ddTHH:mm)");
+            }
+        }
+        XpLedgerDAO ledgerDAO = new XpLedgerDAO(r.getDirectoryConnection());
+
+        List<Map<String, Object>> entries = new ArrayList<>();
+        for (XpEntry entry : ledgerDAO.findByUserId(r.getUserId(), r.queryInt("limit", 20, 1, 100))) {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("delta", entry.getDelta());
+            json.put("source", entry.getSource().name());
+            json.put("sourceId", entry.getSourceId());
+            json.put("createdAt", entry.getCreatedAt());
+            entries.add(json);
+        }
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("at", at);
+        json.put("xp", ledgerDAO.getBalanceAt(r.getUserId(), at));
+        json.put("entries", entries);
+        return json;
+    }
+
+    /**
+     * ?scope=global|class&limit=10: top users plus the caller's own rank
+     */
+    private Object leaderboard(ApiRequest r) throws SQLException {
+        boolean classOnly = "class".equals(r.queryParam("scope"));
+        int limit = r.queryInt("limit", 10, 1, 100);
+
+        LeaderboardService leaderboard = LeaderboardService.getInstance();
+        LeaderboardService.Standing me = leaderboard.getStanding(r.getDirectoryConnection(), r.getUserId(), classOnly);
+        String className = classOnly && me != null ? me.getEntry().getClassName() : null;
+        if (classOnly && className == null) {
+            throw ApiException.badRequest("You are not in a class");
+        }
+
+        List<Map<String, Object>> top = new ArrayList<>();
+        for (LeaderboardService.Standing standing : leaderboard.getTop(r.getDirectoryConnection(), className, limit)) {
+            top.add(standingJson(standing));
+        }
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("scope", classOnly ? "class" : "global");
+        json.put("className", className);
+        json.put("top", top);
+        json.put("me", me != null ? standingJson(me) : null);
+        return json;
+    }
+
+    /**
+     * ?q=text&offset=0&limit=20: full-text search over the caller's data, best match first
+     */
+    private Object search(ApiRequest r) throws SQLException {
+        String text = r.queryParam("q");
+        if (text == null || text.isBlank()) {
+            throw ApiException.badRequest("q is required");
+        }
+        SearchDAO.SearchPage page = new SearchDAO(r.getConnection()).search(r.getUserId(), text,
+            r.queryInt("offset", 0, 0, Integer.MAX_VALUE), r.queryInt("limit", 20, 1, 100));
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (SearchDAO.SearchResult result : page.getResults()) {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("type", result.getKind().name());
+            json.put("id", result.getId());
+            json.put("title", result.getTitle());
+            json.put("excerpt", result.getExcerpt());
+            json.put("context", result.getContext());
+            json.put("date", result.getDate());
+            results.add(json);
+        }
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("results", results);
+        json.put("nextOffset", page.hasMore() ? page.getNextOffset() : null);
+        return json;
+    }
+
+    /**
+     * ?bucket=day|week|month|hour&from=yyyy-MM-dd&to=yyyy-MM-dd&subjectId=: study totals per
+     * time bucket (to exclusive; defaults to the last 30 days, all subjects)
+     */
+    private Object analytics(ApiRequest r) throws SQLException {
+        String bucket = r.queryParam("bucket") != null ? r.queryParam("bucket") : "day";
+        StudyAnalyticsDAO.Granularity granularity = switch (bucket) {
+            case "day" -> StudyAnalyticsDAO.Granularity.DAY;
+            case "week" -> StudyAnalyticsDAO.Granularity.WEEK;
+            case "month" -> StudyAnalyticsDAO.Granularity.MONTH;
+            case "hour" -> StudyAnalyticsDAO.Granularity.HOUR_OF_DAY;
+            default -> throw ApiException.badRequest("bucket must be day, week, month or hour");
+        };
+        LocalDate to = queryDate(r, "to", LocalDate.now().plusDays(1));
+        LocalDate from = queryDate(r, "from", to.minusDays(30));
+        Integer subjectId = null;
+        if (r.queryParam("subjectId") != null) {
+            subjectId = ownedSubject(r, r.queryInt("subjectId", 0, 0, Integer.MAX_VALUE)).getId();
+        }
+
+        List<Map<String, Object>> buckets = new ArrayList<>();
+        for (StudyAnalyticsDAO.Bucket b : new StudyAnalyticsDAO(r.getConnection())
+                .getBuckets(r.getUserId(), granularity, from, to, subjectId)) {
+            Map<String, Object> json = new LinkedHashMap<>();
+            if (granularity == StudyAnalyticsDAO.Granularity.HOUR_OF_DAY) {
+                json.put("hour", b.getHourOfDay());
+            } else {
+                json.put("start", b.getStart());
+            }
+            json.put("hours", b.getHours());
+            json.put("xp", b.getXp());
+            json.put("sessions", b.getSessions());
+            buckets.add(json);
+        }
+        return buckets;
+    }
+
+    private Object readiness(ApiRequest r) throws SQLException {
+        List<Map<String, Object>> forecasts = new ArrayList<>();
+        for (ExamReadinessService.Forecast f : ExamReadinessService.getInstance()
+                .getForecasts(r.getConnection(), r.getUserId()).values()) {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("examId", f.getExamId());
+            json.put("subjectId", f.getSubjectId());
+            json.put("readiness", f.getReadiness());
+            json.put("remainingHours", f.getRemainingHours());
+            json.put("hoursPerDay", f.getHoursPerDay());
+            json.put("requiredHoursPerDay", f.getRequiredHoursPerDay());
+            json.put("readyDate", f.getReadyDate());
+            json.put("onTrack", f.isOnTrack());
+            forecasts.add(json);
+        }
+        return forecasts;
+    }
+
+    private static LocalDate queryDate(ApiRequest r, String name, LocalDate defaultValue) {
+        String value = r.queryParam(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw ApiException.badRequest(name + " must be a date (yyyy-MM-dd)");
+        }
+    }
+
+    // ----- Subjects -----
+
+    private Object createSubject(ApiRequest r) throws SQLException {
+        Subject subject = new Subject();
+        subject.setUserId(r.getUserId());
+        subject.setName(r.requireString("name"));
+        subject.setDescription(r.optString("description", ""));
+        subject.setColor(r.optString("color", "#3498db"));
+        return subjectJson(new SubjectDAO(r.getConnection()).create(subject));
+    }
+
+    private Object updateSubject(ApiRequest r) throws SQLException {
+        Subject subject = ownedSubject(r, r.pathInt(0));
+        if (r.has("name")) {
+            subject.setName(r.requireString("name"));
+        }
+        subject.setDescription(r.optString("description", subject.getDescription()));
+        subject.setColor(r.optString("color", subject.getColor()));
+        new SubjectDAO(r.getConnection()).update(subject);
+        return subjectJson(subject);
+    }
+
+    // ----- Chapters -----
+
+    private Object createChapter(ApiRequest r) throws SQLException {
+        Subject subject = ownedSubject(r, r.requireInt("subjectId"));
+        Chapter chapter = new Chapter();
+        chapter.setSubjectId(subject.getId());
+        chapter.setName(r.requireString("name"));
+        chapter.setDescription(r.optString("description", ""));
+        chapter.setStatus(r.has("status") ? r.requireEnum("status", Chapter.ChapterStatus.class)
+            : Chapter.ChapterStatus.NOT_STARTED);
+        chapter.setEstimatedHours(r.optInt("estimatedHours", 0));
+        return chapterJson(new ChapterDAO(r.getConnection()).create(chapter));
+    }
+
+    private Object updateChapter(ApiRequest r) throws SQLException {
+        Chapter chapter = ownedChapter(r, r.pathInt(0));
+        if (r.has("name")) {
+            chapter.setName(r.requireString("name"));
+        }
+        if (r.has("status")) {
+            chapter.setStatus(r.requireEnum("status", Chapter.ChapterStatus.class));
+        }
+        chapter.setDescription(r.optString("description", chapter.getDescription()));
+        chapter.setEstimatedHours(r.optInt("estimatedHours", chapter.getEstimatedHours()));
+        new ChapterDAO(r.getConnection()).update(chapter);
+        return chapterJson(chapter);
+    }
+
+    // ----- Exams -----
+
+    private Object createExam(ApiRequest r) throws SQLException {
+        Subject subject = ownedSubject(r, r.requireInt("subjectId"));
+        Exam exam = new Exam();
+        exam.setSubjectId(subject.getId());
+        exam.setName(r.requireString("name"));
+        exam.setDescription(r.optString("description", ""));
+        exam.setExamDate(r.requireDate("examDate"));
+        exam.setCompleted(r.optBoolean("completed", false));
+        return examJson(new ExamDAO(r.getConnection()).create(exam));
+    }
+
+    private Object updateExam(ApiRequest r) throws SQLException {
+        Exam exam = ownedExam(r, r.pathInt(0));
+        if (r.has("name")) {
+            exam.setName(r.requireString("name"));
+        }
+        if (r.has("examDate")) {
+            exam.setExamDate(r.requireDate("examDate"));
+        }
+        exam.setDescription(r.optString("description", exam.getDescription()));
+        exam.setCompleted(r.optBoolean("completed", exam.isCompleted()));
+        new ExamDAO(r.getConnection()).update(exam);
+        return examJson(exam);
+    }
+
+    // ----- Study sessions -----
+
+    private Object logSession(ApiRequest r) throws SQLException {
+        Chapter chapter = ownedChapter(r, r.requireInt("chapterId"));
+        double hours = r.requireDouble("hours");
+        if (hours <= 0 || hours > 24) {
+            throw ApiException.badRequest("hours must be between 0 and 24");
+        }
+
+        StudySession session = new StudySession();
+        session.setChapterId(chapter.getId());
+        session.setUserId(r.getUserId());
+        session.setHoursStudied(hours);
+        session.setNotes(r.optString("notes", ""));
+        session.calculateXp();
+
+        User user = new StudySessionService(r.getDirectoryConnection(), r.getConnection()).logSession(session);
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("session", sessionJson(session));
+        json.put("user", userJson(user));
+        return json;
+    }
+
+    // ----- Ownership checks -----
+
+    private static Subject ownedSubject(ApiRequest r, int id) throws SQLException {
+        Subject subject = new SubjectDAO(r.getConnection()).findById(id);
+        if (subject == null || subject.getUserId() != r.getUserId()) {
+            throw ApiException.notFound("Subject " + id);
+        }
+        return subject;
+    }
+
+    private static Chapter ownedChapter(ApiRequest r, int id) throws SQLException {
+        Chapter chapter = new ChapterDAO(r.getConnection()).findById(id);
+        if (chapter == null) {
+            throw ApiException.notFound("Chapter " + id);
+        }
+        Subject subject = new SubjectDAO(r.getConnection()).findById(chapter.getSubjectId());
+        if (subject == null || subject.getUserId() != r.getUserId()) {
+            throw ApiException.notFound("Chapter " + id);
+        }
+        return chapter;
+    }
+
+    private static Exam ownedExam(ApiRequest r, int id) throws SQLException {
+        Exam exam = new ExamDAO(r.getConnection()).findById(id);
+        if (exam == null) {
+            throw ApiException.notFound("Exam " + id);
+        }
+        Subject subject = new SubjectDAO(r.getConnection()).findById(exam.getSubjectId());
+        if (subject == null || subject.getUserId() != r.getUserId()) {
+            throw ApiException.notFound("Exam " + id);
+        }
+        return exam;
+    }
+
+    private static StudySession ownedSession(ApiRequest r, int id) throws SQLException {
+        StudySession session = new StudySessionDAO(r.getConnection()).findById(id);
+        if (session == null || session.getUserId() != r.getUserId()) {
+            throw ApiException.notFound("Study session " + id);
+        }
+        return session;
+    }
+
+    // ----- JSON mapping -----
+
+    private interface JsonMapper<T> {
+        Map<String, Object> toJson(T value);
+    }
+
+    private static <T> List<Map<String, Object>> list(List<T> values, JsonMapper<T> mapper) {
+        List<Map<String, Object>> json = new ArrayList<>(values.size());
+        for (T value : values) {
+            json.add(mapper.toJson(value));
+        }
+        return json;
+    }
+
+    static Map<String, Object> userJson(User user) {
+        if (user == null) {
+            throw ApiException.notFound("User");
+        }
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", user.getId());
+        json.put("username", user.getUsername());
+        json.put("xp", user.getXp());
+        json.put("level", user.getLevel());
+        json.put("studyStreak", user.getStudyStreak());
+        json.put("className", user.getClassName());
+        json.put("lastStudyDate", user.getLastStudyDate());
+        json.put("createdAt", user.getCreatedAt());
+        return json;
+    }
+
+    static Map<String, Object> standingJson(LeaderboardService.Standing standing) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("rank", standing.getRank());
+        json.put("of", standing.getParticipants());
+        json.put("userId", standing.getEntry().getUserId());
+        json.put("username", standing.getEntry().getUsername());
+        json.put("xp", standing.getEntry().getXp());
+        json.put("level", standing.getEntry().getLevel());
+        return json;
+    }
+
+    static Map<String, Object> subjectJson(Subject subject) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", subject.getId());
+        json.put("name", subject.getName());
+        json.put("description", subject.getDescription());
+        json.put("color", subject.getColor());
+        return json;
+    }
+
+    static Map<String, Object> chapterJson(Chapter chapter) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", chapter.getId());
+        json.put("subjectId", chapter.getSubjectId());
+        json.put("name", chapter.getName());
+        json.put("description", chapter.getDescription());
+        json.put("status", chapter.getStatus().name());
+        json.put("estimatedHours", chapter.getEstimatedHours());
+        return json;
+    }
+
+    static Map<String, Object> examJson(Exam exam) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", exam.getId());
+        json.put("subjectId", exam.getSubjectId());
+        json.put("name", exam.getName());
+        json.put("description", exam.getDescription());
+        json.put("examDate", exam.getExamDate());
+        json.put("completed", exam.isCompleted());
+        json.put("daysUntil", exam.getDaysUntil());
+        return json;
+    }
+
+    static Map<String, Object> sessionJson(StudySession session) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", session.getId());
+        json.put("chapterId", session.getChapterId());
+        json.put("hoursStudied", session.getHoursStudied());
+        json.put("sessionDate", session.getSessionDate());
+        json.put("notes", session.getNotes());
+        json.put("xpEarned", session.getXpEarned());
+        return json;
+    }
+}
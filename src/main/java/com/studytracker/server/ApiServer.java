@@ -0,0 +1,389 @@
+package com.studytracker.server;
+
+import com.studytracker.database.BackupService;
+import com.studytracker.database.ConnectionPool;
+import com.studytracker.database.DatabaseManager;
+import com.studytracker.database.MaintenanceService;
+import com.studytracker.monitoring.Diagnostics;
+import com.studytracker.monitoring.UserActionContext;
+import com.studytracker.service.ExamReminderScheduler;
+import com.studytracker.util.Json;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Headless JSON API over the same DAOs and services as the desktop app.
+ *
+ * Every request runs on its own virtual thread, so blocking JDBC calls are cheap;
+ * concurrency against SQLite is bounded by the connection pool instead of a thread pool.
+ *
+ * Configured with system properties (or --host= / --port= / --pool= arguments):
+ * studytracker.server.host (default 127.0.0.1), studytracker.server.port (default 8080)
+ * and studytracker.server.poolSize (default 8 connections per database file).
+ * Bearer tokens expire studytracker.server.tokenTtlMinutes (default 720) after login; an
+ * expired token is rejected and dropped, and a sweep removes the ones nobody presents again.
+ */
+public class ApiServer {
+
+    /**
+     * Endpoint implementation; the result is written as JSON (null means no body)
+     */
+    @FunctionalInterface
+    interface RouteHandler {
+        Object handle(ApiRequest request) throws SQLException;
+    }
+
+    private record Route(String method, Pattern pattern, int status, boolean authenticated, RouteHandler handler) {
+    }
+
+    private record Session(int userId, long issuedAtNanos) {
+    }
+
+    private static final Logger LOGGER = Logger.getLogger("com.studytracker.server");
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final long DEFAULT_TOKEN_TTL_MINUTES = 12 * 60;
+    private static final long TOKEN_SWEEP_MINUTES = 5;
+
+    private final String host;
+    private final int port;
+    private final int poolSize;
+    private final List<Route> routes = new ArrayList<>();
+    private final long tokenTtlNanos;
+    private final Map<String, Session> tokens = new ConcurrentHashMap<>();
+    private HttpServer server;
+    private ExecutorService executor;
+    private ScheduledExecutorService tokenSweeper;
+    private ConnectionPool directoryPool;
+    private ConnectionPool[] shardPools;
+
+    public ApiServer(String host, int port, int poolSize) {
+        this(host, port, poolSize, Long.getLong("studytracker.server.tokenTtlMinutes", DEFAULT_TOKEN_TTL_MINUTES));
+    }
+
+    public ApiServer(String host, int port, int poolSize, long tokenTtlMinutes) {
+        this.host = host;
+        this.port = port;
+        this.poolSize = poolSize;
+        this.tokenTtlNanos = TimeUnit.MINUTES.toNanos(tokenTtlMinutes);
+    }
+
+    /**
+     * Headless entry point: "java -cp ... com.studytracker.server.ApiServer [--port=8080] [--host=...] [--pool=8]"
+     * (a class that doesn't extend Application, so JavaFX isn't needed on the module path)
+     */
+    public static void main(String[] args) {
+        runFromCommandLine(args);
+    }
+
+    /**
+     * Also reachable as "com.studytracker.Main --server ..."
+     */
+    public static void runFromCommandLine(String[] args) {
+        String host = System.getProperty("studytracker.server.host", "127.0.0.1");
+        int port = Integer.getInteger("studytracker.server.port", 8080);
+        int poolSize = Integer.getInteger("studytracker.server.poolSize", 8);
+        for (String arg : args) {
+            if (arg.startsWith("--host=")) {
+                host = arg.substring("--host=".length());
+            } else if (arg.startsWith("--port=")) {
+                port = Integer.parseInt(arg.substring("--port=".length()));
+            } else if (arg.startsWith("--pool=")) {
+                poolSize = Integer.parseInt(arg.substring("--pool=".length()));
+            }
+        }
+
+        Diagnostics diagnostics = new Diagnostics();
+        diagnostics.start();
+        BackupService backupService = BackupService.fromSystemProperties();
+        backupService.start();
+        MaintenanceService maintenanceService = MaintenanceService.fromSystemProperties();
+        maintenanceService.start();
+        ApiServer apiServer = new ApiServer(host, port, poolSize);
+        ExamReminderScheduler reminders = ExamReminderScheduler.getInstance();
+        CountDownLatch stopped = new CountDownLatch(1);
+        try {
+            // Before serving, so the auto_vacuum conversion's VACUUM (if a file needs it) blocks no request
+            maintenanceService.runNow(true);
+            apiServer.start();
+
+            // Every user's exam reminders, loaded once per database and kept current by the DAOs
+            reminders.addReminderListener(reminder ->
+                LOGGER.info("Exam reminder for user " + reminder.getUserId() + ": " + reminder.getMessage()));
+            reminders.trackAllUsers();
+            reminders.start();
+        } catch (IOException | SQLException e) {
+            e.printStackTrace();
+            apiServer.stop();
+            backupService.stop();
+            maintenanceService.stop();
+            diagnostics.stop();
+            System.exit(1);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            reminders.stop();
+            apiServer.stop();
+            backupService.stop();
+            maintenanceService.stop();
+            diagnostics.stop();
+            DatabaseManager.getInstance().close();
+            stopped.countDown();
+        }, "api-server-shutdown"));
+
+        System.out.println("Study Tracker API listening on http://" + host + ":" + apiServer.getPort()
+            + "/api (database " + DatabaseManager.getDatabasePath() + ", " + DatabaseManager.getInstance().getShardCount()
+            + " data shard(s), pool " + poolSize + ")");
+        try {
+            stopped.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public void start() throws IOException, SQLException {
+        // Registered here rather than in the constructor, which mustn't hand out 'this'
+        if (routes.isEmpty()) {
+            new ApiRoutes(this).register();
+        }
+        // Creates the schema on first use
+        DatabaseManager databaseManager = DatabaseManager.getInstance();
+        directoryPool = databaseManager.createPool(poolSize);
+        shardPools = new ConnectionPool[databaseManager.getShardCount()];
+        for (int shard = 0; shard < shardPools.length; shard++) {
+            shardPools[shard] = databaseManager.isSharded()
+                ? databaseManager.createShardPool(shard, poolSize)
+                : directoryPool;
+        }
+
+        server = HttpServer.create(new InetSocketAddress(host, port), 1024);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/api/", this::handle);
+        server.start();
+
+        tokenSweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "api-token-sweep");
+            thread.setDaemon(true);
+            return thread;
+        });
+        tokenSweeper.scheduleWithFixedDelay(this::removeExpiredTokens, TOKEN_SWEEP_MINUTES, TOKEN_SWEEP_MINUTES, TimeUnit.MINUTES);
+    }
+
+    public void stop() {
+        if (tokenSweeper != null) {
+            tokenSweeper.shutdownNow();
+            tokenSweeper = null;
+        }
+        if (server != null) {
+            server.stop(1);
+            server = null;
+        }
+        if (executor != null) {
+            executor.close();
+            executor = null;
+        }
+        if (shardPools != null) {
+            for (ConnectionPool pool : shardPools) {
+                if (pool != directoryPool) {
+                    pool.close();
+                }
+            }
+            shardPools = null;
+        }
+        if (directoryPool != null) {
+            directoryPool.close();
+            directoryPool = null;
+        }
+    }
+
+    /**
+     * Actual port (useful when started on port 0)
+     */
+    public int getPort() {
+        return server != null ? server.getAddress().getPort() : port;
+    }
+
+    // ----- Routing -----
+
+    void get(String path, RouteHandler handler) {
+        addRoute("GET", path, 200, true, handler);
+    }
+
+    void post(String path, int status, RouteHandler handler) {
+        addRoute("POST", path, status, true, handler);
+    }
+
+    void put(String path, RouteHandler handler) {
+        addRoute("PUT", path, 200, true, handler);
+    }
+
+    void delete(String path, RouteHandler handler) {
+        addRoute("DELETE", path, 204, true, handler);
+    }
+
+    /**
+     * Endpoint reachable without a bearer token (register, login)
+     */
+    void publicPost(String path, int status, RouteHandler handler) {
+        addRoute("POST", path, status, false, handler);
+    }
+
+    /**
+     * Register a route; "{id}" segments become path parameters
+     */
+    private void addRoute(String method, String path, int status, boolean authenticated, RouteHandler handler) {
+        String regex = path.replaceAll("\\{[^/]+}", "([^/]+)");
+        routes.add(new Route(method, Pattern.compile(regex), status, authenticated, handler));
+    }
+
+    // ----- Sessions -----
+
+    /**
+     * Issue a bearer token for a successfully authenticated user
+     */
+    String issueToken(int userId) {
+        byte[] bytes = new byte[24];
+        RANDOM.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        tokens.put(token, new Session(userId, System.nanoTime()));
+        return token;
+    }
+
+    /**
+     * The user a token was issued to, or null when it is unknown or has expired (an expired token is dropped)
+     */
+    Integer tokenUser(String token) {
+        Session session = tokens.get(token);
+        if (session == null) {
+            return null;
+        }
+        if (isExpired(session, System.nanoTime())) {
+            tokens.remove(token, session);
+            return null;
+        }
+        return session.userId();
+    }
+
+    private boolean isExpired(Session session, long now) {
+        return now - session.issuedAtNanos() > tokenTtlNanos;
+    }
+
+    private void removeExpiredTokens() {
+        long now = System.nanoTime();
+        tokens.values().removeIf(session -> isExpired(session, now));
+    }
+
+    void revokeToken(String token) {
+        if (token != null) {
+            tokens.remove(token);
+        }
+    }
+
+    static String bearerToken(ApiRequest request) {
+        String header = request.getHeader("Authorization");
+        if (header == null || !header.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            return null;
+        }
+        return header.substring(7).trim();
+    }
+
+    // ----- Request handling -----
+
+    private void handle(HttpExchange exchange) {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
+        UserActionContext.set("API " + method + " " + path);
+
+        try (ApiRequest request = new ApiRequest(exchange, directoryPool, shardPools)) {
+            Route route = null;
+            boolean pathMatched = false;
+            for (Route candidate : routes) {
+                Matcher matcher = candidate.pattern().matcher(path);
+                if (!matcher.matches()) {
+                    continue;
+                }
+                pathMatched = true;
+                if (candidate.method().equals(method)) {
+                    route = candidate;
+                    String[] params = new String[matcher.groupCount()];
+                    for (int i = 0; i < params.length; i++) {
+                        params[i] = matcher.group(i + 1);
+                    }
+                    request.setPathParams(params);
+                    break;
+                }
+            }
+            if (route == null) {
+                throw pathMatched ? new ApiException(405, "Method not allowed") : ApiException.notFound(path);
+            }
+
+            if (route.authenticated()) {
+                String token = bearerToken(request);
+                Integer userId = token != null ? tokenUser(token) : null;
+                if (userId == null) {
+                    throw ApiException.unauthorized();
+                }
+                request.setUserId(userId);
+            }
+
+            Object result = route.handler().handle(request);
+            // Return the pooled connection before writing to the (possibly slow) client
+            request.releaseConnections();
+            send(exchange, result == null ? 204 : route.status(), result);
+        } catch (ApiException e) {
+            sendError(exchange, e.getStatus(), e.getMessage());
+        } catch (SQLTransientConnectionException e) {
+            sendError(exchange, 503, "Server busy, try again");
+        } catch (SQLException e) {
+            e.printStackTrace();
+            sendError(exchange, 500, "Database error");
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            sendError(exchange, 500, "Internal error");
+        } finally {
+            UserActionContext.clear();
+            exchange.close();
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) {
+        send(exchange, status, Map.of("error", message));
+    }
+
+    private static void send(HttpExchange exchange, int status, Object body) {
+        try {
+            if (body == null) {
+                exchange.sendResponseHeaders(status, -1);
+                return;
+            }
+            byte[] bytes = Json.write(body).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } catch (IOException e) {
+            // Client went away; nothing left to do
+        }
+    }
+}
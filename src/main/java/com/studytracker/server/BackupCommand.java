@@ -0,0 +1,75 @@
+package com.studytracker.server;
+
+import com.studytracker.database.BackupService;
+import com.studytracker.database.DatabaseManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Backs up, lists or restores the databases from the command line:
+ * "java -cp ... com.studytracker.server.BackupCommand --backup | --list | --restore=NAME|PATH"
+ * (also reachable as "com.studytracker.Main --backup ..." / "--restore=...").
+ * Restore with the app and API server stopped; "--restore=latest" picks the newest backup.
+ */
+public final class BackupCommand {
+
+    private BackupCommand() {
+    }
+
+    public static void main(String[] args) {
+        runFromCommandLine(args);
+    }
+
+    public static void runFromCommandLine(String[] args) {
+        BackupService backupService = BackupService.fromSystemProperties();
+        try {
+            for (String arg : args) {
+                if (arg.equals("--backup")) {
+                    long start = System.nanoTime();
+                    Path backup = backupService.backupNow();
+                    System.out.println("Backed up to " + backup + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+                    return;
+                } else if (arg.equals("--list")) {
+                    for (Path backup : backupService.listBackups()) {
+                        System.out.println(backup.getFileName());
+                    }
+                    return;
+                } else if (arg.startsWith("--restore=")) {
+                    Path backup = resolveBackup(backupService, arg.substring("--restore=".length()));
+                    BackupService.restore(backup);
+                    System.out.println("Restored " + DatabaseManager.getDatabasePath() + " from " + backup);
+                    return;
+                }
+            }
+            System.err.println("Usage: --backup | --list | --restore=NAME|PATH|latest");
+            System.exit(2);
+        } catch (SQLException | IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+        } finally {
+            DatabaseManager.getInstance().close();
+        }
+    }
+
+    private static Path resolveBackup(BackupService backupService, String name) throws IOException {
+        if (name.equals("latest")) {
+            List<Path> backups = backupService.listBackups();
+            if (backups.isEmpty()) {
+                throw new IOException("No backups in " + backupService.getBackupDir());
+            }
+            return backups.get(0);
+        }
+        Path path = Path.of(name);
+        if (!Files.isDirectory(path)) {
+            path = backupService.getBackupDir().resolve(name);
+        }
+        if (!Files.isDirectory(path)) {
+            throw new IOException("No backup " + name + " (see --list)");
+        }
+        return path;
+    }
+}
@@ -0,0 +1,87 @@
+package com.studytracker.server;
+
+import com.studytracker.dao.UserDAO;
+import com.studytracker.database.DatabaseManager;
+import com.studytracker.model.User;
+import com.studytracker.service.DataFormat;
+import com.studytracker.service.DataTransferService;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+
+/**
+ * Exports or imports one user's data from the command line:
+ * "java -cp ... com.studytracker.server.DataTransferCommand --export|--import --user=NAME --file=PATH [--format=ndjson|csv]"
+ * (also reachable as "com.studytracker.Main --export ..." / "--import ...").
+ * The format defaults to the file extension.
+ */
+public final class DataTransferCommand {
+
+    private DataTransferCommand() {
+    }
+
+    public static void main(String[] args) {
+        runFromCommandLine(args);
+    }
+
+    public static void runFromCommandLine(String[] args) {
+        boolean export = false;
+        boolean importing = false;
+        String username = null;
+        String file = null;
+        String formatName = null;
+        for (String arg : args) {
+            if (arg.equals("--export")) {
+                export = true;
+            } else if (arg.equals("--import")) {
+                importing = true;
+            } else if (arg.startsWith("--user=")) {
+                username = arg.substring("--user=".length());
+            } else if (arg.startsWith("--file=")) {
+                file = arg.substring("--file=".length());
+            } else if (arg.startsWith("--format=")) {
+                formatName = arg.substring("--format=".length());
+            }
+        }
+        if (export == importing || username == null || file == null) {
+            System.err.println("Usage: --export|--import --user=NAME --file=PATH [--format=ndjson|csv]");
+            System.exit(2);
+        }
+        DataFormat format = formatName != null
+            ? DataFormat.valueOf(formatName.toUpperCase())
+            : DataFormat.fromFileName(file);
+
+        try {
+            User user = new UserDAO().findByUsername(username);
+            if (user == null) {
+                System.err.println("No user named " + username);
+                System.exit(1);
+            }
+            DataTransferService transferService = DataTransferService.forUser(user.getId());
+            long start = System.nanoTime();
+            DataTransferService.TransferSummary summary;
+            if (export) {
+                try (BufferedWriter out = Files.newBufferedWriter(Path.of(file), StandardCharsets.UTF_8)) {
+                    summary = transferService.exportUser(user.getId(), out, format);
+                }
+            } else {
+                try (BufferedReader in = Files.newBufferedReader(Path.of(file), StandardCharsets.UTF_8)) {
+                    summary = transferService.importUser(user.getId(), in, format);
+                }
+            }
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            System.out.println((export ? "Exported " : "Imported ") + summary.getTotal() + " records "
+                + summary + " in " + millis + " ms");
+        } catch (SQLException | IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+        } finally {
+            DatabaseManager.getInstance().close();
+        }
+    }
+}
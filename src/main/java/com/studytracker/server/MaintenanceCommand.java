@@ -0,0 +1,38 @@
+package com.studytracker.server;
+
+import com.studytracker.database.DatabaseManager;
+import com.studytracker.database.MaintenanceService;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Runs database maintenance now, including the one-time VACUUM that converts a file created
+ * before auto_vacuum was turned on (which the idle runs never do):
+ * "java -cp ... com.studytracker.server.MaintenanceCommand --maintain"
+ * (also reachable as "com.studytracker.Main --maintain"). Run it with the app and API server stopped.
+ */
+public final class MaintenanceCommand {
+
+    private MaintenanceCommand() {
+    }
+
+    public static void main(String[] args) {
+        runFromCommandLine(args);
+    }
+
+    public static void runFromCommandLine(String[] args) {
+        try {
+            // Each step is logged as it is reported; this only sums them up
+            long start = System.nanoTime();
+            List<MaintenanceService.Step> steps = MaintenanceService.fromSystemProperties().runNow(true);
+            System.out.println(steps.isEmpty() ? "Nothing to do"
+                : steps.size() + " maintenance step(s) done in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        } catch (SQLException e) {
+            e.printStackTrace();
+            System.exit(1);
+        } finally {
+            DatabaseManager.getInstance().close();
+        }
+    }
+}
@@ -0,0 +1,371 @@
+package com.studytracker.service;
+
+import com.studytracker.dao.ChapterDAO;
+import com.studytracker.dao.SubjectDAO;
+import com.studytracker.database.DatabaseManager;
+import com.studytracker.model.Chapter;
+import com.studytracker.model.Subject;
+import com.studytracker.util.EpochTime;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory type-ahead index over a user's chapters. Every word of a chapter's name and
+ * of its subject's name, lower-cased without accents, is a key of a sorted map, so the
+ * chapters having a word with a given prefix are one subMap range. A query matches the
+ * chapters having, for each of its words, a word starting with it: "lin alg" finds
+ * "Linear Algebra", "math der" finds "Derivatives" in "Mathématiques".
+ *
+ * forUser builds it once per user from two queries and caches it; ChapterDAO and
+ * SubjectDAO writes then update the cached indexes in place.
+ */
+public final class ChapterSearchIndex {
+    // Chapters studied this recently rank with the ones in progress
+    private static final long RECENT_SECONDS = 14 * EpochTime.SECONDS_PER_DAY;
+    private static final Pattern ACCENTS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Map<Integer, ChapterSearchIndex> cache = new ConcurrentHashMap<>();
+    // Bumped on each write so a load racing with it doesn't cache the old chapters
+    private static final AtomicLong writeCount = new AtomicLong();
+
+    static {
+        ChapterDAO.addChapterListener(new ChapterDAO.ChapterListener() {
+            @Override
+            public void chapterSaved(Connection connection, Chapter chapter) {
+                writeCount.incrementAndGet();
+                forEachIn(connection, index -> index.putChapter(chapter));
+            }
+
+            @Override
+            public void chapterDeleted(Connection connection, int chapterId) {
+                writeCount.incrementAndGet();
+                forEachIn(connection, index -> index.removeChapter(chapterId));
+            }
+        });
+        SubjectDAO.addSubjectListener(new SubjectDAO.SubjectListener() {
+            @Override
+            public void subjectSaved(Connection connection, Subject subject) {
+                writeCount.incrementAndGet();
+                ChapterSearchIndex index = cache.get(subject.getUserId());
+                if (index != null) {
+                    index.putSubject(subject);
+                }
+            }
+
+            @Override
+            public void subjectDeleted(Connection connection, int subjectId) {
+                writeCount.incrementAndGet();
+                forEachIn(connection, index -> index.removeSubject(subjectId));
+            }
+
+            @Override
+            public void subjectsChanged(Connection connection, int userId) {
+                writeCount.incrementAndGet();
+                cache.remove(userId);
+            }
+        });
+    }
+
+    private final String database;
+    private final Map<Integer, Chapter> chapters = new HashMap<>();
+    private final Map<Integer, String> subjectNames = new HashMap<>();
+    // Word -> ids of the chapters having it in their own or their subject's name
+    private final NavigableMap<String, Set<Integer>> words = new TreeMap<>();
+
+    private ChapterSearchIndex(String database) {
+        this.database = database;
+    }
+
+    /**
+     * Index of a user's chapters, from the cache or loaded from their database
+     */
+    public static ChapterSearchIndex forUser(int userId) throws SQLException {
+        ChapterSearchIndex cached = cache.get(userId);
+        if (cached != null) {
+            return cached;
+        }
+        long writesBefore = writeCount.get();
+        ChapterSearchIndex index = load(DatabaseManager.getInstance().getConnectionForUser(userId), userId);
+        if (writeCount.get() == writesBefore) {
+            cache.put(userId, index);
+        }
+        return index;
+    }
+
+    /**
+     * Build a fresh index on a specific data connection (not cached)
+     */
+    public static ChapterSearchIndex load(Connection connection, int userId) throws SQLException {
+        ChapterSearchIndex index = new ChapterSearchIndex(DatabaseManager.databaseOf(connection));
+        for (Subject subject : new SubjectDAO(connection).findByUserId(userId)) {
+            index.subjectNames.put(subject.getId(), subject.getName());
+        }
+        for (Chapter chapter : new ChapterDAO(connection).findByUserId(userId)) {
+            index.add(copyOf(chapter));
+        }
+        return index;
+    }
+
+    /**
+     * Chapters matching a query (all of them for a blank one), best first: name matches
+     * before subject-only matches, then chapters in progress or studied in the last two
+     * weeks, then not started ones, then completed ones; the most recently studied first
+     * within each group.
+     *
+     * @param lastStudied epoch second of each chapter's latest session
+     *                    (StudySessionColumns.lastStudiedByChapter)
+     */
+    public synchronized Results search(String query, Map<Integer, Long> lastStudied, int limit) {
+        List<String> terms = wordsOf(query);
+        Set<Integer> candidates = terms.isEmpty() ? chapters.keySet() : matching(terms);
+        String phrase = String.join(" ", terms);
+        long recentSince = EpochTime.toSeconds(LocalDateTime.now()) - RECENT_SECONDS;
+
+        List<Match> matches = new ArrayList<>(candidates.size());
+        for (int chapterId : candidates) {
+            Chapter chapter = chapters.get(chapterId);
+            Long studied = lastStudied.get(chapterId);
+            matches.add(new Match(copyOf(chapter), subjectNames.get(chapter.getSubjectId()),
+                nameTier(chapter, terms, phrase), studied != null ? studied : Long.MIN_VALUE, recentSince));
+        }
+        matches.sort(Comparator.comparingInt((Match match) -> match.tier)
+            .thenComparingInt(match -> match.group)
+            .thenComparing(match -> match.lastStudied, Comparator.reverseOrder())
+            .thenComparing(Match::getSubjectName, String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(match -> match.getChapter().getName(), String.CASE_INSENSITIVE_ORDER));
+        return new Results(matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches, matches.size());
+    }
+
+    /**
+     * Copies of all indexed chapters
+     */
+    public synchronized List<Chapter> getChapters() {
+        List<Chapter> all = new ArrayList<>(chapters.size());
+        for (Chapter chapter : chapters.values()) {
+            all.add(copyOf(chapter));
+        }
+        return all;
+    }
+
+    public synchronized int size() {
+        return chapters.size();
+    }
+
+    // Ids of the chapters having, for every term, a word starting with it
+    private Set<Integer> matching(List<String> terms) {
+        Set<Integer> result = null;
+        for (String term : terms) {
+            Set<Integer> withPrefix = new HashSet<>();
+            for (Set<Integer> ids : words.subMap(term, true, term + Character.MAX_VALUE, false).values()) {
+                withPrefix.addAll(ids);
+            }
+            if (result == null) {
+                result = withPrefix;
+            } else {
+                result.retainAll(withPrefix);
+            }
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    // 0: the name starts with the query, 1: every term is in the name, 2: some only in the subject
+    private static int nameTier(Chapter chapter, List<String> terms, String phrase) {
+        List<String> nameWords = wordsOf(chapter.getName());
+        if (String.join(" ", nameWords).startsWith(phrase)) {
+            return 0;
+        }
+        for (String term : terms) {
+            if (nameWords.stream().noneMatch(word -> word.startsWith(term))) {
+                return 2;
+            }
+        }
+        return 1;
+    }
+
+    private synchronized void putChapter(Chapter chapter) {
+        if (!subjectNames.containsKey(chapter.getSubjectId())) {
+            return;
+        }
+        remove(chapter.getId());
+        add(copyOf(chapter));
+    }
+
+    private synchronized void removeChapter(int chapterId) {
+        remove(chapterId);
+    }
+
+    private synchronized void putSubject(Subject subject) {
+        if (subject.getName().equals(subjectNames.get(subject.getId()))) {
+            return;
+        }
+        // Re-index the subject's chapters under the new name
+        List<Chapter> ofSubject = chaptersOf(subject.getId());
+        for (Chapter chapter : ofSubject) {
+            remove(chapter.getId());
+        }
+        subjectNames.put(subject.getId(), subject.getName());
+        for (Chapter chapter : ofSubject) {
+            add(chapter);
+        }
+    }
+
+    private synchronized void removeSubject(int subjectId) {
+        for (Chapter chapter : chaptersOf(subjectId)) {
+            remove(chapter.getId());
+        }
+        subjectNames.remove(subjectId);
+    }
+
+    private List<Chapter> chaptersOf(int subjectId) {
+        List<Chapter> ofSubject = new ArrayList<>();
+        for (Chapter chapter : chapters.values()) {
+            if (chapter.getSubjectId() == subjectId) {
+                ofSubject.add(chapter);
+            }
+        }
+        return ofSubject;
+    }
+
+    private void add(Chapter chapter) {
+        chapters.put(chapter.getId(), chapter);
+        for (String word : wordsOf(chapter)) {
+            words.computeIfAbsent(word, key -> new HashSet<>()).add(chapter.getId());
+        }
+    }
+
+    private void remove(int chapterId) {
+        Chapter chapter = chapters.remove(chapterId);
+        if (chapter == null) {
+            return;
+        }
+        for (String word : wordsOf(chapter)) {
+            Set<Integer> ids = words.get(word);
+            ids.remove(chapterId);
+            if (ids.isEmpty()) {
+                words.remove(word);
+            }
+        }
+    }
+
+    private Set<String> wordsOf(Chapter chapter) {
+        Set<String> chapterWords = new HashSet<>(wordsOf(chapter.getName()));
+        chapterWords.addAll(wordsOf(subjectNames.get(chapter.getSubjectId())));
+        return chapterWords;
+    }
+
+    /**
+     * Words of a text, lower-cased without accents ("Probabilités 2" -> probabilites, 2)
+     */
+    static List<String> wordsOf(String text) {
+        List<String> result = new ArrayList<>();
+        if (text == null) {
+            return result;
+        }
+        String folded = ACCENTS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        for (String word : SEPARATORS.split(folded.toLowerCase(Locale.ROOT))) {
+            if (!word.isEmpty()) {
+                result.add(word);
+            }
+        }
+        return result;
+    }
+
+    // Callers may change the Chapter objects they save, so the index keeps its own copies
+    private static Chapter copyOf(Chapter chapter) {
+        return new Chapter(chapter.getId(), chapter.getSubjectId(), chapter.getName(), chapter.getDescription(),
+            chapter.getStatus(), chapter.getEstimatedHours());
+    }
+
+    // Apply a write to the cached indexes on the database it was made in
+    private static void forEachIn(Connection connection, Consumer<ChapterSearchIndex> update) {
+        String written = DatabaseManager.databaseOf(connection);
+        for (Map.Entry<Integer, ChapterSearchIndex> entry : cache.entrySet()) {
+            if (written == null) {
+                // Unknown database: rebuild on next use rather than guess
+                cache.remove(entry.getKey());
+            } else if (written.equals(entry.getValue().database)) {
+                update.accept(entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Inner class for one page of search results
+     */
+    public static class Results {
+        private final List<Match> matches;
+        private final int total;
+
+        public Results(List<Match> matches, int total) {
+            this.matches = matches;
+            this.total = total;
+        }
+
+        public List<Match> getMatches() {
+            return matches;
+        }
+
+        /**
+         * Number of matching chapters, including those past the limit
+         */
+        public int getTotal() {
+            return total;
+        }
+    }
+
+    /**
+     * Inner class for a matching chapter
+     */
+    public static class Match {
+        private final Chapter chapter;
+        private final String subjectName;
+        private final int tier;
+        private final int group;
+        private final long lastStudied;
+
+        private Match(Chapter chapter, String subjectName, int tier, long lastStudied, long recentSince) {
+            this.chapter = chapter;
+            this.subjectName = subjectName != null ? subjectName : "";
+            this.tier = tier;
+            this.lastStudied = lastStudied;
+            boolean active = chapter.getStatus() == Chapter.ChapterStatus.IN_PROGRESS || lastStudied >= recentSince;
+            this.group = active ? 0 : chapter.getStatus() == Chapter.ChapterStatus.COMPLETED ? 2 : 1;
+        }
+
+        public Chapter getChapter() {
+            return chapter;
+        }
+
+        public String getSubjectName() {
+            return subjectName;
+        }
+
+        /**
+         * Start of the chapter's latest session, or null if it was never studied
+         */
+        public LocalDateTime getLastStudied() {
+            return lastStudied != Long.MIN_VALUE ? EpochTime.fromSeconds(lastStudied) : null;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.studytracker.service;
+
+import com.studytracker.util.Csv;
+import com.studytracker.util.Json;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * File formats for exporting/importing a user's data, one record at a time.
+ *
+ * NDJSON: one JSON object per line, its "type" field naming the record.
+ * CSV: each row starts with the record type; the first row of each type is preceded
+ * by a "#type,column,..." row naming its columns.
+ */
+public enum DataFormat {
+    NDJSON("ndjson") {
+        @Override
+        public RecordWriter newWriter(Writer out) {
+            return (type, fields) -> {
+                Map<String, Object> json = new LinkedHashMap<>();
+                json.put("type", type);
+                json.putAll(fields);
+                out.write(Json.write(json));
+                out.write('\n');
+            };
+        }
+
+        @Override
+        public RecordReader newReader(Reader in) {
+            BufferedReader lines = in instanceof BufferedReader buffered ? buffered : new BufferedReader(in);
+            return () -> {
+                String line;
+                while ((line = lines.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    Map<String, Object> fields;
+                    try {
+                        fields = Json.parseObject(line);
+                    } catch (IllegalArgumentException e) {
+                        throw new IOException("Invalid NDJSON line: " + e.getMessage(), e);
+                    }
+                    Object type = fields.remove("type");
+                    if (!(type instanceof String typeName)) {
+                        throw new IOException("NDJSON line without a type");
+                    }
+                    return new DataRecord(typeName, fields);
+                }
+                return null;
+            };
+        }
+    },
+
+    CSV("csv") {
+        @Override
+        public RecordWriter newWriter(Writer out) {
+            Map<String, Boolean> headerWritten = new HashMap<>();
+            return (type, fields) -> {
+                if (headerWritten.putIfAbsent(type, true) == null) {
+                    List<Object> header = new ArrayList<>();
+                    header.add("#" + type);
+                    header.addAll(fields.keySet());
+                    Csv.writeRow(out, header);
+                }
+                List<Object> row = new ArrayList<>(fields.size() + 1);
+                row.add(type);
+                row.addAll(fields.values());
+                Csv.writeRow(out, row);
+            };
+        }
+
+        @Override
+        public RecordReader newReader(Reader in) {
+            Csv.RowReader rows = new Csv.RowReader(in);
+            Map<String, List<String>> columnsByType = new HashMap<>();
+            return () -> {
+                List<String> row;
+                while ((row = rows.readRow()) != null) {
+                    String type = row.get(0);
+                    if (type == null) {
+                        continue; // blank line
+                    }
+                    if (type.startsWith("#")) {
+                        columnsByType.put(type.substring(1), row.subList(1, row.size()));
+                        continue;
+                    }
+                    List<String> columns = columnsByType.get(type);
+                    if (columns == null) {
+                        throw new IOException("CSV row of type " + type + " before its #" + type + " header");
+                    }
+                    Map<String, Object> fields = new LinkedHashMap<>();
+                    for (int i = 0; i < columns.size(); i++) {
+                        fields.put(columns.get(i), i + 1 < row.size() ? row.get(i + 1) : null);
+                    }
+                    return new DataRecord(type, fields);
+                }
+                return null;
+            };
+        }
+    };
+
+    private final String extension;
+
+    DataFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public abstract RecordWriter newWriter(Writer out);
+
+    public abstract RecordReader newReader(Reader in);
+
+    /**
+     * Format matching a file name (".csv" is CSV, anything else NDJSON)
+     */
+    public static DataFormat fromFileName(String fileName) {
+        return fileName.toLowerCase().endsWith(".csv") ? CSV : NDJSON;
+    }
+
+    /**
+     * One exported row: its type (subject, chapter, ...) and its columns
+     */
+    public record DataRecord(String type, Map<String, Object> fields) {
+    }
+
+    @FunctionalInterface
+    public interface RecordWriter {
+        void write(String type, Map<String, Object> fields) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface RecordReader {
+        /**
+         * Next record, or null at end of input
+         */
+        DataRecord read() throws IOException;
+    }
+}
@@ -0,0 +1,409 @@
+package com.studytracker.service;
+
+import com.studytracker.dao.StudySessionDAO;
+import com.studytracker.dao.SubjectDAO;
+import com.studytracker.dao.UserDAO;
+import com.studytracker.database.DatabaseManager;
+import com.studytracker.model.Badge;
+import com.studytracker.model.Chapter;
+import com.studytracker.model.User;
+import com.studytracker.model.XpEntry;
+import com.studytracker.util.EpochTime;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * Exports everything tied to a user (subjects, chapters, exams, study sessions, badges)
+ * and imports such an export into another account, streaming in both directions so
+ * memory use does not grow with the number of sessions.
+ *
+ * Files keep the textual v1 values (ISO dates, enum names) whatever the storage format:
+ * the export queries decode the stored integers and the import encodes them again.
+ */
+public class DataTransferService {
+    public static final int FORMAT_VERSION = 1;
+    // Rows read per round trip when exporting
+    private static final int FETCH_SIZE = 500;
+    // Records per import transaction: short transactions keep the write lock available to the app
+    private static final int BATCH_SIZE = 1000;
+
+    private final Connection directoryConnection;
+    private final Connection dataConnection;
+    private final UserDAO userDAO;
+
+    /**
+     * Use a specific connection (e.g. one borrowed from a ConnectionPool)
+     */
+    public DataTransferService(Connection connection) {
+        this(connection, connection);
+    }
+
+    /**
+     * Users live behind the directory connection, their data behind the data connection
+     * (the same connection unless sharding is on)
+     */
+    public DataTransferService(Connection directoryConnection, Connection dataConnection) {
+        this.directoryConnection = directoryConnection;
+        this.dataConnection = dataConnection;
+        this.userDAO = new UserDAO(directoryConnection);
+    }
+
+    /**
+     * Service on the databases holding this user (their shard when sharding is on)
+     */
+    public static DataTransferService forUser(int userId) {
+        DatabaseManager databaseManager = DatabaseManager.getInstance();
+        return new DataTransferService(databaseManager.getConnection(), databaseManager.getConnectionForUser(userId));
+    }
+
+    /**
+     * Write an "export" header record followed by the user's rows, parents before children,
+     * each table read through a forward-only cursor
+     */
+    public TransferSummary exportUser(int userId, Writer out, DataFormat format) throws SQLException, IOException {
+        User user = userDAO.findById(userId);
+        if (user == null) {
+            throw new SQLException("No user with id " + userId);
+        }
+        DataFormat.RecordWriter writer = format.newWriter(out);
+        TransferSummary summary = new TransferSummary();
+
+        Map<String, Object> header = new LinkedHashMap<>();
+        header.put("format_version", FORMAT_VERSION);
+        header.put("exported_at", LocalDateTime.now().toString());
+        header.put("username", user.getUsername());
+        header.put("xp", user.getXp());
+        header.put("level", user.getLevel());
+        header.put("study_streak", user.getStudyStreak());
+        header.put("last_study_date", user.getLastStudyDate() != null ? user.getLastStudyDate().toString() : null);
+        writer.write("export", header);
+
+        exportRows(writer, summary, userId, "subject",
+            "SELECT id, name, description, color FROM subjects WHERE user_id = ? ORDER BY id");
+        exportRows(writer, summary, userId, "chapter", """
+            SELECT c.id, c.subject_id, c.name, c.description, %s AS status, c.estimated_hours
+            FROM chapters c JOIN subjects s ON c.subject_id = s.id
+            WHERE s.user_id = ? ORDER BY c.id
+        """.formatted(codeToName("c.status", Chapter.ChapterStatus.values(), Chapter.ChapterStatus::getCode)));
+        exportRows(writer, summary, userId, "exam", """
+            SELECT e.id, e.subject_id, e.name, e.description, date(e.exam_date * 86400, 'unixepoch') AS exam_date,
+                   e.is_completed
+            FROM exams e JOIN subjects s ON e.subject_id = s.id
+            WHERE s.user_id = ? ORDER BY e.id
+        """);
+        exportRows(writer, summary, userId, "session", """
+            SELECT id, chapter_id, hours_studied, %s AS session_date, notes, xp_earned
+            FROM study_sessions WHERE user_id = ? ORDER BY id
+        """.formatted(isoDateTime("session_date")));
+        exportRows(writer, summary, userId, "badge", """
+            SELECT %s AS badge_type, %s AS earned_date
+            FROM user_badges WHERE user_id = ? ORDER BY id
+        """.formatted(codeToName("badge_type", Badge.BadgeType.values(), Badge.BadgeType::getCode),
+            isoDateTime("earned_date")));
+
+        out.flush();
+        return summary;
+    }
+
+    private static String isoDateTime(String column) {
+        return "strftime('%Y-%m-%dT%H:%M:%S', " + column + ", 'unixepoch')";
+    }
+
+    private static <E extends Enum<E>> String codeToName(String column, E[] values, ToIntFunction<E> code) {
+        StringBuilder sql = new StringBuilder("CASE ").append(column);
+        for (E value : values) {
+            sql.append(" WHEN ").append(code.applyAsInt(value)).append(" THEN '").append(value.name()).append('\'');
+        }
+        return sql.append(" END").toString();
+    }
+
+    private void exportRows(DataFormat.RecordWriter writer, TransferSummary summary, int userId, String type,
+                            String sql) throws SQLException, IOException {
+        try (PreparedStatement stmt = dataConnection.prepareStatement(sql,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(FETCH_SIZE);
+            stmt.setInt(1, userId);
+            ResultSet rs = stmt.executeQuery();
+            ResultSetMetaData metaData = rs.getMetaData();
+            Map<String, Object> fields = new LinkedHashMap<>();
+            while (rs.next()) {
+                // Reuse one map: the writer serializes it before the next row
+                for (int column = 1; column <= metaData.getColumnCount(); column++) {
+                    fields.put(metaData.getColumnLabel(column), rs.getObject(column));
+                }
+                writer.write(type, fields);
+                summary.count(type);
+            }
+        }
+    }
+
+    /**
+     * Add an export's rows to a user. Ids are remapped (subjects and chapters get new ids,
+     * children follow them); rows whose parent isn't in the file are skipped. Inserts are
+     * committed every BATCH_SIZE records, so a failure part way keeps the batches already
+     * committed: the XP of their sessions is then credited and the exception (an IOException
+     * for an unreadable or invalid record) says how many records were kept. After a complete import the
+     * exported XP is added to the user's and the streak taken over if the export is more recent.
+     */
+    public TransferSummary importUser(int userId, Reader in, DataFormat format) throws SQLException, IOException {
+        DataFormat.RecordReader reader = format.newReader(in);
+        DataFormat.DataRecord header = reader.read();
+        if (header == null || !header.type().equals("export")) {
+            throw new IOException("Not a Study Tracker export (missing export header)");
+        }
+        Integer version = intField(header, "format_version");
+        if (version == null || version > FORMAT_VERSION) {
+            throw new IOException("Unsupported export format version " + version);
+        }
+
+        TransferSummary summary = new TransferSummary();
+        Map<Integer, Integer> subjectIds = new HashMap<>();
+        Map<Integer, Integer> chapterIds = new HashMap<>();
+
+        // Records and session XP in the committed batches, credited if a later batch fails
+        int committedRecords = 0;
+        int committedXp = 0;
+        int batchXp = 0;
+        dataConnection.setAutoCommit(false);
+        try (PreparedStatement subjectStmt = dataConnection.prepareStatement(
+                 "INSERT INTO subjects (user_id, name, description, color) VALUES (?, ?, ?, ?) RETURNING id");
+             PreparedStatement chapterStmt = dataConnection.prepareStatement(
+                 "INSERT INTO chapters (subject_id, name, description, status, estimated_hours) VALUES (?, ?, ?, ?, ?) RETURNING id");
+             PreparedStatement examStmt = dataConnection.prepareStatement(
+                 "INSERT INTO exams (subject_id, name, description, exam_date, is_completed) VALUES (?, ?, ?, ?, ?)");
+             PreparedStatement sessionStmt = dataConnection.prepareStatement(
+                 "INSERT INTO study_sessions (chapter_id, user_id, hours_studied, session_date, notes, xp_earned) VALUES (?, ?, ?, ?, ?, ?)");
+             PreparedStatement badgeStmt = dataConnection.prepareStatement(
+                 "INSERT OR IGNORE INTO user_badges (user_id, badge_type, earned_date) VALUES (?, ?, ?)")) {
+
+            int inBatch = 0;
+            DataFormat.DataRecord record;
+            while ((record = reader.read()) != null) {
+                switch (record.type()) {
+                    case "subject" -> {
+                        subjectStmt.setInt(1, userId);
+                        subjectStmt.setString(2, textField(record, "name"));
+                        subjectStmt.setString(3, textField(record, "description"));
+                        subjectStmt.setString(4, textField(record, "color"));
+                        // RETURNING gives the new ID in the same statement
+                        subjectIds.put(intField(record, "id"), insertedId(subjectStmt));
+                    }
+                    case "chapter" -> {
+                        Integer subjectId = subjectIds.get(intField(record, "subject_id"));
+                        if (subjectId == null) {
+                            summary.skip(record.type());
+                            continue;
+                        }
+                        chapterStmt.setInt(1, subjectId);
+                        chapterStmt.setString(2, textField(record, "name"));
+                        chapterStmt.setString(3, textField(record, "description"));
+                        String status = textField(record, "status");
+                        chapterStmt.setInt(4, status != null
+                            ? Chapter.ChapterStatus.valueOf(status).getCode()
+                            : Chapter.ChapterStatus.NOT_STARTED.getCode());
+                        chapterStmt.setInt(5, orZero(intField(record, "estimated_hours")));
+                        chapterIds.put(intField(record, "id"), insertedId(chapterStmt));
+                    }
+                    case "exam" -> {
+                        Integer subjectId = subjectIds.get(intField(record, "subject_id"));
+                        if (subjectId == null) {
+                            summary.skip(record.type());
+                            continue;
+                        }
+                        examStmt.setInt(1, subjectId);
+                        examStmt.setString(2, textField(record, "name"));
+                        examStmt.setString(3, textField(record, "description"));
+                        examStmt.setLong(4, EpochTime.toDay(LocalDate.parse(textField(record, "exam_date"))));
+                        examStmt.setInt(5, orZero(intField(record, "is_completed")));
+                        examStmt.addBatch();
+                    }
+                    case "session" -> {
+                        Integer chapterId = chapterIds.get(intField(record, "chapter_id"));
+                        if (chapterId == null) {
+                            summary.skip(record.type());
+                            continue;
+                        }
+                        sessionStmt.setInt(1, chapterId);
+                        sessionStmt.setInt(2, userId);
+                        sessionStmt.setDouble(3, doubleField(record, "hours_studied"));
+                        sessionStmt.setLong(4, EpochTime.toSeconds(LocalDateTime.parse(textField(record, "session_date"))));
+                        sessionStmt.setString(5, textField(record, "notes"));
+                        int xpEarned = orZero(intField(record, "xp_earned"));
+                        sessionStmt.setInt(6, xpEarned);
+                        sessionStmt.addBatch();
+                        batchXp += xpEarned;
+                    }
+                    case "badge" -> {
+                        badgeStmt.setInt(1, userId);
+                        badgeStmt.setInt(2, Badge.BadgeType.valueOf(textField(record, "badge_type")).getCode());
+                        badgeStmt.setLong(3, EpochTime.toSeconds(LocalDateTime.parse(textField(record, "earned_date"))));
+                        badgeStmt.addBatch();
+                    }
+                    default -> {
+                        summary.skip(record.type());
+                        continue;
+                    }
+                }
+                summary.count(record.type());
+
+                if (++inBatch == BATCH_SIZE) {
+                    flushBatch(examStmt, sessionStmt, badgeStmt);
+                    inBatch = 0;
+                    committedRecords = summary.getTotal();
+                    committedXp += batchXp;
+                    batchXp = 0;
+                }
+            }
+            flushBatch(examStmt, sessionStmt, badgeStmt);
+        } catch (SQLException e) {
+            dataConnection.rollback();
+            String kept = creditKeptRecords(userId, committedRecords, committedXp, e);
+            throw kept == null ? e : new SQLException(kept + e.getMessage(), e.getSQLState(), e.getErrorCode(), e);
+        } catch (IOException | RuntimeException e) {
+            dataConnection.rollback();
+            String kept = creditKeptRecords(userId, committedRecords, committedXp, e);
+            if (kept == null && e instanceof IOException ioException) {
+                throw ioException;
+            }
+            // A record the import couldn't read (bad number, date or enum name)
+            String reason = e instanceof RuntimeException ? "invalid record, " + e : e.getMessage();
+            throw new IOException((kept != null ? kept : "Import failed: ") + reason, e);
+        } finally {
+            dataConnection.setAutoCommit(true);
+            // Committed batches are kept even when a later one fails
+            StudySessionDAO.notifySessionsChanged(userId);
+            SubjectDAO.notifySubjectsChanged(dataConnection, userId);
+        }
+
+        mergeUserStats(userId, header);
+        return summary;
+    }
+
+    /**
+     * Credit the XP of the sessions kept from a failed import; returns the start of the
+     * exception message saying what was kept, or null if nothing was
+     */
+    private String creditKeptRecords(int userId, int committedRecords, int committedXp, Exception failure) {
+        if (committedRecords == 0) {
+            return null;
+        }
+        String kept = "Import stopped after " + committedRecords + " records were committed (importing the file"
+            + " again adds them again); ";
+        try {
+            if (committedXp != 0) {
+                userDAO.addXp(userId, committedXp, XpEntry.Source.IMPORT, null);
+            }
+            return kept + committedXp + " XP credited for their sessions: ";
+        } catch (SQLException e) {
+            failure.addSuppressed(e);
+            return kept + "crediting their " + committedXp + " XP failed too: ";
+        }
+    }
+
+    private void flushBatch(PreparedStatement... batchedStatements) throws SQLException {
+        for (PreparedStatement stmt : batchedStatements) {
+            stmt.executeBatch();
+        }
+        dataConnection.commit();
+    }
+
+    private static int insertedId(PreparedStatement insertReturningId) throws SQLException {
+        try (ResultSet rs = insertReturningId.executeQuery()) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    /**
+     * Add the exported XP and keep the most recent streak (after the data commit,
+     * like StudySessionService)
+     */
+    private void mergeUserStats(int userId, DataFormat.DataRecord header) throws SQLException {
+        int importedXp = orZero(intField(header, "xp"));
+        if (importedXp != 0) {
+            userDAO.addXp(userId, importedXp, XpEntry.Source.IMPORT, null);
+        }
+        User user = userDAO.findById(userId);
+        if (user == null) {
+            return;
+        }
+        String lastStudy = textField(header, "last_study_date");
+        if (lastStudy != null) {
+            LocalDateTime importedLastStudy = LocalDateTime.parse(lastStudy);
+            if (user.getLastStudyDate() == null || importedLastStudy.isAfter(user.getLastStudyDate())) {
+                user.setLastStudyDate(importedLastStudy);
+                user.setStudyStreak(orZero(intField(header, "study_streak")));
+            }
+        }
+        userDAO.update(user);
+    }
+
+    // NDJSON gives numbers, CSV gives strings: accept both
+
+    private static String textField(DataFormat.DataRecord record, String name) {
+        Object value = record.fields().get(name);
+        return value != null ? value.toString() : null;
+    }
+
+    private static Integer intField(DataFormat.DataRecord record, String name) {
+        Object value = record.fields().get(name);
+        if (value instanceof Number number) {
+            return number.intValue();
+        }
+        return value != null && !value.toString().isEmpty() ? Integer.valueOf(value.toString()) : null;
+    }
+
+    private static double doubleField(DataFormat.DataRecord record, String name) {
+        Object value = record.fields().get(name);
+        if (value instanceof Number number) {
+            return number.doubleValue();
+        }
+        return value != null && !value.toString().isEmpty() ? Double.parseDouble(value.toString()) : 0;
+    }
+
+    private static int orZero(Integer value) {
+        return value != null ? value : 0;
+    }
+
+    /**
+     * Inner class counting exported/imported and skipped records per type
+     */
+    public static class TransferSummary {
+        private final Map<String, Integer> counts = new LinkedHashMap<>();
+        private final Map<String, Integer> skipped = new LinkedHashMap<>();
+
+        void count(String type) {
+            counts.merge(type, 1, Integer::sum);
+        }
+
+        void skip(String type) {
+            skipped.merge(type, 1, Integer::sum);
+        }
+
+        public Map<String, Integer> getCounts() {
+            return counts;
+        }
+
+        public Map<String, Integer> getSkipped() {
+            return skipped;
+        }
+
+        public int getTotal() {
+            return counts.values().stream().mapToInt(Integer::intValue).sum();
+        }
+
+        @Override
+        public String toString() {
+            return skipped.isEmpty() ? counts.toString() : counts + ", skipped " + skipped;
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.studytracker.service;
+
+import com.studytracker.dao.StudySessionDAO;
+import com.studytracker.database.DatabaseManager;
+import com.studytracker.model.Chapter;
+import com.studytracker.util.EpochTime;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Readiness forecast for a user's upcoming exams.
+ *
+ * A subject is planned as the estimated hours of its chapters: completed chapters count
+ * in full, open ones up to the hours logged on them. Readiness is the covered share of
+ * the plan, and the ready date extrapolates the remaining hours at the subject's pace
+ * over the last PACE_WINDOW_DAYS days.
+ *
+ * The session totals (one grouped pass over study_sessions) are cached per user until
+ * StudySessionDAO reports a session write for them; chapters and exams are small and
+ * re-read on every call, so editing a chapter shows up immediately.
+ */
+public class ExamReadinessService implements StudySessionDAO.SessionListener {
+    public static final int PACE_WINDOW_DAYS = 14;
+
+    private static ExamReadinessService instance;
+
+    private final Map<Integer, SessionTotals> sessionTotals = new ConcurrentHashMap<>();
+    // Bumped on each write so a computation racing with it doesn't cache the old totals
+    private final Map<Integer, Long> writeCounts = new ConcurrentHashMap<>();
+
+    /**
+     * Shared service, registered for session writes
+     */
+    public static synchronized ExamReadinessService getInstance() {
+        if (instance == null) {
+            instance = new ExamReadinessService();
+            StudySessionDAO.addSessionListener(instance);
+        }
+        return instance;
+    }
+
+    @Override
+    public void sessionsChanged(int userId) {
+        writeCounts.merge(userId, 1L, Long::sum);
+        sessionTotals.remove(userId);
+    }
+
+    /**
+     * Forecasts of a user's non-completed exams from today on, by exam id, in date order
+     */
+    public Map<Integer, Forecast> getForecasts(int userId) throws SQLException {
+        return getForecasts(DatabaseManager.getInstance().getConnectionForUser(userId), userId);
+    }
+
+    /**
+     * Same, on a specific data connection (e.g. one borrowed from a ConnectionPool)
+     */
+    public Map<Integer, Forecast> getForecasts(Connection connection, int userId) throws SQLException {
+        LocalDate today = LocalDate.now();
+        SessionTotals totals = sessionTotals(connection, userId, today);
+
+        // Plan per subject from the chapters and the cached hours
+        Map<Integer, SubjectPlan> plans = new HashMap<>();
+        String chapterSql = """
+            SELECT c.id, c.subject_id, c.status, c.estimated_hours
+            FROM chapters c
+            JOIN subjects s ON c.subject_id = s.id
+            WHERE s.user_id = ?
+        """;
+        try (PreparedStatement stmt = connection.prepareStatement(chapterSql)) {
+            stmt.setInt(1, userId);
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                SubjectPlan plan = plans.computeIfAbsent(rs.getInt("subject_id"), id -> new SubjectPlan());
+                int estimate = Math.max(0, rs.getInt("estimated_hours"));
+                double logged = totals.hoursByChapter.getOrDefault(rs.getInt("id"), 0.0);
+                plan.plannedHours += estimate;
+                plan.chapters++;
+                if (rs.getInt("status") == Chapter.ChapterStatus.COMPLETED.getCode()) {
+                    plan.coveredHours += estimate;
+                    plan.completedChapters++;
+                } else {
+                    plan.coveredHours += Math.min(logged, estimate);
+                }
+            }
+        }
+
+        Map<Integer, Forecast> forecasts = new LinkedHashMap<>();
+        String examSql = """
+            SELECT e.id, e.subject_id, e.exam_date
+            FROM exams e
+            JOIN subjects s ON e.subject_id = s.id
+            WHERE s.user_id = ? AND e.is_completed = 0 AND e.exam_date >= ?
+            ORDER BY e.exam_date
+        """;
+        try (PreparedStatement stmt = connection.prepareStatement(examSql)) {
+            stmt.setInt(1, userId);
+            stmt.setLong(2, EpochTime.toDay(today));
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                int subjectId = rs.getInt("subject_id");
+                forecasts.put(rs.getInt("id"), forecast(rs.getInt("id"), subjectId,
+                    EpochTime.fromDay(rs.getLong("exam_date")), plans.get(subjectId),
+                    totals.recentHoursBySubject.getOrDefault(subjectId, 0.0), today));
+            }
+        }
+        return forecasts;
+    }
+
+    private static Forecast forecast(int examId, int subjectId, LocalDate examDate, SubjectPlan plan,
+                                     double recentHours, LocalDate today) {
+        double pace = recentHours / PACE_WINDOW_DAYS;
+        if (plan == null || plan.chapters == 0) {
+            return new Forecast(examId, subjectId, examDate, 0, 0, pace, null, today);
+        }
+
+        double readiness;
+        double remaining;
+        if (plan.plannedHours > 0) {
+            readiness = plan.coveredHours / plan.plannedHours;
+            remaining = plan.plannedHours - plan.coveredHours;
+        } else {
+            // No estimates: fall back to the share of completed chapters
+            readiness = (double) plan.completedChapters / plan.chapters;
+            remaining = 0;
+        }
+
+        LocalDate readyDate;
+        if (remaining <= 0 && readiness >= 1) {
+            readyDate = today;
+        } else if (pace > 0 && remaining > 0) {
+            readyDate = today.plusDays((long) Math.ceil(remaining / pace));
+        } else {
+            readyDate = null;
+        }
+        return new Forecast(examId, subjectId, examDate, readiness, remaining, pace, readyDate, today);
+    }
+
+    /**
+     * Hours per chapter (all time) and per subject (pace window) for a user, from the cache
+     * or one aggregate query over the covering sessions index
+     */
+    private SessionTotals sessionTotals(Connection connection, int userId, LocalDate today) throws SQLException {
+        SessionTotals cached = sessionTotals.get(userId);
+        if (cached != null && cached.computedOn.equals(today)) {
+            return cached;
+        }
+        long writesBefore = writeCounts.getOrDefault(userId, 0L);
+
+        String sql = """
+            SELECT t.chapter_id, c.subject_id, t.hours, t.recent_hours
+            FROM (SELECT chapter_id, SUM(hours_studied) AS hours,
+                         SUM(CASE WHEN session_date >= ? THEN hours_studied ELSE 0 END) AS recent_hours
+                  FROM study_sessions
+                  WHERE user_id = ?
+                  GROUP BY chapter_id) t
+            JOIN chapters c ON c.id = t.chapter_id
+        """;
+        SessionTotals totals = new SessionTotals(today);
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setLong(1, EpochTime.toSeconds(today.minusDays(PACE_WINDOW_DAYS)));
+            stmt.setInt(2, userId);
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                totals.hoursByChapter.put(rs.getInt("chapter_id"), rs.getDouble("hours"));
+                totals.recentHoursBySubject.merge(rs.getInt("subject_id"), rs.getDouble("recent_hours"), Double::sum);
+            }
+        }
+
+        if (writeCounts.getOrDefault(userId, 0L) == writesBefore) {
+            sessionTotals.put(userId, totals);
+        }
+        return totals;
+    }
+
+    private static class SessionTotals {
+        private final LocalDate computedOn;
+        private final Map<Integer, Double> hoursByChapter = new HashMap<>();
+        private final Map<Integer, Double> recentHoursBySubject = new HashMap<>();
+
+        SessionTotals(LocalDate computedOn) {
+            this.computedOn = computedOn;
+        }
+    }
+
+    private static class SubjectPlan {
+        private double plannedHours;
+        private double coveredHours;
+        private int chapters;
+        private int completedChapters;
+    }
+
+    /**
+     * Inner class for the readiness of one exam's subject
+     */
+    public static class Forecast {
+        private final int examId;
+        private final int subjectId;
+        private final LocalDate examDate;
+        private final double readiness;
+        private final double remainingHours;
+        private final double hoursPerDay;
+        private final LocalDate readyDate;
+        private final LocalDate today;
+
+        public Forecast(int examId, int subjectId, LocalDate examDate, double readiness, double remainingHours,
+                        double hoursPerDay, LocalDate readyDate, LocalDate today) {
+            this.examId = examId;
+            this.subjectId = subjectId;
+            this.examDate = examDate;
+            this.readiness = readiness;
+            this.remainingHours = remainingHours;
+            this.hoursPerDay = hoursPerDay;
+            this.readyDate = readyDate;
+            this.today = today;
+        }
+
+        public int getExamId() {
+            return examId;
+        }
+
+        public int getSubjectId() {
+            return subjectId;
+        }
+
+        /**
+         * Covered share of the subject's planned hours, 0 to 1
+         */
+        public double getReadiness() {
+            return readiness;
+        }
+
+        public double getRemainingHours() {
+            return remainingHours;
+        }
+
+        /**
+         * Recent study pace on the subject
+         */
+        public double getHoursPerDay() {
+            return hoursPerDay;
+        }
+
+        /**
+         * Predicted day the plan is covered at the recent pace; null if it never is
+         * (no recent study, or no chapters planned)
+         */
+        public LocalDate getReadyDate() {
+            return readyDate;
+        }
+
+        public boolean isOnTrack() {
+            return readyDate != null && !readyDate.isAfter(examDate);
+        }
+
+        /**
+         * Hours per day needed to cover the rest of the plan by the exam (the exam day included)
+         */
+        public double getRequiredHoursPerDay() {
+            long days = ChronoUnit.DAYS.between(today, examDate) + 1;
+            return remainingHours / Math.max(1, days);
+        }
+    }
+}
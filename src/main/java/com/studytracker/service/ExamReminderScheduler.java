@@ -0,0 +1,485 @@
+package com.studytracker.service;
+
+import com.studytracker.dao.ExamDAO;
+import com.studytracker.dao.SubjectDAO;
+import com.studytracker.database.DatabaseManager;
+import com.studytracker.model.Exam;
+import com.studytracker.model.Subject;
+import com.studytracker.util.EpochTime;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
+
+/**
+ * In-process exam reminders. Each pending exam of the tracked users gets one reminder per
+ * offset (by default a week before, the day before and the day of the exam, at 08:00) in
+ * a priority queue ordered by time. One daemon thread sleeps until the earliest reminder
+ * is due and hands it to the listeners, so nothing polls the database: pending exams are
+ * loaded once per user (once per database for all users in server mode), then ExamDAO and
+ * SubjectDAO writes reschedule or cancel the reminders of the exams they touch.
+ *
+ * When an exam is scheduled after some of its reminders' times (the app was closed, the
+ * exam was added late), only the latest of those is sent, right away.
+ *
+ * Rescheduling or cancelling an exam leaves its old reminders in the queue, marked
+ * cancelled; once they outnumber the live ones the queue is rebuilt without them, so
+ * frequent edits (server mode) don't grow it until the reminders' times.
+ *
+ * Configured with system properties: studytracker.examReminders.days (default 7,1,0)
+ * and studytracker.examReminders.hour (default 8).
+ */
+public class ExamReminderScheduler implements ExamDAO.ExamListener, SubjectDAO.SubjectListener {
+    private static final String DEFAULT_DAYS = "7,1,0";
+    private static final int DEFAULT_HOUR = 8;
+    // Look at the clock at least this often, in case it jumps (sleep, manual change)
+    private static final long MAX_WAIT_MS = 60_000;
+
+    private static ExamReminderScheduler instance;
+
+    private final int[] daysBefore; // descending
+    private final LocalTime reminderTime;
+    private final Clock clock;
+    private final List<ReminderListener> listeners = new CopyOnWriteArrayList<>();
+    private final PriorityQueue<Reminder> queue = new PriorityQueue<>(Comparator.comparingLong(Reminder::getDueSecond));
+    // Scheduled exams by database and id (ids repeat across shards)
+    private final Map<String, ScheduledExam> exams = new HashMap<>();
+    private final Set<Integer> trackedUsers = new HashSet<>();
+    // Reminders in the queue whose exam was cancelled or rescheduled
+    private int cancelledQueued;
+    private boolean trackAll;
+    // Bumped on each write so a load racing with it is done again
+    private long writeCount;
+    private LocalDate prunedOn;
+    private Thread thread;
+
+    public ExamReminderScheduler(int[] daysBefore, LocalTime reminderTime, Clock clock) {
+        this.daysBefore = Arrays.stream(daysBefore).boxed().sorted(Comparator.reverseOrder())
+            .mapToInt(Integer::intValue).toArray();
+        this.reminderTime = reminderTime;
+        this.clock = clock;
+    }
+
+    public static ExamReminderScheduler fromSystemProperties() {
+        int[] days = Arrays.stream(System.getProperty("studytracker.examReminders.days", DEFAULT_DAYS).split(","))
+            .map(String::trim)
+            .filter(day -> !day.isEmpty())
+            .mapToInt(Integer::parseInt)
+            .distinct()
+            .toArray();
+        int hour = Integer.getInteger("studytracker.examReminders.hour", DEFAULT_HOUR);
+        return new ExamReminderScheduler(days, LocalTime.of(hour, 0), Clock.systemDefaultZone());
+    }
+
+    /**
+     * Shared scheduler, registered for exam and subject writes (its thread starts with start())
+     */
+    public static synchronized ExamReminderScheduler getInstance() {
+        if (instance == null) {
+            instance = fromSystemProperties();
+            ExamDAO.addExamListener(instance);
+            SubjectDAO.addSubjectListener(instance);
+        }
+        return instance;
+    }
+
+    /**
+     * Start sending reminders on a daemon thread
+     */
+    public synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        thread = new Thread(this::run, "exam-reminders");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public synchronized void stop() {
+        if (thread == null) {
+            return;
+        }
+        thread.interrupt();
+        thread = null;
+    }
+
+    public void addReminderListener(ReminderListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeReminderListener(ReminderListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Schedule the reminders of a user's pending exams (one query through the given
+     * connection to their data; nothing if already tracked)
+     */
+    public void trackUser(int userId, Connection connection) throws SQLException {
+        synchronized (this) {
+            if (trackAll || !trackedUsers.add(userId)) {
+                return;
+            }
+        }
+        loadUser(userId, connection);
+    }
+
+    /**
+     * Stop sending a user's reminders (e.g. on logout)
+     */
+    public synchronized void untrackUser(int userId) {
+        if (trackedUsers.remove(userId) && !trackAll) {
+            cancelWhere(scheduled -> scheduled.userId == userId);
+        }
+    }
+
+    /**
+     * Schedule the reminders of every user's pending exams, one query per database (server mode)
+     */
+    public void trackAllUsers() throws SQLException {
+        synchronized (this) {
+            if (trackAll) {
+                return;
+            }
+            trackAll = true;
+        }
+        DatabaseManager databaseManager = DatabaseManager.getInstance();
+        for (int shard = 0; shard < databaseManager.getShardCount(); shard++) {
+            Connection connection = databaseManager.getShardConnection(shard);
+            String database = DatabaseManager.databaseOf(connection);
+            ExamDAO examDAO = new ExamDAO(connection);
+            while (true) {
+                long writesBefore = writeCount();
+                List<ExamDAO.PendingExam> pending = examDAO.findAllPending();
+                synchronized (this) {
+                    if (writeCount == writesBefore) {
+                        replace(database, scheduled -> true, pending);
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Number of reminders in the queue (cancelled ones included until the queue is compacted)
+     */
+    public synchronized int getQueuedCount() {
+        return queue.size();
+    }
+
+    // Load a tracked user's pending exams, again if a write raced with the query
+    private void loadUser(int userId, Connection connection) throws SQLException {
+        String database = DatabaseManager.databaseOf(connection);
+        ExamDAO examDAO = new ExamDAO(connection);
+        while (true) {
+            long writesBefore = writeCount();
+            List<ExamDAO.PendingExam> pending = new ArrayList<>();
+            for (Exam exam : examDAO.findPendingByUserId(userId)) {
+                pending.add(new ExamDAO.PendingExam(userId, exam));
+            }
+            synchronized (this) {
+                if (writeCount == writesBefore) {
+                    replace(database, scheduled -> scheduled.userId == userId, pending);
+                    return;
+                }
+            }
+        }
+    }
+
+    private synchronized long writeCount() {
+        return writeCount;
+    }
+
+    @Override
+    public void examSaved(Connection connection, Exam exam) {
+        String database = DatabaseManager.databaseOf(connection);
+        Integer userId;
+        synchronized (this) {
+            writeCount++;
+            if (database == null || (!trackAll && trackedUsers.isEmpty())) {
+                return;
+            }
+            ScheduledExam scheduled = exams.get(key(database, exam.getId()));
+            userId = scheduled != null ? scheduled.userId : null;
+        }
+        if (userId == null) {
+            // New (or newly pending) exam: its owner is on the connection it was written on
+            try {
+                Subject subject = new SubjectDAO(connection).findById(exam.getSubjectId());
+                if (subject == null) {
+                    return;
+                }
+                userId = subject.getUserId();
+            } catch (SQLException e) {
+                e.printStackTrace();
+                return;
+            }
+        }
+        synchronized (this) {
+            if (trackAll || trackedUsers.contains(userId)) {
+                schedule(database, userId, copyOf(exam));
+            }
+        }
+    }
+
+    @Override
+    public synchronized void examDeleted(Connection connection, int examId) {
+        writeCount++;
+        String database = DatabaseManager.databaseOf(connection);
+        cancelWhere(scheduled -> scheduled.database.equals(database) && scheduled.exam.getId() == examId);
+    }
+
+    @Override
+    public void subjectSaved(Connection connection, Subject subject) {
+        // Subject names aren't part of the reminders
+    }
+
+    @Override
+    public synchronized void subjectDeleted(Connection connection, int subjectId) {
+        writeCount++;
+        String database = DatabaseManager.databaseOf(connection);
+        cancelWhere(scheduled -> scheduled.database.equals(database) && scheduled.exam.getSubjectId() == subjectId);
+    }
+
+    @Override
+    public void subjectsChanged(Connection connection, int userId) {
+        boolean tracked;
+        synchronized (this) {
+            writeCount++;
+            tracked = trackAll || trackedUsers.contains(userId);
+        }
+        if (tracked) {
+            try {
+                loadUser(userId, connection);
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    // Schedule the loaded exams and cancel the other exams in scope that are no longer pending
+    private void replace(String database, Predicate<ScheduledExam> scope, List<ExamDAO.PendingExam> pending) {
+        Set<Integer> loaded = new HashSet<>();
+        for (ExamDAO.PendingExam exam : pending) {
+            loaded.add(exam.getExam().getId());
+            schedule(database, exam.getUserId(), exam.getExam());
+        }
+        cancelWhere(scheduled -> scheduled.database.equals(database) && scope.test(scheduled)
+            && !loaded.contains(scheduled.exam.getId()));
+    }
+
+    private void schedule(String database, int userId, Exam exam) {
+        String key = key(database, exam.getId());
+        ScheduledExam previous = exams.remove(key);
+        if (previous != null) {
+            cancel(previous);
+        }
+        LocalDateTime now = LocalDateTime.now(clock);
+        if (exam.isCompleted() || exam.getExamDate().isBefore(now.toLocalDate())) {
+            return;
+        }
+
+        ScheduledExam scheduled = new ScheduledExam(database, userId, exam);
+        if (previous != null && previous.exam.getExamDate().equals(exam.getExamDate())) {
+            // Same date: don't send again what was already sent
+            scheduled.sentDaysBefore = previous.sentDaysBefore;
+        }
+        exams.put(key, scheduled);
+
+        long nowSecond = EpochTime.toSeconds(now);
+        Reminder late = null;
+        for (int days : daysBefore) {
+            if (days >= scheduled.sentDaysBefore) {
+                continue;
+            }
+            long dueSecond = EpochTime.toSeconds(exam.getExamDate().minusDays(days).atTime(reminderTime));
+            if (dueSecond > nowSecond) {
+                enqueue(new Reminder(scheduled, days, dueSecond));
+            } else {
+                // Offsets are descending: the last one past is the latest
+                late = new Reminder(scheduled, days, nowSecond);
+            }
+        }
+        if (late != null) {
+            enqueue(late);
+        }
+        compactQueue();
+        notifyAll();
+    }
+
+    private void cancelWhere(Predicate<ScheduledExam> condition) {
+        Iterator<ScheduledExam> iterator = exams.values().iterator();
+        while (iterator.hasNext()) {
+            ScheduledExam scheduled = iterator.next();
+            if (condition.test(scheduled)) {
+                cancel(scheduled);
+                iterator.remove();
+            }
+        }
+        compactQueue();
+    }
+
+    private void enqueue(Reminder reminder) {
+        queue.add(reminder);
+        reminder.scheduled.queued++;
+    }
+
+    // Its reminders stay in the queue (skipped when they come up) until compactQueue
+    private void cancel(ScheduledExam scheduled) {
+        scheduled.cancelled = true;
+        cancelledQueued += scheduled.queued;
+    }
+
+    // Drop the cancelled reminders once they outnumber the live ones (one linear rebuild,
+    // so each cancellation costs O(1) amortized)
+    private void compactQueue() {
+        if (cancelledQueued > queue.size() - cancelledQueued) {
+            queue.removeIf(reminder -> reminder.scheduled.cancelled);
+            cancelledQueued = 0;
+        }
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                for (Reminder reminder : takeDue()) {
+                    for (ReminderListener listener : listeners) {
+                        try {
+                            listener.examReminder(reminder);
+                        } catch (RuntimeException e) {
+                            e.printStackTrace();
+                        }
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            // Stopped
+        }
+    }
+
+    // Wait for the next due reminders
+    private synchronized List<Reminder> takeDue() throws InterruptedException {
+        while (true) {
+            LocalDateTime now = LocalDateTime.now(clock);
+            long nowSecond = EpochTime.toSeconds(now);
+            if (!now.toLocalDate().equals(prunedOn)) {
+                // Forget the exams whose day has passed
+                LocalDate today = now.toLocalDate();
+                cancelWhere(scheduled -> scheduled.exam.getExamDate().isBefore(today));
+                prunedOn = today;
+            }
+
+            List<Reminder> due = new ArrayList<>();
+            while (!queue.isEmpty() && queue.peek().dueSecond <= nowSecond) {
+                Reminder reminder = queue.poll();
+                ScheduledExam scheduled = reminder.scheduled;
+                scheduled.queued--;
+                if (scheduled.cancelled) {
+                    cancelledQueued--;
+                }
+                if (!scheduled.cancelled && reminder.daysBefore < scheduled.sentDaysBefore) {
+                    scheduled.sentDaysBefore = reminder.daysBefore;
+                    due.add(reminder);
+                }
+            }
+            if (!due.isEmpty()) {
+                return due;
+            }
+            long waitMs = queue.isEmpty() ? MAX_WAIT_MS
+                : Math.min(MAX_WAIT_MS, (queue.peek().dueSecond - nowSecond) * 1000);
+            wait(Math.max(1, waitMs));
+        }
+    }
+
+    private static String key(String database, int examId) {
+        return database + "#" + examId;
+    }
+
+    // Callers may change the Exam objects they save, so the scheduler keeps its own copies
+    private static Exam copyOf(Exam exam) {
+        return new Exam(exam.getId(), exam.getSubjectId(), exam.getName(), exam.getDescription(),
+            exam.getExamDate(), exam.isCompleted());
+    }
+
+    /**
+     * A pending exam and how far its reminders went
+     */
+    private static class ScheduledExam {
+        private final String database;
+        private final int userId;
+        private final Exam exam;
+        // Offset of the last reminder sent (MAX_VALUE: none yet)
+        private int sentDaysBefore = Integer.MAX_VALUE;
+        // Reminders of this exam in the queue
+        private int queued;
+        private boolean cancelled;
+
+        private ScheduledExam(String database, int userId, Exam exam) {
+            this.database = database;
+            this.userId = userId;
+            this.exam = exam;
+        }
+    }
+
+    /**
+     * Inner class for one reminder of an exam
+     */
+    public static class Reminder {
+        private final ScheduledExam scheduled;
+        private final int daysBefore;
+        private final long dueSecond;
+
+        private Reminder(ScheduledExam scheduled, int daysBefore, long dueSecond) {
+            this.scheduled = scheduled;
+            this.daysBefore = daysBefore;
+            this.dueSecond = dueSecond;
+        }
+
+        public int getUserId() {
+            return scheduled.userId;
+        }
+
+        public Exam getExam() {
+            return copyOf(scheduled.exam);
+        }
+
+        /**
+         * Days left until the exam when the reminder was due (0 on the day)
+         */
+        public int getDaysBefore() {
+            return daysBefore;
+        }
+
+        public long getDueSecond() {
+            return dueSecond;
+        }
+
+        public String getMessage() {
+            String when = daysBefore == 0 ? "today" : daysBefore == 1 ? "tomorrow" : "in " + daysBefore + " days";
+            return "📝 " + scheduled.exam.getName() + " is " + when + " (" + scheduled.exam.getExamDate() + ")";
+        }
+    }
+
+    /**
+     * Listener for due reminders, called on the scheduler's thread
+     */
+    public interface ReminderListener {
+        void examReminder(Reminder reminder);
+    }
+}
@@ -5,24 +5,53 @@ import com.studytracker.dao.UserDAO;
 import com.studytracker.database.DatabaseManager;
 import com.studytracker.model.Badge;
 import com.studytracker.model.User;
+import com.studytracker.util.EpochTime;
 
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Service for handling gamification features like XP, levels, and badges.
  */
 public class GamificationService {
+    private static final Map<Connection, GamificationService> SHARED = new ConcurrentHashMap<>();
     private final Connection connection;
     private final UserDAO userDAO;
     private final ChapterDAO chapterDAO;
 
     public GamificationService() {
-        this.connection = DatabaseManager.getInstance().getConnection();
-        this.userDAO = new UserDAO();
-        this.chapterDAO = new ChapterDAO();
+        this(DatabaseManager.getInstance().getConnection());
+    }
+
+    /**
+     * Use a specific connection (e.g. one borrowed from a ConnectionPool)
+     */
+    public GamificationService(Connection connection) {
+        this(connection, connection);
+    }
+
+    /**
+     * Users are read from the directory connection, badges and chapters from the data connection
+     * (the same connection unless sharding is on)
+     */
+    public GamificationService(Connection directoryConnection, Connection dataConnection) {
+        this.connection = dataConnection;
+        this.userDAO = new UserDAO(directoryConnection);
+        this.chapterDAO = new ChapterDAO(dataConnection);
+    }
+
+    /**
+     * Service on the databases holding this user (their shard when sharding is on),
+     * shared by all callers like the DAOs' forUser
+     */
+    public static GamificationService forUser(int userId) {
+        DatabaseManager databaseManager = DatabaseManager.getInstance();
+        return SHARED.computeIfAbsent(databaseManager.getConnectionForUser(userId),
+            dataConnection -> new GamificationService(databaseManager.getConnection(), dataConnection));
     }
 
     /**
@@ -38,8 +67,8 @@ public class GamificationService {
 
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setInt(1, userId);
-            stmt.setString(2, badgeType.name());
-            stmt.setString(3, LocalDateTime.now().toString());
+            stmt.setInt(2, badgeType.getCode());
+            stmt.setLong(3, EpochTime.toSeconds(LocalDateTime.now()));
             stmt.executeUpdate();
         }
     }
@@ -52,7 +81,7 @@ public class GamificationService {
 
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setInt(1, userId);
-            stmt.setString(2, badgeType.name());
+            stmt.setInt(2, badgeType.getCode());
             ResultSet rs = stmt.executeQuery();
 
             if (rs.next()) {
@@ -74,7 +103,7 @@ public class GamificationService {
             ResultSet rs = stmt.executeQuery();
 
             while (rs.next()) {
-                badges.add(Badge.BadgeType.valueOf(rs.getString("badge_type")));
+                badges.add(Badge.BadgeType.fromCode(rs.getInt("badge_type")));
             }
         }
         return badges;
@@ -0,0 +1,292 @@
+package com.studytracker.service;
+
+import com.studytracker.dao.UserDAO;
+import com.studytracker.model.User;
+import com.studytracker.util.FenwickTree;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Global and class-wide XP leaderboards kept in memory.
+ *
+ * Users are loaded once (ordered by the users.xp index), through the connection of the
+ * first caller, and then kept up to date from UserDAO's XP listener, so nothing re-sorts
+ * the users table per view. Each board keeps a sorted set for top-N and, for ranks
+ * (rank = 1 + number of users with more XP), user counts per XP value plus a Fenwick tree
+ * of the counts per XP range. The ranges widen as XP grows, so a board's tree stays under
+ * MAX_BUCKETS nodes; a rank adds the ranges above the user's to the counts above it in its own.
+ */
+public class LeaderboardService implements UserDAO.XpListener {
+    private static final Comparator<Entry> BY_XP_DESC = Comparator
+        .comparingInt(Entry::getXp).reversed()
+        .thenComparingInt(Entry::getUserId);
+
+    private static LeaderboardService instance;
+
+    private final Board global = new Board();
+    private final Map<String, Board> classes = new HashMap<>();
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private boolean loaded;
+
+    /**
+     * Shared leaderboard, registered for XP updates
+     */
+    public static synchronized LeaderboardService getInstance() {
+        if (instance == null) {
+            instance = new LeaderboardService();
+            UserDAO.addXpListener(instance);
+        }
+        return instance;
+    }
+
+    /**
+     * Best users, globally (className null) or within a class. The connection, to the users
+     * database, is only used to load the boards if they aren't yet.
+     */
+    public synchronized List<Standing> getTop(Connection connection, String className, int limit)
+            throws SQLException {
+        ensureLoaded(connection);
+        Board board = boardFor(className);
+        List<Standing> top = new ArrayList<>();
+        if (board == null) {
+            return top;
+        }
+        Iterator<Entry> iterator = board.ordered.iterator();
+        while (iterator.hasNext() && top.size() < limit) {
+            Entry entry = iterator.next();
+            top.add(new Standing(entry, board.rankOf(entry.getXp()), board.size()));
+        }
+        return top;
+    }
+
+    /**
+     * A user's rank, globally or within their own class; null if unknown (the connection
+     * as in getTop)
+     */
+    public synchronized Standing getStanding(Connection connection, int userId, boolean classOnly)
+            throws SQLException {
+        ensureLoaded(connection);
+        Entry entry = entries.get(userId);
+        if (entry == null || (classOnly && entry.getClassName() == null)) {
+            return null;
+        }
+        Board board = classOnly ? boardFor(entry.getClassName()) : global;
+        if (board == null) {
+            return null;
+        }
+        return new Standing(entry, board.rankOf(entry.getXp()), board.size());
+    }
+
+    @Override
+    public synchronized void xpChanged(User user) {
+        if (!loaded) {
+            // Loading will read the stored value
+            return;
+        }
+        remove(user.getId());
+        add(new Entry(user.getId(), user.getUsername(), user.getClassName(), user.getXp(), user.getLevel()));
+    }
+
+    @Override
+    public synchronized void userDeleted(int userId) {
+        if (loaded) {
+            remove(userId);
+        }
+    }
+
+    /**
+     * Drop the in-memory boards; the next query reloads them
+     */
+    public synchronized void invalidate() {
+        loaded = false;
+        entries.clear();
+        classes.clear();
+        global.clear();
+    }
+
+    private void ensureLoaded(Connection connection) throws SQLException {
+        if (loaded) {
+            return;
+        }
+        String sql = "SELECT id, username, class_name, xp, level FROM users ORDER BY xp DESC";
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                add(new Entry(rs.getInt("id"), rs.getString("username"), rs.getString("class_name"),
+                    rs.getInt("xp"), rs.getInt("level")));
+            }
+        }
+        loaded = true;
+    }
+
+    private Board boardFor(String className) {
+        return className == null ? global : classes.get(className);
+    }
+
+    private void add(Entry entry) {
+        entries.put(entry.getUserId(), entry);
+        global.add(entry);
+        if (entry.getClassName() != null) {
+            classes.computeIfAbsent(entry.getClassName(), c -> new Board()).add(entry);
+        }
+    }
+
+    private void remove(int userId) {
+        Entry entry = entries.remove(userId);
+        if (entry == null) {
+            return;
+        }
+        global.remove(entry);
+        if (entry.getClassName() != null) {
+            Board board = classes.get(entry.getClassName());
+            board.remove(entry);
+            if (board.size() == 0) {
+                classes.remove(entry.getClassName());
+            }
+        }
+    }
+
+    /**
+     * One ranking: sorted entries, user counts per XP value and per XP range (bucket)
+     */
+    private static final class Board {
+        // Buckets are xp >> shift; the shift grows to keep them under this count
+        private static final int MAX_BUCKETS = 4096;
+        private static final int INITIAL_BUCKETS = 64;
+
+        private final TreeSet<Entry> ordered = new TreeSet<>(BY_XP_DESC);
+        private final TreeMap<Integer, Integer> countsByXp = new TreeMap<>();
+        private FenwickTree countsByBucket = new FenwickTree(INITIAL_BUCKETS);
+        private int shift;
+
+        void add(Entry entry) {
+            ordered.add(entry);
+            count(Math.max(0, entry.getXp()), 1);
+        }
+
+        void remove(Entry entry) {
+            ordered.remove(entry);
+            count(Math.max(0, entry.getXp()), -1);
+        }
+
+        private void count(int xp, int delta) {
+            countsByXp.merge(xp, delta, (count, added) -> count + added == 0 ? null : count + added);
+            if (xp >> shift < MAX_BUCKETS) {
+                countsByBucket.add(xp >> shift, delta);
+                return;
+            }
+            // Wider buckets, recounted from the exact counts (which already include this one)
+            while (xp >> shift >= MAX_BUCKETS) {
+                shift++;
+            }
+            countsByBucket = new FenwickTree(INITIAL_BUCKETS);
+            for (Map.Entry<Integer, Integer> counted : countsByXp.entrySet()) {
+                countsByBucket.add(counted.getKey() >> shift, counted.getValue());
+            }
+        }
+
+        /**
+         * Ties share a rank (1, 2, 2, 4, ...)
+         */
+        int rankOf(int xp) {
+            int bucket = Math.max(0, xp) >> shift;
+            long above = countsByBucket.total() - countsByBucket.prefixSum(bucket);
+            // Users above in the same bucket, at most the bucket's distinct XP values
+            for (Map.Entry<Integer, Integer> counted : countsByXp.tailMap(Math.max(0, xp), false).entrySet()) {
+                if (counted.getKey() >> shift != bucket) {
+                    break;
+                }
+                above += counted.getValue();
+            }
+            return 1 + (int) above;
+        }
+
+        int size() {
+            return ordered.size();
+        }
+
+        void clear() {
+            ordered.clear();
+            countsByXp.clear();
+            countsByBucket = new FenwickTree(INITIAL_BUCKETS);
+            shift = 0;
+        }
+    }
+
+    /**
+     * Inner class for one user on a leaderboard
+     */
+    public static class Entry {
+        private final int userId;
+        private final String username;
+        private final String className;
+        private final int xp;
+        private final int level;
+
+        public Entry(int userId, String username, String className, int xp, int level) {
+            this.userId = userId;
+            this.username = username;
+            this.className = className;
+            this.xp = xp;
+            this.level = level;
+        }
+
+        public int getUserId() {
+            return userId;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public String getClassName() {
+            return className;
+        }
+
+        public int getXp() {
+            return xp;
+        }
+
+        public int getLevel() {
+            return level;
+        }
+    }
+
+    /**
+     * Inner class for an entry with its rank on a board of the given size
+     */
+    public static class Standing {
+        private final Entry entry;
+        private final int rank;
+        private final int participants;
+
+        public Standing(Entry entry, int rank, int participants) {
+            this.entry = entry;
+            this.rank = rank;
+            this.participants = participants;
+        }
+
+        public Entry getEntry() {
+            return entry;
+        }
+
+        public int getRank() {
+            return rank;
+        }
+
+        public int getParticipants() {
+            return participants;
+        }
+    }
+}
@@ -0,0 +1,422 @@
+package com.studytracker.service;
+
+import com.studytracker.dao.StudySessionDAO;
+import com.studytracker.database.DatabaseManager;
+import com.studytracker.model.Chapter;
+import com.studytracker.model.StudySession;
+import com.studytracker.util.EpochTime;
+import com.studytracker.util.FenwickTree;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Day-by-day study plan up to a user's upcoming exams.
+ *
+ * Each open chapter is due the day before the first upcoming exam of its subject. Chapters
+ * are queued by deadline (the order that meets every deadline whenever any order can), the
+ * longest estimate first among equal deadlines (sessions don't change that order, so an
+ * in-place update gives the same plan as a rebuild), and the queue is poured into the
+ * user's daily hours: with P(i) the remaining minutes of the first i chapters, chapter i
+ * is studied over [P(i-1), P(i)) of the timeline. The remaining minutes live in a Fenwick tree, so a logged
+ * session is one O(log n) update that moves every later chapter forward, and a day's
+ * entries are found with a lowerBound search. Nothing is re-planned from scratch until a
+ * chapter or exam changes.
+ */
+public class StudyPlanner implements StudySessionDAO.SessionListener {
+    public static final int MAX_DAYS = 366;
+
+    private static final Map<Integer, StudyPlanner> PLANNERS = new HashMap<>();
+
+    private final int userId;
+    private final Connection connection;
+
+    // Minutes logged per chapter, kept up to date from the session listener
+    private final Map<Integer, Long> loggedMinutes = new HashMap<>();
+    private long studiedTodayMinutes;
+    private boolean loggedStale = true;
+
+    private LocalDate today;
+    private long dailyMinutes;
+    private String structureKey;
+    private List<PlannedChapter> queue = new ArrayList<>();
+    private final Map<Integer, Integer> positions = new HashMap<>();
+    private List<ExamOutlook> exams = new ArrayList<>();
+    private FenwickTree remaining = new FenwickTree(1);
+
+    public StudyPlanner(Connection connection, int userId) {
+        this.connection = connection;
+        this.userId = userId;
+    }
+
+    /**
+     * Shared planner of a user, registered for their session writes
+     */
+    public static synchronized StudyPlanner forUser(int userId) {
+        return PLANNERS.computeIfAbsent(userId, id -> {
+            StudyPlanner planner = new StudyPlanner(DatabaseManager.getInstance().getConnectionForUser(id), id);
+            StudySessionDAO.addSessionListener(planner);
+            return planner;
+        });
+    }
+
+    /**
+     * Bring the plan up to date: re-reads the (small) chapter and exam lists and rebuilds
+     * the queue only if they, the date or the daily hours changed
+     */
+    public synchronized void refresh(double dailyHours) throws SQLException {
+        LocalDate now = LocalDate.now();
+        boolean rebuild = false;
+        if (loggedStale || !now.equals(today)) {
+            loadLoggedMinutes(now);
+            rebuild = true;
+        }
+
+        List<PlannedChapter> chapters = new ArrayList<>();
+        List<ExamOutlook> upcoming = new ArrayList<>();
+        String key = loadStructure(now, chapters, upcoming);
+        long minutes = Math.max(1, Math.round(dailyHours * 60));
+        if (!rebuild && key.equals(structureKey) && minutes == dailyMinutes) {
+            return;
+        }
+
+        today = now;
+        dailyMinutes = minutes;
+        structureKey = key;
+        build(chapters, upcoming);
+    }
+
+    @Override
+    public synchronized void sessionCreated(StudySession session) {
+        if (session.getUserId() != userId || loggedStale) {
+            return;
+        }
+        long minutes = Math.round(session.getHoursStudied() * 60);
+        long logged = loggedMinutes.merge(session.getChapterId(), minutes, Long::sum);
+        if (session.getSessionDate() != null && session.getSessionDate().toLocalDate().equals(today)) {
+            studiedTodayMinutes += minutes;
+        }
+
+        Integer position = positions.get(session.getChapterId());
+        if (position != null) {
+            long left = Math.max(0, queue.get(position).getEstimatedMinutes() - logged);
+            remaining.add(position, left - remaining.get(position));
+        }
+    }
+
+    @Override
+    public synchronized void sessionsChanged(int changedUserId) {
+        if (changedUserId == userId) {
+            loggedStale = true;
+        }
+    }
+
+    public synchronized LocalDate getStartDate() {
+        return today;
+    }
+
+    /**
+     * Number of planned days: up to the last exam, or longer if the work doesn't fit before it
+     */
+    public synchronized int getDayCount() {
+        if (exams.isEmpty()) {
+            return 0;
+        }
+        long untilLastExam = ChronoUnit.DAYS.between(today, exams.get(exams.size() - 1).getExamDate());
+        long total = remaining.total();
+        long firstDay = todayMinutes();
+        long workDays = total <= firstDay ? 1 : 2 + (total - firstDay - 1) / dailyMinutes;
+        return (int) Math.min(MAX_DAYS, Math.max(untilLastExam, workDays));
+    }
+
+    /**
+     * What to study on day (0 = today), in queue order
+     */
+    public synchronized List<PlanEntry> getDay(int day) {
+        List<PlanEntry> entries = new ArrayList<>();
+        long from = dayStart(day);
+        long to = dayStart(day + 1);
+        if (to <= from) {
+            return entries;
+        }
+        LocalDate date = today.plusDays(day);
+        int position = remaining.lowerBound(from + 1);
+        long start = remaining.prefixSum(position - 1);
+        for (; position < queue.size() && start < to; position++) {
+            long end = start + remaining.get(position);
+            long minutes = Math.min(end, to) - Math.max(start, from);
+            if (minutes > 0) {
+                PlannedChapter chapter = queue.get(position);
+                entries.add(new PlanEntry(chapter, minutes, !date.isBefore(chapter.getDeadline())));
+            }
+            start = end;
+        }
+        return entries;
+    }
+
+    /**
+     * Upcoming exams with the hours still needed before each (its chapters and those due
+     * earlier) against the hours available until then
+     */
+    public synchronized List<ExamOutlook> getExams() {
+        for (ExamOutlook exam : exams) {
+            exam.neededMinutes = remaining.prefixSum(exam.lastPosition);
+            exam.availableMinutes = dayStart((int) ChronoUnit.DAYS.between(today, exam.getExamDate()));
+        }
+        return new ArrayList<>(exams);
+    }
+
+    /**
+     * Timeline offset where a day starts: today only has what's left of the daily hours
+     */
+    private long dayStart(int day) {
+        return day <= 0 ? 0 : todayMinutes() + (day - 1) * dailyMinutes;
+    }
+
+    private long todayMinutes() {
+        return Math.max(0, dailyMinutes - studiedTodayMinutes);
+    }
+
+    private void build(List<PlannedChapter> chapters, List<ExamOutlook> upcoming) {
+        chapters.sort(Comparator.comparing(PlannedChapter::getDeadline)
+            .thenComparing(Comparator.comparingLong(PlannedChapter::getEstimatedMinutes).reversed())
+            .thenComparingInt(PlannedChapter::getChapterId));
+        queue = chapters;
+        positions.clear();
+        remaining = new FenwickTree(Math.max(1, chapters.size()));
+        for (int i = 0; i < chapters.size(); i++) {
+            positions.put(chapters.get(i).getChapterId(), i);
+            remaining.add(i, remainingMinutes(chapters.get(i)));
+        }
+
+        // Last queued chapter due before each exam (the queue is sorted by deadline)
+        int position = -1;
+        for (ExamOutlook exam : upcoming) {
+            while (position + 1 < queue.size() && !queue.get(position + 1).getDeadline().isAfter(exam.getExamDate())) {
+                position++;
+            }
+            exam.lastPosition = position;
+        }
+        exams = upcoming;
+    }
+
+    private long remainingMinutes(PlannedChapter chapter) {
+        return Math.max(0, chapter.getEstimatedMinutes() - loggedMinutes.getOrDefault(chapter.getChapterId(), 0L));
+    }
+
+    /**
+     * Minutes logged per chapter and today, in one pass over the user's sessions
+     */
+    private void loadLoggedMinutes(LocalDate now) throws SQLException {
+        String sql = """
+            SELECT chapter_id, SUM(hours_studied) AS hours,
+                   SUM(CASE WHEN session_date >= ? THEN hours_studied ELSE 0 END) AS today_hours
+            FROM study_sessions
+            WHERE user_id = ?
+            GROUP BY chapter_id
+        """;
+        loggedMinutes.clear();
+        double todayHours = 0;
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setLong(1, EpochTime.toSeconds(now));
+            stmt.setInt(2, userId);
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                loggedMinutes.put(rs.getInt("chapter_id"), Math.round(rs.getDouble("hours") * 60));
+                todayHours += rs.getDouble("today_hours");
+            }
+        }
+        studiedTodayMinutes = Math.round(todayHours * 60);
+        loggedStale = false;
+    }
+
+    /**
+     * Open chapters with an upcoming exam and the upcoming exams (in date order); returns
+     * a key that changes whenever something the plan shows changes
+     */
+    private String loadStructure(LocalDate now, List<PlannedChapter> chapters, List<ExamOutlook> upcoming)
+            throws SQLException {
+        StringBuilder key = new StringBuilder();
+        Map<Integer, ExamOutlook> firstExamBySubject = new HashMap<>();
+        String examSql = """
+            SELECT e.id, e.name, e.exam_date, s.id AS subject_id, s.name AS subject_name
+            FROM exams e
+            JOIN subjects s ON e.subject_id = s.id
+            WHERE s.user_id = ? AND e.is_completed = 0 AND e.exam_date >= ?
+            ORDER BY e.exam_date, e.id
+        """;
+        try (PreparedStatement stmt = connection.prepareStatement(examSql)) {
+            stmt.setInt(1, userId);
+            stmt.setLong(2, EpochTime.toDay(now));
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                ExamOutlook exam = new ExamOutlook(rs.getInt("id"), rs.getString("name"),
+                    rs.getString("subject_name"), EpochTime.fromDay(rs.getLong("exam_date")));
+                upcoming.add(exam);
+                firstExamBySubject.putIfAbsent(rs.getInt("subject_id"), exam);
+                key.append('e').append(exam.getExamId()).append(exam.getExamName()).append(exam.getExamDate());
+            }
+        }
+
+        String chapterSql = """
+            SELECT c.id, c.name, c.estimated_hours, s.id AS subject_id, s.name AS subject_name
+            FROM chapters c
+            JOIN subjects s ON c.subject_id = s.id
+            WHERE s.user_id = ? AND c.status <> %d
+            ORDER BY c.id
+        """.formatted(Chapter.ChapterStatus.COMPLETED.getCode());
+        try (PreparedStatement stmt = connection.prepareStatement(chapterSql)) {
+            stmt.setInt(1, userId);
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                ExamOutlook exam = firstExamBySubject.get(rs.getInt("subject_id"));
+                if (exam == null) {
+                    continue;
+                }
+                PlannedChapter chapter = new PlannedChapter(rs.getInt("id"), rs.getString("name"),
+                    rs.getString("subject_name"), exam.getExamName(), exam.getExamDate(),
+                    Math.max(0, rs.getInt("estimated_hours")) * 60L);
+                chapters.add(chapter);
+                key.append('c').append(chapter.getChapterId()).append(chapter.getChapterName())
+                    .append(chapter.getEstimatedMinutes()).append(exam.getExamId());
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * Inner class for a chapter in the plan's queue
+     */
+    public static class PlannedChapter {
+        private final int chapterId;
+        private final String chapterName;
+        private final String subjectName;
+        private final String examName;
+        private final LocalDate deadline;
+        private final long estimatedMinutes;
+
+        public PlannedChapter(int chapterId, String chapterName, String subjectName, String examName,
+                              LocalDate deadline, long estimatedMinutes) {
+            this.chapterId = chapterId;
+            this.chapterName = chapterName;
+            this.subjectName = subjectName;
+            this.examName = examName;
+            this.deadline = deadline;
+            this.estimatedMinutes = estimatedMinutes;
+        }
+
+        public int getChapterId() {
+            return chapterId;
+        }
+
+        public String getChapterName() {
+            return chapterName;
+        }
+
+        public String getSubjectName() {
+            return subjectName;
+        }
+
+        public String getExamName() {
+            return examName;
+        }
+
+        /**
+         * Date of the exam the chapter is due for (it should be done the day before)
+         */
+        public LocalDate getDeadline() {
+            return deadline;
+        }
+
+        public long getEstimatedMinutes() {
+            return estimatedMinutes;
+        }
+    }
+
+    /**
+     * Inner class for time planned on a chapter during one day
+     */
+    public static class PlanEntry {
+        private final PlannedChapter chapter;
+        private final long minutes;
+        private final boolean late;
+
+        public PlanEntry(PlannedChapter chapter, long minutes, boolean late) {
+            this.chapter = chapter;
+            this.minutes = minutes;
+            this.late = late;
+        }
+
+        public PlannedChapter getChapter() {
+            return chapter;
+        }
+
+        public long getMinutes() {
+            return minutes;
+        }
+
+        /**
+         * True when this day is on or after the chapter's exam
+         */
+        public boolean isLate() {
+            return late;
+        }
+    }
+
+    /**
+     * Inner class for an upcoming exam and the hours needed before it
+     */
+    public static class ExamOutlook {
+        private final int examId;
+        private final String examName;
+        private final String subjectName;
+        private final LocalDate examDate;
+        private int lastPosition = -1;
+        private long neededMinutes;
+        private long availableMinutes;
+
+        public ExamOutlook(int examId, String examName, String subjectName, LocalDate examDate) {
+            this.examId = examId;
+            this.examName = examName;
+            this.subjectName = subjectName;
+            this.examDate = examDate;
+        }
+
+        public int getExamId() {
+            return examId;
+        }
+
+        public String getExamName() {
+            return examName;
+        }
+
+        public String getSubjectName() {
+            return subjectName;
+        }
+
+        public LocalDate getExamDate() {
+            return examDate;
+        }
+
+        public long getNeededMinutes() {
+            return neededMinutes;
+        }
+
+        public long getAvailableMinutes() {
+            return availableMinutes;
+        }
+
+        public boolean isOnTrack() {
+            return neededMinutes <= availableMinutes;
+        }
+    }
+}
@@ -0,0 +1,437 @@
+package com.studytracker.service;
+
+import com.studytracker.dao.StudySessionDAO;
+import com.studytracker.database.DatabaseManager;
+import com.studytracker.util.EpochTime;
+import com.studytracker.util.Lttb;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Read-only columnar snapshot of a user's study sessions for analytics: one primitive
+ * array per column (chapter, subject, epoch second, hours, XP), rows in time order.
+ *
+ * Loaded in one pass over the covering sessions index, it takes 44 bytes per session
+ * (prefix sums included) instead of a StudySession with its LocalDateTime and notes.
+ * Range sums are O(log n) through the prefix sums; group-bys and percentiles scan the
+ * rows of a date range between binary-searched bounds. None of them allocates per row.
+ * The running totals for the progress chart are the prefix sums themselves, downsampled
+ * to the chart's width (see Lttb).
+ *
+ * forUser caches the snapshot per user until StudySessionDAO reports a session write.
+ */
+public final class StudySessionColumns {
+    private static final Map<Integer, StudySessionColumns> cache = new ConcurrentHashMap<>();
+    // Bumped on each write so a load racing with it doesn't cache the old sessions
+    private static final Map<Integer, Long> writeCounts = new ConcurrentHashMap<>();
+    private static final StudySessionDAO.SessionListener invalidator = userId -> {
+        writeCounts.merge(userId, 1L, Long::sum);
+        cache.remove(userId);
+    };
+
+    static {
+        StudySessionDAO.addSessionListener(invalidator);
+    }
+
+    private final int size;
+    private final int[] chapterIds;
+    private final int[] subjectIds;
+    private final long[] seconds;
+    private final double[] hours;
+    private final int[] xp;
+    // Sums of the first i rows, for range sums in two lookups
+    private final double[] hoursPrefix;
+    private final long[] xpPrefix;
+
+    private StudySessionColumns(int size, int[] chapterIds, int[] subjectIds, long[] seconds, double[] hours, int[] xp) {
+        this.size = size;
+        this.chapterIds = chapterIds;
+        this.subjectIds = subjectIds;
+        this.seconds = seconds;
+        this.hours = hours;
+        this.xp = xp;
+        this.hoursPrefix = new double[size + 1];
+        this.xpPrefix = new long[size + 1];
+        for (int row = 0; row < size; row++) {
+            hoursPrefix[row + 1] = hoursPrefix[row] + hours[row];
+            xpPrefix[row + 1] = xpPrefix[row] + xp[row];
+        }
+    }
+
+    /**
+     * Snapshot of a user's sessions, from the cache or loaded from their database
+     */
+    public static StudySessionColumns forUser(int userId) throws SQLException {
+        StudySessionColumns cached = cache.get(userId);
+        if (cached != null) {
+            return cached;
+        }
+        long writesBefore = writeCounts.getOrDefault(userId, 0L);
+        StudySessionColumns columns = load(DatabaseManager.getInstance().getConnectionForUser(userId), userId);
+        if (writeCounts.getOrDefault(userId, 0L) == writesBefore) {
+            cache.put(userId, columns);
+        }
+        return columns;
+    }
+
+    /**
+     * Load a fresh snapshot on a specific data connection (not cached)
+     */
+    public static StudySessionColumns load(Connection connection, int userId) throws SQLException {
+        // Chapters are few: map them to subjects here rather than joining every session
+        Map<Integer, Integer> subjectByChapter = new HashMap<>();
+        String chapterSql = """
+            SELECT c.id, c.subject_id FROM chapters c
+            JOIN subjects s ON c.subject_id = s.id
+            WHERE s.user_id = ?
+        """;
+        try (PreparedStatement stmt = connection.prepareStatement(chapterSql)) {
+            stmt.setInt(1, userId);
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                subjectByChapter.put(rs.getInt(1), rs.getInt(2));
+            }
+        }
+
+        String sql = """
+            SELECT chapter_id, session_date, hours_studied, xp_earned
+            FROM study_sessions
+            WHERE user_id = ?
+            ORDER BY session_date
+        """;
+        int size = 0;
+        int[] chapterIds = new int[1024];
+        int[] subjectIds = new int[1024];
+        long[] seconds = new long[1024];
+        double[] hours = new double[1024];
+        int[] xp = new int[1024];
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setInt(1, userId);
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                if (size == seconds.length) {
+                    int capacity = size * 2;
+                    chapterIds = Arrays.copyOf(chapterIds, capacity);
+                    subjectIds = Arrays.copyOf(subjectIds, capacity);
+                    seconds = Arrays.copyOf(seconds, capacity);
+                    hours = Arrays.copyOf(hours, capacity);
+                    xp = Arrays.copyOf(xp, capacity);
+                }
+                int chapterId = rs.getInt(1);
+                chapterIds[size] = chapterId;
+                subjectIds[size] = subjectByChapter.getOrDefault(chapterId, 0);
+                seconds[size] = rs.getLong(2);
+                hours[size] = rs.getDouble(3);
+                xp[size] = rs.getInt(4);
+                size++;
+            }
+        }
+        return new StudySessionColumns(size, Arrays.copyOf(chapterIds, size), Arrays.copyOf(subjectIds, size),
+            Arrays.copyOf(seconds, size), Arrays.copyOf(hours, size), Arrays.copyOf(xp, size));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getChapterId(int row) {
+        return chapterIds[row];
+    }
+
+    public int getSubjectId(int row) {
+        return subjectIds[row];
+    }
+
+    public LocalDate getDate(int row) {
+        return EpochTime.fromDay(dayOf(row));
+    }
+
+    public LocalDateTime getDateTime(int row) {
+        return EpochTime.fromSeconds(seconds[row]);
+    }
+
+    private long dayOf(int row) {
+        return Math.floorDiv(seconds[row], EpochTime.SECONDS_PER_DAY);
+    }
+
+    public double getHours(int row) {
+        return hours[row];
+    }
+
+    public int getXp(int row) {
+        return xp[row];
+    }
+
+    /**
+     * First row on or after a day (size() if there is none)
+     */
+    public int firstRowOn(LocalDate day) {
+        return firstRowAt(EpochTime.toSeconds(day));
+    }
+
+    /**
+     * First row at or after an epoch second (size() if there is none)
+     */
+    public int firstRowAt(long second) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (seconds[mid] < second) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Epoch second of the latest session of each studied chapter
+     */
+    public Map<Integer, Long> lastStudiedByChapter() {
+        Map<Integer, Long> lastStudied = new HashMap<>();
+        for (int row = size - 1; row >= 0; row--) {
+            lastStudied.putIfAbsent(chapterIds[row], seconds[row]);
+        }
+        return lastStudied;
+    }
+
+    // Ranges are from (inclusive) to (exclusive), like StudyAnalyticsDAO
+
+    public int count(LocalDate from, LocalDate to) {
+        return Math.max(0, firstRowOn(to) - firstRowOn(from));
+    }
+
+    public double sumHours(LocalDate from, LocalDate to) {
+        int start = firstRowOn(from);
+        int end = Math.max(start, firstRowOn(to));
+        return hoursPrefix[end] - hoursPrefix[start];
+    }
+
+    public long sumXp(LocalDate from, LocalDate to) {
+        int start = firstRowOn(from);
+        int end = Math.max(start, firstRowOn(to));
+        return xpPrefix[end] - xpPrefix[start];
+    }
+
+    public double getTotalHours() {
+        return hoursPrefix[size];
+    }
+
+    /**
+     * Totals per day over a range; subjectId 0 means all subjects
+     */
+    public DailyTotals dailyTotals(LocalDate from, LocalDate to, int subjectId) {
+        long firstDay = EpochTime.toDay(from);
+        int dayCount = (int) Math.max(0, EpochTime.toDay(to) - firstDay);
+        DailyTotals totals = new DailyTotals(from, dayCount);
+        int end = firstRowOn(to);
+        for (int row = firstRowOn(from); row < end; row++) {
+            if (subjectId == 0 || subjectIds[row] == subjectId) {
+                int offset = (int) (dayOf(row) - firstDay);
+                totals.hours[offset] += hours[row];
+                totals.xp[offset] += xp[row];
+                totals.sessions[offset]++;
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * Hours per chapter over a range, aligned with the given chapter ids (sorted ascending);
+     * sessions of other chapters are left out
+     */
+    public double[] hoursByChapter(int[] sortedChapterIds, LocalDate from, LocalDate to) {
+        return hoursBy(chapterIds, sortedChapterIds, from, to);
+    }
+
+    /**
+     * Hours per subject over a range, aligned with the given subject ids (sorted ascending)
+     */
+    public double[] hoursBySubject(int[] sortedSubjectIds, LocalDate from, LocalDate to) {
+        return hoursBy(subjectIds, sortedSubjectIds, from, to);
+    }
+
+    private double[] hoursBy(int[] column, int[] sortedKeys, LocalDate from, LocalDate to) {
+        double[] sums = new double[sortedKeys.length];
+        int end = firstRowOn(to);
+        for (int row = firstRowOn(from); row < end; row++) {
+            int slot = Arrays.binarySearch(sortedKeys, column[row]);
+            if (slot >= 0) {
+                sums[slot] += hours[row];
+            }
+        }
+        return sums;
+    }
+
+    /**
+     * Session length at a percentile (0 to 1, nearest rank) over a range; 0 without sessions
+     */
+    public double sessionHoursPercentile(double percentile, LocalDate from, LocalDate to) {
+        int start = firstRowOn(from);
+        int end = Math.max(start, firstRowOn(to));
+        return percentile(Arrays.copyOfRange(hours, start, end), end - start, percentile);
+    }
+
+    /**
+     * Running XP total after each session from one epoch second (inclusive) to another
+     * (exclusive), downsampled with LTTB to at most maxPoints points
+     */
+    public Series cumulativeXp(long fromSecond, long toSecond, int maxPoints) {
+        return cumulative(fromSecond, toSecond, maxPoints, row -> xpPrefix[row + 1]);
+    }
+
+    /**
+     * Running total of hours studied after each session, like cumulativeXp
+     */
+    public Series cumulativeHours(long fromSecond, long toSecond, int maxPoints) {
+        return cumulative(fromSecond, toSecond, maxPoints, row -> hoursPrefix[row + 1]);
+    }
+
+    private Series cumulative(long fromSecond, long toSecond, int maxPoints, IntToDoubleFunction total) {
+        int start = firstRowAt(fromSecond);
+        int end = Math.max(start, firstRowAt(toSecond));
+        int[] rows = Lttb.downsample(start, end, maxPoints, row -> seconds[row], total);
+        long[] times = new long[rows.length];
+        double[] values = new double[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            times[i] = seconds[rows[i]];
+            values[i] = total.applyAsDouble(rows[i]);
+        }
+        return new Series(times, values, end - start);
+    }
+
+    /**
+     * Nearest-rank percentile of the first count values (sorted in place)
+     */
+    static double percentile(double[] values, int count, double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        Arrays.sort(values, 0, count);
+        int rank = (int) Math.ceil(Math.min(1, Math.max(0, percentile)) * count);
+        return values[Math.max(0, rank - 1)];
+    }
+
+    /**
+     * Inner class for a downsampled time series: epoch seconds and values
+     */
+    public static class Series {
+        private final long[] seconds;
+        private final double[] values;
+        private final int sourcePoints;
+
+        Series(long[] seconds, double[] values, int sourcePoints) {
+            this.seconds = seconds;
+            this.values = values;
+            this.sourcePoints = sourcePoints;
+        }
+
+        public int size() {
+            return seconds.length;
+        }
+
+        public long getSecond(int index) {
+            return seconds[index];
+        }
+
+        public double getValue(int index) {
+            return values[index];
+        }
+
+        /**
+         * Number of points before downsampling
+         */
+        public int getSourcePoints() {
+            return sourcePoints;
+        }
+    }
+
+    /**
+     * Inner class for per-day totals over a date range, indexed by days since its first day
+     */
+    public static class DailyTotals {
+        private final LocalDate start;
+        private final double[] hours;
+        private final int[] xp;
+        private final int[] sessions;
+
+        DailyTotals(LocalDate start, int dayCount) {
+            this.start = start;
+            this.hours = new double[dayCount];
+            this.xp = new int[dayCount];
+            this.sessions = new int[dayCount];
+        }
+
+        public LocalDate getStart() {
+            return start;
+        }
+
+        public int getDayCount() {
+            return hours.length;
+        }
+
+        /**
+         * Index of a day in the range, or -1 outside it
+         */
+        public int indexOf(LocalDate day) {
+            long offset = day.toEpochDay() - start.toEpochDay();
+            return offset >= 0 && offset < hours.length ? (int) offset : -1;
+        }
+
+        public double getHours(int index) {
+            return hours[index];
+        }
+
+        public int getXp(int index) {
+            return xp[index];
+        }
+
+        public int getSessions(int index) {
+            return sessions[index];
+        }
+
+        public double getTotalHours() {
+            double total = 0;
+            for (double dayHours : hours) {
+                total += dayHours;
+            }
+            return total;
+        }
+
+        public int getStudyDays() {
+            int studyDays = 0;
+            for (int daySessions : sessions) {
+                if (daySessions > 0) {
+                    studyDays++;
+                }
+            }
+            return studyDays;
+        }
+
+        /**
+         * Hours of a study day at a percentile (0 to 1, nearest rank), days without sessions left out
+         */
+        public double getStudyDayHoursPercentile(double percentile) {
+            double[] studied = new double[hours.length];
+            int count = 0;
+            for (int i = 0; i < hours.length; i++) {
+                if (sessions[i] > 0) {
+                    studied[count++] = hours[i];
+                }
+            }
+            return percentile(studied, count, percentile);
+        }
+    }
+}
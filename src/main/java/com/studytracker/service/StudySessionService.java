@@ -0,0 +1,166 @@
+package com.studytracker.service;
+
+import com.studytracker.dao.ChapterDAO;
+import com.studytracker.dao.StudySessionDAO;
+import com.studytracker.dao.UserDAO;
+import com.studytracker.database.DatabaseManager;
+import com.studytracker.model.Chapter;
+import com.studytracker.model.StudySession;
+import com.studytracker.model.User;
+import com.studytracker.model.XpEntry;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Logs study sessions together with their side effects (chapter status, XP, streak, badges).
+ * Shared by the Study Sessions tab and the HTTP API.
+ */
+public class StudySessionService {
+    private static final Map<Connection, StudySessionService> SHARED = new ConcurrentHashMap<>();
+    private final Connection directoryConnection;
+    private final Connection dataConnection;
+    private final StudySessionDAO sessionDAO;
+    private final ChapterDAO chapterDAO;
+    private final UserDAO userDAO;
+    private final GamificationService gamificationService;
+
+    /**
+     * Use a specific connection (e.g. one borrowed from a ConnectionPool)
+     */
+    public StudySessionService(Connection connection) {
+        this(connection, connection);
+    }
+
+    /**
+     * Users live behind the directory connection, sessions/chapters/badges behind the data
+     * connection (the same connection unless sharding is on)
+     */
+    public StudySessionService(Connection directoryConnection, Connection dataConnection) {
+        this.directoryConnection = directoryConnection;
+        this.dataConnection = dataConnection;
+        this.sessionDAO = new StudySessionDAO(dataConnection);
+        this.chapterDAO = new ChapterDAO(dataConnection);
+        this.userDAO = new UserDAO(directoryConnection);
+        this.gamificationService = new GamificationService(directoryConnection, dataConnection);
+    }
+
+    /**
+     * Service on the databases holding this user (their shard when sharding is on),
+     * shared by all callers like the DAOs' forUser
+     */
+    public static StudySessionService forUser(int userId) {
+        DatabaseManager databaseManager = DatabaseManager.getInstance();
+        return SHARED.computeIfAbsent(databaseManager.getConnectionForUser(userId),
+            dataConnection -> new StudySessionService(databaseManager.getConnection(), dataConnection));
+    }
+
+    /**
+     * Save a session and apply its rewards in one transaction.
+     * Returns the user as stored after the update (new XP, level and streak).
+     */
+    public User logSession(StudySession session) throws SQLException {
+        // Across shards the two commits are not atomic; the data commit goes first so a failure
+        // can at worst lose the XP of a saved session, never award XP for a lost one.
+        List<Connection> connections = begin();
+        try {
+            // Save session
+            sessionDAO.create(session);
+
+            // Auto-update chapter status to "In Progress" if it's "Not Started"
+            Chapter chapter = chapterDAO.findById(session.getChapterId());
+            boolean chapterStarted = chapter != null && chapter.getStatus() == Chapter.ChapterStatus.NOT_STARTED;
+            if (chapterStarted) {
+                chapter.setStatus(Chapter.ChapterStatus.IN_PROGRESS);
+                chapterDAO.update(chapter);
+            }
+
+            // Award XP, update streak and check for new badges
+            userDAO.addXp(session.getUserId(), session.getXpEarned(), XpEntry.Source.SESSION, session.getId());
+            userDAO.updateStreak(session.getUserId());
+            gamificationService.checkAndAwardBadges(session.getUserId());
+
+            User updatedUser = userDAO.findById(session.getUserId());
+            for (Connection connection : connections) {
+                connection.commit();
+            }
+            // Session and chapter listeners only hear about committed writes
+            StudySessionDAO.notifySessionCreated(session);
+            if (chapterStarted) {
+                ChapterDAO.notifyChapterSaved(dataConnection, chapter);
+            }
+            return updatedUser;
+        } catch (SQLException e) {
+            rollback(connections, session.getUserId());
+            throw e;
+        } finally {
+            end(connections);
+        }
+    }
+
+    /**
+     * Delete a session and take back the XP it earned (a reversal entry in the XP ledger), in
+     * one transaction. Returns the user as stored after the update, or null if there was no
+     * such session.
+     */
+    public User deleteSession(int sessionId) throws SQLException {
+        // Data commit first, like logSession: a failure can at worst leave the XP of a deleted session
+        List<Connection> connections = begin();
+        StudySession session = null;
+        try {
+            session = sessionDAO.findById(sessionId);
+            if (session == null) {
+                return null;
+            }
+            sessionDAO.delete(sessionId);
+            if (session.getXpEarned() != 0) {
+                userDAO.addXp(session.getUserId(), -session.getXpEarned(), XpEntry.Source.SESSION_DELETED, sessionId);
+            }
+
+            User updatedUser = userDAO.findById(session.getUserId());
+            for (Connection connection : connections) {
+                connection.commit();
+            }
+            StudySessionDAO.notifySessionsChanged(session.getUserId());
+            return updatedUser;
+        } catch (SQLException e) {
+            rollback(connections, session != null ? session.getUserId() : 0);
+            throw e;
+        } finally {
+            end(connections);
+        }
+    }
+
+    // Data first, then directory: every writer locks in this order, so two files can't deadlock
+    private List<Connection> begin() throws SQLException {
+        List<Connection> connections = directoryConnection == dataConnection
+            ? List.of(dataConnection)
+            : List.of(dataConnection, directoryConnection);
+        for (Connection connection : connections) {
+            connection.setAutoCommit(false);
+        }
+        return connections;
+    }
+
+    private void rollback(List<Connection> connections, int userId) throws SQLException {
+        for (Connection connection : connections) {
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+            }
+        }
+        // XP listeners already saw the rolled back value; give them the stored one again
+        User storedUser = userDAO.findById(userId);
+        if (storedUser != null) {
+            UserDAO.notifyXpChanged(storedUser);
+        }
+    }
+
+    private static void end(List<Connection> connections) throws SQLException {
+        for (Connection connection : connections) {
+            connection.setAutoCommit(true);
+        }
+    }
+}
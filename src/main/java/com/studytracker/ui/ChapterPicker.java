@@ -0,0 +1,153 @@
+package com.studytracker.ui;
+
+import com.studytracker.model.Chapter;
+import com.studytracker.service.ChapterSearchIndex;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.css.PseudoClass;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.TextField;
+import javafx.scene.input.KeyCode;
+import javafx.scene.layout.VBox;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Searchable chapter list: typing filters the chapters through the user's
+ * ChapterSearchIndex (in memory, so on every key), with chapters in progress or studied
+ * recently listed first.
+ */
+public class ChapterPicker {
+    private static final int MAX_RESULTS = 50;
+    // Pseudo-class per status for tables.css (:not-started, :in-progress, :completed)
+    private static final Map<Chapter.ChapterStatus, PseudoClass> STATUS_STATES = new EnumMap<>(Chapter.ChapterStatus.class);
+
+    static {
+        for (Chapter.ChapterStatus status : Chapter.ChapterStatus.values()) {
+            STATUS_STATES.put(status, PseudoClass.getPseudoClass(status.name().toLowerCase().replace('_', '-')));
+        }
+    }
+
+    private final ChapterSearchIndex index;
+    private final Map<Integer, Long> lastStudied;
+    private final TextField field = new TextField();
+    private final ListView<ChapterSearchIndex.Match> resultList = new ListView<>();
+    private final Label statusLabel = new Label();
+    private final ReadOnlyObjectWrapper<Chapter> value = new ReadOnlyObjectWrapper<>();
+    private final VBox view;
+
+    /**
+     * @param lastStudied epoch second of each chapter's latest session, for the ranking
+     */
+    public ChapterPicker(ChapterSearchIndex index, Map<Integer, Long> lastStudied) {
+        this.index = index;
+        this.lastStudied = lastStudied;
+
+        field.setPromptText("🔍 Type a chapter or subject name...");
+
+        resultList.setPrefSize(380, 220);
+        resultList.setCellFactory(list -> new MatchCell());
+        resultList.getSelectionModel().selectedItemProperty().addListener((obs, oldMatch, newMatch) ->
+            value.set(newMatch != null ? newMatch.getChapter() : null));
+
+        field.textProperty().addListener((obs, oldText, newText) -> search(newText));
+        field.setOnKeyPressed(e -> {
+            if (e.getCode() == KeyCode.DOWN && !resultList.getItems().isEmpty()) {
+                resultList.requestFocus();
+                if (resultList.getSelectionModel().isEmpty()) {
+                    resultList.getSelectionModel().selectFirst();
+                }
+            } else if (e.getCode() == KeyCode.ENTER && !resultList.getItems().isEmpty()) {
+                resultList.getSelectionModel().selectFirst();
+            }
+        });
+
+        statusLabel.setStyle("-fx-text-fill: #7f8c8d;");
+        view = new VBox(5, field, resultList, statusLabel);
+        // Shown in dialogs, whose scenes don't have the main window's stylesheets
+        view.getStylesheets().add(ChapterPicker.class.getResource("tables.css").toExternalForm());
+        search("");
+    }
+
+    public VBox getView() {
+        return view;
+    }
+
+    public TextField getField() {
+        return field;
+    }
+
+    /**
+     * Selected chapter, or null
+     */
+    public ReadOnlyObjectProperty<Chapter> valueProperty() {
+        return value.getReadOnlyProperty();
+    }
+
+    public Chapter getValue() {
+        return value.get();
+    }
+
+    private void search(String text) {
+        ChapterSearchIndex.Results results = index.search(text, lastStudied, MAX_RESULTS);
+        resultList.getItems().setAll(results.getMatches());
+        if (results.getTotal() == 0) {
+            statusLabel.setText("No chapter matches \"" + text.trim() + "\"");
+        } else if (results.getTotal() > results.getMatches().size()) {
+            statusLabel.setText("Best " + results.getMatches().size() + " of " + results.getTotal() + " chapters");
+        } else {
+            statusLabel.setText(results.getTotal() + " chapter(s)");
+        }
+    }
+
+    /**
+     * Two-line cell: chapter and subject, then status and last session
+     */
+    private static class MatchCell extends ListCell<ChapterSearchIndex.Match> {
+        // Built once per cell; updates only change their text and status state
+        private final Label headingLabel = new Label();
+        private final Label detailLabel = new Label();
+        private final VBox lines = new VBox(2, headingLabel, detailLabel);
+
+        MatchCell() {
+            headingLabel.setFont(Font.font("System", FontWeight.SEMI_BOLD, 13));
+            // Styled by tables.css
+            detailLabel.getStyleClass().add("chapter-match-status");
+        }
+
+        @Override
+        protected void updateItem(ChapterSearchIndex.Match match, boolean empty) {
+            super.updateItem(match, empty);
+            setText(null);
+            if (empty || match == null) {
+                setGraphic(null);
+                return;
+            }
+
+            Chapter chapter = match.getChapter();
+            headingLabel.setText("📖 " + chapter.getName() + "  ·  " + match.getSubjectName());
+
+            LocalDateTime studied = match.getLastStudied();
+            detailLabel.setText(chapter.getStatus().getDisplayName() + (studied == null ? "  ·  never studied"
+                : "  ·  last studied " + daysAgo(studied.toLocalDate())));
+            for (Map.Entry<Chapter.ChapterStatus, PseudoClass> state : STATUS_STATES.entrySet()) {
+                detailLabel.pseudoClassStateChanged(state.getValue(), state.getKey() == chapter.getStatus());
+            }
+
+            setGraphic(lines);
+        }
+
+        private static String daysAgo(LocalDate day) {
+            long days = ChronoUnit.DAYS.between(day, LocalDate.now());
+            return days <= 0 ? "today" : days == 1 ? "yesterday" : days + " days ago";
+        }
+    }
+}
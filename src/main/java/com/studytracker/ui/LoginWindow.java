@@ -1,7 +1,12 @@
 package com.studytracker.ui;
 
+import com.studytracker.dao.AsyncDao;
 import com.studytracker.dao.UserDAO;
+import com.studytracker.database.DatabaseManager;
 import com.studytracker.model.User;
+import com.studytracker.monitoring.StartupTimings;
+import com.studytracker.monitoring.UserActionContext;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -12,16 +17,26 @@ import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 import javafx.stage.Stage;
 
-import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Login window with authentication and user registration.
+ * Password hashing and the user queries run on the database thread; the window can be
+ * shown while the database is still opening.
  */
 public class LoginWindow {
-    private final UserDAO userDAO;
+    private final CompletableFuture<AsyncDao<UserDAO>> users;
 
     public LoginWindow() {
-        this.userDAO = new UserDAO();
+        this(CompletableFuture.completedFuture(DatabaseManager.getInstance()));
+    }
+
+    /**
+     * Login window for a database being opened in the background
+     */
+    public LoginWindow(CompletableFuture<DatabaseManager> database) {
+        this.users = database.thenApply(opened -> AsyncDao.users());
     }
 
     public void show(Stage stage) {
@@ -59,10 +74,18 @@ public class LoginWindow {
         passwordField.setPromptText("Enter password");
         passwordField.setPrefWidth(250);
 
+        Label classLabel = new Label("Class:");
+        classLabel.setFont(Font.font("System", FontWeight.SEMI_BOLD, 14));
+        TextField classField = new TextField();
+        classField.setPromptText("Class, for registration (optional)");
+        classField.setPrefWidth(250);
+
         loginForm.add(usernameLabel, 0, 0);
         loginForm.add(usernameField, 1, 0);
         loginForm.add(passwordLabel, 0, 1);
         loginForm.add(passwordField, 1, 1);
+        loginForm.add(classLabel, 0, 2);
+        loginForm.add(classField, 1, 2);
 
         // Buttons
         HBox buttonBox = new HBox(15);
@@ -83,11 +106,14 @@ public class LoginWindow {
         messageLabel.setFont(Font.font("System", 12));
 
         // Event handlers
-        loginButton.setOnAction(e -> handleLogin(usernameField.getText(), passwordField.getText(), stage, messageLabel));
-        registerButton.setOnAction(e -> handleRegister(usernameField.getText(), passwordField.getText(), messageLabel));
+        loginButton.setOnAction(e -> handleLogin(usernameField.getText(), passwordField.getText(), stage,
+                messageLabel, buttonBox));
+        registerButton.setOnAction(e -> handleRegister(usernameField.getText(), passwordField.getText(),
+                classField.getText(), messageLabel, buttonBox));
 
         // Allow Enter key to login
-        passwordField.setOnAction(e -> handleLogin(usernameField.getText(), passwordField.getText(), stage, messageLabel));
+        passwordField.setOnAction(e -> handleLogin(usernameField.getText(), passwordField.getText(), stage,
+                messageLabel, buttonBox));
 
         root.getChildren().addAll(titleLabel, subtitleLabel, loginForm, buttonBox, messageLabel);
 
@@ -98,30 +124,37 @@ public class LoginWindow {
         stage.show();
     }
 
-    private void handleLogin(String username, String password, Stage stage, Label messageLabel) {
+    private void handleLogin(String username, String password, Stage stage, Label messageLabel, HBox buttonBox) {
         if (username.isEmpty() || password.isEmpty()) {
             showMessage(messageLabel, "Please enter username and password", Color.RED);
             return;
         }
 
-        try {
-            User user = userDAO.authenticate(username, password);
-            if (user != null) {
-                showMessage(messageLabel, "Login successful! Welcome " + username, Color.GREEN);
-
-                // Open main application window
-                MainWindow mainWindow = new MainWindow(user);
-                mainWindow.show(stage);
-                mainWindow.refreshAll(); // Load all user data immediately
-            } else {
-                showMessage(messageLabel, "Invalid username or password", Color.RED);
-            }
-        } catch (SQLException ex) {
-            showMessage(messageLabel, "Database error: " + ex.getMessage(), Color.RED);
-        }
+        UserActionContext.set("Login");
+        buttonBox.setDisable(true);
+        StartupTimings.Phase phase = StartupTimings.begin("authenticate");
+        users.thenCompose(dao -> dao.call(userDAO -> userDAO.authenticate(username, password)))
+            .whenCompleteAsync((user, error) -> {
+                phase.end();
+                buttonBox.setDisable(false);
+                if (error != null) {
+                    showMessage(messageLabel, "Database error: " + cause(error).getMessage(), Color.RED);
+                } else if (user != null) {
+                    showMessage(messageLabel, "Login successful! Welcome " + username, Color.GREEN);
+
+                    // Open main application window (it loads the dashboard, other tabs load when selected)
+                    UserActionContext.set("Login");
+                    MainWindow mainWindow = new MainWindow(user);
+                    mainWindow.show(stage);
+                    StartupTimings.report("Dashboard ready");
+                } else {
+                    showMessage(messageLabel, "Invalid username or password", Color.RED);
+                }
+            }, Platform::runLater);
     }
 
-    private void handleRegister(String username, String password, Label messageLabel) {
+    private void handleRegister(String username, String password, String className, Label messageLabel,
+                                HBox buttonBox) {
         if (username.isEmpty() || password.isEmpty()) {
             showMessage(messageLabel, "Please enter username and password", Color.RED);
             return;
@@ -132,22 +165,26 @@ public class LoginWindow {
             return;
         }
 
-        try {
-            // Check if username already exists
-            if (userDAO.findByUsername(username) != null) {
-                showMessage(messageLabel, "Username already exists", Color.RED);
-                return;
-            }
-
-            User user = userDAO.create(username, password);
-            if (user != null) {
-                showMessage(messageLabel, "Registration successful! You can now login", Color.GREEN);
-            } else {
-                showMessage(messageLabel, "Registration failed", Color.RED);
-            }
-        } catch (SQLException ex) {
-            showMessage(messageLabel, "Database error: " + ex.getMessage(), Color.RED);
-        }
+        buttonBox.setDisable(true);
+        // Check if username already exists, then create it (null when taken)
+        users.thenCompose(dao -> dao.call(userDAO -> userDAO.findByUsername(username) != null
+                ? null : Boolean.valueOf(userDAO.create(username, password, className) != null)))
+            .whenCompleteAsync((created, error) -> {
+                buttonBox.setDisable(false);
+                if (error != null) {
+                    showMessage(messageLabel, "Database error: " + cause(error).getMessage(), Color.RED);
+                } else if (created == null) {
+                    showMessage(messageLabel, "Username already exists", Color.RED);
+                } else if (created) {
+                    showMessage(messageLabel, "Registration successful! You can now login", Color.GREEN);
+                } else {
+                    showMessage(messageLabel, "Registration failed", Color.RED);
+                }
+            }, Platform::runLater);
+    }
+
+    private static Throwable cause(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
     }
 
     private void showMessage(Label label, String message, Color color) {
@@ -1,7 +1,20 @@
 package com.studytracker.ui;
 
+import com.studytracker.dao.SearchDAO;
+import com.studytracker.database.DatabaseExecutor;
+import com.studytracker.database.DatabaseManager;
+import com.studytracker.dao.UserDAO;
 import com.studytracker.model.User;
+import com.studytracker.monitoring.StartupTimings;
+import com.studytracker.monitoring.UiRefreshEvent;
+import com.studytracker.monitoring.UserActionContext;
+import com.studytracker.service.DataFormat;
+import com.studytracker.service.DataTransferService;
+import com.studytracker.service.ExamReminderScheduler;
 import com.studytracker.ui.tabs.*;
+import javafx.application.Platform;
+import javafx.event.ActionEvent;
+import javafx.event.EventTarget;
 import javafx.geometry.Insets;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
@@ -9,18 +22,39 @@ import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
 /**
  * Main application window with tabbed interface.
+ * A tab is built and loaded the first time it is selected; after a data change only the
+ * selected tab reloads, the others are marked stale and reload when selected again.
  */
 public class MainWindow {
     private final User currentUser;
-    private DashboardTab dashboardTab;
-    private SubjectsTab subjectsTab;
-    private ChaptersTab chaptersTab;
-    private ExamsTab examsTab;
-    private StudySessionsTab studySessionsTab;
+    private final Map<Tab, Supplier<MainTab>> tabFactories = new HashMap<>();
+    private final Map<Tab, MainTab> loadedTabs = new HashMap<>();
+    private final Set<Tab> staleTabs = new HashSet<>();
+    private TabPane tabPane;
+    private Tab dashTab;
+    private Tab planTab;
+    private Tab subjTab;
+    private Tab chapTab;
+    private Tab examTab;
+    private Tab sessTab;
     private Label levelLabel; // Reference to update dynamically
 
     public MainWindow(User currentUser) {
@@ -28,50 +62,116 @@ public class MainWindow {
     }
 
     public void show(Stage stage) {
+        StartupTimings.Phase phase = StartupTimings.begin("main window");
         BorderPane root = new BorderPane();
 
         // Header
-        HBox header = createHeader();
+        HBox header = createHeader(stage);
         root.setTop(header);
 
         // Tab pane
-        TabPane tabPane = new TabPane();
+        tabPane = new TabPane();
         tabPane.setTabClosingPolicy(TabPane.TabClosingPolicy.UNAVAILABLE);
 
-        // Create tabs
-        dashboardTab = new DashboardTab(currentUser);
-        subjectsTab = new SubjectsTab(currentUser, this);
-        chaptersTab = new ChaptersTab(currentUser, this);
-        examsTab = new ExamsTab(currentUser, this);
-        studySessionsTab = new StudySessionsTab(currentUser, this);
-
-        Tab dashTab = new Tab("📊 Dashboard", dashboardTab.getContent());
-        Tab subjTab = new Tab("📚 Subjects", subjectsTab.getContent());
-        Tab chapTab = new Tab("📖 Chapters", chaptersTab.getContent());
-        Tab examTab = new Tab("📝 Exams", examsTab.getContent());
-        Tab sessTab = new Tab("⏱️ Study Sessions", studySessionsTab.getContent());
+        // Create tabs (their content is built when first selected)
+        dashTab = createTab("📊 Dashboard", () -> new DashboardTab(currentUser));
+        subjTab = createTab("📚 Subjects", () -> new SubjectsTab(currentUser, this));
+        chapTab = createTab("📖 Chapters", () -> new ChaptersTab(currentUser, this));
+        examTab = createTab("📝 Exams", () -> new ExamsTab(currentUser, this));
+        sessTab = createTab("⏱️ Study Sessions", () -> new StudySessionsTab(currentUser, this));
+        planTab = createTab("🗓️ Planner", () -> new PlannerTab(currentUser));
 
-        tabPane.getTabs().addAll(dashTab, subjTab, chapTab, examTab, sessTab);
+        tabPane.getTabs().addAll(dashTab, subjTab, chapTab, examTab, sessTab, planTab);
 
-        // Refresh dashboard when it's selected
         tabPane.getSelectionModel().selectedItemProperty().addListener((obs, oldTab, newTab) -> {
-            if (newTab == dashTab) {
-                dashboardTab.refresh();
-            }
+            UserActionContext.set("Open tab " + newTab.getText());
+            showTab(newTab);
         });
 
         root.setCenter(tabPane);
 
         Scene scene = new Scene(root, 1200, 800);
+        // Table row/cell states (chapter status, exam urgency, XP)
+        scene.getStylesheets().add(MainWindow.class.getResource("tables.css").toExternalForm());
+
+        // Remember which control the user acted on, for diagnostic (JFR) events
+        scene.addEventFilter(ActionEvent.ACTION, e -> UserActionContext.set(describeAction(e.getTarget())));
+
         stage.setScene(scene);
         stage.setTitle("Study Tracker - " + currentUser.getUsername());
         stage.show();
+        phase.end();
+
+        // Initial load (no selection event for the tab selected first)
+        phase = StartupTimings.begin("dashboard");
+        showTab(tabPane.getSelectionModel().getSelectedItem());
+        phase.end();
+
+        startExamReminders(stage);
+    }
+
+    /**
+     * Show this user's exam reminders while the window is open (their exams are loaded
+     * once, on the database thread)
+     */
+    private void startExamReminders(Stage stage) {
+        ExamReminderScheduler reminders = ExamReminderScheduler.getInstance();
+        int userId = currentUser.getId();
+        ExamReminderScheduler.ReminderListener listener = reminder -> {
+            if (reminder.getUserId() == userId) {
+                Platform.runLater(() -> showReminder(reminder));
+            }
+        };
+        reminders.addReminderListener(listener);
+        DatabaseExecutor executor = DatabaseManager.getInstance().getExecutorForUser(userId);
+        executor.submit(() -> {
+            reminders.trackUser(userId, executor.getConnectionForUser(userId));
+            return null;
+        }).exceptionally(error -> {
+            error.printStackTrace();
+            return null;
+        });
+        reminders.start();
+
+        stage.setOnHidden(e -> {
+            reminders.removeReminderListener(listener);
+            reminders.untrackUser(userId);
+        });
+    }
 
-        // Initial load
-        dashboardTab.refresh();
+    private void showReminder(ExamReminderScheduler.Reminder reminder) {
+        // Not modal: a reminder shouldn't block what the user is doing
+        Alert alert = new Alert(Alert.AlertType.INFORMATION);
+        alert.setTitle("Exam Reminder");
+        alert.setHeaderText("Upcoming exam");
+        alert.setContentText(reminder.getMessage());
+        alert.show();
     }
 
-    private HBox createHeader() {
+    private Tab createTab(String title, Supplier<MainTab> factory) {
+        Tab tab = new Tab(title);
+        tabFactories.put(tab, factory);
+        return tab;
+    }
+
+    /**
+     * Build a tab on first use, otherwise reload it if stale. The dashboard and the planner
+     * reload on every visit: they show other users' XP and depend on the current time.
+     */
+    private void showTab(Tab tab) {
+        MainTab mainTab = loadedTabs.get(tab);
+        if (mainTab == null) {
+            mainTab = tabFactories.get(tab).get();
+            loadedTabs.put(tab, mainTab);
+            tab.setContent(mainTab.getContent());
+            mainTab.refresh();
+        } else if (staleTabs.contains(tab) || tab == dashTab || tab == planTab) {
+            mainTab.refresh();
+        }
+        staleTabs.remove(tab);
+    }
+
+    private HBox createHeader(Stage stage) {
         HBox header = new HBox(20);
         header.setPadding(new Insets(15, 20, 15, 20));
         header.setStyle("-fx-background-color: linear-gradient(to right, #667eea 0%, #764ba2 100%);");
@@ -84,6 +184,9 @@ public class MainWindow {
         Region spacer = new Region();
         HBox.setHgrow(spacer, Priority.ALWAYS);
 
+        // Full-text search over the user's data
+        SearchBox searchBox = new SearchBox(currentUser, this::openSearchResult);
+
         // User info
         VBox userInfo = new VBox(2);
         userInfo.setAlignment(javafx.geometry.Pos.CENTER_RIGHT);
@@ -99,23 +202,140 @@ public class MainWindow {
 
         userInfo.getChildren().addAll(usernameLabel, levelLabel);
 
-        header.getChildren().addAll(titleLabel, spacer, userInfo);
+        // Export / import of the user's data
+        MenuButton dataMenu = new MenuButton("💾 My data");
+        MenuItem exportItem = new MenuItem("Export...");
+        exportItem.setOnAction(e -> exportData(stage));
+        MenuItem importItem = new MenuItem("Import...");
+        importItem.setOnAction(e -> importData(stage));
+        dataMenu.getItems().addAll(exportItem, importItem);
+
+        header.getChildren().addAll(titleLabel, searchBox.getField(), spacer, dataMenu, userInfo);
 
         return header;
     }
 
     /**
-     * Refresh all tabs (called when data changes)
+     * Switch to the tab listing a search result
+     */
+    private void openSearchResult(SearchDAO.SearchResult result) {
+        Tab target = switch (result.getKind()) {
+            case SUBJECT -> subjTab;
+            case CHAPTER -> chapTab;
+            case EXAM -> examTab;
+            case SESSION -> sessTab;
+        };
+        tabPane.getSelectionModel().select(target);
+    }
+
+    /**
+     * Save all of the user's data to an NDJSON or CSV file
+     */
+    private void exportData(Stage stage) {
+        FileChooser chooser = createDataFileChooser("Export my data");
+        chooser.setInitialFileName(currentUser.getUsername() + "-export.ndjson");
+        File file = chooser.showSaveDialog(stage);
+        if (file == null) {
+            return;
+        }
+
+        try (BufferedWriter out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            DataTransferService.TransferSummary summary = DataTransferService.forUser(currentUser.getId())
+                .exportUser(currentUser.getId(), out, DataFormat.fromFileName(file.getName()));
+            showAlert("Exported " + summary.getTotal() + " records to " + file.getName(), Alert.AlertType.INFORMATION);
+        } catch (SQLException | IOException ex) {
+            showAlert("Error exporting data: " + ex.getMessage(), Alert.AlertType.ERROR);
+        }
+    }
+
+    /**
+     * Add the content of an export file to the current user's data
+     */
+    private void importData(Stage stage) {
+        File file = createDataFileChooser("Import data").showOpenDialog(stage);
+        if (file == null) {
+            return;
+        }
+
+        Alert confirm = new Alert(Alert.AlertType.CONFIRMATION);
+        confirm.setTitle("Confirm Import");
+        confirm.setHeaderText("Import " + file.getName());
+        confirm.setContentText("Its subjects, chapters, exams, sessions and XP will be added to your account.");
+        if (confirm.showAndWait().orElse(ButtonType.CANCEL) != ButtonType.OK) {
+            return;
+        }
+
+        try (BufferedReader in = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            DataTransferService.TransferSummary summary = DataTransferService.forUser(currentUser.getId())
+                .importUser(currentUser.getId(), in, DataFormat.fromFileName(file.getName()));
+
+            reloadImportedStats();
+            refreshAll();
+            showAlert("Imported " + summary.getTotal() + " records: " + summary, Alert.AlertType.INFORMATION);
+        } catch (SQLException | IOException | RuntimeException ex) {
+            // Batches committed before the failure were kept, with their sessions' XP
+            try {
+                reloadImportedStats();
+            } catch (SQLException reloadError) {
+                ex.addSuppressed(reloadError);
+            }
+            refreshAll();
+            showAlert("Error importing data: " + ex.getMessage(), Alert.AlertType.ERROR);
+        }
+    }
+
+    // Pick up the imported XP and streak
+    private void reloadImportedStats() throws SQLException {
+        User updatedUser = UserDAO.getInstance().findById(currentUser.getId());
+        if (updatedUser != null) {
+            currentUser.setXp(updatedUser.getXp());
+            currentUser.setLevel(updatedUser.getLevel());
+            currentUser.setStudyStreak(updatedUser.getStudyStreak());
+        }
+    }
+
+    private static FileChooser createDataFileChooser(String title) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle(title);
+        chooser.getExtensionFilters().addAll(
+            new FileChooser.ExtensionFilter("NDJSON", "*.ndjson", "*.jsonl"),
+            new FileChooser.ExtensionFilter("CSV", "*.csv"));
+        return chooser;
+    }
+
+    private void showAlert(String message, Alert.AlertType type) {
+        Alert alert = new Alert(type);
+        alert.setContentText(message);
+        alert.showAndWait();
+    }
+
+    /**
+     * Refresh after a data change: the selected tab now, the other loaded tabs when next selected
      */
     public void refreshAll() {
-        // Update header with latest XP/Level
-        updateHeader();
-
-        subjectsTab.refresh();
-        chaptersTab.refresh();
-        examsTab.refresh();
-        studySessionsTab.refresh();
-        dashboardTab.refresh();
+        UiRefreshEvent event = UiRefreshEvent.start("MainWindow.refreshAll");
+        try {
+            // Update header with latest XP/Level
+            updateHeader();
+
+            staleTabs.addAll(loadedTabs.keySet());
+            showTab(tabPane.getSelectionModel().getSelectedItem());
+        } finally {
+            event.finish();
+        }
+    }
+
+    /**
+     * Short description of the control that fired an action, e.g. the button text
+     */
+    private static String describeAction(EventTarget target) {
+        if (target instanceof Labeled labeled && labeled.getText() != null && !labeled.getText().isBlank()) {
+            return labeled.getText().trim();
+        }
+        if (target instanceof ComboBoxBase<?> combo && combo.getPromptText() != null) {
+            return "ComboBox " + combo.getPromptText();
+        }
+        return target.getClass().getSimpleName();
     }
 
     /**
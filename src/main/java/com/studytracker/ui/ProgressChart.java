@@ -0,0 +1,208 @@
+package com.studytracker.ui;
+
+import com.studytracker.service.StudySessionColumns;
+import com.studytracker.util.EpochTime;
+import javafx.animation.PauseTransition;
+import javafx.geometry.Pos;
+import javafx.scene.chart.LineChart;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.chart.XYChart;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ToggleButton;
+import javafx.scene.control.ToggleGroup;
+import javafx.scene.input.MouseButton;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Pane;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.StackPane;
+import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+import javafx.util.Duration;
+import javafx.util.StringConverter;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Line chart of the running XP (or hours) total over time. The points come from the
+ * session snapshot downsampled with LTTB to about one per pixel of the plot, so the chart
+ * holds a few hundred points however many sessions there are.
+ *
+ * Dragging across the plot zooms into that time range: only the sessions in it are
+ * downsampled again, so zooming in shows more detail. Double-click or "All time" resets.
+ */
+public class ProgressChart {
+    private static final double SECONDS_PER_DAY = EpochTime.SECONDS_PER_DAY;
+    // Width to downsample to before the chart has been laid out
+    private static final int DEFAULT_POINTS = 800;
+
+    private final NumberAxis xAxis = new NumberAxis(); // epoch days
+    private final NumberAxis yAxis = new NumberAxis();
+    private final LineChart<Number, Number> chart = new LineChart<>(xAxis, yAxis);
+    private final XYChart.Series<Number, Number> series = new XYChart.Series<>();
+    private final Rectangle selection = new Rectangle();
+    private final Label detailLabel = new Label(" ");
+    private final ToggleButton hoursButton = new ToggleButton("Hours");
+    private final Button resetButton = new Button("All time");
+    private final PauseTransition resizePause = new PauseTransition(Duration.millis(200));
+    private final VBox view;
+    private StudySessionColumns sessions;
+    // Zoomed range in epoch seconds, from (inclusive) to (exclusive); null for all time
+    private long[] zoom;
+    private double dragStart;
+
+    public ProgressChart() {
+        xAxis.setForceZeroInRange(false);
+        xAxis.setTickLabelFormatter(new StringConverter<>() {
+            @Override
+            public String toString(Number day) {
+                return LocalDate.ofEpochDay((long) Math.floor(day.doubleValue())).toString();
+            }
+
+            @Override
+            public Number fromString(String text) {
+                return LocalDate.parse(text).toEpochDay();
+            }
+        });
+        yAxis.setForceZeroInRange(false);
+
+        chart.getData().add(series);
+        chart.setAnimated(false);
+        chart.setCreateSymbols(false);
+        chart.setLegendVisible(false);
+        chart.setPrefHeight(300);
+
+        // XP / hours toggle
+        ToggleGroup measureGroup = new ToggleGroup();
+        ToggleButton xpButton = new ToggleButton("XP");
+        xpButton.setToggleGroup(measureGroup);
+        hoursButton.setToggleGroup(measureGroup);
+        xpButton.setSelected(true);
+        measureGroup.selectedToggleProperty().addListener((obs, oldToggle, newToggle) -> {
+            if (newToggle == null) {
+                // Keep one measure selected
+                oldToggle.setSelected(true);
+                return;
+            }
+            reload();
+        });
+
+        resetButton.setDisable(true);
+        resetButton.setOnAction(e -> zoomTo(null));
+
+        // Drag-to-zoom, drawn as a translucent band over the chart
+        selection.setManaged(false);
+        selection.setVisible(false);
+        selection.setFill(Color.rgb(118, 75, 162, 0.2));
+        selection.setStroke(Color.rgb(118, 75, 162, 0.6));
+        Pane overlay = new Pane(selection);
+        overlay.setMouseTransparent(true);
+        StackPane plot = new StackPane(chart, overlay);
+        plot.setOnMousePressed(e -> {
+            if (e.getButton() == MouseButton.PRIMARY) {
+                dragStart = e.getX();
+                selection.setX(dragStart);
+                selection.setY(0);
+                selection.setWidth(0);
+                selection.setHeight(plot.getHeight());
+                selection.setVisible(true);
+            }
+        });
+        plot.setOnMouseDragged(e -> {
+            selection.setX(Math.min(dragStart, e.getX()));
+            selection.setWidth(Math.abs(e.getX() - dragStart));
+        });
+        plot.setOnMouseReleased(e -> {
+            selection.setVisible(false);
+            if (Math.abs(e.getX() - dragStart) < 5 || sessions == null) {
+                return;
+            }
+            double fromDay = dayAt(plot, Math.min(dragStart, e.getX()));
+            double toDay = dayAt(plot, Math.max(dragStart, e.getX()));
+            zoomTo(new long[] {(long) Math.floor(fromDay * SECONDS_PER_DAY), (long) Math.ceil(toDay * SECONDS_PER_DAY)});
+        });
+        plot.setOnMouseClicked(e -> {
+            if (e.getClickCount() == 2) {
+                zoomTo(null);
+            }
+        });
+
+        // Downsample again for the new width once resizing pauses
+        resizePause.setOnFinished(e -> reload());
+        xAxis.widthProperty().addListener((obs, oldWidth, newWidth) -> resizePause.playFromStart());
+
+        detailLabel.setStyle("-fx-text-fill: #7f8c8d;");
+        Region spacer = new Region();
+        HBox.setHgrow(spacer, Priority.ALWAYS);
+        HBox controls = new HBox(5, xpButton, hoursButton, spacer, resetButton);
+        controls.setAlignment(Pos.CENTER_LEFT);
+
+        view = new VBox(5, controls, plot, detailLabel);
+    }
+
+    public VBox getView() {
+        return view;
+    }
+
+    /**
+     * Show a (new) session snapshot, keeping the zoomed range
+     */
+    public void setSessions(StudySessionColumns sessions) {
+        this.sessions = sessions;
+        reload();
+    }
+
+    private void zoomTo(long[] range) {
+        zoom = range;
+        resetButton.setDisable(range == null);
+        reload();
+    }
+
+    /**
+     * Epoch day under an x position of the plot's pane
+     */
+    private double dayAt(StackPane plot, double x) {
+        double axisX = xAxis.sceneToLocal(plot.localToScene(x, 0)).getX();
+        return xAxis.getValueForDisplay(Math.max(0, Math.min(xAxis.getWidth(), axisX))).doubleValue();
+    }
+
+    private void reload() {
+        if (sessions == null) {
+            return;
+        }
+        int maxPoints = xAxis.getWidth() > 0 ? (int) xAxis.getWidth() : DEFAULT_POINTS;
+        long from = zoom != null ? zoom[0] : Long.MIN_VALUE;
+        long to = zoom != null ? zoom[1] : Long.MAX_VALUE;
+        boolean hours = hoursButton.isSelected();
+        StudySessionColumns.Series points = hours
+            ? sessions.cumulativeHours(from, to, maxPoints)
+            : sessions.cumulativeXp(from, to, maxPoints);
+
+        List<XYChart.Data<Number, Number>> data = new ArrayList<>(points.size());
+        for (int i = 0; i < points.size(); i++) {
+            data.add(new XYChart.Data<>(points.getSecond(i) / SECONDS_PER_DAY, points.getValue(i)));
+        }
+        series.getData().setAll(data);
+
+        if (zoom != null) {
+            xAxis.setAutoRanging(false);
+            xAxis.setLowerBound(from / SECONDS_PER_DAY);
+            xAxis.setUpperBound(to / SECONDS_PER_DAY);
+            xAxis.setTickUnit(Math.max(1, (to - from) / SECONDS_PER_DAY / 6));
+        } else {
+            xAxis.setAutoRanging(true);
+        }
+        yAxis.setLabel(hours ? "Total hours" : "Total XP");
+
+        if (points.getSourcePoints() == 0) {
+            detailLabel.setText(zoom != null ? "No sessions in this range" : "No sessions yet");
+        } else {
+            detailLabel.setText(String.format("%,d session(s), %d points drawn · drag to zoom, double-click for all time",
+                points.getSourcePoints(), points.size()));
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.studytracker.ui;
+
+import com.studytracker.dao.SearchDAO;
+import com.studytracker.model.User;
+import javafx.animation.PauseTransition;
+import javafx.geometry.Bounds;
+import javafx.geometry.Insets;
+import javafx.scene.control.*;
+import javafx.scene.input.KeyCode;
+import javafx.scene.layout.VBox;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.stage.Popup;
+import javafx.util.Duration;
+
+import java.sql.SQLException;
+import java.util.function.Consumer;
+
+/**
+ * Header search field showing full-text results while the user types.
+ */
+public class SearchBox {
+    private static final int PAGE_SIZE = 15;
+    // Wait for a short pause in typing instead of querying on every key
+    private static final Duration TYPING_DELAY = Duration.millis(150);
+
+    private final User currentUser;
+    private final SearchDAO searchDAO;
+    private final Consumer<SearchDAO.SearchResult> onOpen;
+    private final TextField field = new TextField();
+    private final ListView<SearchDAO.SearchResult> resultList = new ListView<>();
+    private final Button moreButton = new Button("Show more results");
+    private final Label statusLabel = new Label();
+    private final Popup popup = new Popup();
+    private final PauseTransition typingPause = new PauseTransition(TYPING_DELAY);
+    private SearchDAO.SearchPage lastPage;
+
+    public SearchBox(User currentUser, Consumer<SearchDAO.SearchResult> onOpen) {
+        this.currentUser = currentUser;
+        this.searchDAO = SearchDAO.forUser(currentUser.getId());
+        this.onOpen = onOpen;
+
+        field.setPromptText("🔍 Search notes, chapters, exams...");
+        field.setPrefWidth(320);
+
+        resultList.setPrefSize(480, 360);
+        resultList.setCellFactory(list -> new ResultCell());
+        resultList.setOnMouseClicked(e -> {
+            if (e.getClickCount() == 2) {
+                openSelected();
+            }
+        });
+        resultList.setOnKeyPressed(e -> {
+            if (e.getCode() == KeyCode.ENTER) {
+                openSelected();
+            } else if (e.getCode() == KeyCode.ESCAPE) {
+                popup.hide();
+                field.requestFocus();
+            }
+        });
+
+        moreButton.setMaxWidth(Double.MAX_VALUE);
+        moreButton.setOnAction(e -> loadPage(lastPage.getNextOffset()));
+
+        statusLabel.setStyle("-fx-text-fill: #7f8c8d;");
+
+        VBox popupContent = new VBox(5, resultList, moreButton, statusLabel);
+        popupContent.setPadding(new Insets(8));
+        popupContent.setStyle("-fx-background-color: white; -fx-border-color: #bdc3c7; -fx-border-width: 1; -fx-effect: dropshadow(gaussian, rgba(0,0,0,0.2), 8, 0, 0, 2);");
+        popup.getContent().add(popupContent);
+        popup.setAutoHide(true);
+
+        typingPause.setOnFinished(e -> loadPage(0));
+        field.textProperty().addListener((obs, oldText, newText) -> typingPause.playFromStart());
+        field.setOnKeyPressed(e -> {
+            if (e.getCode() == KeyCode.DOWN && popup.isShowing() && !resultList.getItems().isEmpty()) {
+                resultList.requestFocus();
+                resultList.getSelectionModel().selectFirst();
+            } else if (e.getCode() == KeyCode.ESCAPE) {
+                popup.hide();
+            }
+        });
+    }
+
+    public TextField getField() {
+        return field;
+    }
+
+    /**
+     * Run the search; offset 0 replaces the results, other offsets append the next page
+     */
+    private void loadPage(int offset) {
+        String text = field.getText();
+        if (text == null || text.isBlank()) {
+            popup.hide();
+            return;
+        }
+
+        try {
+            lastPage = searchDAO.search(currentUser.getId(), text, offset, PAGE_SIZE);
+        } catch (SQLException ex) {
+            statusLabel.setText("Search failed: " + ex.getMessage());
+            return;
+        }
+
+        if (offset == 0) {
+            resultList.getItems().setAll(lastPage.getResults());
+            resultList.scrollTo(0);
+        } else {
+            resultList.getItems().addAll(lastPage.getResults());
+        }
+        moreButton.setVisible(lastPage.hasMore());
+        moreButton.setManaged(lastPage.hasMore());
+        statusLabel.setText(resultList.getItems().isEmpty()
+            ? "No results for \"" + text.trim() + "\""
+            : resultList.getItems().size() + (lastPage.hasMore() ? "+" : "") + " results");
+
+        if (!popup.isShowing() && field.getScene() != null) {
+            Bounds bounds = field.localToScreen(field.getBoundsInLocal());
+            popup.show(field, bounds.getMinX(), bounds.getMaxY() + 2);
+        }
+    }
+
+    private void openSelected() {
+        SearchDAO.SearchResult result = resultList.getSelectionModel().getSelectedItem();
+        if (result != null) {
+            popup.hide();
+            onOpen.accept(result);
+        }
+    }
+
+    /**
+     * Two-line cell: what matched (kind, name, context) and the highlighted excerpt
+     */
+    private static class ResultCell extends ListCell<SearchDAO.SearchResult> {
+        @Override
+        protected void updateItem(SearchDAO.SearchResult result, boolean empty) {
+            super.updateItem(result, empty);
+            if (empty || result == null) {
+                setGraphic(null);
+                setText(null);
+                return;
+            }
+
+            String heading = switch (result.getKind()) {
+                case SUBJECT -> "📚 " + result.getTitle();
+                case CHAPTER -> "📖 " + result.getTitle() + "  ·  " + result.getContext();
+                case EXAM -> "📝 " + result.getTitle() + "  ·  " + result.getContext() + "  ·  " + result.getDate();
+                case SESSION -> "⏱️ Session " + result.getDate() + "  ·  " + result.getContext();
+            };
+            Label headingLabel = new Label(heading);
+            headingLabel.setFont(Font.font("System", FontWeight.SEMI_BOLD, 13));
+
+            Label excerptLabel = new Label(result.getExcerpt());
+            excerptLabel.setStyle("-fx-text-fill: #7f8c8d;");
+
+            setText(null);
+            setGraphic(new VBox(2, headingLabel, excerptLabel));
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.studytracker.ui;
+
+import com.studytracker.service.StudySessionColumns;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.Label;
+import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.TextStyle;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Locale;
+
+/**
+ * Calendar heatmap of daily study hours over the last year: one column per week,
+ * one row per weekday, drawn on a single Canvas (one node instead of 365 cells).
+ */
+public class StudyHeatmap {
+    public static final int DAYS = 365;
+
+    private static final double CELL = 12;
+    private static final double GAP = 3;
+    private static final double LEFT = 32;
+    private static final double TOP = 18;
+    private static final Color EMPTY = Color.web("#ebedf0");
+    // Purple scale matching the header gradient, for < 1 h, < 2 h, < 4 h and 4 h+
+    private static final Color[] LEVELS = {
+        Color.web("#d6ccf5"), Color.web("#a993e6"), Color.web("#7e5fcf"), Color.web("#5b3a9e")
+    };
+
+    private final Canvas canvas;
+    private final Label detailLabel = new Label(" ");
+    private final VBox view;
+    private StudySessionColumns.DailyTotals days;
+    private LocalDate firstDay;
+    private LocalDate lastDay;
+
+    public StudyHeatmap() {
+        int weeks = DAYS / 7 + 2;
+        canvas = new Canvas(LEFT + weeks * (CELL + GAP), TOP + 7 * (CELL + GAP));
+        detailLabel.setStyle("-fx-text-fill: #7f8c8d;");
+
+        // Hovering a day shows its totals under the calendar
+        canvas.setOnMouseMoved(e -> {
+            LocalDate day = dayAt(e.getX(), e.getY());
+            int index = day != null ? days.indexOf(day) : -1;
+            if (day == null) {
+                detailLabel.setText(" ");
+            } else if (index < 0 || days.getSessions(index) == 0) {
+                detailLabel.setText(day + ": no study");
+            } else {
+                detailLabel.setText(String.format("%s: %.1f h, %d session(s), %d XP",
+                    day, days.getHours(index), days.getSessions(index), days.getXp(index)));
+            }
+        });
+        canvas.setOnMouseExited(e -> detailLabel.setText(" "));
+
+        view = new VBox(5, canvas, detailLabel);
+    }
+
+    public VBox getView() {
+        return view;
+    }
+
+    /**
+     * First day to query: the Monday starting the first drawn week
+     */
+    public static LocalDate rangeStart(LocalDate today) {
+        return today.minusDays(DAYS - 1).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    /**
+     * Redraw with the daily totals of the year ending today (from rangeStart to today)
+     */
+    public void setDays(StudySessionColumns.DailyTotals dailyTotals, LocalDate today) {
+        days = dailyTotals;
+        firstDay = rangeStart(today);
+        lastDay = today;
+        draw();
+    }
+
+    private void draw() {
+        GraphicsContext g = canvas.getGraphicsContext2D();
+        g.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        g.setFont(Font.font("System", 10));
+        g.setTextBaseline(VPos.CENTER);
+        g.setFill(Color.web("#7f8c8d"));
+
+        // Weekday labels
+        g.setTextAlign(TextAlignment.LEFT);
+        g.fillText("Mon", 0, TOP + CELL / 2);
+        g.fillText("Wed", 0, TOP + 2 * (CELL + GAP) + CELL / 2);
+        g.fillText("Fri", 0, TOP + 4 * (CELL + GAP) + CELL / 2);
+
+        int currentMonth = -1;
+        for (LocalDate day = firstDay; !day.isAfter(lastDay); day = day.plusDays(1)) {
+            int week = (int) ChronoUnit.WEEKS.between(firstDay, day);
+            int weekday = day.getDayOfWeek().getValue() - 1;
+            double x = LEFT + week * (CELL + GAP);
+            double y = TOP + weekday * (CELL + GAP);
+
+            // Month label above the first column containing the 1st
+            if (day.getMonthValue() != currentMonth && weekday == 0) {
+                currentMonth = day.getMonthValue();
+                g.setFill(Color.web("#7f8c8d"));
+                g.fillText(day.getMonth().getDisplayName(TextStyle.SHORT, Locale.getDefault()), x, TOP / 2);
+            }
+
+            int index = days.indexOf(day);
+            g.setFill(index >= 0 && days.getSessions(index) > 0 ? colorFor(days.getHours(index)) : EMPTY);
+            g.fillRoundRect(x, y, CELL, CELL, 3, 3);
+        }
+    }
+
+    private static Color colorFor(double hours) {
+        if (hours < 1) {
+            return LEVELS[0];
+        }
+        if (hours < 2) {
+            return LEVELS[1];
+        }
+        if (hours < 4) {
+            return LEVELS[2];
+        }
+        return LEVELS[3];
+    }
+
+    /**
+     * Day under a canvas position, or null outside the cells
+     */
+    private LocalDate dayAt(double x, double y) {
+        if (firstDay == null || x < LEFT || y < TOP) {
+            return null;
+        }
+        int week = (int) ((x - LEFT) / (CELL + GAP));
+        int weekday = (int) ((y - TOP) / (CELL + GAP));
+        if (weekday > 6 || (x - LEFT) % (CELL + GAP) > CELL || (y - TOP) % (CELL + GAP) > CELL) {
+            return null;
+        }
+        LocalDate day = firstDay.plusWeeks(week).plusDays(weekday);
+        return day.isAfter(lastDay) ? null : day;
+    }
+}
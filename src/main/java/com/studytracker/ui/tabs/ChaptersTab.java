@@ -5,35 +5,60 @@ import com.studytracker.dao.SubjectDAO;
 import com.studytracker.model.Chapter;
 import com.studytracker.model.Subject;
 import com.studytracker.model.User;
+import com.studytracker.monitoring.UiRefreshEvent;
 import com.studytracker.ui.MainWindow;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
+import javafx.collections.transformation.SortedList;
+import javafx.css.PseudoClass;
 import javafx.geometry.Insets;
+import javafx.scene.Node;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.*;
 
 import java.sql.SQLException;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Tab for managing chapters with color-coded status.
  */
-public class ChaptersTab {
+public class ChaptersTab implements MainTab {
+    // Pseudo-class per status for tables.css (:not-started, :in-progress, :completed)
+    private static final Map<Chapter.ChapterStatus, PseudoClass> STATUS_STATES = new EnumMap<>(Chapter.ChapterStatus.class);
+    // Status cell values, shared by all rows instead of one property per cell update
+    private static final Map<Chapter.ChapterStatus, ObservableValue<Chapter.ChapterStatus>> STATUS_VALUES =
+        new EnumMap<>(Chapter.ChapterStatus.class);
+
+    static {
+        for (Chapter.ChapterStatus status : Chapter.ChapterStatus.values()) {
+            STATUS_STATES.put(status, PseudoClass.getPseudoClass(status.name().toLowerCase().replace('_', '-')));
+            STATUS_VALUES.put(status, new ReadOnlyObjectWrapper<>(status));
+        }
+    }
+
     private final User currentUser;
     private final MainWindow mainWindow;
     private final ChapterDAO chapterDAO;
     private final SubjectDAO subjectDAO;
     private final TableView<Chapter> table;
+    // Every chapter of the user's subjects; the subject filter only narrows the view
     private final ObservableList<Chapter> chapters;
+    private final FilteredList<Chapter> filteredChapters;
     private ComboBox<Subject> subjectFilter;
 
     public ChaptersTab(User currentUser, MainWindow mainWindow) {
         this.currentUser = currentUser;
         this.mainWindow = mainWindow;
-        this.chapterDAO = new ChapterDAO();
-        this.subjectDAO = new SubjectDAO();
+        this.chapterDAO = ChapterDAO.forUser(currentUser.getId());
+        this.subjectDAO = SubjectDAO.forUser(currentUser.getId());
         this.chapters = FXCollections.observableArrayList();
+        this.filteredChapters = new FilteredList<>(chapters);
         this.table = createTable();
     }
 
@@ -90,18 +115,17 @@ public class ChaptersTab {
 
     private TableView<Chapter> createTable() {
         TableView<Chapter> table = new TableView<>();
-        table.setItems(chapters);
+        // Sorted view over the filtered one, so column sorting still works
+        SortedList<Chapter> sortedChapters = new SortedList<>(filteredChapters);
+        sortedChapters.comparatorProperty().bind(table.comparatorProperty());
+        table.setItems(sortedChapters);
 
-        // Custom row factory for color coding
+        // Row color coding: status pseudo-classes styled by tables.css
         table.setRowFactory(tv -> new TableRow<>() {
             @Override
             protected void updateItem(Chapter chapter, boolean empty) {
                 super.updateItem(chapter, empty);
-                if (empty || chapter == null) {
-                    setStyle("");
-                } else {
-                    setStyle("-fx-background-color: " + chapter.getStatus().getColor() + "22;");
-                }
+                showStatus(this, empty || chapter == null ? null : chapter.getStatus());
             }
         });
 
@@ -109,22 +133,19 @@ public class ChaptersTab {
         nameCol.setCellValueFactory(new PropertyValueFactory<>("name"));
         nameCol.setPrefWidth(250);
 
-        TableColumn<Chapter, String> statusCol = new TableColumn<>("Status");
-        statusCol.setCellValueFactory(cellData ->
-            new javafx.beans.property.SimpleStringProperty(cellData.getValue().getStatus().getDisplayName()));
+        TableColumn<Chapter, Chapter.ChapterStatus> statusCol = new TableColumn<>("Status");
+        statusCol.setCellValueFactory(cellData -> STATUS_VALUES.get(cellData.getValue().getStatus()));
         statusCol.setPrefWidth(120);
         statusCol.setCellFactory(col -> new TableCell<>() {
+            {
+                getStyleClass().add("status-cell");
+            }
+
             @Override
-            protected void updateItem(String status, boolean empty) {
+            protected void updateItem(Chapter.ChapterStatus status, boolean empty) {
                 super.updateItem(status, empty);
-                if (empty || status == null) {
-                    setText(null);
-                    setStyle("");
-                } else {
-                    setText(status);
-                    Chapter chapter = getTableView().getItems().get(getIndex());
-                    setStyle("-fx-font-weight: bold; -fx-text-fill: " + chapter.getStatus().getColor() + ";");
-                }
+                setText(empty || status == null ? null : status.getDisplayName());
+                showStatus(this, empty ? null : status);
             }
         });
 
@@ -136,11 +157,20 @@ public class ChaptersTab {
         descCol.setCellValueFactory(new PropertyValueFactory<>("description"));
         descCol.setPrefWidth(300);
 
-        table.getColumns().addAll(nameCol, statusCol, hoursCol, descCol);
+        table.getColumns().addAll(List.of(nameCol, statusCol, hoursCol, descCol));
 
         return table;
     }
 
+    /**
+     * Switch a row or cell to the pseudo-class of a status (none for null)
+     */
+    private static void showStatus(Node node, Chapter.ChapterStatus status) {
+        for (Map.Entry<Chapter.ChapterStatus, PseudoClass> state : STATUS_STATES.entrySet()) {
+            node.pseudoClassStateChanged(state.getValue(), state.getKey() == status);
+        }
+    }
+
     private void showAddDialog() {
         try {
             List<Subject> userSubjects = subjectDAO.findByUserId(currentUser.getId());
@@ -323,35 +353,33 @@ public class ChaptersTab {
         }
     }
 
+    /**
+     * Show the chapters of the selected subject, all of them without one (no query)
+     */
     private void applyFilter() {
-        try {
-            chapters.clear();
-            Subject filterSubject = subjectFilter.getValue();
-
-            if (filterSubject == null) {
-                // Show all chapters for user's subjects
-                List<Subject> userSubjects = subjectDAO.findByUserId(currentUser.getId());
-                for (Subject subject : userSubjects) {
-                    chapters.addAll(chapterDAO.findBySubjectId(subject.getId()));
-                }
-            } else {
-                chapters.addAll(chapterDAO.findBySubjectId(filterSubject.getId()));
-            }
-        } catch (SQLException ex) {
-            showAlert("Error loading chapters: " + ex.getMessage(), Alert.AlertType.ERROR);
+        Subject filterSubject = subjectFilter.getValue();
+        if (filterSubject == null) {
+            filteredChapters.setPredicate(null);
+        } else {
+            int subjectId = filterSubject.getId();
+            filteredChapters.setPredicate(chapter -> chapter.getSubjectId() == subjectId);
         }
     }
 
     public void refresh() {
+        UiRefreshEvent event = UiRefreshEvent.start("ChaptersTab.refresh");
         try {
             // Update subject filter
             List<Subject> userSubjects = subjectDAO.findByUserId(currentUser.getId());
             subjectFilter.setItems(FXCollections.observableArrayList(userSubjects));
 
-            // Refresh chapters
+            // Refresh chapters: one query for all subjects, filtered in memory
+            chapters.setAll(chapterDAO.findByUserId(currentUser.getId()));
             applyFilter();
         } catch (SQLException ex) {
             showAlert("Error loading data: " + ex.getMessage(), Alert.AlertType.ERROR);
+        } finally {
+            event.finish();
         }
     }
 
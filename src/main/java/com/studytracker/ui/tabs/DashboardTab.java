@@ -1,8 +1,17 @@
 package com.studytracker.ui.tabs;
 
-import com.studytracker.dao.*;
 import com.studytracker.model.*;
+import com.studytracker.monitoring.UiRefreshEvent;
+import com.studytracker.service.ExamReadinessService;
 import com.studytracker.service.GamificationService;
+import com.studytracker.service.LeaderboardService;
+import com.studytracker.ui.ProgressChart;
+import com.studytracker.ui.StudyHeatmap;
+import javafx.beans.binding.Bindings;
+import javafx.beans.binding.NumberBinding;
+import javafx.beans.binding.StringExpression;
+import javafx.beans.property.IntegerProperty;
+import javafx.collections.ListChangeListener;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.chart.*;
@@ -13,27 +22,27 @@ import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 /**
  * Dashboard tab with charts, statistics, and gamification display.
+ * The nodes are built once and bound to a DashboardViewModel: refresh() reloads the
+ * view-model and only the values that changed are redrawn (rows of the exam list and
+ * leaderboard are reused, the pie slices keep their PieChart.Data).
  */
-public class DashboardTab {
-    private final User currentUser;
-    private final ChapterDAO chapterDAO;
-    private final SubjectDAO subjectDAO;
-    private final ExamDAO examDAO;
-    private final StudySessionDAO sessionDAO;
-    private final GamificationService gamificationService;
+public class DashboardTab implements MainTab {
+    private static final String CARD_STYLE = "-fx-background-color: white; -fx-border-color: #bdc3c7; -fx-border-width: 2; -fx-background-radius: 10; -fx-border-radius: 10;";
+
+    private final DashboardViewModel model;
     private final VBox content;
+    private final Label errorLabel = new Label();
 
     public DashboardTab(User currentUser) {
-        this.currentUser = currentUser;
-        this.chapterDAO = new ChapterDAO();
-        this.subjectDAO = new SubjectDAO();
-        this.examDAO = new ExamDAO();
-        this.sessionDAO = new StudySessionDAO();
-        this.gamificationService = new GamificationService();
+        this.model = new DashboardViewModel(currentUser);
         this.content = new VBox(20);
         initializeContent();
     }
@@ -44,6 +53,10 @@ public class DashboardTab {
         Label titleLabel = new Label("📊 Dashboard");
         titleLabel.setFont(Font.font("System", FontWeight.BOLD, 24));
 
+        errorLabel.setStyle("-fx-text-fill: #e74c3c;");
+        errorLabel.managedProperty().bind(errorLabel.visibleProperty());
+        errorLabel.setVisible(false);
+
         ScrollPane scrollPane = new ScrollPane();
         scrollPane.setFitToWidth(true);
         scrollPane.setStyle("-fx-background-color: transparent;");
@@ -51,81 +64,74 @@ public class DashboardTab {
         VBox scrollContent = new VBox(20);
         scrollContent.setPadding(new Insets(10));
 
-        content.getChildren().addAll(titleLabel, scrollPane);
+        // Row 1: Stats cards
+        HBox statsRow = createStatsCards();
 
-        // Will be populated in refresh()
-    }
+        // Row 2: Progress chart and XP/Level display
+        HBox chartsRow = new HBox(20);
+        VBox progressBox = createProgressChart();
+        VBox gamificationBox = createGamificationDisplay();
 
-    public VBox getContent() {
-        return content;
-    }
+        HBox.setHgrow(progressBox, Priority.ALWAYS);
+        chartsRow.getChildren().addAll(progressBox, gamificationBox);
 
-    public void refresh() {
-        try {
-            // Rebuild entire dashboard with fresh data
-            content.getChildren().clear();
+        // Row 3: Upcoming exams and leaderboard
+        HBox examsRow = new HBox(20);
+        VBox examsBox = createUpcomingExams();
+        VBox leaderboardBox = createLeaderboard();
 
-            Label titleLabel = new Label("📊 Dashboard");
-            titleLabel.setFont(Font.font("System", FontWeight.BOLD, 24));
+        HBox.setHgrow(examsBox, Priority.ALWAYS);
+        examsRow.getChildren().addAll(examsBox, leaderboardBox);
 
-            ScrollPane scrollPane = new ScrollPane();
-            scrollPane.setFitToWidth(true);
-            scrollPane.setStyle("-fx-background-color: transparent;");
+        // Row 4: Study activity over the last year
+        VBox activityBox = createActivityHeatmap();
 
-            VBox scrollContent = new VBox(20);
-            scrollContent.setPadding(new Insets(10));
+        // Row 5: Running XP / hours totals
+        VBox progressOverTimeBox = createProgressOverTime();
 
-            // Row 1: Stats cards
-            HBox statsRow = createStatsCards();
+        // Row 6: Badges
+        VBox badgesBox = createBadgesDisplay();
 
-            // Row 2: Progress chart and XP/Level display
-            HBox chartsRow = new HBox(20);
-            VBox progressBox = createProgressChart();
-            VBox gamificationBox = createGamificationDisplay();
+        scrollContent.getChildren().addAll(statsRow, chartsRow, examsRow, activityBox, progressOverTimeBox, badgesBox);
+        scrollPane.setContent(scrollContent);
 
-            HBox.setHgrow(progressBox, Priority.ALWAYS);
-            chartsRow.getChildren().addAll(progressBox, gamificationBox);
-
-            // Row 3: Upcoming exams
-            VBox examsBox = createUpcomingExams();
-
-            // Row 4: Badges
-            VBox badgesBox = createBadgesDisplay();
+        content.getChildren().addAll(titleLabel, errorLabel, scrollPane);
+    }
 
-            scrollContent.getChildren().addAll(statsRow, chartsRow, examsBox, badgesBox);
-            scrollPane.setContent(scrollContent);
+    public VBox getContent() {
+        return content;
+    }
 
-            content.getChildren().addAll(titleLabel, scrollPane);
+    public void refresh() {
+        UiRefreshEvent event = UiRefreshEvent.start("DashboardTab.refresh");
+        try {
+            // Update the view-model; bound nodes follow
+            model.load();
+            errorLabel.setVisible(false);
         } catch (SQLException ex) {
-            content.getChildren().add(new Label("Error loading dashboard: " + ex.getMessage()));
+            errorLabel.setText("Error loading dashboard: " + ex.getMessage());
+            errorLabel.setVisible(true);
+        } finally {
+            event.finish();
         }
     }
 
-    private HBox createStatsCards() throws SQLException {
+    private HBox createStatsCards() {
         HBox statsRow = new HBox(15);
         statsRow.setAlignment(Pos.CENTER);
 
-        // Total subjects
-        int totalSubjects = subjectDAO.countByUserId(currentUser.getId());
-        VBox subjectCard = createStatCard("📚", "Subjects", String.valueOf(totalSubjects), "#3498db");
-
-        // Completed chapters
-        int completedChapters = chapterDAO.countCompletedByUserId(currentUser.getId());
-        VBox chaptersCard = createStatCard("✅", "Completed Chapters", String.valueOf(completedChapters), "#27ae60");
-
-        // Total study hours
-        double totalHours = sessionDAO.getTotalHoursByUserId(currentUser.getId());
-        VBox hoursCard = createStatCard("⏱️", "Study Hours", String.format("%.1f", totalHours), "#e67e22");
-
-        // Study streak
-        VBox streakCard = createStatCard("🔥", "Day Streak", String.valueOf(currentUser.getStudyStreak()), "#e74c3c");
+        VBox subjectCard = createStatCard("📚", "Subjects", model.subjectCountProperty().asString(), "#3498db");
+        VBox chaptersCard = createStatCard("✅", "Completed Chapters",
+                model.completedChaptersProperty().asString(), "#27ae60");
+        VBox hoursCard = createStatCard("⏱️", "Study Hours", model.totalHoursProperty().asString("%.1f"), "#e67e22");
+        VBox streakCard = createStatCard("🔥", "Day Streak", model.studyStreakProperty().asString(), "#e74c3c");
 
         statsRow.getChildren().addAll(subjectCard, chaptersCard, hoursCard, streakCard);
 
         return statsRow;
     }
 
-    private VBox createStatCard(String icon, String label, String value, String color) {
+    private VBox createStatCard(String icon, String label, StringExpression value, String color) {
         VBox card = new VBox(10);
         card.setAlignment(Pos.CENTER);
         card.setPadding(new Insets(20));
@@ -136,7 +142,8 @@ public class DashboardTab {
         Label iconLabel = new Label(icon);
         iconLabel.setFont(Font.font(36));
 
-        Label valueLabel = new Label(value);
+        Label valueLabel = new Label();
+        valueLabel.textProperty().bind(value);
         valueLabel.setFont(Font.font("System", FontWeight.BOLD, 32));
         valueLabel.setStyle("-fx-text-fill: " + color + ";");
 
@@ -149,10 +156,10 @@ public class DashboardTab {
         return card;
     }
 
-    private VBox createProgressChart() throws SQLException {
+    private VBox createProgressChart() {
         VBox box = new VBox(10);
         box.setPadding(new Insets(15));
-        box.setStyle("-fx-background-color: white; -fx-border-color: #bdc3c7; -fx-border-width: 2; -fx-background-radius: 10; -fx-border-radius: 10;");
+        box.setStyle(CARD_STYLE);
 
         Label titleLabel = new Label("📈 Chapter Progress by Subject");
         titleLabel.setFont(Font.font("System", FontWeight.SEMI_BOLD, 16));
@@ -161,50 +168,52 @@ public class DashboardTab {
         PieChart pieChart = new PieChart();
         pieChart.setTitle("Overall Progress");
         pieChart.setLegendVisible(true);
+        pieChart.setPrefHeight(300);
+
+        // One slice per status, updated in place; empty statuses leave the chart
+        List<IntegerProperty> counts = List.of(model.chaptersCompletedProperty(),
+                model.chaptersInProgressProperty(), model.chaptersNotStartedProperty());
+        List<String> names = List.of("Completed", "In Progress", "Not Started");
+        List<PieChart.Data> slices = new ArrayList<>();
+        for (int i = 0; i < counts.size(); i++) {
+            PieChart.Data slice = new PieChart.Data(names.get(i), 0);
+            slice.nameProperty().bind(Bindings.concat(names.get(i), " (", counts.get(i), ")"));
+            slice.pieValueProperty().bind(counts.get(i));
+            slices.add(slice);
+            counts.get(i).addListener((obs, oldCount, newCount) -> showSlices(pieChart, slices));
+        }
 
-        // Get all subjects
-        List<Subject> subjects = subjectDAO.findByUserId(currentUser.getId());
-
-        if (subjects.isEmpty()) {
-            Label emptyLabel = new Label("No data yet. Create subjects and chapters to see your progress!");
-            emptyLabel.setStyle("-fx-text-fill: #7f8c8d;");
-            box.getChildren().addAll(titleLabel, emptyLabel);
-        } else {
-            int totalCompleted = 0;
-            int totalInProgress = 0;
-            int totalNotStarted = 0;
-
-            for (Subject subject : subjects) {
-                ChapterDAO.ChapterStats stats = chapterDAO.getStatsBySubjectId(subject.getId());
-                totalCompleted += stats.getCompleted();
-                totalInProgress += stats.getInProgress();
-                totalNotStarted += stats.getNotStarted();
-            }
+        NumberBinding totalChapters = Bindings.add(counts.get(0), counts.get(1)).add(counts.get(2));
+        Label emptyLabel = new Label();
+        emptyLabel.textProperty().bind(Bindings.when(model.subjectCountProperty().isEqualTo(0))
+                .then("No data yet. Create subjects and chapters to see your progress!")
+                .otherwise("No chapters yet. Add chapters to track your progress!"));
+        emptyLabel.setStyle("-fx-text-fill: #7f8c8d;");
+        emptyLabel.visibleProperty().bind(totalChapters.isEqualTo(0));
+        emptyLabel.managedProperty().bind(emptyLabel.visibleProperty());
+        pieChart.visibleProperty().bind(totalChapters.greaterThan(0));
+        pieChart.managedProperty().bind(pieChart.visibleProperty());
+
+        box.getChildren().addAll(titleLabel, emptyLabel, pieChart);
+        return box;
+    }
 
-            if (totalCompleted + totalInProgress + totalNotStarted == 0) {
-                Label emptyLabel = new Label("No chapters yet. Add chapters to track your progress!");
-                emptyLabel.setStyle("-fx-text-fill: #7f8c8d;");
-                box.getChildren().addAll(titleLabel, emptyLabel);
-            } else {
-                if (totalCompleted > 0) {
-                    PieChart.Data completedData = new PieChart.Data("Completed (" + totalCompleted + ")", totalCompleted);
-                    pieChart.getData().add(completedData);
-                }
-                if (totalInProgress > 0) {
-                    PieChart.Data inProgressData = new PieChart.Data("In Progress (" + totalInProgress + ")", totalInProgress);
-                    pieChart.getData().add(inProgressData);
-                }
-                if (totalNotStarted > 0) {
-                    PieChart.Data notStartedData = new PieChart.Data("Not Started (" + totalNotStarted + ")", totalNotStarted);
-                    pieChart.getData().add(notStartedData);
+    /**
+     * Keep the slices with a count in the chart, in status order
+     */
+    private static void showSlices(PieChart pieChart, List<PieChart.Data> slices) {
+        int position = 0;
+        for (PieChart.Data slice : slices) {
+            boolean shown = pieChart.getData().contains(slice);
+            if (slice.getPieValue() > 0) {
+                if (!shown) {
+                    pieChart.getData().add(position, slice);
                 }
-
-                pieChart.setPrefHeight(300);
-                box.getChildren().addAll(titleLabel, pieChart);
+                position++;
+            } else if (shown) {
+                pieChart.getData().remove(slice);
             }
         }
-
-        return box;
     }
 
     private VBox createGamificationDisplay() {
@@ -219,31 +228,36 @@ public class DashboardTab {
         titleLabel.setTextFill(Color.WHITE);
 
         // Level display
-        Label levelLabel = new Label("Level " + currentUser.getLevel());
+        Label levelLabel = new Label();
+        levelLabel.textProperty().bind(Bindings.concat("Level ", model.levelProperty()));
         levelLabel.setFont(Font.font("System", FontWeight.BOLD, 48));
         levelLabel.setTextFill(Color.WHITE);
 
-        // XP display
-        int currentLevelXp = (currentUser.getLevel() - 1) * 100;
-        int xpInCurrentLevel = currentUser.getXp() - currentLevelXp;
+        // XP display: 100 XP per level
         int xpNeeded = 100;
+        NumberBinding xpInCurrentLevel = model.xpProperty().subtract(model.levelProperty().subtract(1).multiply(xpNeeded));
 
-        Label xpLabel = new Label(xpInCurrentLevel + " / " + xpNeeded + " XP");
+        Label xpLabel = new Label();
+        xpLabel.textProperty().bind(Bindings.concat(xpInCurrentLevel, " / ", xpNeeded, " XP"));
         xpLabel.setFont(Font.font("System", 16));
         xpLabel.setTextFill(Color.rgb(255, 255, 255, 0.9));
 
         // Progress bar
-        ProgressBar xpBar = new ProgressBar(xpInCurrentLevel / 100.0);
+        ProgressBar xpBar = new ProgressBar();
+        xpBar.progressProperty().bind(xpInCurrentLevel.divide((double) xpNeeded));
         xpBar.setPrefWidth(280);
         xpBar.setPrefHeight(25);
         xpBar.setStyle("-fx-accent: #2ecc71;");
 
-        Label nextLevelLabel = new Label((xpNeeded - xpInCurrentLevel) + " XP to Level " + (currentUser.getLevel() + 1));
+        Label nextLevelLabel = new Label();
+        nextLevelLabel.textProperty().bind(Bindings.concat(Bindings.subtract(xpNeeded, xpInCurrentLevel),
+                " XP to Level ", model.levelProperty().add(1)));
         nextLevelLabel.setFont(Font.font("System", 12));
         nextLevelLabel.setTextFill(Color.rgb(255, 255, 255, 0.8));
 
         // Total XP
-        Label totalXpLabel = new Label("Total XP: " + currentUser.getXp());
+        Label totalXpLabel = new Label();
+        totalXpLabel.textProperty().bind(Bindings.concat("Total XP: ", model.xpProperty()));
         totalXpLabel.setFont(Font.font("System", FontWeight.SEMI_BOLD, 14));
         totalXpLabel.setTextFill(Color.WHITE);
 
@@ -252,74 +266,355 @@ public class DashboardTab {
         return box;
     }
 
-    private VBox createUpcomingExams() throws SQLException {
+    private VBox createUpcomingExams() {
         VBox box = new VBox(10);
         box.setPadding(new Insets(15));
-        box.setStyle("-fx-background-color: white; -fx-border-color: #bdc3c7; -fx-border-width: 2; -fx-background-radius: 10; -fx-border-radius: 10;");
+        box.setStyle(CARD_STYLE);
 
         Label titleLabel = new Label("⚠️ Upcoming Exams (Next 7 Days)");
         titleLabel.setFont(Font.font("System", FontWeight.SEMI_BOLD, 16));
 
-        List<Exam> upcomingExams = examDAO.findUpcomingByUserId(currentUser.getId());
-
-        if (upcomingExams.isEmpty()) {
-            Label noExamsLabel = new Label("No upcoming exams! 🎉");
-            noExamsLabel.setStyle("-fx-text-fill: #27ae60; -fx-font-size: 14px;");
-            box.getChildren().addAll(titleLabel, noExamsLabel);
-        } else {
-            VBox examsList = new VBox(8);
-            for (Exam exam : upcomingExams) {
-                HBox examRow = new HBox(15);
-                examRow.setPadding(new Insets(10));
-                examRow.setAlignment(Pos.CENTER_LEFT);
-                examRow.setStyle("-fx-background-color: #fff3cd; -fx-border-color: #f39c12; -fx-border-width: 1; -fx-background-radius: 5; -fx-border-radius: 5;");
-
-                Label dateLabel = new Label("📅 " + exam.getExamDate().toString());
-                dateLabel.setFont(Font.font("System", FontWeight.BOLD, 14));
-                dateLabel.setPrefWidth(150);
-
-                Label nameLabel = new Label(exam.getName());
-                nameLabel.setFont(Font.font("System", 14));
-
-                Region spacer = new Region();
-                HBox.setHgrow(spacer, Priority.ALWAYS);
-
-                long daysUntil = exam.getDaysUntil();
-                Label daysLabel = new Label(daysUntil + " day" + (daysUntil != 1 ? "s" : ""));
-                daysLabel.setFont(Font.font("System", FontWeight.BOLD, 14));
-                daysLabel.setStyle("-fx-text-fill: #e67e22;");
-
-                examRow.getChildren().addAll(dateLabel, nameLabel, spacer, daysLabel);
-                examsList.getChildren().add(examRow);
+        Label noExamsLabel = new Label("No upcoming exams! 🎉");
+        noExamsLabel.setStyle("-fx-text-fill: #27ae60; -fx-font-size: 14px;");
+        noExamsLabel.visibleProperty().bind(Bindings.isEmpty(model.getUpcomingExams()));
+        noExamsLabel.managedProperty().bind(noExamsLabel.visibleProperty());
+
+        VBox examsList = new VBox(8);
+        List<ExamRow> rows = new ArrayList<>();
+        model.getUpcomingExams().addListener((ListChangeListener<Exam>) change -> {
+            List<Exam> exams = model.getUpcomingExams();
+            for (int i = 0; i < exams.size(); i++) {
+                if (i == rows.size()) {
+                    rows.add(new ExamRow());
+                    examsList.getChildren().add(rows.get(i).row);
+                }
+                rows.get(i).update(exams.get(i), model.getForecast(exams.get(i).getId()));
+            }
+            while (rows.size() > exams.size()) {
+                examsList.getChildren().remove(rows.remove(rows.size() - 1).row);
+            }
+        });
+
+        box.getChildren().addAll(titleLabel, noExamsLabel, examsList);
+        return box;
+    }
+
+    private VBox createLeaderboard() {
+        User currentUser = model.getCurrentUser();
+        VBox box = new VBox(10);
+        box.setPadding(new Insets(15));
+        box.setPrefWidth(350);
+        box.setStyle(CARD_STYLE);
+
+        Label titleLabel = new Label("🏅 Leaderboard");
+        titleLabel.setFont(Font.font("System", FontWeight.SEMI_BOLD, 16));
+
+        // Global / class toggle (class only when the user has one)
+        ToggleGroup scopeGroup = new ToggleGroup();
+        ToggleButton globalButton = new ToggleButton("Global");
+        ToggleButton classButton = new ToggleButton(currentUser.getClassName() != null
+                ? "Class " + currentUser.getClassName() : "No class");
+        globalButton.setToggleGroup(scopeGroup);
+        classButton.setToggleGroup(scopeGroup);
+        classButton.setDisable(currentUser.getClassName() == null);
+        globalButton.setSelected(true);
+        HBox scopeBox = new HBox(5, globalButton, classButton);
+
+        Label myRankLabel = new Label();
+        myRankLabel.setFont(Font.font("System", FontWeight.BOLD, 14));
+        myRankLabel.setStyle("-fx-text-fill: #8e44ad;");
+        myRankLabel.textProperty().bind(Bindings.createStringBinding(() -> {
+            LeaderboardService.Standing me = model.myStandingProperty().get();
+            return me != null ? "Your rank: #" + me.getRank() + " of " + me.getParticipants() : "";
+        }, model.myStandingProperty()));
+        myRankLabel.visibleProperty().bind(model.myStandingProperty().isNotNull());
+        myRankLabel.managedProperty().bind(myRankLabel.visibleProperty());
+
+        VBox rankingList = new VBox(6);
+        List<LeaderboardRow> rows = new ArrayList<>();
+        model.getLeaderboard().addListener((ListChangeListener<LeaderboardService.Standing>) change -> {
+            List<LeaderboardService.Standing> top = model.getLeaderboard();
+            for (int i = 0; i < top.size(); i++) {
+                if (i == rows.size()) {
+                    rows.add(new LeaderboardRow());
+                    rankingList.getChildren().add(rows.get(i).row);
+                }
+                rows.get(i).update(top.get(i), top.get(i).getEntry().getUserId() == currentUser.getId());
+            }
+            while (rows.size() > top.size()) {
+                rankingList.getChildren().remove(rows.remove(rows.size() - 1).row);
+            }
+        });
+
+        scopeGroup.selectedToggleProperty().addListener((obs, oldToggle, newToggle) -> {
+            if (newToggle == null) {
+                // Keep one scope selected
+                oldToggle.setSelected(true);
+                return;
+            }
+            model.leaderboardClassOnlyProperty().set(newToggle == classButton);
+            try {
+                model.loadLeaderboard();
+            } catch (SQLException ex) {
+                errorLabel.setText("Error loading leaderboard: " + ex.getMessage());
+                errorLabel.setVisible(true);
+            }
+        });
+
+        box.getChildren().addAll(titleLabel, scopeBox, myRankLabel, rankingList);
+        return box;
+    }
+
+    private VBox createActivityHeatmap() {
+        VBox box = new VBox(10);
+        box.setPadding(new Insets(15));
+        box.setStyle(CARD_STYLE);
+
+        Label titleLabel = new Label("🔥 Study Activity (last 365 days)");
+        titleLabel.setFont(Font.font("System", FontWeight.SEMI_BOLD, 16));
+
+        // Subject filter: "All subjects" (null) or one subject
+        ComboBox<Subject> subjectCombo = new ComboBox<>();
+        subjectCombo.getItems().add(null);
+        subjectCombo.setButtonCell(new SubjectFilterCell(true));
+        subjectCombo.setCellFactory(list -> new SubjectFilterCell(false));
+        subjectCombo.getSelectionModel().select(null);
+        model.getSubjects().addListener((ListChangeListener<Subject>) change -> {
+            // Keep the filter on the same subject when the list is reloaded
+            Integer selectedId = model.heatmapSubjectIdProperty().get();
+            List<Subject> items = new ArrayList<>();
+            items.add(null);
+            items.addAll(model.getSubjects());
+            subjectCombo.getItems().setAll(items);
+            subjectCombo.getSelectionModel().select(items.stream()
+                .filter(subject -> subject != null && selectedId != null && subject.getId() == selectedId)
+                .findFirst().orElse(null));
+        });
+
+        Region spacer = new Region();
+        HBox.setHgrow(spacer, Priority.ALWAYS);
+        HBox titleRow = new HBox(10, titleLabel, spacer, subjectCombo);
+        titleRow.setAlignment(Pos.CENTER_LEFT);
+
+        Label totalLabel = new Label();
+        totalLabel.setStyle("-fx-text-fill: #7f8c8d;");
+
+        StudyHeatmap heatmap = new StudyHeatmap();
+        model.activityProperty().addListener((obs, oldDays, days) -> {
+            heatmap.setDays(days, model.getActivityEnd());
+            int studyDays = days.getStudyDays();
+            totalLabel.setText(studyDays == 0 ? "0.0 hours over 0 study days" : String.format(
+                "%.1f hours over %d study days, %.1f h on a typical study day (median)",
+                days.getTotalHours(), studyDays, days.getStudyDayHoursPercentile(0.5)));
+        });
+
+        subjectCombo.setOnAction(e -> {
+            Subject selected = subjectCombo.getValue();
+            Integer subjectId = selected != null ? selected.getId() : null;
+            if (Objects.equals(subjectId, model.heatmapSubjectIdProperty().get())) {
+                return;
+            }
+            model.heatmapSubjectIdProperty().set(subjectId);
+            try {
+                model.loadActivity();
+            } catch (SQLException ex) {
+                totalLabel.setText("Error loading activity: " + ex.getMessage());
             }
+        });
 
-            box.getChildren().addAll(titleLabel, examsList);
+        box.getChildren().addAll(titleRow, heatmap.getView(), totalLabel);
+        return box;
+    }
+
+    /**
+     * Subject name, or "All subjects" for the null entry
+     * (the button cell is "empty" when the value is null, so it shows it then too)
+     */
+    private static class SubjectFilterCell extends ListCell<Subject> {
+        private final boolean buttonCell;
+
+        SubjectFilterCell(boolean buttonCell) {
+            this.buttonCell = buttonCell;
+        }
+
+        @Override
+        protected void updateItem(Subject subject, boolean empty) {
+            super.updateItem(subject, empty);
+            if (empty && !buttonCell) {
+                setText(null);
+            } else {
+                setText(subject == null ? "All subjects" : subject.getName());
+            }
         }
+    }
+
+    private VBox createProgressOverTime() {
+        VBox box = new VBox(10);
+        box.setPadding(new Insets(15));
+        box.setStyle(CARD_STYLE);
+
+        Label titleLabel = new Label("📈 Progress Over Time");
+        titleLabel.setFont(Font.font("System", FontWeight.SEMI_BOLD, 16));
+
+        ProgressChart chart = new ProgressChart();
+        model.sessionsProperty().addListener((obs, oldSessions, sessions) -> chart.setSessions(sessions));
 
+        box.getChildren().addAll(titleLabel, chart.getView());
         return box;
     }
 
-    private VBox createBadgesDisplay() throws SQLException {
+    private VBox createBadgesDisplay() {
         VBox box = new VBox(15);
         box.setPadding(new Insets(15));
-        box.setStyle("-fx-background-color: white; -fx-border-color: #bdc3c7; -fx-border-width: 2; -fx-background-radius: 10; -fx-border-radius: 10;");
+        box.setStyle(CARD_STYLE);
 
         Label titleLabel = new Label("🏆 Achievements & Badges");
         titleLabel.setFont(Font.font("System", FontWeight.SEMI_BOLD, 16));
 
-        List<GamificationService.BadgeInfo> badges = gamificationService.getAllBadgesWithStatus(currentUser.getId());
-
         FlowPane badgesFlow = new FlowPane(15, 15);
         badgesFlow.setPadding(new Insets(10));
 
-        for (GamificationService.BadgeInfo badgeInfo : badges) {
-            VBox badgeCard = new VBox(8);
-            badgeCard.setAlignment(Pos.CENTER);
-            badgeCard.setPadding(new Insets(15));
-            badgeCard.setPrefWidth(140);
-            badgeCard.setStyle("-fx-border-color: " + (badgeInfo.isUnlocked() ? "#2ecc71" : "#bdc3c7") +
-                    "; -fx-border-width: 2; -fx-background-radius: 8; -fx-border-radius: 8;" +
-                    (badgeInfo.isUnlocked() ? " -fx-background-color: #d5f4e6;" : " -fx-background-color: #ecf0f1;"));
+        // One card per badge type, created the first time it is listed; reloads only restyle them
+        Map<Badge.BadgeType, BadgeCard> cards = new EnumMap<>(Badge.BadgeType.class);
+        model.getBadges().addListener((ListChangeListener<GamificationService.BadgeInfo>) change -> {
+            for (GamificationService.BadgeInfo badgeInfo : model.getBadges()) {
+                BadgeCard card = cards.computeIfAbsent(badgeInfo.getType(), type -> {
+                    BadgeCard created = new BadgeCard(badgeInfo);
+                    badgesFlow.getChildren().add(created.card);
+                    return created;
+                });
+                card.setUnlocked(badgeInfo.isUnlocked());
+            }
+        });
+
+        box.getChildren().addAll(titleLabel, badgesFlow);
+
+        return box;
+    }
+
+    /**
+     * Set a label's text unless it already shows it (a new String would still relayout it)
+     */
+    private static void setText(Labeled label, String text) {
+        if (!text.equals(label.getText())) {
+            label.setText(text);
+        }
+    }
+
+    /**
+     * Inner class for one reusable upcoming exam row
+     */
+    private static class ExamRow {
+        private final HBox row = new HBox(15);
+        private final Label dateLabel = new Label();
+        private final Label nameLabel = new Label();
+        private final Label daysLabel = new Label();
+        private final ProgressBar readinessBar = new ProgressBar();
+        private final Label readinessLabel = new Label();
+        private final VBox readinessBox = new VBox(2, readinessBar, readinessLabel);
+        private String readinessColor;
+
+        ExamRow() {
+            row.setPadding(new Insets(10));
+            row.setAlignment(Pos.CENTER_LEFT);
+            row.setStyle("-fx-background-color: #fff3cd; -fx-border-color: #f39c12; -fx-border-width: 1; -fx-background-radius: 5; -fx-border-radius: 5;");
+
+            dateLabel.setFont(Font.font("System", FontWeight.BOLD, 14));
+            dateLabel.setPrefWidth(150);
+            nameLabel.setFont(Font.font("System", 14));
+
+            Region spacer = new Region();
+            HBox.setHgrow(spacer, Priority.ALWAYS);
+
+            daysLabel.setFont(Font.font("System", FontWeight.BOLD, 14));
+            daysLabel.setStyle("-fx-text-fill: #e67e22;");
+
+            readinessBar.setPrefWidth(140);
+            readinessBox.setAlignment(Pos.CENTER_RIGHT);
+            readinessBox.managedProperty().bind(readinessBox.visibleProperty());
+
+            row.getChildren().addAll(dateLabel, nameLabel, spacer, readinessBox, daysLabel);
+        }
+
+        void update(Exam exam, ExamReadinessService.Forecast forecast) {
+            setText(dateLabel, "📅 " + exam.getExamDate().toString());
+            setText(nameLabel, exam.getName());
+            long daysUntil = exam.getDaysUntil();
+            setText(daysLabel, daysUntil + " day" + (daysUntil != 1 ? "s" : ""));
+
+            readinessBox.setVisible(forecast != null);
+            if (forecast == null) {
+                return;
+            }
+            readinessBar.setProgress(forecast.getReadiness());
+            String color = forecast.isOnTrack() ? "#27ae60" : "#e74c3c";
+            if (!color.equals(readinessColor)) {
+                readinessColor = color;
+                readinessBar.setStyle("-fx-accent: " + color + ";");
+                readinessLabel.setStyle("-fx-text-fill: " + color + "; -fx-font-size: 11px;");
+            }
+
+            String detail;
+            if (forecast.getReadiness() >= 1) {
+                detail = "Ready";
+            } else if (forecast.getReadyDate() == null) {
+                detail = String.format("Needs %.1f h/day", forecast.getRequiredHoursPerDay());
+            } else if (forecast.isOnTrack()) {
+                detail = "Ready by " + forecast.getReadyDate();
+            } else {
+                detail = String.format("Behind: needs %.1f h/day", forecast.getRequiredHoursPerDay());
+            }
+            setText(readinessLabel, String.format("%.0f%% ready · %s", forecast.getReadiness() * 100, detail));
+        }
+    }
+
+    /**
+     * Inner class for one reusable leaderboard row
+     */
+    private static class LeaderboardRow {
+        private final HBox row = new HBox(10);
+        private final Label rankLabel = new Label();
+        private final Label nameLabel = new Label();
+        private final Label xpLabel = new Label();
+
+        LeaderboardRow() {
+            row.setAlignment(Pos.CENTER_LEFT);
+            row.setPadding(new Insets(4, 8, 4, 8));
+
+            rankLabel.setFont(Font.font("System", FontWeight.BOLD, 13));
+            rankLabel.setPrefWidth(40);
+            nameLabel.setFont(Font.font("System", 13));
+
+            Region spacer = new Region();
+            HBox.setHgrow(spacer, Priority.ALWAYS);
+
+            xpLabel.setStyle("-fx-text-fill: #7f8c8d;");
+
+            row.getChildren().addAll(rankLabel, nameLabel, spacer, xpLabel);
+        }
+
+        void update(LeaderboardService.Standing standing, boolean isCurrentUser) {
+            setText(rankLabel, "#" + standing.getRank());
+            setText(nameLabel, standing.getEntry().getUsername());
+            setText(xpLabel, standing.getEntry().getXp() + " XP · Lv " + standing.getEntry().getLevel());
+            String style = isCurrentUser ? "-fx-background-color: #f3e5f5; -fx-background-radius: 5;" : "";
+            if (!style.equals(row.getStyle())) {
+                row.setStyle(style);
+            }
+        }
+    }
+
+    /**
+     * Inner class for one badge card, restyled when it is unlocked
+     */
+    private static class BadgeCard {
+        private final VBox card = new VBox(8);
+        private Boolean unlocked;
+
+        BadgeCard(GamificationService.BadgeInfo badgeInfo) {
+            card.setAlignment(Pos.CENTER);
+            card.setPadding(new Insets(15));
+            card.setPrefWidth(140);
 
             Label iconLabel = new Label(badgeInfo.getIcon());
             iconLabel.setFont(Font.font(48));
@@ -335,17 +630,18 @@ public class DashboardTab {
             descLabel.setWrapText(true);
             descLabel.setAlignment(Pos.CENTER);
 
-            badgeCard.getChildren().addAll(iconLabel, nameLabel, descLabel);
+            card.getChildren().addAll(iconLabel, nameLabel, descLabel);
+        }
 
-            if (!badgeInfo.isUnlocked()) {
-                badgeCard.setOpacity(0.5);
+        void setUnlocked(boolean isUnlocked) {
+            if (unlocked != null && unlocked == isUnlocked) {
+                return;
             }
-
-            badgesFlow.getChildren().add(badgeCard);
+            unlocked = isUnlocked;
+            card.setStyle("-fx-border-color: " + (isUnlocked ? "#2ecc71" : "#bdc3c7") +
+                    "; -fx-border-width: 2; -fx-background-radius: 8; -fx-border-radius: 8;" +
+                    (isUnlocked ? " -fx-background-color: #d5f4e6;" : " -fx-background-color: #ecf0f1;"));
+            card.setOpacity(isUnlocked ? 1 : 0.5);
         }
-
-        box.getChildren().addAll(titleLabel, badgesFlow);
-
-        return box;
     }
 }
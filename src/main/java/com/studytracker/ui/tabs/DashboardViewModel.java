@@ -0,0 +1,250 @@
+package com.studytracker.ui.tabs;
+
+import com.studytracker.dao.ChapterDAO;
+import com.studytracker.dao.ExamDAO;
+import com.studytracker.dao.SubjectDAO;
+import com.studytracker.database.DatabaseManager;
+import com.studytracker.model.Exam;
+import com.studytracker.model.Subject;
+import com.studytracker.model.User;
+import com.studytracker.service.ExamReadinessService;
+import com.studytracker.service.GamificationService;
+import com.studytracker.service.LeaderboardService;
+import com.studytracker.service.StudySessionColumns;
+import com.studytracker.ui.StudyHeatmap;
+import javafx.beans.property.*;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Observable state of the dashboard. load() runs the dashboard's queries and updates these
+ * properties; DashboardTab builds its nodes once and binds them here, so a refresh only
+ * changes the values that differ (properties don't notify when set to an equal value).
+ */
+public class DashboardViewModel {
+    private static final int LEADERBOARD_SIZE = 10;
+
+    private final User currentUser;
+    private final ChapterDAO chapterDAO;
+    private final SubjectDAO subjectDAO;
+    private final ExamDAO examDAO;
+    private final GamificationService gamificationService;
+    private final ExamReadinessService readinessService;
+
+    // Stat cards and level display
+    private final IntegerProperty subjectCount = new SimpleIntegerProperty();
+    private final IntegerProperty completedChapters = new SimpleIntegerProperty();
+    private final DoubleProperty totalHours = new SimpleDoubleProperty();
+    private final IntegerProperty studyStreak = new SimpleIntegerProperty();
+    private final IntegerProperty level = new SimpleIntegerProperty(1);
+    private final IntegerProperty xp = new SimpleIntegerProperty();
+
+    // Chapter progress pie
+    private final IntegerProperty chaptersCompleted = new SimpleIntegerProperty();
+    private final IntegerProperty chaptersInProgress = new SimpleIntegerProperty();
+    private final IntegerProperty chaptersNotStarted = new SimpleIntegerProperty();
+
+    private final ObservableList<Subject> subjects = FXCollections.observableArrayList();
+    private final ObservableList<Exam> upcomingExams = FXCollections.observableArrayList();
+    private final Map<Integer, ExamReadinessService.Forecast> forecasts = new HashMap<>();
+    private final ObservableList<GamificationService.BadgeInfo> badges = FXCollections.observableArrayList();
+
+    // Leaderboard
+    private final BooleanProperty leaderboardClassOnly = new SimpleBooleanProperty();
+    private final ObservableList<LeaderboardService.Standing> leaderboard = FXCollections.observableArrayList();
+    private final ObjectProperty<LeaderboardService.Standing> myStanding = new SimpleObjectProperty<>();
+
+    // Session snapshot for the progress chart (the same instance until a session is written)
+    private final ObjectProperty<StudySessionColumns> sessions = new SimpleObjectProperty<>();
+
+    // Activity heatmap
+    private final ObjectProperty<Integer> heatmapSubjectId = new SimpleObjectProperty<>(); // null = all subjects
+    private final ObjectProperty<StudySessionColumns.DailyTotals> activity = new SimpleObjectProperty<>();
+    private LocalDate activityEnd;
+
+    public DashboardViewModel(User currentUser) {
+        this.currentUser = currentUser;
+        this.chapterDAO = ChapterDAO.forUser(currentUser.getId());
+        this.subjectDAO = SubjectDAO.forUser(currentUser.getId());
+        this.examDAO = ExamDAO.forUser(currentUser.getId());
+        this.gamificationService = GamificationService.forUser(currentUser.getId());
+        this.readinessService = ExamReadinessService.getInstance();
+    }
+
+    /**
+     * Reload everything the dashboard shows
+     */
+    public void load() throws SQLException {
+        int userId = currentUser.getId();
+        StudySessionColumns snapshot = StudySessionColumns.forUser(userId);
+
+        // One query for the chapter counts of all subjects
+        ChapterDAO.ChapterStats chapterStats = chapterDAO.getStatsByUserId(userId);
+        subjectCount.set(subjectDAO.countByUserId(userId));
+        completedChapters.set(chapterStats.getCompleted());
+        totalHours.set(snapshot.getTotalHours());
+        studyStreak.set(currentUser.getStudyStreak());
+        level.set(currentUser.getLevel());
+        xp.set(currentUser.getXp());
+
+        List<Subject> loadedSubjects = subjectDAO.findByUserId(userId);
+        chaptersCompleted.set(chapterStats.getCompleted());
+        chaptersInProgress.set(chapterStats.getInProgress());
+        chaptersNotStarted.set(chapterStats.getNotStarted());
+        // Resetting the list would reset the heatmap's subject filter, so only when it changed
+        if (!sameSubjects(loadedSubjects)) {
+            subjects.setAll(loadedSubjects);
+        }
+
+        List<Exam> exams = examDAO.findUpcomingByUserId(userId);
+        forecasts.clear();
+        if (!exams.isEmpty()) {
+            // All forecasts in one pass (cached session totals), not one query per row
+            forecasts.putAll(readinessService.getForecasts(userId));
+        }
+        upcomingExams.setAll(exams);
+
+        badges.setAll(gamificationService.getAllBadgesWithStatus(userId));
+        sessions.set(snapshot);
+        loadLeaderboard();
+        loadActivity();
+    }
+
+    /**
+     * Reload the leaderboard for the current scope
+     */
+    public void loadLeaderboard() throws SQLException {
+        LeaderboardService service = LeaderboardService.getInstance();
+        Connection connection = DatabaseManager.getInstance().getConnection();
+        String className = isLeaderboardClassOnly() ? currentUser.getClassName() : null;
+        List<LeaderboardService.Standing> top = service.getTop(connection, className, LEADERBOARD_SIZE);
+        myStanding.set(service.getStanding(connection, currentUser.getId(), className != null));
+        leaderboard.setAll(top);
+    }
+
+    /**
+     * Recompute the heatmap's daily totals for the current subject filter
+     */
+    public void loadActivity() throws SQLException {
+        LocalDate today = LocalDate.now();
+        Integer subjectId = heatmapSubjectId.get();
+        activityEnd = today;
+        activity.set(StudySessionColumns.forUser(currentUser.getId()).dailyTotals(
+            StudyHeatmap.rangeStart(today), today.plusDays(1), subjectId != null ? subjectId : 0));
+    }
+
+    private boolean sameSubjects(List<Subject> loaded) {
+        if (loaded.size() != subjects.size()) {
+            return false;
+        }
+        for (int i = 0; i < loaded.size(); i++) {
+            Subject a = loaded.get(i);
+            Subject b = subjects.get(i);
+            if (a.getId() != b.getId() || !a.getName().equals(b.getName())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public User getCurrentUser() {
+        return currentUser;
+    }
+
+    public IntegerProperty subjectCountProperty() {
+        return subjectCount;
+    }
+
+    public IntegerProperty completedChaptersProperty() {
+        return completedChapters;
+    }
+
+    public DoubleProperty totalHoursProperty() {
+        return totalHours;
+    }
+
+    public IntegerProperty studyStreakProperty() {
+        return studyStreak;
+    }
+
+    public IntegerProperty levelProperty() {
+        return level;
+    }
+
+    public IntegerProperty xpProperty() {
+        return xp;
+    }
+
+    public IntegerProperty chaptersCompletedProperty() {
+        return chaptersCompleted;
+    }
+
+    public IntegerProperty chaptersInProgressProperty() {
+        return chaptersInProgress;
+    }
+
+    public IntegerProperty chaptersNotStartedProperty() {
+        return chaptersNotStarted;
+    }
+
+    public ObservableList<Subject> getSubjects() {
+        return subjects;
+    }
+
+    public ObservableList<Exam> getUpcomingExams() {
+        return upcomingExams;
+    }
+
+    /**
+     * Readiness forecast of an upcoming exam, or null
+     */
+    public ExamReadinessService.Forecast getForecast(int examId) {
+        return forecasts.get(examId);
+    }
+
+    public ObservableList<GamificationService.BadgeInfo> getBadges() {
+        return badges;
+    }
+
+    public BooleanProperty leaderboardClassOnlyProperty() {
+        return leaderboardClassOnly;
+    }
+
+    public boolean isLeaderboardClassOnly() {
+        return leaderboardClassOnly.get() && currentUser.getClassName() != null;
+    }
+
+    public ObservableList<LeaderboardService.Standing> getLeaderboard() {
+        return leaderboard;
+    }
+
+    public ObjectProperty<LeaderboardService.Standing> myStandingProperty() {
+        return myStanding;
+    }
+
+    public ObjectProperty<StudySessionColumns> sessionsProperty() {
+        return sessions;
+    }
+
+    public ObjectProperty<Integer> heatmapSubjectIdProperty() {
+        return heatmapSubjectId;
+    }
+
+    public ObjectProperty<StudySessionColumns.DailyTotals> activityProperty() {
+        return activity;
+    }
+
+    /**
+     * Last day of the activity totals (today when they were loaded)
+     */
+    public LocalDate getActivityEnd() {
+        return activityEnd;
+    }
+}
@@ -5,34 +5,49 @@ import com.studytracker.dao.SubjectDAO;
 import com.studytracker.model.Exam;
 import com.studytracker.model.Subject;
 import com.studytracker.model.User;
+import com.studytracker.monitoring.UiRefreshEvent;
 import com.studytracker.ui.MainWindow;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.css.PseudoClass;
 import javafx.geometry.Insets;
+import javafx.scene.Node;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.*;
 
 import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Tab for managing exams and deadlines.
  */
-public class ExamsTab {
+public class ExamsTab implements MainTab {
+    // Urgency pseudo-classes for tables.css
+    private static final PseudoClass COMPLETED = PseudoClass.getPseudoClass("exam-completed");
+    private static final PseudoClass OVERDUE = PseudoClass.getPseudoClass("overdue");
+    private static final PseudoClass DUE_SOON = PseudoClass.getPseudoClass("due-soon");
+
     private final User currentUser;
     private final MainWindow mainWindow;
     private final ExamDAO examDAO;
     private final SubjectDAO subjectDAO;
     private final TableView<Exam> table;
     private final ObservableList<Exam> exams;
+    // Days until each exam (by id) with its text, computed at refresh for the cells to share
+    private final Map<Integer, ObservableValue<DaysUntil>> daysUntil = new HashMap<>();
 
     public ExamsTab(User currentUser, MainWindow mainWindow) {
         this.currentUser = currentUser;
         this.mainWindow = mainWindow;
-        this.examDAO = new ExamDAO();
-        this.subjectDAO = new SubjectDAO();
+        this.examDAO = ExamDAO.forUser(currentUser.getId());
+        this.subjectDAO = SubjectDAO.forUser(currentUser.getId());
         this.exams = FXCollections.observableArrayList();
         this.table = createTable();
     }
@@ -73,22 +88,12 @@ public class ExamsTab {
         TableView<Exam> table = new TableView<>();
         table.setItems(exams);
 
-        // Row coloring based on deadline
+        // Row coloring based on deadline: urgency pseudo-classes styled by tables.css
         table.setRowFactory(tv -> new TableRow<>() {
             @Override
             protected void updateItem(Exam exam, boolean empty) {
                 super.updateItem(exam, empty);
-                if (empty || exam == null) {
-                    setStyle("");
-                } else if (exam.isCompleted()) {
-                    setStyle("-fx-background-color: #d5f4e622;"); // Light green
-                } else if (exam.isOverdue()) {
-                    setStyle("-fx-background-color: #e74c3c22;"); // Light red
-                } else if (exam.isUpcoming()) {
-                    setStyle("-fx-background-color: #f39c1222;"); // Light orange
-                } else {
-                    setStyle("");
-                }
+                showUrgency(this, empty ? null : exam, empty || exam == null ? null : daysUntilOf(exam).getValue());
             }
         });
 
@@ -100,30 +105,21 @@ public class ExamsTab {
         dateCol.setCellValueFactory(new PropertyValueFactory<>("examDate"));
         dateCol.setPrefWidth(120);
 
-        TableColumn<Exam, Long> daysUntilCol = new TableColumn<>("Days Until");
-        daysUntilCol.setCellValueFactory(cellData ->
-            new javafx.beans.property.SimpleObjectProperty<>(cellData.getValue().getDaysUntil()));
+        TableColumn<Exam, DaysUntil> daysUntilCol = new TableColumn<>("Days Until");
+        daysUntilCol.setCellValueFactory(cellData -> daysUntilOf(cellData.getValue()));
+        daysUntilCol.setComparator(Comparator.comparingLong(DaysUntil::days));
         daysUntilCol.setPrefWidth(100);
         daysUntilCol.setCellFactory(col -> new TableCell<>() {
+            {
+                getStyleClass().add("days-until-cell");
+            }
+
             @Override
-            protected void updateItem(Long days, boolean empty) {
+            protected void updateItem(DaysUntil days, boolean empty) {
                 super.updateItem(days, empty);
-                if (empty || days == null) {
-                    setText(null);
-                    setStyle("");
-                } else {
-                    Exam exam = getTableView().getItems().get(getIndex());
-                    if (exam.isCompleted()) {
-                        setText("Completed");
-                        setStyle("-fx-text-fill: #27ae60; -fx-font-weight: bold;");
-                    } else if (days < 0) {
-                        setText(Math.abs(days) + " days ago");
-                        setStyle("-fx-text-fill: #e74c3c; -fx-font-weight: bold;");
-                    } else {
-                        setText(days + " days");
-                        setStyle(days <= 7 ? "-fx-text-fill: #f39c12; -fx-font-weight: bold;" : "");
-                    }
-                }
+                Exam exam = empty || days == null ? null : getTableRow().getItem();
+                setText(exam == null ? null : days.text());
+                showUrgency(this, exam, days);
             }
         });
 
@@ -131,11 +127,35 @@ public class ExamsTab {
         descCol.setCellValueFactory(new PropertyValueFactory<>("description"));
         descCol.setPrefWidth(300);
 
-        table.getColumns().addAll(nameCol, dateCol, daysUntilCol, descCol);
+        table.getColumns().addAll(List.of(nameCol, dateCol, daysUntilCol, descCol));
 
         return table;
     }
 
+    /**
+     * Switch a row or cell to the pseudo-class of an exam's urgency (none for null):
+     * completed, overdue, or due within 7 days (the rules of Exam.isOverdue and isUpcoming)
+     */
+    private static void showUrgency(Node node, Exam exam, DaysUntil days) {
+        boolean shown = exam != null && days != null;
+        boolean completed = shown && exam.isCompleted();
+        node.pseudoClassStateChanged(COMPLETED, completed);
+        node.pseudoClassStateChanged(OVERDUE, shown && !completed && days.days() < 0);
+        node.pseudoClassStateChanged(DUE_SOON, shown && !completed && days.days() >= 0 && days.days() <= 7);
+    }
+
+    /**
+     * The days-until value computed at refresh (computed now for an exam added since)
+     */
+    private ObservableValue<DaysUntil> daysUntilOf(Exam exam) {
+        ObservableValue<DaysUntil> days = daysUntil.get(exam.getId());
+        if (days == null) {
+            days = new ReadOnlyObjectWrapper<>(DaysUntil.of(exam));
+            daysUntil.put(exam.getId(), days);
+        }
+        return days;
+    }
+
     private void showAddDialog() {
         try {
             List<Subject> userSubjects = subjectDAO.findByUserId(currentUser.getId());
@@ -316,11 +336,19 @@ public class ExamsTab {
     }
 
     public void refresh() {
+        UiRefreshEvent event = UiRefreshEvent.start("ExamsTab.refresh");
         try {
-            exams.clear();
-            exams.addAll(examDAO.findByUserId(currentUser.getId()));
+            List<Exam> loaded = examDAO.findByUserId(currentUser.getId());
+            // Dates move on between refreshes, so the values are computed again
+            daysUntil.clear();
+            for (Exam exam : loaded) {
+                daysUntil.put(exam.getId(), new ReadOnlyObjectWrapper<>(DaysUntil.of(exam)));
+            }
+            exams.setAll(loaded);
         } catch (SQLException ex) {
             showAlert("Error loading exams: " + ex.getMessage(), Alert.AlertType.ERROR);
+        } finally {
+            event.finish();
         }
     }
 
@@ -329,4 +357,17 @@ public class ExamsTab {
         alert.setContentText(message);
         alert.showAndWait();
     }
+
+    /**
+     * Days until an exam (negative once past) and the text the column shows for it
+     */
+    private record DaysUntil(long days, String text) {
+        static DaysUntil of(Exam exam) {
+            long days = exam.getDaysUntil();
+            String text = exam.isCompleted() ? "Completed"
+                : days < 0 ? Math.abs(days) + " days ago"
+                : days + " days";
+            return new DaysUntil(days, text);
+        }
+    }
 }
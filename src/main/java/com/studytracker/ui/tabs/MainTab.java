@@ -0,0 +1,12 @@
+package com.studytracker.ui.tabs;
+
+import javafx.scene.layout.VBox;
+
+/**
+ * A tab of the main window: its content is built once, refresh() reloads the data it shows.
+ */
+public interface MainTab {
+    VBox getContent();
+
+    void refresh();
+}
@@ -0,0 +1,167 @@
+package com.studytracker.ui.tabs;
+
+import com.studytracker.dao.UserDAO;
+import com.studytracker.model.User;
+import com.studytracker.monitoring.UiRefreshEvent;
+import com.studytracker.service.StudyPlanner;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.control.*;
+import javafx.scene.layout.*;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Tab showing the day-by-day study plan up to the upcoming exams.
+ * Days are rendered by the list cells on demand, straight from the planner.
+ */
+public class PlannerTab implements MainTab {
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("EEE d MMM");
+
+    private final User currentUser;
+    private final StudyPlanner planner;
+    private final VBox examsBox = new VBox(6);
+    private final ObservableList<Integer> days = FXCollections.observableArrayList();
+    private final ListView<Integer> dayList = new ListView<>(days);
+
+    public PlannerTab(User currentUser) {
+        this.currentUser = currentUser;
+        this.planner = StudyPlanner.forUser(currentUser.getId());
+        dayList.setCellFactory(list -> new DayCell());
+    }
+
+    public VBox getContent() {
+        VBox content = new VBox(15);
+        content.setPadding(new Insets(20));
+
+        Label titleLabel = new Label("🗓️ Study Planner");
+        titleLabel.setStyle("-fx-font-size: 20px; -fx-font-weight: bold;");
+
+        // Hours per day, saved with the user
+        Spinner<Double> hoursSpinner = new Spinner<>(0.5, 16.0, currentUser.getDailyStudyHours(), 0.5);
+        hoursSpinner.setPrefWidth(90);
+        hoursSpinner.valueProperty().addListener((obs, oldValue, newValue) -> {
+            try {
+                UserDAO.getInstance().updateDailyStudyHours(currentUser.getId(), newValue);
+                currentUser.setDailyStudyHours(newValue);
+                refresh();
+            } catch (SQLException ex) {
+                showAlert("Error saving study hours: " + ex.getMessage(), Alert.AlertType.ERROR);
+            }
+        });
+        Label hoursHint = new Label("Chapters are planned before their exam, earliest exam first.");
+        hoursHint.setStyle("-fx-text-fill: #7f8c8d;");
+        HBox hoursRow = new HBox(10, new Label("Hours per day:"), hoursSpinner, hoursHint);
+        hoursRow.setAlignment(Pos.CENTER_LEFT);
+
+        examsBox.setPadding(new Insets(15));
+        examsBox.setStyle("-fx-background-color: white; -fx-border-color: #bdc3c7; -fx-border-width: 2; -fx-background-radius: 10; -fx-border-radius: 10;");
+
+        content.getChildren().addAll(titleLabel, hoursRow, examsBox, dayList);
+        VBox.setVgrow(dayList, Priority.ALWAYS);
+
+        return content;
+    }
+
+    public void refresh() {
+        UiRefreshEvent event = UiRefreshEvent.start("PlannerTab.refresh");
+        try {
+            planner.refresh(currentUser.getDailyStudyHours());
+            fillExams();
+            int dayCount = planner.getDayCount();
+            if (days.size() != dayCount) {
+                days.setAll(IntStream.range(0, dayCount).boxed().toList());
+            }
+            // Same day indexes, new plan: redraw the visible cells
+            dayList.refresh();
+        } catch (SQLException ex) {
+            showAlert("Error loading plan: " + ex.getMessage(), Alert.AlertType.ERROR);
+        } finally {
+            event.finish();
+        }
+    }
+
+    private void fillExams() {
+        Label titleLabel = new Label("📝 Upcoming exams");
+        titleLabel.setFont(Font.font("System", FontWeight.SEMI_BOLD, 16));
+        examsBox.getChildren().setAll(titleLabel);
+
+        List<StudyPlanner.ExamOutlook> exams = planner.getExams();
+        if (exams.isEmpty()) {
+            Label noExamsLabel = new Label("No upcoming exams: add one in the Exams tab to get a plan.");
+            noExamsLabel.setStyle("-fx-text-fill: #7f8c8d;");
+            examsBox.getChildren().add(noExamsLabel);
+            return;
+        }
+        for (StudyPlanner.ExamOutlook exam : exams) {
+            String status = exam.isOnTrack()
+                ? String.format("✅ %.1f h to study, %.1f h available", exam.getNeededMinutes() / 60.0,
+                    exam.getAvailableMinutes() / 60.0)
+                : String.format("⚠️ %.1f h short: %.1f h to study, %.1f h available",
+                    (exam.getNeededMinutes() - exam.getAvailableMinutes()) / 60.0,
+                    exam.getNeededMinutes() / 60.0, exam.getAvailableMinutes() / 60.0);
+            Label examLabel = new Label(exam.getExamDate().format(DAY_FORMAT) + "  " + exam.getExamName()
+                + " (" + exam.getSubjectName() + ")  " + status);
+            examLabel.setStyle(exam.isOnTrack() ? "-fx-text-fill: #27ae60;" : "-fx-text-fill: #e74c3c;");
+            examsBox.getChildren().add(examLabel);
+        }
+    }
+
+    /**
+     * One day of the plan, read from the planner when the cell is shown
+     */
+    private class DayCell extends ListCell<Integer> {
+        @Override
+        protected void updateItem(Integer day, boolean empty) {
+            super.updateItem(day, empty);
+            if (empty || day == null) {
+                setText(null);
+                setGraphic(null);
+                return;
+            }
+
+            LocalDate date = planner.getStartDate().plusDays(day);
+            Label dateLabel = new Label(day == 0 ? "Today" : date.format(DAY_FORMAT));
+            dateLabel.setFont(Font.font("System", FontWeight.BOLD, 13));
+            dateLabel.setMinWidth(110);
+
+            VBox entriesBox = new VBox(2);
+            List<StudyPlanner.PlanEntry> entries = planner.getDay(day);
+            if (entries.isEmpty()) {
+                Label freeLabel = new Label(day == 0 ? "Done for today 🎉" : "Free");
+                freeLabel.setStyle("-fx-text-fill: #7f8c8d;");
+                entriesBox.getChildren().add(freeLabel);
+            }
+            for (StudyPlanner.PlanEntry entry : entries) {
+                StudyPlanner.PlannedChapter chapter = entry.getChapter();
+                Label entryLabel = new Label(String.format("%.1f h  %s – %s  (for %s, %s)%s",
+                    entry.getMinutes() / 60.0, chapter.getSubjectName(), chapter.getChapterName(),
+                    chapter.getExamName(), chapter.getDeadline().format(DAY_FORMAT),
+                    entry.isLate() ? "  ⚠️ after the exam" : ""));
+                if (entry.isLate()) {
+                    entryLabel.setStyle("-fx-text-fill: #e74c3c;");
+                }
+                entriesBox.getChildren().add(entryLabel);
+            }
+
+            HBox row = new HBox(10, dateLabel, entriesBox);
+            row.setAlignment(Pos.TOP_LEFT);
+            setText(null);
+            setGraphic(row);
+        }
+    }
+
+    private void showAlert(String message, Alert.AlertType type) {
+        Alert alert = new Alert(type);
+        alert.setContentText(message);
+        alert.showAndWait();
+    }
+}
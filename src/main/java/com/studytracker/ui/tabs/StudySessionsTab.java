@@ -2,10 +2,16 @@ package com.studytracker.ui.tabs;
 
 import com.studytracker.dao.*;
 import com.studytracker.model.*;
-import com.studytracker.service.GamificationService;
+import com.studytracker.monitoring.UiRefreshEvent;
+import com.studytracker.service.ChapterSearchIndex;
+import com.studytracker.service.StudySessionColumns;
+import com.studytracker.service.StudySessionService;
+import com.studytracker.ui.ChapterPicker;
 import com.studytracker.ui.MainWindow;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.css.PseudoClass;
 import javafx.geometry.Insets;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
@@ -14,30 +20,32 @@ import javafx.scene.layout.*;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Tab for tracking study sessions and awarding XP.
  */
-public class StudySessionsTab {
+public class StudySessionsTab implements MainTab {
+    private static final PseudoClass XP_EARNED = PseudoClass.getPseudoClass("earned");
+    // "+N XP" texts of the XP cells, built once per value (a session earns up to 240 XP)
+    private static final String[] XP_TEXTS = new String[241];
+
     private final User currentUser;
     private final MainWindow mainWindow;
     private final StudySessionDAO sessionDAO;
-    private final ChapterDAO chapterDAO;
-    private final SubjectDAO subjectDAO;
-    private final UserDAO userDAO;
-    private final GamificationService gamificationService;
+    private final StudySessionService studySessionService;
     private final TableView<StudySession> table;
     private final ObservableList<StudySession> sessions;
+    // Chapter names by id for the chapter column, from the chapter index on refresh
+    private final Map<Integer, String> chapterNames = new HashMap<>();
 
     public StudySessionsTab(User currentUser, MainWindow mainWindow) {
         this.currentUser = currentUser;
         this.mainWindow = mainWindow;
-        this.sessionDAO = new StudySessionDAO();
-        this.chapterDAO = new ChapterDAO();
-        this.subjectDAO = new SubjectDAO();
-        this.userDAO = new UserDAO();
-        this.gamificationService = new GamificationService();
+        this.sessionDAO = StudySessionDAO.forUser(currentUser.getId());
+        this.studySessionService = StudySessionService.forUser(currentUser.getId());
         this.sessions = FXCollections.observableArrayList();
         this.table = createTable();
     }
@@ -76,14 +84,8 @@ public class StudySessionsTab {
         table.setItems(sessions);
 
         TableColumn<StudySession, String> chapterCol = new TableColumn<>("Chapter");
-        chapterCol.setCellValueFactory(cellData -> {
-            try {
-                Chapter chapter = chapterDAO.findById(cellData.getValue().getChapterId());
-                return new javafx.beans.property.SimpleStringProperty(chapter != null ? chapter.getName() : "Unknown");
-            } catch (SQLException e) {
-                return new javafx.beans.property.SimpleStringProperty("Error");
-            }
-        });
+        chapterCol.setCellValueFactory(cellData -> new javafx.beans.property.SimpleStringProperty(
+            chapterNames.getOrDefault(cellData.getValue().getChapterId(), "Unknown")));
         chapterCol.setPrefWidth(200);
 
         TableColumn<StudySession, Double> hoursCol = new TableColumn<>("Hours");
@@ -106,16 +108,16 @@ public class StudySessionsTab {
         xpCol.setCellValueFactory(new PropertyValueFactory<>("xpEarned"));
         xpCol.setPrefWidth(100);
         xpCol.setCellFactory(col -> new TableCell<>() {
+            {
+                getStyleClass().add("xp-cell");
+            }
+
             @Override
             protected void updateItem(Integer xp, boolean empty) {
                 super.updateItem(xp, empty);
-                if (empty || xp == null) {
-                    setText(null);
-                    setStyle("");
-                } else {
-                    setText("+" + xp + " XP");
-                    setStyle("-fx-text-fill: #27ae60; -fx-font-weight: bold;");
-                }
+                setText(empty || xp == null ? null : xpText(xp));
+                // Styled by tables.css
+                pseudoClassStateChanged(XP_EARNED, !empty && xp != null && xp > 0);
             }
         });
 
@@ -123,21 +125,17 @@ public class StudySessionsTab {
         notesCol.setCellValueFactory(new PropertyValueFactory<>("notes"));
         notesCol.setPrefWidth(300);
 
-        table.getColumns().addAll(chapterCol, hoursCol, dateCol, xpCol, notesCol);
+        table.getColumns().addAll(List.of(chapterCol, hoursCol, dateCol, xpCol, notesCol));
 
         return table;
     }
 
     private void showAddDialog() {
         try {
-            // Get all chapters for user's subjects
-            List<Subject> userSubjects = subjectDAO.findByUserId(currentUser.getId());
-            List<Chapter> allChapters = new java.util.ArrayList<>();
-            for (Subject subject : userSubjects) {
-                allChapters.addAll(chapterDAO.findBySubjectId(subject.getId()));
-            }
+            // Chapters come from the user's cached search index, not the database
+            ChapterSearchIndex chapterIndex = ChapterSearchIndex.forUser(currentUser.getId());
 
-            if (allChapters.isEmpty()) {
+            if (chapterIndex.size() == 0) {
                 showAlert("Please create a chapter first!", Alert.AlertType.WARNING);
                 return;
             }
@@ -154,8 +152,8 @@ public class StudySessionsTab {
             grid.setVgap(10);
             grid.setPadding(new Insets(20));
 
-            ComboBox<Chapter> chapterCombo = new ComboBox<>(FXCollections.observableArrayList(allChapters));
-            chapterCombo.setPromptText("Select chapter");
+            ChapterPicker chapterPicker = new ChapterPicker(chapterIndex,
+                StudySessionColumns.forUser(currentUser.getId()).lastStudiedByChapter());
 
             Spinner<Double> hoursSpinner = new Spinner<>(0.5, 24.0, 1.0, 0.5);
             hoursSpinner.setEditable(true);
@@ -175,7 +173,7 @@ public class StudySessionsTab {
             xpPreviewLabel.setText("You will earn: +10 XP");
 
             grid.add(new Label("Chapter:"), 0, 0);
-            grid.add(chapterCombo, 1, 0);
+            grid.add(chapterPicker.getView(), 1, 0);
             grid.add(new Label("Hours Studied:"), 0, 1);
             grid.add(hoursSpinner, 1, 1);
             grid.add(xpPreviewLabel, 1, 2);
@@ -183,12 +181,15 @@ public class StudySessionsTab {
             grid.add(notesField, 1, 3);
 
             dialog.getDialogPane().setContent(grid);
+            dialog.getDialogPane().lookupButton(saveButtonType).disableProperty()
+                .bind(chapterPicker.valueProperty().isNull());
+            Platform.runLater(() -> chapterPicker.getField().requestFocus());
 
             dialog.setResultConverter(dialogButton -> {
                 if (dialogButton == saveButtonType) {
-                    if (chapterCombo.getValue() == null) return null;
+                    if (chapterPicker.getValue() == null) return null;
                     StudySession session = new StudySession();
-                    session.setChapterId(chapterCombo.getValue().getId());
+                    session.setChapterId(chapterPicker.getValue().getId());
                     session.setUserId(currentUser.getId());
                     session.setHoursStudied(hoursSpinner.getValue());
                     session.setNotes(notesField.getText());
@@ -200,27 +201,10 @@ public class StudySessionsTab {
 
             dialog.showAndWait().ifPresent(session -> {
                 try {
-                    // Save session
-                    sessionDAO.create(session);
-
-                    // Auto-update chapter status to "In Progress" if it's "Not Started"
-                    Chapter chapter = chapterDAO.findById(session.getChapterId());
-                    if (chapter != null && chapter.getStatus() == Chapter.ChapterStatus.NOT_STARTED) {
-                        chapter.setStatus(Chapter.ChapterStatus.IN_PROGRESS);
-                        chapterDAO.update(chapter);
-                    }
-
-                    // Award XP to user
-                    userDAO.addXp(currentUser.getId(), session.getXpEarned());
-
-                    // Update streak
-                    userDAO.updateStreak(currentUser.getId());
-
-                    // Check for new badges
-                    gamificationService.checkAndAwardBadges(currentUser.getId());
+                    // Save session and apply XP, streak and badges
+                    User updatedUser = studySessionService.logSession(session);
 
                     // Update current user object
-                    User updatedUser = userDAO.findById(currentUser.getId());
                     currentUser.setXp(updatedUser.getXp());
                     currentUser.setLevel(updatedUser.getLevel());
                     currentUser.setStudyStreak(updatedUser.getStudyStreak());
@@ -249,12 +233,17 @@ public class StudySessionsTab {
         Alert confirm = new Alert(Alert.AlertType.CONFIRMATION);
         confirm.setTitle("Confirm Delete");
         confirm.setHeaderText("Delete study session");
-        confirm.setContentText("Note: This will NOT remove the XP already earned. Are you sure?");
+        confirm.setContentText("This will also take back the " + selected.getXpEarned() + " XP it earned. Are you sure?");
 
         confirm.showAndWait().ifPresent(response -> {
             if (response == ButtonType.OK) {
                 try {
-                    sessionDAO.delete(selected.getId());
+                    // Delete the session and record the XP reversal in the ledger
+                    User updatedUser = studySessionService.deleteSession(selected.getId());
+                    if (updatedUser != null) {
+                        currentUser.setXp(updatedUser.getXp());
+                        currentUser.setLevel(updatedUser.getLevel());
+                    }
                     refresh();
                     mainWindow.refreshAll();
                     showAlert("Session deleted!", Alert.AlertType.INFORMATION);
@@ -266,12 +255,28 @@ public class StudySessionsTab {
     }
 
     public void refresh() {
+        UiRefreshEvent event = UiRefreshEvent.start("StudySessionsTab.refresh");
         try {
-            sessions.clear();
-            sessions.addAll(sessionDAO.findByUserId(currentUser.getId()));
+            chapterNames.clear();
+            for (Chapter chapter : ChapterSearchIndex.forUser(currentUser.getId()).getChapters()) {
+                chapterNames.put(chapter.getId(), chapter.getName());
+            }
+            sessions.setAll(sessionDAO.findByUserId(currentUser.getId()));
         } catch (SQLException ex) {
             showAlert("Error loading sessions: " + ex.getMessage(), Alert.AlertType.ERROR);
+        } finally {
+            event.finish();
+        }
+    }
+
+    private static String xpText(int xp) {
+        if (xp < 0 || xp >= XP_TEXTS.length) {
+            return "+" + xp + " XP";
+        }
+        if (XP_TEXTS[xp] == null) {
+            XP_TEXTS[xp] = "+" + xp + " XP";
         }
+        return XP_TEXTS[xp];
     }
 
     private void showAlert(String message, Alert.AlertType type) {
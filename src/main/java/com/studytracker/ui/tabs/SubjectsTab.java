@@ -3,6 +3,7 @@ package com.studytracker.ui.tabs;
 import com.studytracker.dao.SubjectDAO;
 import com.studytracker.model.Subject;
 import com.studytracker.model.User;
+import com.studytracker.monitoring.UiRefreshEvent;
 import com.studytracker.ui.MainWindow;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -12,11 +13,12 @@ import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.*;
 
 import java.sql.SQLException;
+import java.util.List;
 
 /**
  * Tab for managing subjects (CRUD operations).
  */
-public class SubjectsTab {
+public class SubjectsTab implements MainTab {
     private final User currentUser;
     private final MainWindow mainWindow;
     private final SubjectDAO subjectDAO;
@@ -72,7 +74,7 @@ public class SubjectsTab {
     public SubjectsTab(User currentUser, MainWindow mainWindow) {
         this.currentUser = currentUser;
         this.mainWindow = mainWindow;
-        this.subjectDAO = new SubjectDAO();
+        this.subjectDAO = SubjectDAO.forUser(currentUser.getId());
         this.subjects = FXCollections.observableArrayList();
         this.table = createTable();
     }
@@ -157,7 +159,7 @@ public class SubjectsTab {
             }
         });
 
-        table.getColumns().addAll(nameCol, descCol, colorCol);
+        table.getColumns().addAll(List.of(nameCol, descCol, colorCol));
 
         return table;
     }
@@ -289,7 +291,7 @@ public class SubjectsTab {
         Alert confirm = new Alert(Alert.AlertType.CONFIRMATION);
         confirm.setTitle("Confirm Delete");
         confirm.setHeaderText("Delete subject: " + selected.getName());
-        confirm.setContentText("This will also delete all chapters and exams for this subject. Are you sure?");
+        confirm.setContentText("This will also delete all chapters, exams and study sessions for this subject. Are you sure?");
 
         confirm.showAndWait().ifPresent(response -> {
             if (response == ButtonType.OK) {
@@ -306,11 +308,14 @@ public class SubjectsTab {
     }
 
     public void refresh() {
+        UiRefreshEvent event = UiRefreshEvent.start("SubjectsTab.refresh");
         try {
             subjects.clear();
             subjects.addAll(subjectDAO.findByUserId(currentUser.getId()));
         } catch (SQLException ex) {
             showAlert("Error loading subjects: " + ex.getMessage(), Alert.AlertType.ERROR);
+        } finally {
+            event.finish();
         }
     }
 
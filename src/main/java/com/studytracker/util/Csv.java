@@ -0,0 +1,135 @@
+package com.studytracker.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal RFC 4180 CSV writer/reader for data export.
+ * Fields containing commas, quotes or line breaks are quoted; null is written as an
+ * empty field and read back as null.
+ */
+public final class Csv {
+
+    private Csv() {
+    }
+
+    /**
+     * Write one row, ending with CRLF
+     */
+    public static void writeRow(Writer out, List<?> fields) throws IOException {
+        for (int i = 0; i < fields.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            Object field = fields.get(i);
+            if (field != null) {
+                writeField(field.toString(), out);
+            }
+        }
+        out.write("\r\n");
+    }
+
+    private static void writeField(String value, Writer out) throws IOException {
+        boolean quote = value.isEmpty();
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+    }
+
+    /**
+     * Reads rows one at a time from a character stream (quoted fields may span lines)
+     */
+    public static class RowReader {
+        private final Reader in;
+        // Own buffer: one Reader.read(char[]) per 8K instead of a call per character
+        private final char[] buffer = new char[8192];
+        private int position;
+        private int length;
+
+        public RowReader(Reader in) {
+            this.in = in;
+        }
+
+        /**
+         * Next row, or null at end of input. Unquoted empty fields are null,
+         * quoted empty fields ("") are empty strings.
+         */
+        public List<String> readRow() throws IOException {
+            int c = next();
+            if (c == -1) {
+                return null;
+            }
+            List<String> row = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                if (c == '"' && field.isEmpty() && !quoted) {
+                    quoted = true;
+                    readQuoted(field);
+                    c = next();
+                    continue;
+                }
+                if (c == ',' || c == '\n' || c == '\r' || c == -1) {
+                    row.add(quoted || !field.isEmpty() ? field.toString() : null);
+                    field.setLength(0);
+                    quoted = false;
+                    if (c == ',') {
+                        c = next();
+                        continue;
+                    }
+                    if (c == '\r' && peek() == '\n') {
+                        next();
+                    }
+                    return row;
+                }
+                field.append((char) c);
+                c = next();
+            }
+        }
+
+        private void readQuoted(StringBuilder field) throws IOException {
+            while (true) {
+                int c = next();
+                if (c == -1) {
+                    throw new IOException("Unterminated quoted field");
+                }
+                if (c == '"') {
+                    if (peek() != '"') {
+                        return;
+                    }
+                    next();
+                }
+                field.append((char) c);
+            }
+        }
+
+        private int next() throws IOException {
+            int c = peek();
+            position++;
+            return c;
+        }
+
+        private int peek() throws IOException {
+            if (position >= length) {
+                length = in.read(buffer);
+                position = 0;
+                if (length <= 0) {
+                    length = 0;
+                    return -1;
+                }
+            }
+            return buffer[position];
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.studytracker.util;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Integer date encodings of the v2 storage format.
+ *
+ * Date-times are seconds since 1970-01-01T00:00 on the local wall clock, without a time
+ * zone like LocalDateTime (so in SQL, x / 86400 is the local day and
+ * date(x, 'unixepoch') its ISO date). Dates are days since 1970-01-01.
+ */
+public final class EpochTime {
+    public static final long SECONDS_PER_DAY = 86_400;
+
+    private EpochTime() {
+    }
+
+    public static long toSeconds(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    public static LocalDateTime fromSeconds(long seconds) {
+        return LocalDateTime.ofEpochSecond(seconds, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * First second of a day
+     */
+    public static long toSeconds(LocalDate date) {
+        return date.toEpochDay() * SECONDS_PER_DAY;
+    }
+
+    public static long toDay(LocalDate date) {
+        return date.toEpochDay();
+    }
+
+    public static LocalDate fromDay(long day) {
+        return LocalDate.ofEpochDay(day);
+    }
+
+    /**
+     * Bind a nullable date-time
+     */
+    public static void setSeconds(PreparedStatement stmt, int index, LocalDateTime dateTime) throws SQLException {
+        if (dateTime != null) {
+            stmt.setLong(index, toSeconds(dateTime));
+        } else {
+            stmt.setNull(index, Types.INTEGER);
+        }
+    }
+
+    /**
+     * Read a nullable date-time column
+     */
+    public static LocalDateTime getSeconds(ResultSet rs, String column) throws SQLException {
+        long seconds = rs.getLong(column);
+        return rs.wasNull() ? null : fromSeconds(seconds);
+    }
+}
@@ -0,0 +1,100 @@
+package com.studytracker.util;
+
+/**
+ * Binary indexed tree over non-negative indexes: point updates and prefix sums in O(log n).
+ * Grows automatically (capacity stays a power of two, so growing is a copy plus one node).
+ */
+public class FenwickTree {
+    private long[] tree; // 1-based
+    private long total;
+
+    public FenwickTree(int initialCapacity) {
+        int capacity = 1;
+        while (capacity < initialCapacity) {
+            capacity <<= 1;
+        }
+        this.tree = new long[capacity + 1];
+    }
+
+    public int capacity() {
+        return tree.length - 1;
+    }
+
+    /**
+     * Add delta at index (0-based)
+     */
+    public void add(int index, long delta) {
+        if (index < 0) {
+            throw new IndexOutOfBoundsException("Negative index " + index);
+        }
+        ensureCapacity(index + 1);
+        total += delta;
+        for (int i = index + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * Sum of the values at indexes 0..index (inclusive)
+     */
+    public long prefixSum(int index) {
+        if (index < 0) {
+            return 0;
+        }
+        long sum = 0;
+        for (int i = Math.min(index + 1, tree.length - 1); i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Sum of the values at indexes from..to (inclusive)
+     */
+    public long rangeSum(int from, int to) {
+        return to < from ? 0 : prefixSum(to) - prefixSum(from - 1);
+    }
+
+    public long get(int index) {
+        return rangeSum(index, index);
+    }
+
+    public long total() {
+        return total;
+    }
+
+    /**
+     * Smallest index whose prefix sum reaches target (values must be non-negative),
+     * or capacity() if the total is below target
+     */
+    public int lowerBound(long target) {
+        if (target <= 0) {
+            return 0;
+        }
+        int position = 0;
+        long remaining = target;
+        for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>= 1) {
+            int next = position + step;
+            if (next < tree.length && tree[next] < remaining) {
+                position = next;
+                remaining -= tree[next];
+            }
+        }
+        return position; // 1-based position + 1, minus 1 for 0-based
+    }
+
+    private void ensureCapacity(int size) {
+        int capacity = tree.length - 1;
+        if (size <= capacity) {
+            return;
+        }
+        while (capacity < size) {
+            // Nodes below the old capacity keep their ranges; the new top node covers everything
+            long[] grown = new long[capacity * 2 + 1];
+            System.arraycopy(tree, 0, grown, 0, tree.length);
+            grown[capacity * 2] = total;
+            tree = grown;
+            capacity *= 2;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.studytracker.util;
+
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Largest-Triangle-Three-Buckets downsampling (Steinarsson, 2013): picks the points of a
+ * series that best keep its visual shape, e.g. one per horizontal pixel of a chart.
+ *
+ * The first and last points are always kept. The points in between are split into
+ * threshold - 2 buckets, and from each bucket the point forming the largest triangle
+ * with the point kept from the previous bucket and the average of the next bucket is
+ * kept. One pass, O(n), no allocation besides the result.
+ */
+public final class Lttb {
+
+    private Lttb() {
+    }
+
+    /**
+     * Indexes (ascending) of at most threshold points of the series from (inclusive) to
+     * (exclusive), every index when there are no more than threshold of them.
+     * x must not decrease with the index.
+     */
+    public static int[] downsample(int from, int to, int threshold, IntToDoubleFunction x, IntToDoubleFunction y) {
+        int count = Math.max(0, to - from);
+        if (count <= threshold) {
+            int[] all = new int[count];
+            for (int i = 0; i < count; i++) {
+                all[i] = from + i;
+            }
+            return all;
+        }
+        if (threshold < 3) {
+            // Room for the ends only
+            return threshold <= 0 ? new int[0] : threshold == 1 ? new int[] {from} : new int[] {from, to - 1};
+        }
+
+        int[] kept = new int[threshold];
+        int size = 0;
+        kept[size++] = from;
+
+        // Buckets over the points between the ends
+        double bucketSize = (double) (count - 2) / (threshold - 2);
+        int previous = from;
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            int start = from + 1 + (int) (bucket * bucketSize);
+            int end = from + 1 + (int) ((bucket + 1) * bucketSize);
+
+            // Average of the next bucket (the last point for the last bucket)
+            int nextStart = end;
+            int nextEnd = Math.min(to, from + 1 + (int) ((bucket + 2) * bucketSize));
+            if (bucket == threshold - 3) {
+                nextStart = to - 1;
+                nextEnd = to;
+            }
+            double avgX = 0;
+            double avgY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                avgX += x.applyAsDouble(i);
+                avgY += y.applyAsDouble(i);
+            }
+            int nextCount = Math.max(1, nextEnd - nextStart);
+            avgX /= nextCount;
+            avgY /= nextCount;
+
+            double previousX = x.applyAsDouble(previous);
+            double previousY = y.applyAsDouble(previous);
+            double maxArea = -1;
+            int chosen = start;
+            for (int i = start; i < end; i++) {
+                // Twice the triangle's area; the factor doesn't change the comparison
+                double area = Math.abs((previousX - avgX) * (y.applyAsDouble(i) - previousY)
+                    - (previousX - x.applyAsDouble(i)) * (avgY - previousY));
+                if (area > maxArea) {
+                    maxArea = area;
+                    chosen = i;
+                }
+            }
+            kept[size++] = chosen;
+            previous = chosen;
+        }
+
+        kept[size++] = to - 1;
+        return kept;
+    }
+}
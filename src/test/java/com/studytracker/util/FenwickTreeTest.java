@@ -0,0 +1,146 @@
+package com.studytracker.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FenwickTreeTest {
+
+    @Test
+    void capacityIsRoundedUpToAPowerOfTwo() {
+        assertEquals(1, new FenwickTree(0).capacity());
+        assertEquals(1, new FenwickTree(1).capacity());
+        assertEquals(8, new FenwickTree(5).capacity());
+        assertEquals(1024, new FenwickTree(1024).capacity());
+    }
+
+    @Test
+    void prefixAndRangeSums() {
+        FenwickTree tree = new FenwickTree(8);
+        long[] values = {3, 0, 5, 1, 0, 2, 7, 4};
+        for (int i = 0; i < values.length; i++) {
+            tree.add(i, values[i]);
+        }
+
+        long sum = 0;
+        for (int i = 0; i < values.length; i++) {
+            sum += values[i];
+            assertEquals(sum, tree.prefixSum(i));
+            assertEquals(values[i], tree.get(i));
+        }
+        assertEquals(22, tree.total());
+        assertEquals(6, tree.rangeSum(2, 4));
+        assertEquals(0, tree.rangeSum(5, 4));
+        assertEquals(0, tree.prefixSum(-1));
+        // Past the capacity, everything is included
+        assertEquals(22, tree.prefixSum(100));
+    }
+
+    @Test
+    void growsWhenAddingPastTheCapacity() {
+        FenwickTree tree = new FenwickTree(1);
+        tree.add(0, 5);
+        tree.add(1, 2);
+        assertEquals(2, tree.capacity());
+
+        // Several doublings at once
+        tree.add(1000, 4);
+        assertEquals(1024, tree.capacity());
+        assertEquals(5, tree.prefixSum(0));
+        assertEquals(7, tree.prefixSum(1));
+        assertEquals(7, tree.prefixSum(999));
+        assertEquals(11, tree.prefixSum(1000));
+        assertEquals(11, tree.total());
+        assertEquals(4, tree.get(1000));
+    }
+
+    @Test
+    void matchesPlainArrayThroughGrowthAndRemovals() {
+        Random random = new Random(42);
+        long[] expected = new long[4096];
+        FenwickTree tree = new FenwickTree(1);
+        for (int step = 0; step < 20_000; step++) {
+            // Indexes reach further as the test goes on, so the tree grows several times
+            int index = random.nextInt(1 + Math.min(expected.length - 1, step / 4));
+            long delta = random.nextInt(11) - 3;
+            expected[index] += delta;
+            tree.add(index, delta);
+
+            int query = random.nextInt(expected.length);
+            long sum = 0;
+            for (int i = 0; i <= query; i++) {
+                sum += expected[i];
+            }
+            assertEquals(sum, tree.prefixSum(query), "prefix sum at " + query + " after step " + step);
+        }
+    }
+
+    @Test
+    void negativeIndexIsRejected() {
+        FenwickTree tree = new FenwickTree(4);
+        assertThrows(IndexOutOfBoundsException.class, () -> tree.add(-1, 1));
+    }
+
+    @Test
+    void lowerBoundFindsFirstIndexReachingTarget() {
+        FenwickTree tree = new FenwickTree(8);
+        // Prefix sums: 0, 0, 2, 2, 5, 6, 6, 10
+        tree.add(2, 2);
+        tree.add(4, 3);
+        tree.add(5, 1);
+        tree.add(7, 4);
+
+        assertEquals(0, tree.lowerBound(0));
+        assertEquals(0, tree.lowerBound(-3));
+        assertEquals(2, tree.lowerBound(1));
+        assertEquals(2, tree.lowerBound(2));
+        assertEquals(4, tree.lowerBound(3));
+        assertEquals(4, tree.lowerBound(5));
+        assertEquals(5, tree.lowerBound(6));
+        assertEquals(7, tree.lowerBound(7));
+        assertEquals(7, tree.lowerBound(10));
+        // Above the total
+        assertEquals(tree.capacity(), tree.lowerBound(11));
+    }
+
+    @Test
+    void lowerBoundAfterGrowth() {
+        FenwickTree tree = new FenwickTree(2);
+        tree.add(1, 1);
+        tree.add(300, 1);
+        tree.add(511, 1);
+
+        assertEquals(512, tree.capacity());
+        assertEquals(1, tree.lowerBound(1));
+        assertEquals(300, tree.lowerBound(2));
+        assertEquals(511, tree.lowerBound(3));
+        assertEquals(512, tree.lowerBound(4));
+    }
+
+    @Test
+    void lowerBoundMatchesLinearSearch() {
+        Random random = new Random(7);
+        int size = 300;
+        long[] values = new long[size];
+        FenwickTree tree = new FenwickTree(1);
+        for (int i = 0; i < size; i++) {
+            values[i] = random.nextInt(4) == 0 ? 0 : random.nextInt(5);
+            tree.add(i, values[i]);
+        }
+        for (long target = 1; target <= tree.total() + 1; target++) {
+            int expected = tree.capacity();
+            long sum = 0;
+            for (int i = 0; i < size; i++) {
+                sum += values[i];
+                if (sum >= target) {
+                    expected = i;
+                    break;
+                }
+            }
+            assertEquals(expected, tree.lowerBound(target), "target " + target);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.studytracker.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.function.IntToDoubleFunction;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LttbTest {
+    private static final IntToDoubleFunction INDEX = i -> i;
+
+    @Test
+    void keepsEveryPointWhenThereAreNoMoreThanThreshold() {
+        assertArrayEquals(new int[] {5, 6, 7}, Lttb.downsample(5, 8, 3, INDEX, INDEX));
+        assertArrayEquals(new int[] {5, 6, 7}, Lttb.downsample(5, 8, 10, INDEX, INDEX));
+        assertArrayEquals(new int[0], Lttb.downsample(5, 5, 3, INDEX, INDEX));
+        assertArrayEquals(new int[0], Lttb.downsample(8, 5, 3, INDEX, INDEX));
+    }
+
+    @Test
+    void smallThresholdsKeepOnlyTheEnds() {
+        assertArrayEquals(new int[0], Lttb.downsample(0, 10, 0, INDEX, INDEX));
+        assertArrayEquals(new int[] {0}, Lttb.downsample(0, 10, 1, INDEX, INDEX));
+        assertArrayEquals(new int[] {0, 9}, Lttb.downsample(0, 10, 2, INDEX, INDEX));
+    }
+
+    @Test
+    void keepsThresholdAscendingPointsWithBothEnds() {
+        IntToDoubleFunction wave = i -> Math.sin(i * 0.37) * 100 + (i % 7);
+        for (int count = 3; count <= 120; count++) {
+            for (int threshold = 3; threshold < count; threshold++) {
+                int from = 1000;
+                int[] kept = Lttb.downsample(from, from + count, threshold, INDEX, wave);
+                String series = count + " points down to " + threshold + ": " + Arrays.toString(kept);
+
+                assertEquals(threshold, kept.length, series);
+                assertEquals(from, kept[0], series);
+                assertEquals(from + count - 1, kept[threshold - 1], series);
+                for (int k = 1; k < threshold; k++) {
+                    assertTrue(kept[k - 1] < kept[k], series);
+                }
+            }
+        }
+    }
+
+    @Test
+    void eachBucketKeepsOnePointOfItsOwn() {
+        // 10 inner points in 4 buckets of 2.5: [1, 3), [3, 6), [6, 8), [8, 11)
+        int[] kept = Lttb.downsample(0, 12, 6, INDEX, i -> i % 2 == 0 ? 0 : 10);
+        assertEquals(6, kept.length);
+        assertTrue(kept[1] >= 1 && kept[1] < 3, Arrays.toString(kept));
+        assertTrue(kept[2] >= 3 && kept[2] < 6, Arrays.toString(kept));
+        assertTrue(kept[3] >= 6 && kept[3] < 8, Arrays.toString(kept));
+        assertTrue(kept[4] >= 8 && kept[4] < 11, Arrays.toString(kept));
+    }
+
+    @Test
+    void spikesNextToTheEndsAreKept() {
+        // The first and last buckets reach the points right after the first and before the last one
+        int count = 1000;
+        int[] kept = Lttb.downsample(0, count, 50, INDEX, i -> i == 1 || i == count - 2 ? 500 : 0);
+        assertEquals(1, kept[1]);
+        assertEquals(count - 2, kept[kept.length - 2]);
+    }
+
+    @Test
+    void keepsPeaksOfTheShape() {
+        int count = 10_000;
+        double[] y = new double[count];
+        for (int i = 0; i < count; i++) {
+            y[i] = Math.sin(i / 500.0);
+        }
+        y[1234] = 50;
+        y[7777] = -50;
+
+        int[] kept = Lttb.downsample(0, count, 100, INDEX, i -> y[i]);
+        assertTrue(Arrays.stream(kept).anyMatch(i -> i == 1234), "peak kept");
+        assertTrue(Arrays.stream(kept).anyMatch(i -> i == 7777), "trough kept");
+    }
+}